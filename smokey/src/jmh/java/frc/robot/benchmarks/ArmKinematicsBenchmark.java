@@ -0,0 +1,95 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: ArmKinematicsBenchmark.java
+// Intent: Forms benchmarks of converting between arm points in space and arm extensions.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import frc.robot.common.ArmKinematics;
+import frc.robot.subsystems.ArmSubsystem;
+
+/**
+ * Benchmarks the kinematics behind ArmSubsystem.setArmToPointInSpace and the arm point in space found each
+ * periodic.  The motors are left out by calling ArmSubsystem.convertPointInSpaceToArmExtensions, which
+ * setArmToPointInSpace uses before setting the extensions, and the arm's ArmKinematics directly.  Each table
+ * lookup is paired with the closed form math it replaces; ArmKinematicsTest checks how far apart they are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArmKinematicsBenchmark {
+    private static final int PointCount = 1024;
+
+    private final double[] yPoints = new double[PointCount];
+    private final double[] zPoints = new double[PointCount];
+    private final double[] horizontalExtensions = new double[PointCount];
+    private final double[] verticalExtensions = new double[PointCount];
+    private final double[] extensions = new double[2];
+    private final double[] point = new double[2];
+    private final ArmKinematics kinematics = ArmSubsystem.getKinematics();
+    private int pointInx = 0;
+
+    @Setup
+    public void setup() {
+        // points around the arm's reach (about 38 to 65 degrees up, 1.0 to 1.8 meters out), most of them reachable
+        Random random = new Random(4682);
+        for (int inx = 0; inx < PointCount; ++inx) {
+            double angle = 0.6 + 0.6 * random.nextDouble();
+            double length = 0.95 + 0.9 * random.nextDouble();
+            yPoints[inx] = length * Math.cos(angle);
+            zPoints[inx] = length * Math.sin(angle);
+            // extensions across the arms' travel, as read from the encoders
+            horizontalExtensions[inx] = kinematics.getMaximumHorizontalArmExtensionMeters() * random.nextDouble();
+            verticalExtensions[inx] = kinematics.getMaximumVerticalArmExtensionMeters() * random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public void convertPointInSpaceToArmExtensions(Blackhole blackhole) {
+        pointInx = (pointInx + 1) & (PointCount - 1);
+        blackhole.consume(ArmSubsystem.convertPointInSpaceToArmExtensions(yPoints[pointInx], zPoints[pointInx], extensions));
+        blackhole.consume(extensions[0]);
+        blackhole.consume(extensions[1]);
+    }
+
+    @Benchmark
+    public void convertPointInSpaceToArmExtensionsClosedForm(Blackhole blackhole) {
+        pointInx = (pointInx + 1) & (PointCount - 1);
+        blackhole.consume(kinematics.convertPointInSpaceToArmExtensionsClosedForm(yPoints[pointInx], zPoints[pointInx], extensions));
+        blackhole.consume(extensions[0]);
+        blackhole.consume(extensions[1]);
+    }
+
+    @Benchmark
+    public void convertArmExtensionsToPointInSpace(Blackhole blackhole) {
+        pointInx = (pointInx + 1) & (PointCount - 1);
+        kinematics.convertArmExtensionsToPointInSpace(horizontalExtensions[pointInx], verticalExtensions[pointInx], point);
+        blackhole.consume(point[0]);
+        blackhole.consume(point[1]);
+    }
+
+    @Benchmark
+    public void convertArmExtensionsToPointInSpaceClosedForm(Blackhole blackhole) {
+        pointInx = (pointInx + 1) & (PointCount - 1);
+        kinematics.convertArmExtensionsToPointInSpaceClosedForm(horizontalExtensions[pointInx], verticalExtensions[pointInx], point);
+        blackhole.consume(point[0]);
+        blackhole.consume(point[1]);
+    }
+}
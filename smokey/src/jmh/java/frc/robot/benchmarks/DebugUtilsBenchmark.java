@@ -0,0 +1,66 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: DebugUtilsBenchmark.java
+// Intent: Forms benchmarks of the measurement continuity check.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.common.DebugUtils;
+
+/**
+ * Benchmarks DebugUtils.hasMeasurementContinuity on lists the size of the drivetrain's yaw and pitch histories,
+ * with the descriptive print off as it is in the control loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DebugUtilsBenchmark {
+    // 9 is the drivetrain's level history size
+    @Param({"9", "50"})
+    public int measurementCount;
+
+    private ArrayList<Double> continuousMeasurements;
+    private ArrayList<Double> discontinuousMeasurements;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(4682);
+        continuousMeasurements = new ArrayList<Double>();
+        discontinuousMeasurements = new ArrayList<Double>();
+        for (int inx = 0; inx < measurementCount; ++inx) {
+            double measurement = 10.0 + random.nextGaussian() * 0.1;
+            continuousMeasurements.add(measurement);
+            discontinuousMeasurements.add(measurement);
+        }
+        // a wrap around from 180 to -180 degrees in the last measurement
+        discontinuousMeasurements.set(measurementCount - 1, -350.0);
+    }
+
+    @Benchmark
+    public boolean continuous() {
+        return DebugUtils.hasMeasurementContinuity(continuousMeasurements, false);
+    }
+
+    @Benchmark
+    public boolean discontinuous() {
+        return DebugUtils.hasMeasurementContinuity(discontinuousMeasurements, false);
+    }
+}
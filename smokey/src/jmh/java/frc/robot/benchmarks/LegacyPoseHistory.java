@@ -0,0 +1,190 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: LegacyPoseHistory.java
+// Intent: Forms a copy of the drivetrain position history from before PoseHistoryBuffer, as a benchmark baseline.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * The ArrayDeque of Pose2d history and the ArrayList based queries DrivetrainSubsystem used before PoseHistoryBuffer,
+ * kept as they were so PoseHistoryBenchmark can compare against them.  Note the queries walk the deque from its
+ * head, so their window is the oldest stored poses rather than the most recent.
+ */
+public class LegacyPoseHistory {
+    private static final int CommandSchedulerPeriodMilliseconds = 20;
+    private static final int CommandSchedulerCyclesPerSecond = 1000/CommandSchedulerPeriodMilliseconds;
+
+    private final int positionHistoryStorageSize;
+    private final ArrayDeque<Pose2d> historicPositions;
+
+    /**
+     * Constructor for the legacy history
+     * @param positionHistoryStorageSize - the number of poses kept
+     */
+    public LegacyPoseHistory(int positionHistoryStorageSize) {
+        this.positionHistoryStorageSize = positionHistoryStorageSize;
+        this.historicPositions = new ArrayDeque<Pose2d>(positionHistoryStorageSize + 1);
+    }
+
+    /**
+     * Adds a pose, as storeUpdatedPosition did
+     * @param currentPosition - the pose
+     */
+    public void add(Pose2d currentPosition) {
+        this.historicPositions.add(currentPosition);
+        while(this.historicPositions.size() > positionHistoryStorageSize) {
+            this.historicPositions.remove();
+        }
+    }
+
+    /**
+     * getRecentTotalDistanceInMeters as it was
+     * @param historicDurationMilliseconds - the total milliseconds to look back in time
+     * @return the distance in meters
+     */
+    public double getRecentTotalDistanceInMeters(int historicDurationMilliseconds) {
+        ArrayList<Double> distances = this.getRecentDistanceTraveled(historicDurationMilliseconds);
+        double resultDistance = 0.0;
+        for(int inx = 0; inx < distances.size(); ++inx) {
+            resultDistance += distances.get(inx);
+        }
+        return resultDistance;
+    }
+
+    /**
+     * getRecentAverageVelocityInMetersPerSecond as it was
+     * @param historicDurationMilliseconds - the total milliseconds to look back in time
+     * @return the velocity in meters per second
+     */
+    public double getRecentAverageVelocityInMetersPerSecond(int historicDurationMilliseconds) {
+        ArrayList<Double> recentVelocities = this.getRecentVelocities(historicDurationMilliseconds);
+        double sumOfVelocities = 0.0;
+        int countOfDeltas = 0;
+        for(; countOfDeltas < recentVelocities.size(); ++countOfDeltas) {
+            sumOfVelocities += recentVelocities.get(countOfDeltas);
+        }
+        return sumOfVelocities/countOfDeltas;
+    }
+
+    /**
+     * getRecentAverageAngularVelocityInRadiansPerSecond as it was
+     * @param historicDurationMilliseconds - the total milliseconds to look back in time
+     * @return the angular velocity in radians per second
+     */
+    public double getRecentAverageAngularVelocityInRadiansPerSecond(int historicDurationMilliseconds) {
+        ArrayList<Double> recentAngularVelocities = this.getRecentAngularVelocities(historicDurationMilliseconds);
+        double sumOfAngularVelocities = 0.0;
+        int countOfDeltas = 0;
+        for(; countOfDeltas < recentAngularVelocities.size(); ++countOfDeltas) {
+            sumOfAngularVelocities += recentAngularVelocities.get(countOfDeltas);
+        }
+        return sumOfAngularVelocities/countOfDeltas;
+    }
+
+    /**
+     * getRecentAverageAccelerationInMetersPerSecondSquared as it was
+     * @param historicDurationMilliseconds - the total milliseconds to look back in time
+     * @return the acceleration in meters/second^2
+     */
+    public double getRecentAverageAccelerationInMetersPerSecondSquared(int historicDurationMilliseconds) {
+        ArrayList<Double> recentAccelerations = this.getRecentAccelerations(historicDurationMilliseconds);
+        double sumOfAccelerations = 0.0;
+        int countOfDeltas = 0;
+        for(; countOfDeltas < recentAccelerations.size(); ++countOfDeltas) {
+            sumOfAccelerations += recentAccelerations.get(countOfDeltas);
+        }
+        return sumOfAccelerations/countOfDeltas;
+    }
+
+    private ArrayList<Transform2d> getRecentTransforms(int historicDurationMilliseconds) {
+        int intendedCount = historicDurationMilliseconds/CommandSchedulerPeriodMilliseconds;
+        int maxCount = (intendedCount>positionHistoryStorageSize ? positionHistoryStorageSize : intendedCount);
+        int currentCount = 0;
+        ArrayList<Transform2d> transforms = new ArrayList<Transform2d>();
+        Pose2d lastPosition = null;
+        Pose2d currentPosition = null;
+        for (Iterator<Pose2d> iter = this.historicPositions.iterator(); iter.hasNext() && currentCount < maxCount; ++currentCount ) {
+            currentPosition = iter.next();
+            if(lastPosition != null) {
+                Transform2d nextTransform = new Transform2d(lastPosition, currentPosition);
+                transforms.add(nextTransform);
+            }
+            lastPosition = currentPosition;
+        }
+        return transforms;
+    }
+
+    private ArrayList<Double> getRecentDistanceTraveled(int historicDurationMilliseconds) {
+        ArrayList<Transform2d> transforms = this.getRecentTransforms(historicDurationMilliseconds);
+        ArrayList<Double> resultDistances = new ArrayList<Double>();
+        Translation2d previousTranslation = null;
+        Translation2d currentTranslation = null;
+        for(int inx = 0; inx < transforms.size(); ++inx) {
+            currentTranslation = transforms.get(inx).getTranslation();
+            if(previousTranslation != null) {
+                resultDistances.add(previousTranslation.getDistance(currentTranslation));
+            }
+            previousTranslation = currentTranslation;
+        }
+        return resultDistances;
+    }
+
+    private ArrayList<Double> getRecentAngularVelocities(int historicDurationMilliseconds) {
+        ArrayList<Transform2d> transforms = this.getRecentTransforms(historicDurationMilliseconds);
+        ArrayList<Double> resultRotationVelocities = new ArrayList<Double>();
+        Transform2d previousTransform = null;
+        Transform2d currentTransform = null;
+        for(int inx = 0; inx < transforms.size(); ++inx) {
+            currentTransform = transforms.get(inx);
+            if(previousTransform != null) {
+                double currentRadians = MathUtil.angleModulus(currentTransform.getRotation().getRadians());
+                double previousRadians = MathUtil.angleModulus(previousTransform.getRotation().getRadians());
+                double deltaRadians = MathUtil.angleModulus(currentRadians - previousRadians);
+                resultRotationVelocities.add(deltaRadians * CommandSchedulerCyclesPerSecond);
+            }
+            previousTransform = currentTransform;
+        }
+        return resultRotationVelocities;
+    }
+
+    private ArrayList<Double> getRecentVelocities(int historicDurationMilliseconds) {
+        ArrayList<Double> recentDistances = this.getRecentDistanceTraveled(historicDurationMilliseconds);
+        ArrayList<Double> resultVelocities = new ArrayList<Double>();
+        for(int inx = 0; inx < recentDistances.size(); ++inx) {
+            double currentDistance = recentDistances.get(inx);
+            double currentVelocity = currentDistance * CommandSchedulerCyclesPerSecond;
+            resultVelocities.add(currentVelocity);
+        }
+        return resultVelocities;
+    }
+
+    private ArrayList<Double> getRecentAccelerations(int historicDurationMilliseconds) {
+        ArrayList<Double> recentVelocities = this.getRecentVelocities(historicDurationMilliseconds);
+        ArrayList<Double> resultAccelerations = new ArrayList<Double>();
+        Double currentVelocity = null;
+        Double previousVelocity = null;
+        for(int inx = 0; inx < recentVelocities.size(); ++inx) {
+            currentVelocity = recentVelocities.get(inx);
+            if(previousVelocity != null) {
+                double currentAcceleration = (currentVelocity - previousVelocity) * CommandSchedulerCyclesPerSecond;
+                resultAccelerations.add(currentAcceleration);
+            }
+            previousVelocity = currentVelocity;
+        }
+        return resultAccelerations;
+    }
+}
@@ -0,0 +1,134 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: PoseHistoryBenchmark.java
+// Intent: Forms benchmarks of the drivetrain's position history statistics.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.common.PoseHistoryBuffer;
+
+/**
+ * Benchmarks the PoseHistoryBuffer behind DrivetrainSubsystem's historic distance, velocity and acceleration,
+ * sized the way the drivetrain sizes it (5 seconds of 20 ms steps) and full, as it is after the first 5 seconds.
+ * The legacy benchmarks run the same queries on the ArrayDeque history it replaced, as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseHistoryBenchmark {
+    private static final double PeriodSeconds = 0.02;
+    private static final int Capacity = 250;
+
+    // the number of 20 ms steps looked back over, e.g., 25 steps is the 500 ms window used by auto balance
+    @Param({"5", "25", "249"})
+    public int steps;
+
+    private PoseHistoryBuffer history;
+    private LegacyPoseHistory legacyHistory;
+    private double timestamp;
+    private double legacyTimestamp;
+
+    @Setup
+    public void setup() {
+        history = new PoseHistoryBuffer(Capacity, PeriodSeconds);
+        legacyHistory = new LegacyPoseHistory(Capacity);
+        timestamp = 0.0;
+        legacyTimestamp = 0.0;
+        for (int inx = 0; inx < Capacity; ++inx) {
+            this.addNextPose();
+            this.addNextLegacyPose();
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        this.addNextPose();
+    }
+
+    @Benchmark
+    public double getTotalDistance() {
+        return history.getTotalDistance(steps);
+    }
+
+    @Benchmark
+    public double getAverageVelocity() {
+        return history.getAverageVelocity(steps);
+    }
+
+    @Benchmark
+    public double getAverageAngularVelocity() {
+        return history.getAverageAngularVelocity(steps);
+    }
+
+    @Benchmark
+    public double getAverageAcceleration() {
+        return history.getAverageAcceleration(steps);
+    }
+
+    @Benchmark
+    public Pose2d getPoseAt() {
+        // a vision measurement's capture time, between two stored poses
+        return history.getPoseAt(timestamp - (steps + 0.5) * PeriodSeconds);
+    }
+
+    @Benchmark
+    public void legacyAdd() {
+        this.addNextLegacyPose();
+    }
+
+    @Benchmark
+    public double legacyGetTotalDistance() {
+        return legacyHistory.getRecentTotalDistanceInMeters(this.getWindowMilliseconds());
+    }
+
+    @Benchmark
+    public double legacyGetAverageVelocity() {
+        return legacyHistory.getRecentAverageVelocityInMetersPerSecond(this.getWindowMilliseconds());
+    }
+
+    @Benchmark
+    public double legacyGetAverageAngularVelocity() {
+        return legacyHistory.getRecentAverageAngularVelocityInRadiansPerSecond(this.getWindowMilliseconds());
+    }
+
+    @Benchmark
+    public double legacyGetAverageAcceleration() {
+        return legacyHistory.getRecentAverageAccelerationInMetersPerSecondSquared(this.getWindowMilliseconds());
+    }
+
+    // the legacy queries take a window in milliseconds and turn it back into steps
+    private int getWindowMilliseconds() {
+        return (int)Math.round(steps * PeriodSeconds * 1000.0);
+    }
+
+    private void addNextPose() {
+        timestamp += PeriodSeconds;
+        // an accelerating arc, so no two steps are the same
+        double distance = 0.25 * timestamp * timestamp;
+        history.add(timestamp, Math.cos(distance), Math.sin(distance), distance);
+    }
+
+    private void addNextLegacyPose() {
+        legacyTimestamp += PeriodSeconds;
+        double distance = 0.25 * legacyTimestamp * legacyTimestamp;
+        legacyHistory.add(new Pose2d(Math.cos(distance), Math.sin(distance), new Rotation2d(distance)));
+    }
+}
@@ -0,0 +1,135 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveModuleBenchmark.java
+// Intent: Forms benchmarks of the swerve module's steer angle optimization.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.swerveHelpers.DriveController;
+import frc.robot.swerveHelpers.SnapshotSteerController;
+import frc.robot.swerveHelpers.SwerveModule;
+import frc.robot.swerveHelpers.SwerveModuleFactory;
+
+/**
+ * Benchmarks SwerveModule.set, which picks the shortest steer rotation and reverses the drive when that is shorter.
+ * The module is made by SwerveModuleFactory with stub drive and steer controllers in place of the motors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveModuleBenchmark {
+    private static final int RequestCount = 1024;
+
+    private final double[] steerAngles = new double[RequestCount];
+    private final double[] driveVoltages = new double[RequestCount];
+    private final StubSteerController steerController = new StubSteerController();
+    private final StubDriveController driveController = new StubDriveController();
+    private SwerveModule module;
+    private int requestInx = 0;
+
+    @Setup
+    public void setup() {
+        module = new SwerveModuleFactory<Object, Object>(
+            null,
+            (driveConfiguration, moduleConfiguration) -> driveController,
+            (steerConfiguration, moduleConfiguration) -> steerController).create(null, null);
+
+        // requested angles are from the kinematics, within (-pi, pi], and hit every branch of the optimization
+        Random random = new Random(4682);
+        for (int inx = 0; inx < RequestCount; ++inx) {
+            steerAngles[inx] = (random.nextDouble() * 2.0 - 1.0) * Math.PI;
+            driveVoltages[inx] = (random.nextDouble() * 2.0 - 1.0) * 12.0;
+        }
+    }
+
+    @Benchmark
+    public double set() {
+        requestInx = (requestInx + 1) & (RequestCount - 1);
+        module.set(driveVoltages[requestInx], steerAngles[requestInx]);
+        // the module reaches the last reference before the next request
+        steerController.stateAngle = steerController.referenceAngle;
+        return driveController.referenceVoltage;
+    }
+
+    private static class StubDriveController implements DriveController {
+        private double referenceVoltage = 0.0;
+        private double distance = 0.0;
+
+        @Override
+        public void setReferenceVoltage(double voltage) {
+            referenceVoltage = voltage;
+        }
+
+        @Override
+        public void refreshSignals() {
+        }
+
+        @Override
+        public double getStateVelocity() {
+            return 0.0;
+        }
+
+        @Override
+        public void setDistance(double value) {
+            distance = value;
+        }
+
+        @Override
+        public double getDistance() {
+            return distance;
+        }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+        }
+    }
+
+    private static class StubSteerController implements SnapshotSteerController {
+        private double referenceAngle = 0.0;
+        private double stateAngle = 0.0;
+
+        @Override
+        public double getReferenceAngle() {
+            return referenceAngle;
+        }
+
+        @Override
+        public void setReferenceAngle(double referenceAngleRadians) {
+            referenceAngle = referenceAngleRadians;
+        }
+
+        @Override
+        public double getStateAngle() {
+            return stateAngle;
+        }
+
+        @Override
+        public void refreshSignals() {
+        }
+
+        @Override
+        public double readStateAngle() {
+            return stateAngle;
+        }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+        }
+    }
+}
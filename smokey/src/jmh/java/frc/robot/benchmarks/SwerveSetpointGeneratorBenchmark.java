@@ -0,0 +1,81 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveSetpointGeneratorBenchmark.java
+// Intent: Forms benchmarks of the swerve setpoint generator.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import frc.robot.common.SwerveSetpointGenerator;
+
+/**
+ * Benchmarks SwerveSetpointGenerator.generate, which the drivetrain calls once per loop when
+ * Constants.DrivetrainUseSetpointGenerator is set.  The held benchmark repeats a request that has been reached,
+ * the cheapest case.  The changing benchmark jumps to a new random request every loop, so the steering and drive
+ * limit searches run every call, the most expensive case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveSetpointGeneratorBenchmark {
+    private static final int RequestCount = 1024;
+    private static final double HalfTrackMeters = 0.4363 / 2.0;
+    private static final int ModuleCount = 4;
+
+    private final ChassisSpeeds[] requests = new ChassisSpeeds[RequestCount];
+    private final ChassisSpeeds heldRequest = new ChassisSpeeds(2.0, 1.0, 1.5);
+    private final ChassisSpeeds setpoint = new ChassisSpeeds();
+    private final double[] moduleSpeeds = new double[ModuleCount];
+    private final double[] moduleAngles = new double[ModuleCount];
+    private SwerveSetpointGenerator generator;
+    private int requestInx = 0;
+
+    @Setup
+    public void setup() {
+        // the drivetrain's geometry and limits
+        generator = new SwerveSetpointGenerator(
+            new double[] {HalfTrackMeters, HalfTrackMeters, -HalfTrackMeters, -HalfTrackMeters},
+            new double[] {HalfTrackMeters, -HalfTrackMeters, HalfTrackMeters, -HalfTrackMeters},
+            4.3251,
+            6.0,
+            4.0 * Math.PI,
+            0.02);
+
+        Random random = new Random(4682);
+        for (int inx = 0; inx < RequestCount; ++inx) {
+            requests[inx] = new ChassisSpeeds(
+                (random.nextDouble() * 2.0 - 1.0) * 4.0,
+                (random.nextDouble() * 2.0 - 1.0) * 4.0,
+                (random.nextDouble() * 2.0 - 1.0) * 8.0);
+        }
+    }
+
+    @Benchmark
+    public double generateHeld() {
+        generator.generate(heldRequest, 0.0, 0.0, setpoint, moduleSpeeds, moduleAngles);
+        return moduleSpeeds[0];
+    }
+
+    @Benchmark
+    public double generateChanging() {
+        requestInx = (requestInx + 1) & (RequestCount - 1);
+        generator.generate(requests[requestInx], 0.0, 0.0, setpoint, moduleSpeeds, moduleAngles);
+        return moduleSpeeds[0];
+    }
+}
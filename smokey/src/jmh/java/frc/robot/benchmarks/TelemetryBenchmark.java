@@ -0,0 +1,107 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TelemetryBenchmark.java
+// Intent: Forms benchmarks of one loop of drivetrain telemetry, SmartDashboard puts against publisher channels.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.common.TelemetryLevel;
+import frc.robot.common.TelemetryPublisher;
+
+/**
+ * Benchmarks the telemetry the drivetrain sends each loop.  The SmartDashboard benchmark is the baseline, the
+ * string keyed puts DrivetrainSubsystem made every loop before TelemetryPublisher.  The channel benchmark sets
+ * the same values on channels with the drivetrain's decimations and flushes, as Robot.robotPeriodic does.
+ * Values change every loop, so the channel benchmark is not helped by skipping unchanged values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryBenchmark {
+    private static final int ModuleCount = 4;
+
+    private TelemetryPublisher telemetry;
+    private TelemetryPublisher.DoubleChannel headingTelemetry;
+    private TelemetryPublisher.DoubleChannel xCoordinateTelemetry;
+    private TelemetryPublisher.DoubleChannel yCoordinateTelemetry;
+    private TelemetryPublisher.DoubleChannel pitchTelemetry;
+    private TelemetryPublisher.DoubleChannel rollTelemetry;
+    private TelemetryPublisher.DoubleArrayChannel modulePositionsTelemetry;
+    private TelemetryPublisher.DoubleChannel droppedSamplesTelemetry;
+    private TelemetryPublisher.BooleanChannel navxCalibratingTelemetry;
+    private TelemetryPublisher.BooleanChannel navxCalibratedTelemetry;
+    private int loop = 0;
+
+    @Setup
+    public void setup() {
+        // channel keys are distinct from the baseline keys so the two benchmarks do not share topics
+        telemetry = TelemetryPublisher.getInstance();
+        headingTelemetry = telemetry.addDouble("Benchmark/RobotFieldHeadingDegrees", TelemetryLevel.Competition, 1);
+        xCoordinateTelemetry = telemetry.addDouble("Benchmark/RobotFieldXCoordinateMeters", TelemetryLevel.Competition, 1);
+        yCoordinateTelemetry = telemetry.addDouble("Benchmark/RobotFieldYCoordinateMeters", TelemetryLevel.Competition, 1);
+        pitchTelemetry = telemetry.addDouble("Benchmark/RobotPitchDegrees", TelemetryLevel.Debug, 1);
+        rollTelemetry = telemetry.addDouble("Benchmark/RobotRollDegrees", TelemetryLevel.Debug, 1);
+        modulePositionsTelemetry = telemetry.addDoubleArray("Benchmark/SwerveModulePositions", TelemetryLevel.Debug, 5, ModuleCount * 2);
+        droppedSamplesTelemetry = telemetry.addDouble("Benchmark/OdometryDroppedSamples", TelemetryLevel.Debug, 50);
+        navxCalibratingTelemetry = telemetry.addBoolean("Benchmark/NavX is calibrating", TelemetryLevel.Competition, 25);
+        navxCalibratedTelemetry = telemetry.addBoolean("Benchmark/NavX is calibrated", TelemetryLevel.Competition, 25);
+    }
+
+    @Benchmark
+    public void smartDashboardLoop() {
+        double value = ++loop;
+        SmartDashboard.putBoolean("NavX is calibrating", (loop & 1) == 0);
+        SmartDashboard.putBoolean("NavX is calibrated", (loop & 1) == 1);
+        SmartDashboard.putNumber("RobotFieldHeadingDegrees", value);
+        SmartDashboard.putNumber("RobotFieldXCoordinateMeters", value + 1.0);
+        SmartDashboard.putNumber("RobotFieldYCoordinateMeters", value + 2.0);
+        SmartDashboard.putNumber("RobotPitchDegrees", value + 3.0);
+        SmartDashboard.putNumber("RobotRollDegrees", value + 4.0);
+        SmartDashboard.putNumber("FrontLeftAngleDegrees", value + 5.0);
+        SmartDashboard.putNumber("FrontLeftDistanceMeters", value + 6.0);
+        SmartDashboard.putNumber("FrontRightAngleDegrees", value + 7.0);
+        SmartDashboard.putNumber("FrontRightDistanceMeters", value + 8.0);
+        SmartDashboard.putNumber("BackLeftAngleDegrees", value + 9.0);
+        SmartDashboard.putNumber("BackLeftDistanceMeters", value + 10.0);
+        SmartDashboard.putNumber("BackRightAngleDegrees", value + 11.0);
+        SmartDashboard.putNumber("BackRightDistanceMeters", value + 12.0);
+        SmartDashboard.putNumber("OdometryDroppedSamples", value + 13.0);
+    }
+
+    @Benchmark
+    public void telemetryPublisherLoop() {
+        double value = ++loop;
+        navxCalibratingTelemetry.set((loop & 1) == 0);
+        navxCalibratedTelemetry.set((loop & 1) == 1);
+        headingTelemetry.set(value);
+        xCoordinateTelemetry.set(value + 1.0);
+        yCoordinateTelemetry.set(value + 2.0);
+        if (pitchTelemetry.isEnabled()) {
+            pitchTelemetry.set(value + 3.0);
+            rollTelemetry.set(value + 4.0);
+        }
+        if (modulePositionsTelemetry.isEnabled()) {
+            for (int inx = 0; inx < ModuleCount * 2; ++inx) {
+                modulePositionsTelemetry.set(inx, value + 5.0 + inx);
+            }
+        }
+        droppedSamplesTelemetry.set(value + 13.0);
+        telemetry.flush();
+    }
+}
@@ -0,0 +1,132 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoryBenchmark.java
+// Intent: Forms benchmarks of trajectory generation and sampling.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.common.SwerveTrajectoryConfig;
+import frc.robot.common.SwerveTrajectoryGenerator;
+import frc.robot.common.TrajectoryRequest;
+import frc.robot.common.TrajectorySampler;
+import frc.robot.control.Trajectories;
+import frc.robot.subsystems.DrivetrainSubsystem;
+
+/**
+ * Benchmarks generating the auto trajectories, one at a time and as a batch, and sampling a driven trajectory
+ * once per loop with Trajectory.sample and with TrajectorySampler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrajectoryBenchmark {
+    private static final double LoopPeriodSeconds = 0.02;
+
+    private SwerveTrajectoryConfig config;
+    private Pose2d start;
+    private ArrayList<Translation2d> interiorWaypoints;
+    private Pose2d end;
+    private ArrayList<Pose2d> poseWaypoints;
+    private List<TrajectoryRequest> requests;
+    private Trajectory drivenTrajectory;
+    private TrajectorySampler sampler;
+    private double[] sampleTimes;
+
+    @Setup
+    public void setup() {
+        config = DrivetrainSubsystem.createTrajectoryConfig();
+
+        // the left path from node 1 out of the community
+        start = new Pose2d(1.678, 4.994, Rotation2d.fromDegrees(180));
+        interiorWaypoints = new ArrayList<Translation2d>();
+        interiorWaypoints.add(new Translation2d(2.1, 4.67));
+        interiorWaypoints.add(new Translation2d(3.7, 4.67));
+        end = new Pose2d(5.3, 4.67, Rotation2d.fromDegrees(0));
+
+        // the path from behind the ramp onto the ramp
+        poseWaypoints = new ArrayList<Pose2d>();
+        poseWaypoints.add(new Pose2d(5.27, 2.41, Rotation2d.fromDegrees(180)));
+        poseWaypoints.add(new Pose2d(3.34, 2.41, Rotation2d.fromDegrees(180)));
+
+        requests = new ArrayList<TrajectoryRequest>();
+        requests.add(new TrajectoryRequest(start, interiorWaypoints, end, config));
+        requests.add(new TrajectoryRequest(new Pose2d(1.678, 0.506, Rotation2d.fromDegrees(180)),
+            List.of(new Translation2d(2.1, .69), new Translation2d(3.7, .69)),
+            new Pose2d(5.3, .69, Rotation2d.fromDegrees(0)), config));
+        requests.add(new TrajectoryRequest(end, List.of(new Translation2d(5.81, 2.748)),
+            new Pose2d(5.27, 2.41, Rotation2d.fromDegrees(180)), config));
+        requests.add(new TrajectoryRequest(poseWaypoints, config));
+
+        drivenTrajectory = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null).getLeftToOntoRampTrajectory();
+        sampler = new TrajectorySampler(drivenTrajectory);
+        int sampleCount = (int)Math.ceil(drivenTrajectory.getTotalTimeSeconds() / LoopPeriodSeconds) + 1;
+        sampleTimes = new double[sampleCount];
+        for (int inx = 0; inx < sampleCount; ++inx) {
+            sampleTimes[inx] = inx * LoopPeriodSeconds;
+        }
+    }
+
+    @Benchmark
+    public Trajectory generateTrajectory() {
+        return SwerveTrajectoryGenerator.generateTrajectory(start, interiorWaypoints, end, config);
+    }
+
+    @Benchmark
+    public Trajectory generateTrajectoryFromPoses() {
+        // generateTrajectory replaces the first and last waypoints, so give it a copy
+        return SwerveTrajectoryGenerator.generateTrajectory(new ArrayList<Pose2d>(poseWaypoints), config);
+    }
+
+    @Benchmark
+    public void generateSerially(Blackhole blackhole) {
+        for (int inx = 0; inx < requests.size(); ++inx) {
+            blackhole.consume(requests.get(inx).generate());
+        }
+    }
+
+    @Benchmark
+    public void generateAll(Blackhole blackhole) {
+        List<CompletableFuture<Trajectory>> futures = SwerveTrajectoryGenerator.generateAll(requests);
+        for (int inx = 0; inx < futures.size(); ++inx) {
+            blackhole.consume(futures.get(inx).join());
+        }
+    }
+
+    @Benchmark
+    public void sampleWithTrajectory(Blackhole blackhole) {
+        for (int inx = 0; inx < sampleTimes.length; ++inx) {
+            blackhole.consume(drivenTrajectory.sample(sampleTimes[inx]));
+        }
+    }
+
+    @Benchmark
+    public void sampleWithSampler(Blackhole blackhole) {
+        sampler.reset();
+        for (int inx = 0; inx < sampleTimes.length; ++inx) {
+            blackhole.consume(sampler.sample(sampleTimes[inx]).poseMeters);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: VectorUtilsBenchmark.java
+// Intent: Forms benchmarks of the vector helpers used by auto balance.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Quaternion;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Translation3d;
+import frc.robot.common.VectorUtils;
+
+/**
+ * Benchmarks VectorUtils.rotateByQuaternion over the small tilts the robot sees on the charge station.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VectorUtilsBenchmark {
+    private static final int RotationCount = 1024;
+
+    private final Quaternion[] rotations = new Quaternion[RotationCount];
+    private final Translation3d up = new Translation3d(0.0, 0.0, 1.0);
+    private int rotationInx = 0;
+
+    @Setup
+    public void setup() {
+        // pitch and roll within 15 degrees, any yaw
+        Random random = new Random(4682);
+        for (int inx = 0; inx < RotationCount; ++inx) {
+            rotations[inx] = new Rotation3d(
+                Math.toRadians((random.nextDouble() * 2.0 - 1.0) * 15.0),
+                Math.toRadians((random.nextDouble() * 2.0 - 1.0) * 15.0),
+                (random.nextDouble() * 2.0 - 1.0) * Math.PI).getQuaternion();
+        }
+    }
+
+    @Benchmark
+    public Translation3d rotateByQuaternion() {
+        rotationInx = (rotationInx + 1) & (RotationCount - 1);
+        return VectorUtils.rotateByQuaternion(up, rotations[rotationInx]);
+    }
+}
@@ -53,6 +53,19 @@ public final class Constants {
     public static final int BACK_RIGHT_MODULE_STEER_ENCODER = 12; 
     public static final double BACK_RIGHT_MODULE_STEER_OFFSET = -Math.toRadians(-32.881 + 172.88 + 180.0 + 4.83 - 1); 
 
+    // *****************************************************************
+    // drivetrain odometry constants
+    // rate the swerve modules and navx are sampled for odometry, rates at or below 50Hz sample on the scheduler thread
+    public static final double DrivetrainOdometrySampleRateHz = 200.0;
+    // seconds of odometry samples that can be held between drivetrain periodic calls
+    public static final double DrivetrainOdometrySampleBufferSeconds = 0.25;
+
+    // *****************************************************************
+    // drivetrain setpoint constants
+    // true limits each swerve module's steering and wheel acceleration, false limits only the chassis acceleration
+    // off until it has been driven on the robot, the chassis limiter also limits angular acceleration
+    public static final boolean DrivetrainUseSetpointGenerator = false;
+
     // *****************************************************************
     // arm constants
     public static final int HorizontalArmDriveMotorCanId = 13;
@@ -80,6 +93,15 @@ public final class Constants {
     // *****************************************************************
     // navx isLevel tolerence in degrees
     public static final double navxTolDegrees = 4;
+
+    // *****************************************************************
+    // auto balance constants
+    // the rate the charge station tilt must fall toward level to count as tipping
+    public static final double AutoBalanceTipRateDegreesPerSecond = 15.0;
+    // the tilt rate below which a tipped charge station has settled
+    public static final double AutoBalanceSettledRateDegreesPerSecond = 2.0;
+    // how far ahead the tilt is predicted when deciding to stop
+    public static final double AutoBalanceLeadSeconds = 0.1;
     // ************************************
     // trajectory constants
     public static final double TrajectoryMaxAcceleration = 1;
@@ -91,6 +113,9 @@ public final class Constants {
     // *************************************** 
     // For auto constants
     public static final double snoutDepth = Units.inchesToMeters(2.75);
+    // auto poses and vision are measured from our own alliance wall, the red alliance's side of the field is the blue
+    // alliance's side reflected across the long center line of the field
+    public static final double FieldWidthMeters = Units.inchesToMeters(315.5);
 
     //*****************************************
     // Fine placement constants
@@ -155,4 +180,14 @@ public final class Constants {
     public static final int EveryBotMotorPdpPortId = 8;
     public static final double EveryBotMotorMaximuCurrentAmps = 45.5;
 
+    // ********************************************************************
+    // Telemetry Constants
+    // when true debug level telemetry channels are never published
+    public static final boolean TelemetryCompetitionMode = false;
+
+    // ********************************************************************
+    // CAN bus Constants
+    // warn at startup when the estimated bus utilization is above this fraction
+    public static final double CanBusUtilizationWarningThreshold = 0.7;
+
 }
\ No newline at end of file
@@ -13,6 +13,8 @@ package frc.robot;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.common.LoopProfiler;
+import frc.robot.common.TelemetryPublisher;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -34,6 +36,9 @@ public class Robot extends TimedRobot {
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+
+    // bound after every button binding so it runs at the end of button polling, where the commands start
+    CommandScheduler.getInstance().getDefaultButtonLoop().bind(LoopProfiler.getInstance()::markCommandsStart);
   }
 
   /**
@@ -45,19 +50,32 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    LoopProfiler.getInstance().beginLoop();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+
+    // publish all telemetry gathered by this loop in one batch
+    TelemetryPublisher.getInstance().flush();
+
+    LoopProfiler.getInstance().endLoop();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    // write the loop timing of the period that just ended to the data log
+    LoopProfiler.getInstance().dump();
+  }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    // build the selected autonomous routine in the background when the selection changes
+    m_robotContainer.disabledPeriodic();
+  }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
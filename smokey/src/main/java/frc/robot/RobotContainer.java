@@ -28,6 +28,7 @@ import frc.robot.commands.AllignWithTag;
 import frc.robot.commands.RumbleCommand;
 import frc.robot.commands.ArmToLocationCommand.ArmLocation;
 import frc.robot.control.AutonomousChooser;
+import frc.robot.control.CanBusBudgetTable;
 import frc.robot.control.InstalledHardware;
 import frc.robot.control.ManualInputInterfaces;
 import frc.robot.control.SubsystemCollection;
@@ -57,6 +58,9 @@ public class RobotContainer {
    */
   public RobotContainer() {
 
+    // report the expected CAN bus load before any devices are configured
+    CanBusBudgetTable.Budget.checkBudget(Constants.CanBusUtilizationWarningThreshold);
+
     // init the pdp watcher
     this.initializePowerDistributionPanelWatcherSubsystem();
 
@@ -112,6 +116,13 @@ public class RobotContainer {
     return autonomousChooser.getCommand();
   }
 
+  /**
+   * Use this to keep the selected autonomous routine built while the robot is disabled.
+   */
+  public void disabledPeriodic() {
+    autonomousChooser.update();
+  }
+
 
   /**
    * 
@@ -119,7 +130,9 @@ public class RobotContainer {
   public void teleopInit()
   {
     // NOTE this is enabled in teleop, because when enabled in Auto, it usurps the rest of the auto routine.  
-    if(this.subsystems.getEveryBotPickerSubsystem() != null){
+    // the watch is added the first time teleop starts and kept after that, as a port can only be watched once
+    if(this.subsystems.getEveryBotPickerSubsystem() != null &&
+      !this.subsystems.getPowerDistributionPanelWatcherSubsystem().isPortWatched(Constants.EveryBotMotorPdpPortId)){
           // add a watcher for overcurrent on the 
           EveryBotPickerOverCurrentCommand ebCmd = new EveryBotPickerOverCurrentCommand(
             subsystems.getEveryBotPickerSubsystem(), Constants.overcurrentRumbleTimeSeconds);
@@ -2,7 +2,9 @@ package frc.robot.commands;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.math.controller.PIDController;
+import frc.robot.Constants;
 import frc.robot.common.MotorUtils;
+import frc.robot.common.TiltSampleStream;
 import frc.robot.common.VectorUtils;
 import frc.robot.subsystems.DrivetrainSubsystem;
 import edu.wpi.first.math.geometry.Translation2d;
@@ -14,6 +16,8 @@ import java.lang.Math;
 /**
  * Implements a command that will repeatedly iterate small drive steps and measurements to 
  * determine if the robot has obtained level, therefore attaining auto balance on the ramp.
+ * A drive step is cut short when the tilt sample stream sees the charge station start to tip; the drive is
+ * stopped on the navx thread at that moment and stays stopped until the next step.
  */
 public class AutoBalanceStepCommand extends CommandBase{
   private Timer driveTimer = new Timer();
@@ -25,6 +29,8 @@ public class AutoBalanceStepCommand extends CommandBase{
   // setting wait duration to 0 implements a continuous motion
   private double waitDurationSecondsValue = 0.0;
   private double driveDurationSecondsValue = 0.15;  
+  // after the ramp tips, wait for it to settle before testing for level
+  private double tipSettleDurationSecondsValue = 0.5;
   // higher velocity values caused the robot to slip on the polycarb and not advance as far
   private double velocityValue = 0.36;
   private int numIterations = 0;
@@ -34,6 +40,7 @@ public class AutoBalanceStepCommand extends CommandBase{
   private PIDController pidController = new PIDController(velocityValue/Math.sin(Math.toRadians(10)),0.001,0.0);
 
   private DrivetrainSubsystem drivetrainsubsystem = null;
+  private TiltSampleStream tiltSampleStream = null;
 
   /**
    * A constructor for auto balance step command
@@ -42,6 +49,7 @@ public class AutoBalanceStepCommand extends CommandBase{
    */
   public AutoBalanceStepCommand(DrivetrainSubsystem drivetrainSubsystem) {
     this.drivetrainsubsystem = drivetrainSubsystem;
+    this.tiltSampleStream = drivetrainSubsystem.getTiltSampleStream();
 
     // do not need to add Navx as a requirement because it is read-only
     addRequirements(drivetrainSubsystem);
@@ -56,6 +64,7 @@ public class AutoBalanceStepCommand extends CommandBase{
     yVelocity = velocityVec.getY();
 
     drivetrainsubsystem.drive(new ChassisSpeeds(0.0, 0.0, 0.0));
+    tiltSampleStream.armTipStop(Constants.AutoBalanceTipRateDegreesPerSecond);
     driveTimer.reset();
     waitTimer.reset();
     driveTimer.start();
@@ -67,8 +76,8 @@ public class AutoBalanceStepCommand extends CommandBase{
   public void execute()
   {
 
-    // drive time interval followed by wait time interval
-    if (driveTimer.hasElapsed(this.driveDurationSecondsValue))
+    // drive time interval followed by wait time interval, the drive interval ends early if the ramp tips
+    if (driveTimer.hasElapsed(this.driveDurationSecondsValue) || tiltSampleStream.hasTipped())
     {
       drivetrainsubsystem.drive(new ChassisSpeeds(0.0, 0.0, 0.0));
       waitTimer.start();
@@ -78,7 +87,10 @@ public class AutoBalanceStepCommand extends CommandBase{
       drivetrainsubsystem.drive(new ChassisSpeeds(xVelocity, yVelocity, rotVelocity));
     }
 
-    if (waitTimer.hasElapsed(this.waitDurationSecondsValue))
+    double waitDurationSeconds = tiltSampleStream.hasTipped() ? 
+      Math.max(this.waitDurationSecondsValue, this.tipSettleDurationSecondsValue) : 
+      this.waitDurationSecondsValue;
+    if (waitTimer.hasElapsed(waitDurationSeconds))
     {
       // test for level at the end of the wait cycle. 
       // TODO could also stop after maxItermations here with || (numIterations >= maxIterations))
@@ -89,13 +101,12 @@ public class AutoBalanceStepCommand extends CommandBase{
         // setup the next drive cycle
         numIterations += 1;
         System.out.println("auto balance step command: completed cycle " + numIterations + ".");
-        System.out.println("RecentPitches " + this.drivetrainsubsystem.getRecentPitches());
-        System.out.println("RecentRolls " + this.drivetrainsubsystem.getRecentRolls());
         Translation2d angleOfSteepestAscent = VectorUtils.getAngleOfSteepestAscent(this.drivetrainsubsystem.getEulerAngle());
         Translation2d velocityVec = normalizeXYVelocities(angleOfSteepestAscent);
         xVelocity = velocityVec.getX();
         yVelocity = velocityVec.getY();
 
+        tiltSampleStream.armTipStop(Constants.AutoBalanceTipRateDegreesPerSecond);
         driveTimer.reset();
         waitTimer.reset();
         driveTimer.start();
@@ -107,6 +118,7 @@ public class AutoBalanceStepCommand extends CommandBase{
   @Override
   public void end(boolean interrupted)
   {
+    tiltSampleStream.disarmTipStop();
     drivetrainsubsystem.drive(new ChassisSpeeds(0.0, 0.0, 0.0));
     if(interrupted)
     {
@@ -25,11 +25,13 @@ import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants;
 import frc.robot.common.SwerveTrajectoryConfig;
+import frc.robot.common.TrajectorySampler;
 import frc.robot.subsystems.DrivetrainSubsystem;
 
 public class DriveTrajectoryCommand extends CommandBase{
   private DrivetrainSubsystem drivetrain;
   private Trajectory movementPlan;
+  private TrajectorySampler movementPlanSampler;
   private Timer timer = new Timer();
   private boolean done = false;
   private double expectedDuration = 0.0;
@@ -53,6 +55,7 @@ public class DriveTrajectoryCommand extends CommandBase{
     Trajectory plan) {
     this.drivetrain = drivetrainSubsystem;
     this.movementPlan = plan;
+    this.movementPlanSampler = new TrajectorySampler(plan);
 
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(drivetrainSubsystem);
@@ -74,6 +77,7 @@ public class DriveTrajectoryCommand extends CommandBase{
     drivetrain.drive(new ChassisSpeeds(0.0, 0.0, 0.0));
     expectedDuration = movementPlan.getTotalTimeSeconds();
     this.finalPosition = movementPlan.sample(expectedDuration).poseMeters;
+    movementPlanSampler.reset();
     timer.reset();
     timer.start();
     done = false;
@@ -101,7 +105,8 @@ public class DriveTrajectoryCommand extends CommandBase{
     else {
         double currentElapsedTimeInSeconds = timer.get();
         Pose2d currentLocation = drivetrain.getRobotPosition();
-        Trajectory.State targetState = movementPlan.sample(currentElapsedTimeInSeconds);
+        // the sampler walks forward from the previous cycle's state and reuses its state object
+        Trajectory.State targetState = movementPlanSampler.sample(currentElapsedTimeInSeconds);
         
         // For swerve drive, call the controller like this:
         // https://github.com/wpilibsuite/allwpilib/blob/main/wpilibNewCommands/src/main/java/edu/wpi/first/wpilibj2/command/SwerveControllerCommand.java#L222
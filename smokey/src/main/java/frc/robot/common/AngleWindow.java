@@ -0,0 +1,114 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: AngleWindow.java
+// Intent: Forms a fixed size window of recent angles with a constant time maximum magnitude.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+/**
+ * A circular buffer of the most recent angles.  Alongside the angles a monotonic deque of
+ * decreasing |angle| is maintained so the largest magnitude in the window is always at its front.
+ * Adding an angle is amortized constant time and reading the maximum is constant time; neither allocates.
+ */
+public class AngleWindow implements IAngleWindow {
+
+    private final int capacity;
+    private final double[] angles;
+    // deque of sequence numbers whose |angle| is strictly decreasing from front to back
+    private final long[] candidateSequences;
+    private int candidateFront = 0;
+    private int candidateCount = 0;
+    private long nextSequence = 0;
+
+    /**
+     * Constructor for the angle window
+     * @param capacity - the number of recent angles retained
+     */
+    public AngleWindow(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.angles = new double[capacity];
+        this.candidateSequences = new long[capacity];
+    }
+
+    /**
+     * Adds the newest angle, evicting the oldest when full
+     * @param angleDegrees - the angle in degrees
+     */
+    public void add(double angleDegrees) {
+        long sequence = nextSequence++;
+        angles[(int)(sequence % capacity)] = angleDegrees;
+
+        // evict the front candidate once it leaves the window
+        if (candidateCount > 0 && candidateSequences[candidateFront] <= sequence - capacity) {
+            candidateFront = (candidateFront + 1) % capacity;
+            --candidateCount;
+        }
+        // candidates no larger than the new angle can never be the maximum again
+        double magnitude = Math.abs(angleDegrees);
+        while (candidateCount > 0 &&
+            Math.abs(angles[(int)(candidateSequences[(candidateFront + candidateCount - 1) % capacity] % capacity)]) <= magnitude) {
+            --candidateCount;
+        }
+        candidateSequences[(candidateFront + candidateCount) % capacity] = sequence;
+        ++candidateCount;
+    }
+
+    /**
+     * Removes all angles from the window
+     */
+    public void clear() {
+        nextSequence = 0;
+        candidateFront = 0;
+        candidateCount = 0;
+    }
+
+    /**
+     * Determines if the window holds its full capacity of angles
+     * @return true when full
+     */
+    public boolean isFull() {
+        return nextSequence >= capacity;
+    }
+
+    @Override
+    public int size() {
+        return (int)Math.min(nextSequence, capacity);
+    }
+
+    @Override
+    public double get(int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException("index " + index + " outside of window size " + this.size());
+        }
+        long oldestSequence = nextSequence - this.size();
+        return angles[(int)((oldestSequence + index) % capacity)];
+    }
+
+    @Override
+    public double getMaximumMagnitude() {
+        if (candidateCount == 0) {
+            return 0.0;
+        }
+        return Math.abs(angles[(int)(candidateSequences[candidateFront] % capacity)]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int inx = 0; inx < this.size(); ++inx) {
+            if (inx > 0) {
+                builder.append(", ");
+            }
+            builder.append(this.get(inx));
+        }
+        return builder.append("]").toString();
+    }
+}
@@ -0,0 +1,327 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: ArmKinematics.java
+// Intent: Forms precomputed kinematics tables for the two arm (horizontal and vertical) arm setup.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+/**
+ * Converts between the arm extensions and the point in space of the arm tip with lookup tables built once at
+ * construction, so the control loop interpolates instead of doing atan, acos, cos and sqrt math per request.
+ *   - forward: a grid over (horizontal extension, vertical extension) of the arm tip y and z
+ *   - inverse: a grid over (y, z), covering the arms' full reach, of the horizontal and vertical extensions, with a
+ *     reachability mask of the grid cells whose four corners are all within the extension limits
+ * Lookups interpolate bilinearly between the four surrounding grid nodes.  Lookups outside of the tables, and
+ * inverse lookups in cells at the edge of the reach, fall back to the closed form math, so the tables never
+ * change which points are reachable.  The closed form math is kept public as the reference the tables are built
+ * from and checked against.
+ * As in the original ArmSubsystem math, the forward z is measured from the floor while the inverse z is measured
+ * from the horizontal arm pivot.
+ */
+public class ArmKinematics {
+    // geometry
+    private final double lengthHorizontalArmPinDistanceMeters;
+    private final double lengthBasePinDistanceMeters;
+    private final double lengthMinimumHorizontalArmMeters;
+    private final double lengthMinimumVerticalArmMeters;
+    private final double lengthFloorToHorizontalArmPivotMeters;
+    private final double minimumHorizontalArmExtensionMeters;
+    private final double maximumHorizontalArmExtensionMeters;
+    private final double minimumVerticalArmExtensionMeters;
+    private final double maximumVerticalArmExtensionMeters;
+
+    // forward table - node (h, v) is at [h * forwardVerticalCount + v]
+    private final int forwardHorizontalCount;
+    private final int forwardVerticalCount;
+    private final double forwardHorizontalStepMeters;
+    private final double forwardVerticalStepMeters;
+    private final double[] forwardYMeters;
+    private final double[] forwardZMeters;
+
+    // inverse table - node (y, z) is at [y * inverseZCount + z], cell (y, z) is at [y * (inverseZCount - 1) + z]
+    private final double inverseMinimumYMeters;
+    private final double inverseMinimumZMeters;
+    private final int inverseYCount;
+    private final int inverseZCount;
+    private final double inverseYStepMeters;
+    private final double inverseZStepMeters;
+    private final double[] inverseHorizontalExtensionsMeters;
+    private final double[] inverseVerticalExtensionsMeters;
+    private final boolean[] inverseCellReachable;
+
+    /**
+     * Constructor for the arm kinematics - builds the tables
+     * @param lengthHorizontalArmPinDistanceMeters - the distance along the horizontal arm from its pivot to the vertical arm pin
+     * @param lengthBasePinDistanceMeters - the distance between the horizontal and vertical arm pivots on the base
+     * @param lengthMinimumHorizontalArmMeters - the length of the horizontal arm when fully retracted
+     * @param lengthMinimumVerticalArmMeters - the length of the vertical arm when fully retracted
+     * @param lengthFloorToHorizontalArmPivotMeters - the height of the horizontal arm pivot above the floor
+     * @param minimumHorizontalArmExtensionMeters - the least the horizontal arm extends
+     * @param maximumHorizontalArmExtensionMeters - the most the horizontal arm extends
+     * @param minimumVerticalArmExtensionMeters - the least the vertical arm extends
+     * @param maximumVerticalArmExtensionMeters - the most the vertical arm extends
+     * @param gridStepMeters - the largest distance between table nodes along each axis
+     */
+    public ArmKinematics(
+        double lengthHorizontalArmPinDistanceMeters,
+        double lengthBasePinDistanceMeters,
+        double lengthMinimumHorizontalArmMeters,
+        double lengthMinimumVerticalArmMeters,
+        double lengthFloorToHorizontalArmPivotMeters,
+        double minimumHorizontalArmExtensionMeters,
+        double maximumHorizontalArmExtensionMeters,
+        double minimumVerticalArmExtensionMeters,
+        double maximumVerticalArmExtensionMeters,
+        double gridStepMeters) {
+        if (!(gridStepMeters > 0.0)) {
+            throw new IllegalArgumentException("gridStepMeters must be greater than zero");
+        }
+        this.lengthHorizontalArmPinDistanceMeters = lengthHorizontalArmPinDistanceMeters;
+        this.lengthBasePinDistanceMeters = lengthBasePinDistanceMeters;
+        this.lengthMinimumHorizontalArmMeters = lengthMinimumHorizontalArmMeters;
+        this.lengthMinimumVerticalArmMeters = lengthMinimumVerticalArmMeters;
+        this.lengthFloorToHorizontalArmPivotMeters = lengthFloorToHorizontalArmPivotMeters;
+        this.minimumHorizontalArmExtensionMeters = minimumHorizontalArmExtensionMeters;
+        this.maximumHorizontalArmExtensionMeters = maximumHorizontalArmExtensionMeters;
+        this.minimumVerticalArmExtensionMeters = minimumVerticalArmExtensionMeters;
+        this.maximumVerticalArmExtensionMeters = maximumVerticalArmExtensionMeters;
+
+        // forward table over the extension limits
+        forwardHorizontalCount = nodeCount(maximumHorizontalArmExtensionMeters - minimumHorizontalArmExtensionMeters, gridStepMeters);
+        forwardVerticalCount = nodeCount(maximumVerticalArmExtensionMeters - minimumVerticalArmExtensionMeters, gridStepMeters);
+        forwardHorizontalStepMeters = (maximumHorizontalArmExtensionMeters - minimumHorizontalArmExtensionMeters) / (forwardHorizontalCount - 1);
+        forwardVerticalStepMeters = (maximumVerticalArmExtensionMeters - minimumVerticalArmExtensionMeters) / (forwardVerticalCount - 1);
+        forwardYMeters = new double[forwardHorizontalCount * forwardVerticalCount];
+        forwardZMeters = new double[forwardHorizontalCount * forwardVerticalCount];
+        double[] point = new double[2];
+        for (int hInx = 0; hInx < forwardHorizontalCount; ++hInx) {
+            for (int vInx = 0; vInx < forwardVerticalCount; ++vInx) {
+                this.convertArmExtensionsToPointInSpaceClosedForm(
+                    minimumHorizontalArmExtensionMeters + hInx * forwardHorizontalStepMeters,
+                    minimumVerticalArmExtensionMeters + vInx * forwardVerticalStepMeters,
+                    point);
+                forwardYMeters[hInx * forwardVerticalCount + vInx] = point[0];
+                forwardZMeters[hInx * forwardVerticalCount + vInx] = point[1];
+            }
+        }
+
+        // inverse table over the bounding box of the reach - with the horizontal arm between level and straight up,
+        // y and z are each smallest and largest at corners of the extension limits
+        double minimumY = Double.POSITIVE_INFINITY;
+        double maximumY = Double.NEGATIVE_INFINITY;
+        double minimumZ = Double.POSITIVE_INFINITY;
+        double maximumZ = Double.NEGATIVE_INFINITY;
+        double[] horizontalCorners = {minimumHorizontalArmExtensionMeters, maximumHorizontalArmExtensionMeters};
+        double[] verticalCorners = {minimumVerticalArmExtensionMeters, maximumVerticalArmExtensionMeters};
+        for (double horizontalExtension : horizontalCorners) {
+            for (double verticalExtension : verticalCorners) {
+                this.convertArmExtensionsToPointInSpaceClosedForm(horizontalExtension, verticalExtension, point);
+                double z = point[1] - lengthFloorToHorizontalArmPivotMeters;
+                minimumY = Math.min(minimumY, point[0]);
+                maximumY = Math.max(maximumY, point[0]);
+                minimumZ = Math.min(minimumZ, z);
+                maximumZ = Math.max(maximumZ, z);
+            }
+        }
+        inverseMinimumYMeters = minimumY;
+        inverseMinimumZMeters = minimumZ;
+        inverseYCount = nodeCount(maximumY - minimumY, gridStepMeters);
+        inverseZCount = nodeCount(maximumZ - minimumZ, gridStepMeters);
+        inverseYStepMeters = (maximumY - minimumY) / (inverseYCount - 1);
+        inverseZStepMeters = (maximumZ - minimumZ) / (inverseZCount - 1);
+        inverseHorizontalExtensionsMeters = new double[inverseYCount * inverseZCount];
+        inverseVerticalExtensionsMeters = new double[inverseYCount * inverseZCount];
+        boolean[] nodeReachable = new boolean[inverseYCount * inverseZCount];
+        double[] extensions = new double[2];
+        for (int yInx = 0; yInx < inverseYCount; ++yInx) {
+            for (int zInx = 0; zInx < inverseZCount; ++zInx) {
+                int nodeInx = yInx * inverseZCount + zInx;
+                nodeReachable[nodeInx] = this.convertPointInSpaceToArmExtensionsClosedForm(
+                    inverseMinimumYMeters + yInx * inverseYStepMeters,
+                    inverseMinimumZMeters + zInx * inverseZStepMeters,
+                    extensions);
+                inverseHorizontalExtensionsMeters[nodeInx] = extensions[0];
+                inverseVerticalExtensionsMeters[nodeInx] = extensions[1];
+            }
+        }
+        inverseCellReachable = new boolean[(inverseYCount - 1) * (inverseZCount - 1)];
+        for (int yInx = 0; yInx < inverseYCount - 1; ++yInx) {
+            for (int zInx = 0; zInx < inverseZCount - 1; ++zInx) {
+                int nodeInx = yInx * inverseZCount + zInx;
+                inverseCellReachable[yInx * (inverseZCount - 1) + zInx] =
+                    nodeReachable[nodeInx] &&
+                    nodeReachable[nodeInx + 1] &&
+                    nodeReachable[nodeInx + inverseZCount] &&
+                    nodeReachable[nodeInx + inverseZCount + 1];
+            }
+        }
+    }
+
+    /**
+     * A method to find the arm extensions that reach a point in space, from the inverse table
+     * @param yPointMeters the y aspect of the arm from the primary arm pivot center in meters
+     * @param zPointMeters the z aspect of the arm from the primary arm pivot center in meters
+     * @param extensionsMeters receives the horizontal arm extension at [0] and the vertical arm extension at [1] in meters
+     * @return true if both extensions are within the limits of the arms, otherwise false
+     */
+    public boolean convertPointInSpaceToArmExtensions(double yPointMeters, double zPointMeters, double[] extensionsMeters) {
+        double yPosition = (yPointMeters - inverseMinimumYMeters) / inverseYStepMeters;
+        double zPosition = (zPointMeters - inverseMinimumZMeters) / inverseZStepMeters;
+        // written so NaN positions fall through to the closed form
+        if (yPosition >= 0.0 && yPosition <= inverseYCount - 1 && zPosition >= 0.0 && zPosition <= inverseZCount - 1) {
+            int yInx = Math.min((int)yPosition, inverseYCount - 2);
+            int zInx = Math.min((int)zPosition, inverseZCount - 2);
+            if (inverseCellReachable[yInx * (inverseZCount - 1) + zInx]) {
+                int nodeInx = yInx * inverseZCount + zInx;
+                double yFraction = yPosition - yInx;
+                double zFraction = zPosition - zInx;
+                // the reach's inner edge bows into a cell by micrometers, so keep the interpolation within the limits
+                extensionsMeters[0] = MotorUtils.clamp(
+                    interpolate(inverseHorizontalExtensionsMeters, nodeInx, inverseZCount, yFraction, zFraction),
+                    minimumHorizontalArmExtensionMeters,
+                    maximumHorizontalArmExtensionMeters);
+                extensionsMeters[1] = MotorUtils.clamp(
+                    interpolate(inverseVerticalExtensionsMeters, nodeInx, inverseZCount, yFraction, zFraction),
+                    minimumVerticalArmExtensionMeters,
+                    maximumVerticalArmExtensionMeters);
+                return true;
+            }
+        }
+        return this.convertPointInSpaceToArmExtensionsClosedForm(yPointMeters, zPointMeters, extensionsMeters);
+    }
+
+    /**
+     * A method to find the point in space of the arm tip for the arm extensions, from the forward table
+     * @param horizontalArmExtensionMeters the horizontal arm extension in meters
+     * @param verticalArmExtensionMeters the vertical arm extension in meters
+     * @param pointMeters receives the y aspect of the arm from the primary arm pivot center at [0] and the z aspect of
+     * the arm above the floor at [1] in meters
+     */
+    public void convertArmExtensionsToPointInSpace(double horizontalArmExtensionMeters, double verticalArmExtensionMeters, double[] pointMeters) {
+        double hPosition = (horizontalArmExtensionMeters - minimumHorizontalArmExtensionMeters) / forwardHorizontalStepMeters;
+        double vPosition = (verticalArmExtensionMeters - minimumVerticalArmExtensionMeters) / forwardVerticalStepMeters;
+        // written so NaN positions fall through to the closed form
+        if (hPosition >= 0.0 && hPosition <= forwardHorizontalCount - 1 && vPosition >= 0.0 && vPosition <= forwardVerticalCount - 1) {
+            int hInx = Math.min((int)hPosition, forwardHorizontalCount - 2);
+            int vInx = Math.min((int)vPosition, forwardVerticalCount - 2);
+            int nodeInx = hInx * forwardVerticalCount + vInx;
+            double hFraction = hPosition - hInx;
+            double vFraction = vPosition - vInx;
+            pointMeters[0] = interpolate(forwardYMeters, nodeInx, forwardVerticalCount, hFraction, vFraction);
+            pointMeters[1] = interpolate(forwardZMeters, nodeInx, forwardVerticalCount, hFraction, vFraction);
+            return;
+        }
+        this.convertArmExtensionsToPointInSpaceClosedForm(horizontalArmExtensionMeters, verticalArmExtensionMeters, pointMeters);
+    }
+
+    /**
+     * A method to determine if a point in space can be reached within the limits of the arms
+     * @param yPointMeters the y aspect of the arm from the primary arm pivot center in meters
+     * @param zPointMeters the z aspect of the arm from the primary arm pivot center in meters
+     * @return true if the point can be reached, otherwise false
+     */
+    public boolean isPointInSpaceReachable(double yPointMeters, double zPointMeters) {
+        return this.convertPointInSpaceToArmExtensions(yPointMeters, zPointMeters, new double[2]);
+    }
+
+    /**
+     * The closed form math behind the inverse table
+     * @param yPointMeters the y aspect of the arm from the primary arm pivot center in meters
+     * @param zPointMeters the z aspect of the arm from the primary arm pivot center in meters
+     * @param extensionsMeters receives the horizontal arm extension at [0] and the vertical arm extension at [1] in meters
+     * @return true if both extensions are within the limits of the arms, otherwise false
+     */
+    public boolean convertPointInSpaceToArmExtensionsClosedForm(double yPointMeters, double zPointMeters, double[] extensionsMeters) {
+        double requestedAngle = Math.atan(zPointMeters/yPointMeters);
+        double requestedHorizontalArmLength = yPointMeters/Math.cos(requestedAngle);
+        double requestedVerticalArmLength =
+            Math.sqrt(
+                lengthHorizontalArmPinDistanceMeters * lengthHorizontalArmPinDistanceMeters +
+                lengthBasePinDistanceMeters * lengthBasePinDistanceMeters -
+                (2 * lengthHorizontalArmPinDistanceMeters * lengthBasePinDistanceMeters * Math.cos(requestedAngle)));
+
+        double requestedHorizontalArmExtensionMeters = requestedHorizontalArmLength - lengthMinimumHorizontalArmMeters;
+        double requestedVerticalArmExtensionMeters = requestedVerticalArmLength - lengthMinimumVerticalArmMeters;
+        extensionsMeters[0] = requestedHorizontalArmExtensionMeters;
+        extensionsMeters[1] = requestedVerticalArmExtensionMeters;
+
+        return requestedHorizontalArmExtensionMeters >= minimumHorizontalArmExtensionMeters &&
+            requestedHorizontalArmExtensionMeters <= maximumHorizontalArmExtensionMeters &&
+            requestedVerticalArmExtensionMeters >= minimumVerticalArmExtensionMeters &&
+            requestedVerticalArmExtensionMeters <= maximumVerticalArmExtensionMeters;
+    }
+
+    /**
+     * The closed form math behind the forward table
+     * @param horizontalArmExtensionMeters the horizontal arm extension in meters
+     * @param verticalArmExtensionMeters the vertical arm extension in meters
+     * @param pointMeters receives the y aspect of the arm from the primary arm pivot center at [0] and the z aspect of
+     * the arm above the floor at [1] in meters
+     */
+    public void convertArmExtensionsToPointInSpaceClosedForm(double horizontalArmExtensionMeters, double verticalArmExtensionMeters, double[] pointMeters) {
+        double angle = this.getHorizontalArmAngleRadians(verticalArmExtensionMeters);
+        double horizontalArmLength = lengthMinimumHorizontalArmMeters + horizontalArmExtensionMeters;
+        pointMeters[0] = Math.cos(angle) * horizontalArmLength;
+        pointMeters[1] = lengthFloorToHorizontalArmPivotMeters + (Math.sin(angle) * horizontalArmLength);
+    }
+
+    /**
+     * A method to find the horizontal arm angle measured from floor to arm centerline
+     * @param verticalArmExtensionMeters the vertical arm extension in meters
+     * @return the angle in radians
+     */
+    public double getHorizontalArmAngleRadians(double verticalArmExtensionMeters) {
+        // need to use arc cos equation for angle given all three sides
+        double a = lengthMinimumVerticalArmMeters + verticalArmExtensionMeters;
+        double b = lengthHorizontalArmPinDistanceMeters;
+        double c = lengthBasePinDistanceMeters;
+        return Math.acos((b * b + c * c - a * a) / (2 * b * c));
+    }
+
+    /**
+     * gets the least the horizontal arm extends
+     * @return extension in meters
+     */
+    public double getMinimumHorizontalArmExtensionMeters() {
+        return minimumHorizontalArmExtensionMeters;
+    }
+
+    /**
+     * gets the most the horizontal arm extends
+     * @return extension in meters
+     */
+    public double getMaximumHorizontalArmExtensionMeters() {
+        return maximumHorizontalArmExtensionMeters;
+    }
+
+    /**
+     * gets the least the vertical arm extends
+     * @return extension in meters
+     */
+    public double getMinimumVerticalArmExtensionMeters() {
+        return minimumVerticalArmExtensionMeters;
+    }
+
+    /**
+     * gets the most the vertical arm extends
+     * @return extension in meters
+     */
+    public double getMaximumVerticalArmExtensionMeters() {
+        return maximumVerticalArmExtensionMeters;
+    }
+
+    private static int nodeCount(double rangeMeters, double gridStepMeters) {
+        return Math.max(2, (int)Math.ceil(rangeMeters / gridStepMeters) + 1);
+    }
+
+    private static double interpolate(double[] values, int nodeInx, int rowLength, double rowFraction, double columnFraction) {
+        double low = values[nodeInx] + (values[nodeInx + 1] - values[nodeInx]) * columnFraction;
+        double high = values[nodeInx + rowLength] + (values[nodeInx + rowLength + 1] - values[nodeInx + rowLength]) * columnFraction;
+        return low + (high - low) * rowFraction;
+    }
+}
@@ -0,0 +1,133 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: BalanceController.java
+// Intent: Forms a charge station balance controller that uses the tilt rate as well as the tilt.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Finds the robot relative velocity that drives the robot up the charge station toward balance, from the samples
+ * of a TiltSampleStream.  The speed is proportional to the sine of the tilt, as in the original auto balance, less
+ * a damping term on how fast the tilt is falling toward level, so the robot slows as the station starts to move.
+ * The tilt is predicted a short lead time ahead from the latest sample and the robot stops once the prediction is
+ * level.  The stream's tip stop is armed while the controller runs; once it latches the robot stays stopped until
+ * the station settles, and balancing resumes if it settled off level.
+ */
+public class BalanceController {
+    private static final Translation2d Stopped = new Translation2d();
+
+    private final TiltSampleStream stream;
+    private final double maximumSpeedMetersPerSecond;
+    private final double speedPerSineOfTilt;
+    private final double speedPerDegreePerSecond;
+    private final double leadSeconds;
+    private final double levelToleranceDegrees;
+    private final double tipRateDegreesPerSecond;
+    private final double settledRateDegreesPerSecond;
+
+    private boolean hasSample = false;
+    private double pitch = 0.0;
+    private double roll = 0.0;
+    private double pitchRate = 0.0;
+    private double rollRate = 0.0;
+
+    /**
+     * Constructor for the balance controller
+     * @param stream - the tilt samples, drained by this controller while it runs
+     * @param maximumSpeedMetersPerSecond - the fastest the robot is driven
+     * @param speedPerSineOfTilt - the proportional gain, in meters per second per sine of the tilt
+     * @param speedPerDegreePerSecond - the damping gain, in meters per second per degree per second of tilt falling toward level
+     * @param leadSeconds - how far ahead the tilt is predicted
+     * @param levelToleranceDegrees - the tilt that counts as level
+     * @param tipRateDegreesPerSecond - the rate of the tilt falling toward level that latches the tip stop
+     * @param settledRateDegreesPerSecond - the rate below which a tipped station has settled
+     */
+    public BalanceController(
+        TiltSampleStream stream,
+        double maximumSpeedMetersPerSecond,
+        double speedPerSineOfTilt,
+        double speedPerDegreePerSecond,
+        double leadSeconds,
+        double levelToleranceDegrees,
+        double tipRateDegreesPerSecond,
+        double settledRateDegreesPerSecond) {
+        this.stream = stream;
+        this.maximumSpeedMetersPerSecond = maximumSpeedMetersPerSecond;
+        this.speedPerSineOfTilt = speedPerSineOfTilt;
+        this.speedPerDegreePerSecond = speedPerDegreePerSecond;
+        this.leadSeconds = leadSeconds;
+        this.levelToleranceDegrees = levelToleranceDegrees;
+        this.tipRateDegreesPerSecond = tipRateDegreesPerSecond;
+        this.settledRateDegreesPerSecond = settledRateDegreesPerSecond;
+    }
+
+    /**
+     * Starts balancing - discards stale samples and arms the tip stop
+     */
+    public void start() {
+        while (stream.poll()) {
+            // samples from before balancing started are not used
+        }
+        hasSample = false;
+        stream.armTipStop(tipRateDegreesPerSecond);
+    }
+
+    /**
+     * Stops balancing - disarms the tip stop
+     */
+    public void stop() {
+        stream.disarmTipStop();
+    }
+
+    /**
+     * Finds the velocity for this cycle from every sample since the last call
+     * @return robot relative velocity in meters per second, along the direction of steepest ascent
+     */
+    public Translation2d calculate() {
+        while (stream.poll()) {
+            hasSample = true;
+            pitch = stream.getPitch();
+            roll = stream.getRoll();
+            pitchRate = stream.getPitchRate();
+            rollRate = stream.getRollRate();
+        }
+        if (!hasSample) {
+            return Stopped;
+        }
+
+        double tilt = Math.hypot(pitch, roll);
+        // positive when the tilt is growing, negative when falling toward level
+        double tiltRate = tilt > 0.0 ? (pitch * pitchRate + roll * rollRate) / tilt : 0.0;
+        if (stream.hasTipped()) {
+            if (Math.abs(tiltRate) >= settledRateDegreesPerSecond || tilt < levelToleranceDegrees) {
+                return Stopped;
+            }
+            // the station settled off level, keep balancing
+            stream.armTipStop(tipRateDegreesPerSecond);
+        }
+
+        // stop now if the station will be level by the time the drive could react
+        double predictedTilt = Math.hypot(pitch + pitchRate * leadSeconds, roll + rollRate * leadSeconds);
+        if (predictedTilt < levelToleranceDegrees) {
+            return Stopped;
+        }
+
+        Translation2d ascent = VectorUtils.getAngleOfSteepestAscent(new EulerAngle(pitch, roll, 0.0));
+        double ascentNorm = ascent.getNorm();
+        if (ascentNorm == 0.0) {
+            return Stopped;
+        }
+        double speed = MotorUtils.clamp(
+            speedPerSineOfTilt * ascentNorm + speedPerDegreePerSecond * Math.min(tiltRate, 0.0),
+            0.0,
+            maximumSpeedMetersPerSecond);
+        return new Translation2d(ascent.getX() / ascentNorm * speed, ascent.getY() / ascentNorm * speed);
+    }
+}
@@ -0,0 +1,234 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: CanBusBudget.java
+// Intent: Forms a budget of CAN bus status frames and applies the frame periods to devices.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.ArrayList;
+
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import com.swervedrivespecialties.swervelib.ctre.CtreUtils;
+
+/**
+ * A declarative budget of the CAN bus.  Devices are declared in named groups, and each group lists the status
+ * frames its code actually consumes and how often.  Every other frame of the group's device type is slowed to the
+ * slowest period the device allows.
+ * From the budget the bus utilization can be estimated without any hardware, and the frame periods can be applied
+ * to devices as they are constructed.
+ */
+public class CanBusBudget {
+    private static final double BusBitsPerSecond = 1000000.0;
+    // extended identifier, 8 byte payload and worst case bit stuffing
+    private static final double BitsPerFrame = 131.0;
+    private static final int CanTimeoutMilliseconds = 250;
+
+    private final ArrayList<DeviceGroup> deviceGroups = new ArrayList<DeviceGroup>();
+
+    /**
+     * Declares a group of identical devices
+     * @param groupName - the name of the group, e.g. SwerveDriveMotors
+     * @param deviceType - the kind of device in the group
+     * @param deviceCount - the number of devices in the group, zero when the hardware is not installed
+     * @return this budget, so declarations can be chained
+     */
+    public CanBusBudget addDeviceGroup(String groupName, CanDeviceType deviceType, int deviceCount) {
+        if (this.findDeviceGroup(groupName) != null) {
+            throw new IllegalArgumentException("device group " + groupName + " is already declared");
+        }
+        deviceGroups.add(new DeviceGroup(groupName, deviceType, deviceCount));
+        return this;
+    }
+
+    /**
+     * Declares a status frame that the code of a group consumes
+     * @param groupName - the name of a declared group
+     * @param frame - the status frame consumed
+     * @param periodMilliseconds - how often the frame is needed
+     * @return this budget, so declarations can be chained
+     */
+    public CanBusBudget consume(String groupName, CanStatusFrame frame, int periodMilliseconds) {
+        DeviceGroup group = this.getDeviceGroup(groupName);
+        if (frame.getDeviceType() != group.deviceType) {
+            throw new IllegalArgumentException(
+                "frame " + frame + " is not sent by device type " + group.deviceType + " of group " + groupName);
+        }
+        if (periodMilliseconds <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        group.periodsMilliseconds[frame.ordinal()] = periodMilliseconds;
+        return this;
+    }
+
+    /**
+     * gets the period for a frame of a group, consumed frames use their declared period and all others are slowed
+     * @param groupName - the name of a declared group
+     * @param frame - the status frame
+     * @return period in milliseconds
+     */
+    public int getPeriodMilliseconds(String groupName, CanStatusFrame frame) {
+        DeviceGroup group = this.getDeviceGroup(groupName);
+        int period = group.periodsMilliseconds[frame.ordinal()];
+        return period > 0 ? period : frame.getUnusedPeriodMilliseconds();
+    }
+
+    /**
+     * gets the estimated frames per second on the bus, status frames from every device plus command frames to them
+     * @return frames per second
+     */
+    public double getEstimatedFramesPerSecond() {
+        double framesPerSecond = 0.0;
+        for (int inx = 0; inx < deviceGroups.size(); ++inx) {
+            DeviceGroup group = deviceGroups.get(inx);
+            double groupFramesPerSecond = group.deviceType.getCommandFramesPerSecond();
+            for (CanStatusFrame frame : CanStatusFrame.values()) {
+                if (frame.getDeviceType() == group.deviceType) {
+                    groupFramesPerSecond += 1000.0 / this.getPeriodMilliseconds(group.name, frame);
+                }
+            }
+            framesPerSecond += groupFramesPerSecond * group.deviceCount;
+        }
+        return framesPerSecond;
+    }
+
+    /**
+     * gets the estimated fraction of the bus in use
+     * @return utilization from 0.0 to 1.0 (or above when over subscribed)
+     */
+    public double getEstimatedUtilization() {
+        return this.getEstimatedFramesPerSecond() * BitsPerFrame / BusBitsPerSecond;
+    }
+
+    /**
+     * Prints the estimated utilization, with a warning when it is above the threshold
+     * @param utilizationThreshold - the highest acceptable utilization from 0.0 to 1.0
+     * @return true when the budget is within the threshold
+     */
+    public boolean checkBudget(double utilizationThreshold) {
+        double utilization = this.getEstimatedUtilization();
+        boolean withinBudget = utilization <= utilizationThreshold;
+        String summary = String.format(
+            "estimated CAN bus utilization %.1f%% (%.0f frames per second), threshold %.1f%%",
+            utilization * 100.0,
+            this.getEstimatedFramesPerSecond(),
+            utilizationThreshold * 100.0);
+        if (withinBudget) {
+            System.out.println(">>>> " + summary);
+        }
+        else {
+            System.out.println("WARNING: " + summary);
+        }
+        return withinBudget;
+    }
+
+    /**
+     * Applies the status frame periods of a group to a Talon FX
+     * @param groupName - the name of a declared group of Talon FX devices
+     * @param motor - the motor
+     */
+    public void applyTo(String groupName, TalonFX motor) {
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxGeneral, StatusFrameEnhanced.Status_1_General);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxFeedback0, StatusFrameEnhanced.Status_2_Feedback0);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxQuadrature, StatusFrameEnhanced.Status_3_Quadrature);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxAnalogTempVbat, StatusFrameEnhanced.Status_4_AinTempVbat);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxPulseWidth, StatusFrameEnhanced.Status_8_PulseWidth);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxTargets, StatusFrameEnhanced.Status_10_Targets);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxFeedback1, StatusFrameEnhanced.Status_12_Feedback1);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxPrimaryPid, StatusFrameEnhanced.Status_13_Base_PIDF0);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxAuxiliaryPid, StatusFrameEnhanced.Status_14_Turn_PIDF1);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxIntegratedSensor, StatusFrameEnhanced.Status_21_FeedbackIntegrated);
+        this.applyTo(groupName, motor, CanStatusFrame.TalonFxBrushlessCurrent, StatusFrameEnhanced.Status_Brushless_Current);
+    }
+
+    /**
+     * Applies the status frame periods of a group to a CANCoder
+     * @param groupName - the name of a declared group of CANCoder devices
+     * @param encoder - the encoder
+     */
+    public void applyTo(String groupName, CANCoder encoder) {
+        CtreUtils.checkCtreError(
+            encoder.setStatusFramePeriod(
+                CANCoderStatusFrame.SensorData,
+                this.getPeriodMilliseconds(groupName, CanStatusFrame.CanCoderSensorData),
+                CanTimeoutMilliseconds),
+            "Failed to configure CANCoder sensor data frame period");
+        CtreUtils.checkCtreError(
+            encoder.setStatusFramePeriod(
+                CANCoderStatusFrame.VbatAndFaults,
+                this.getPeriodMilliseconds(groupName, CanStatusFrame.CanCoderVbatAndFaults),
+                CanTimeoutMilliseconds),
+            "Failed to configure CANCoder vbat and faults frame period");
+    }
+
+    /**
+     * Applies the status frame periods of a group to a Spark MAX, call after restoring factory defaults
+     * @param groupName - the name of a declared group of Spark MAX devices
+     * @param motor - the motor
+     */
+    public void applyTo(String groupName, CANSparkMax motor) {
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus0, PeriodicFrame.kStatus0);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus1, PeriodicFrame.kStatus1);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus2, PeriodicFrame.kStatus2);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus3, PeriodicFrame.kStatus3);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus4, PeriodicFrame.kStatus4);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus5, PeriodicFrame.kStatus5);
+        this.applyTo(groupName, motor, CanStatusFrame.SparkMaxStatus6, PeriodicFrame.kStatus6);
+    }
+
+    private void applyTo(String groupName, TalonFX motor, CanStatusFrame frame, StatusFrameEnhanced talonFrame) {
+        CtreUtils.checkCtreError(
+            motor.setStatusFramePeriod(talonFrame, this.getPeriodMilliseconds(groupName, frame), CanTimeoutMilliseconds),
+            "Failed to configure Falcon status frame period for " + frame);
+    }
+
+    private void applyTo(String groupName, CANSparkMax motor, CanStatusFrame frame, PeriodicFrame sparkFrame) {
+        REVLibError error = motor.setPeriodicFramePeriod(sparkFrame, this.getPeriodMilliseconds(groupName, frame));
+        if (error != REVLibError.kOk) {
+            System.out.println("WARNING: Failed to configure Spark MAX " + motor.getDeviceId() + " frame period for " + frame + ": " + error);
+        }
+    }
+
+    private DeviceGroup findDeviceGroup(String groupName) {
+        for (int inx = 0; inx < deviceGroups.size(); ++inx) {
+            if (deviceGroups.get(inx).name.equals(groupName)) {
+                return deviceGroups.get(inx);
+            }
+        }
+        return null;
+    }
+
+    private DeviceGroup getDeviceGroup(String groupName) {
+        DeviceGroup group = this.findDeviceGroup(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("device group " + groupName + " is not declared");
+        }
+        return group;
+    }
+
+    /**
+     * A named group of identical devices and the frame periods its code consumes (0 when not consumed)
+     */
+    private static class DeviceGroup {
+        private final String name;
+        private final CanDeviceType deviceType;
+        private final int deviceCount;
+        private final int[] periodsMilliseconds = new int[CanStatusFrame.values().length];
+
+        private DeviceGroup(String name, CanDeviceType deviceType, int deviceCount) {
+            this.name = name;
+            this.deviceType = deviceType;
+            this.deviceCount = deviceCount;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: public enum CanDeviceType.java
+// Intent: Forms enum to hold the kinds of devices on the CAN bus.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+public enum CanDeviceType {
+    // command frames are sent by the roboRIO, talons every 10ms and spark max setpoints once per 20ms loop
+    TalonFX(100.0),
+    CanCoder(0.0),
+    SparkMax(50.0);
+
+    private final double commandFramesPerSecond;
+
+    private CanDeviceType(double commandFramesPerSecond) {
+        this.commandFramesPerSecond = commandFramesPerSecond;
+    }
+
+    /**
+     * gets the rate the roboRIO sends command frames to one device of this type
+     * @return frames per second
+     */
+    public double getCommandFramesPerSecond() {
+        return commandFramesPerSecond;
+    }
+}
@@ -0,0 +1,73 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: public enum CanStatusFrame.java
+// Intent: Forms enum to hold the status frames each kind of CAN device sends.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+public enum CanStatusFrame {
+    // Talon FX (Phoenix 5), default periods are approximate factory values
+    TalonFxGeneral(CanDeviceType.TalonFX, 10, 255), // applied output, faults
+    TalonFxFeedback0(CanDeviceType.TalonFX, 20, 255), // selected sensor position and velocity
+    TalonFxQuadrature(CanDeviceType.TalonFX, 160, 255),
+    TalonFxAnalogTempVbat(CanDeviceType.TalonFX, 160, 255),
+    TalonFxPulseWidth(CanDeviceType.TalonFX, 160, 255),
+    TalonFxTargets(CanDeviceType.TalonFX, 160, 255), // motion magic targets
+    TalonFxFeedback1(CanDeviceType.TalonFX, 160, 255),
+    TalonFxPrimaryPid(CanDeviceType.TalonFX, 160, 255),
+    TalonFxAuxiliaryPid(CanDeviceType.TalonFX, 160, 255),
+    TalonFxIntegratedSensor(CanDeviceType.TalonFX, 160, 255),
+    TalonFxBrushlessCurrent(CanDeviceType.TalonFX, 50, 255),
+
+    // CANCoder
+    CanCoderSensorData(CanDeviceType.CanCoder, 10, 255), // absolute and relative position, velocity
+    CanCoderVbatAndFaults(CanDeviceType.CanCoder, 100, 255),
+
+    // Spark MAX (REVLib 2023), an unused period of 65535 effectively disables a frame
+    SparkMaxStatus0(CanDeviceType.SparkMax, 10, 100), // applied output, faults, follower data
+    SparkMaxStatus1(CanDeviceType.SparkMax, 20, 500), // velocity, temperature, voltage, current
+    SparkMaxStatus2(CanDeviceType.SparkMax, 20, 500), // position
+    SparkMaxStatus3(CanDeviceType.SparkMax, 50, 65535), // analog sensor
+    SparkMaxStatus4(CanDeviceType.SparkMax, 20, 65535), // alternate encoder
+    SparkMaxStatus5(CanDeviceType.SparkMax, 200, 65535), // duty cycle encoder position
+    SparkMaxStatus6(CanDeviceType.SparkMax, 200, 65535); // duty cycle encoder velocity
+
+    private final CanDeviceType deviceType;
+    private final int defaultPeriodMilliseconds;
+    private final int unusedPeriodMilliseconds;
+
+    private CanStatusFrame(CanDeviceType deviceType, int defaultPeriodMilliseconds, int unusedPeriodMilliseconds) {
+        this.deviceType = deviceType;
+        this.defaultPeriodMilliseconds = defaultPeriodMilliseconds;
+        this.unusedPeriodMilliseconds = unusedPeriodMilliseconds;
+    }
+
+    /**
+     * gets the kind of device that sends this frame
+     * @return the device type
+     */
+    public CanDeviceType getDeviceType() {
+        return deviceType;
+    }
+
+    /**
+     * gets the period the device uses when the frame is never configured
+     * @return period in milliseconds
+     */
+    public int getDefaultPeriodMilliseconds() {
+        return defaultPeriodMilliseconds;
+    }
+
+    /**
+     * gets the slowest period the device allows, used when no code consumes the frame
+     * @return period in milliseconds
+     */
+    public int getUnusedPeriodMilliseconds() {
+        return unusedPeriodMilliseconds;
+    }
+}
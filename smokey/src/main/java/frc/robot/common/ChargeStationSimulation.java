@@ -0,0 +1,98 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: ChargeStationSimulation.java
+// Intent: Forms a simple simulation of the charge station tilting under the robot.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import frc.robot.Constants;
+import frc.robot.control.InstalledHardware;
+
+/**
+ * Simulates the charge station as a seesaw across the field's x axis so auto balance can be driven in simulation.
+ * While the robot's center is on the station, the station swings at a limited rate toward a tilt proportional to
+ * how far the robot is past the pivot, reaching the 15 degree ramp slope at TippingHalfWidthMeters, so there is a
+ * position where the robot balances it.  With the robot off the station it swings back to level.  The station is
+ * found on either alliance's side of the field center line (poses are measured from our own alliance wall).
+ * The pitch and roll the navx would read follow from the station tilt and the robot heading.
+ */
+public class ChargeStationSimulation {
+    private static final double CenterXMeters = 3.91;
+    private static final double CenterYMeters = 2.75;
+    private static final double HalfLengthMeters = 0.97; // including the ramps
+    private static final double HalfWidthMeters = 1.24;
+    private static final double TippingHalfWidthMeters = 0.15;
+    private static final double MaximumTiltDegrees = 15.0;
+    private static final double TiltRateDegreesPerSecond = 40.0;
+
+    // positive when the far side (larger x) of the station is down
+    private double tiltDegrees = 0.0;
+    private double pitchDegrees = 0.0;
+    private double rollDegrees = 0.0;
+
+    /**
+     * Steps the station
+     * @param robotPose - the pose of the robot
+     * @param deltaTimeSeconds - the time since the last step
+     */
+    public void step(Pose2d robotPose, double deltaTimeSeconds) {
+        double alongMeters = robotPose.getX() - CenterXMeters;
+        double acrossMeters = Math.min(
+            Math.abs(robotPose.getY() - CenterYMeters),
+            Math.abs(robotPose.getY() - (Constants.FieldWidthMeters - CenterYMeters)));
+        double targetTiltDegrees = 0.0;
+        if (Math.abs(alongMeters) <= HalfLengthMeters && acrossMeters <= HalfWidthMeters) {
+            targetTiltDegrees = MotorUtils.clamp(
+                MaximumTiltDegrees * alongMeters / TippingHalfWidthMeters,
+                -MaximumTiltDegrees,
+                MaximumTiltDegrees);
+        }
+        double maximumChange = TiltRateDegreesPerSecond * deltaTimeSeconds;
+        tiltDegrees += MotorUtils.clamp(targetTiltDegrees - tiltDegrees, -maximumChange, maximumChange);
+
+        // the direction of steepest ascent is toward -x when the far side is down, turned into the robot's frame
+        double ascentX = -Math.sin(Math.toRadians(tiltDegrees));
+        double heading = robotPose.getRotation().getRadians();
+        double forward = Math.toDegrees(Math.asin(ascentX * Math.cos(heading)));
+        double left = Math.toDegrees(Math.asin(ascentX * Math.sin(heading)));
+        // matches the axes used by VectorUtils.getAngleOfSteepestAscent
+        if (InstalledHardware.navx1Installed) {
+            rollDegrees = forward;
+            pitchDegrees = -left;
+        }
+        else {
+            pitchDegrees = forward;
+            rollDegrees = left;
+        }
+    }
+
+    /**
+     * gets the tilt of the station
+     * @return tilt in degrees, positive when the far side of the station is down
+     */
+    public double getTiltDegrees() {
+        return tiltDegrees;
+    }
+
+    /**
+     * gets the pitch the navx would read
+     * @return pitch in degrees
+     */
+    public double getPitchDegrees() {
+        return pitchDegrees;
+    }
+
+    /**
+     * gets the roll the navx would read
+     * @return roll in degrees
+     */
+    public double getRollDegrees() {
+        return rollDegrees;
+    }
+}
@@ -0,0 +1,61 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: FieldMirror.java
+// Intent: Forms methods that reflect poses and trajectories onto the other alliance's side of the field.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.Constants;
+
+/**
+ * Reflects poses and trajectories across the long center line of the field (y becomes field width - y).
+ * Our poses are measured from our own alliance wall: the blue alliance's right corner on blue, as in
+ * botpose_wpiblue, and the red alliance's right corner on red, as in botpose_wpired.  The 2023 field is mirrored
+ * end to end, so in those frames a path planned on the blue alliance's side of the field is reflected to run on
+ * the red alliance's side.  Headings and curvatures change sign, times, velocities and accelerations are unchanged.
+ * Reflecting twice gives back the original.
+ */
+public class FieldMirror {
+    /**
+     * Reflects a pose
+     * @param pose - the pose on one alliance's side
+     * @return the pose on the other alliance's side
+     */
+    public static Pose2d mirror(Pose2d pose) {
+        return new Pose2d(
+            pose.getX(),
+            Constants.FieldWidthMeters - pose.getY(),
+            new Rotation2d(pose.getRotation().getCos(), -pose.getRotation().getSin()));
+    }
+
+    /**
+     * Reflects every state of a trajectory
+     * @param trajectory - the trajectory on one alliance's side
+     * @return a new trajectory on the other alliance's side
+     */
+    public static Trajectory mirror(Trajectory trajectory) {
+        List<Trajectory.State> states = trajectory.getStates();
+        ArrayList<Trajectory.State> mirroredStates = new ArrayList<Trajectory.State>(states.size());
+        for (int inx = 0; inx < states.size(); ++inx) {
+            Trajectory.State state = states.get(inx);
+            mirroredStates.add(new Trajectory.State(
+                state.timeSeconds,
+                state.velocityMetersPerSecond,
+                state.accelerationMetersPerSecondSq,
+                mirror(state.poseMeters),
+                -state.curvatureRadPerMeter));
+        }
+        return new Trajectory(mirroredStates);
+    }
+}
@@ -0,0 +1,33 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: IAngleWindow.java
+// Intent: Forms a read-only interface onto a window of recent angles.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ 
+
+package frc.robot.common;
+
+public interface IAngleWindow {
+
+    /**
+     * An interface method to get the number of angles held
+     * @return count of angles
+     */
+    public int size();
+
+    /**
+     * An interface method to get an angle, oldest first
+     * @param index - 0 is the oldest angle held, size() - 1 the newest
+     * @return angle in degrees
+     */
+    public double get(int index);
+
+    /**
+     * An interface method to get the largest absolute angle held
+     * @return the largest |angle| in degrees, 0.0 when empty
+     */
+    public double getMaximumMagnitude();
+}
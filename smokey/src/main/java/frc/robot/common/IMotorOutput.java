@@ -0,0 +1,23 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: IMotorOutput.java
+// Intent: Forms an interface for writing a control frame to a motor controller.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ 
+
+package frc.robot.common;
+
+public interface IMotorOutput<TMode> {
+
+    /**
+     * An interface method that sends one control frame to the motor controller.
+     * @param mode - the control mode of the controller, e.g. CANSparkMax.ControlType.kPosition
+     * @param value - the reference in the units of the mode
+     * @param pidSlot - the closed loop gains slot, ignored by controllers that select the slot separately
+     * @param arbitraryFeedForward - the arbitrary feed forward in percent output
+     */
+    public void write(TMode mode, double value, int pidSlot, double arbitraryFeedForward);
+}
@@ -0,0 +1,120 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: LatencyHistogram.java
+// Intent: Forms a fixed bucket histogram of durations.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+/**
+ * A histogram of durations in microseconds with fixed, logarithmically spaced buckets.
+ * Each power of two is split into four buckets, so a percentile is reported within 25% of the true value,
+ * and recording a duration is a handful of integer operations with no allocation.
+ */
+public class LatencyHistogram {
+    private static final int SubBucketBits = 2;
+    private static final int SubBucketCount = 1 << SubBucketBits;
+    // durations below 2^25 microseconds (about 33 seconds) have their own bucket, longer ones share the overflow bucket
+    private static final int MaximumExponent = 24;
+    // the buckets below SubBucketCount hold one microsecond each, then each exponent from SubBucketBits up has its own
+    private static final int OverflowBucketIndex = (MaximumExponent - SubBucketBits + 2) * SubBucketCount;
+    private static final int BucketCount = OverflowBucketIndex + 1;
+
+    private final long[] bucketCounts = new long[BucketCount];
+    private long count = 0;
+    private long maximumMicroseconds = 0;
+    private long totalMicroseconds = 0;
+
+    /**
+     * Records a duration
+     * @param nanoseconds - the duration in nanoseconds
+     */
+    public void record(long nanoseconds) {
+        long microseconds = Math.max(0, nanoseconds / 1000);
+        ++bucketCounts[getBucketIndex(microseconds)];
+        ++count;
+        totalMicroseconds += microseconds;
+        maximumMicroseconds = Math.max(maximumMicroseconds, microseconds);
+    }
+
+    /**
+     * gets a percentile of the recorded durations
+     * @param percentile - the percentile from 0.0 to 1.0, e.g. 0.99
+     * @return the upper bound of the bucket holding the percentile in microseconds, never above the maximum
+     */
+    public long getPercentileMicroseconds(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(percentile * count);
+        long seen = 0;
+        for (int inx = 0; inx < BucketCount; ++inx) {
+            seen += bucketCounts[inx];
+            if (seen >= rank) {
+                return inx == OverflowBucketIndex ? maximumMicroseconds : Math.min(getBucketUpperBound(inx), maximumMicroseconds);
+            }
+        }
+        return maximumMicroseconds;
+    }
+
+    /**
+     * gets the longest recorded duration
+     * @return duration in microseconds
+     */
+    public long getMaximumMicroseconds() {
+        return maximumMicroseconds;
+    }
+
+    /**
+     * gets the mean of the recorded durations
+     * @return duration in microseconds
+     */
+    public double getMeanMicroseconds() {
+        return count == 0 ? 0.0 : (double)totalMicroseconds / count;
+    }
+
+    /**
+     * gets the number of durations recorded
+     * @return count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Forgets all recorded durations
+     */
+    public void reset() {
+        for (int inx = 0; inx < BucketCount; ++inx) {
+            bucketCounts[inx] = 0;
+        }
+        count = 0;
+        maximumMicroseconds = 0;
+        totalMicroseconds = 0;
+    }
+
+    private static int getBucketIndex(long microseconds) {
+        if (microseconds < SubBucketCount) {
+            return (int)microseconds;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(microseconds);
+        if (exponent > MaximumExponent) {
+            return OverflowBucketIndex;
+        }
+        int subBucket = (int)((microseconds >> (exponent - SubBucketBits)) & (SubBucketCount - 1));
+        return (exponent - SubBucketBits + 1) * SubBucketCount + subBucket;
+    }
+
+    private static long getBucketUpperBound(int bucketIndex) {
+        if (bucketIndex < SubBucketCount) {
+            return bucketIndex;
+        }
+        int exponent = bucketIndex / SubBucketCount + SubBucketBits - 1;
+        int subBucket = bucketIndex % SubBucketCount;
+        return ((long)(SubBucketCount + subBucket + 1) << (exponent - SubBucketBits)) - 1;
+    }
+}
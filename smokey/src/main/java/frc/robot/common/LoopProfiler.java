@@ -0,0 +1,211 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: LoopProfiler.java
+// Intent: Forms an always on profiler of the robot loop, its subsystems and its commands.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import edu.wpi.first.util.datalog.StringLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Times the whole robot loop, each subsystem periodic and each scheduled command execute with System.nanoTime()
+ * and keeps a histogram of each per match phase.
+ * Subsystems time themselves with a span.  Commands are timed from the scheduler's execute callbacks: the
+ * scheduler runs commands one after another, so each command is timed from the previous mark (the end of
+ * button polling or the previous command) to its own callback, which includes the previous command's finish check.
+ * Commands with the same name share a span, so the spans are bounded by the command types rather than instances.
+ * The p50, p99 and max of the current phase are published as debug telemetry, and every histogram is written
+ * to the data log when the robot is disabled, where printing dozens of lines to the console would stall the loop.
+ * A span costs two clock reads and a few array writes, so the profiler stays on in competition.
+ */
+public class LoopProfiler {
+    private static final String TelemetryPrefix = "LoopProfile/";
+    private static final String LogEntryName = "LoopProfile";
+    // loops between computing the published percentiles
+    private static final int PublishDecimation = 50;
+    private static final double MillisecondsPerMicrosecond = 0.001;
+
+    private static LoopProfiler instance = null;
+
+    private final ArrayList<Span> spans = new ArrayList<Span>();
+    // keyed by command name, commands built on the fly (e.g. each auto) share a span instead of adding one each
+    private final HashMap<String, Span> commandSpans = new HashMap<String, Span>();
+    private final Span loopSpan;
+    private MatchPhase phase = MatchPhase.Disabled;
+    private long lastMarkNanoseconds = System.nanoTime();
+    private long loopCount = 0;
+    // created on the first dump so the data log is only started when there is a profile to write
+    private StringLogEntry logEntry = null;
+
+    private LoopProfiler() {
+        loopSpan = this.addSpan("RobotLoop");
+        CommandScheduler.getInstance().onCommandExecute(this::recordCommandExecute);
+    }
+
+    /**
+     * gets the single loop profiler for the robot
+     * @return the loop profiler
+     */
+    public static synchronized LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a span to be timed, e.g. the periodic of a subsystem
+     * @param name - the name the span is reported under
+     * @return the span to begin and end each loop
+     */
+    public Span addSpan(String name) {
+        Span span = new Span(this, name);
+        spans.add(span);
+        return span;
+    }
+
+    /**
+     * Starts timing a loop, call first thing in robotPeriodic
+     */
+    public void beginLoop() {
+        if (DriverStation.isDisabled()) {
+            phase = MatchPhase.Disabled;
+        }
+        else if (DriverStation.isAutonomous()) {
+            phase = MatchPhase.Autonomous;
+        }
+        else if (DriverStation.isTest()) {
+            phase = MatchPhase.Test;
+        }
+        else {
+            phase = MatchPhase.Teleop;
+        }
+        loopSpan.begin();
+    }
+
+    /**
+     * Ends timing a loop and refreshes the published percentiles when due, call last thing in robotPeriodic
+     */
+    public void endLoop() {
+        loopSpan.end();
+        if (++loopCount % PublishDecimation == 0) {
+            for (int inx = 0; inx < spans.size(); ++inx) {
+                spans.get(inx).publish(phase);
+            }
+        }
+    }
+
+    /**
+     * Marks the start of the commands, bind to the end of button polling so polling is not charged to a command
+     */
+    public void markCommandsStart() {
+        lastMarkNanoseconds = System.nanoTime();
+    }
+
+    /**
+     * Writes the histograms of every span and phase that has recorded anything to the data log, then forgets them
+     */
+    public void dump() {
+        if (logEntry == null) {
+            // only the profile is wanted in the log, not every network tables change
+            DataLogManager.logNetworkTables(false);
+            logEntry = new StringLogEntry(DataLogManager.getLog(), LogEntryName);
+        }
+        logEntry.append("loop profile (milliseconds)");
+        for (MatchPhase dumpPhase : MatchPhase.values()) {
+            for (int inx = 0; inx < spans.size(); ++inx) {
+                LatencyHistogram histogram = spans.get(inx).histograms[dumpPhase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    logEntry.append(String.format(
+                        "%-10s %-40s count %7d mean %7.3f p50 %7.3f p99 %7.3f max %7.3f",
+                        dumpPhase,
+                        spans.get(inx).name,
+                        histogram.getCount(),
+                        histogram.getMeanMicroseconds() * MillisecondsPerMicrosecond,
+                        histogram.getPercentileMicroseconds(0.5) * MillisecondsPerMicrosecond,
+                        histogram.getPercentileMicroseconds(0.99) * MillisecondsPerMicrosecond,
+                        histogram.getMaximumMicroseconds() * MillisecondsPerMicrosecond));
+                    histogram.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the execute of a command, runs as the scheduler's execute callback
+     * @param command - the command that just executed
+     */
+    private void recordCommandExecute(Command command) {
+        long now = System.nanoTime();
+        String name = command.getName();
+        Span span = commandSpans.get(name);
+        if (span == null) {
+            span = this.addSpan(name + ".execute");
+            commandSpans.put(name, span);
+        }
+        span.record(now - lastMarkNanoseconds);
+        lastMarkNanoseconds = now;
+    }
+
+    /**
+     * A timed portion of the loop with a histogram for each match phase
+     */
+    public static class Span {
+        private final LoopProfiler profiler;
+        private final String name;
+        private final LatencyHistogram[] histograms = new LatencyHistogram[MatchPhase.values().length];
+        private final TelemetryPublisher.DoubleArrayChannel telemetry;
+        private long beginNanoseconds = 0;
+
+        private Span(LoopProfiler profiler, String name) {
+            this.profiler = profiler;
+            this.name = name;
+            for (int inx = 0; inx < histograms.length; ++inx) {
+                histograms[inx] = new LatencyHistogram();
+            }
+            // published as p50, p99 and max in milliseconds
+            this.telemetry = TelemetryPublisher.getInstance().addDoubleArray(TelemetryPrefix + name, TelemetryLevel.Debug, 1, 3);
+        }
+
+        /**
+         * Starts timing the span
+         */
+        public void begin() {
+            beginNanoseconds = System.nanoTime();
+        }
+
+        /**
+         * Ends timing the span and records its duration
+         */
+        public void end() {
+            long now = System.nanoTime();
+            this.record(now - beginNanoseconds);
+            profiler.lastMarkNanoseconds = now;
+        }
+
+        private void record(long nanoseconds) {
+            histograms[profiler.phase.ordinal()].record(nanoseconds);
+        }
+
+        private void publish(MatchPhase phase) {
+            if (telemetry.isEnabled()) {
+                LatencyHistogram histogram = histograms[phase.ordinal()];
+                telemetry.set(0, histogram.getPercentileMicroseconds(0.5) * MillisecondsPerMicrosecond);
+                telemetry.set(1, histogram.getPercentileMicroseconds(0.99) * MillisecondsPerMicrosecond);
+                telemetry.set(2, histogram.getMaximumMicroseconds() * MillisecondsPerMicrosecond);
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: MotorOutputCache.java
+// Intent: Forms a write on change wrapper that drops repeated control frames to a motor controller.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.function.DoubleSupplier;
+
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+import com.ctre.phoenix.motorcontrol.can.TalonSRX;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.SparkMaxPIDController;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Sits in front of a motor controller and only passes a control frame on when it differs from the last one sent.
+ * A frame is sent when any of these hold, otherwise it is dropped and counted as saved:
+ *   - the mode, the PID slot or the arbitrary feed forward changed
+ *   - the value moved more than the tolerance from the value last sent, or became exactly zero
+ *   - the keep alive interval has passed since the last frame, so a lost frame is corrected soon
+ *   - invalidate was called because other code wrote to the controller directly
+ * Calls may come from more than one thread, e.g. stopping the drive from the navx thread.
+ */
+public class MotorOutputCache<TMode> {
+    private final IMotorOutput<TMode> output;
+    private final double tolerance;
+    private final double keepAliveSeconds;
+    private final DoubleSupplier clockSeconds;
+
+    private boolean haveLastFrame = false;
+    private TMode lastMode = null;
+    private double lastValue = 0.0;
+    private int lastPidSlot = 0;
+    private double lastArbitraryFeedForward = 0.0;
+    private double lastSentSeconds = 0.0;
+
+    private long framesSent = 0;
+    private long framesSaved = 0;
+
+    /**
+     * Constructor for a cache timed by the FPGA clock
+     * @param output - the motor controller the frames are written to
+     * @param tolerance - how far the value may move, in the units of the mode, before a new frame is sent
+     * @param keepAliveSeconds - the longest time a repeated frame is held back
+     */
+    public MotorOutputCache(IMotorOutput<TMode> output, double tolerance, double keepAliveSeconds) {
+        this(output, tolerance, keepAliveSeconds, Timer::getFPGATimestamp);
+    }
+
+    /**
+     * Constructor for a cache with its own clock, e.g. a fake clock for a fake motor controller
+     * @param output - the motor controller the frames are written to
+     * @param tolerance - how far the value may move, in the units of the mode, before a new frame is sent
+     * @param keepAliveSeconds - the longest time a repeated frame is held back
+     * @param clockSeconds - the current time in seconds
+     */
+    public MotorOutputCache(IMotorOutput<TMode> output, double tolerance, double keepAliveSeconds, DoubleSupplier clockSeconds) {
+        if (tolerance < 0.0) {
+            throw new IllegalArgumentException("tolerance must not be negative");
+        }
+        if (keepAliveSeconds <= 0.0) {
+            throw new IllegalArgumentException("keep alive interval must be positive");
+        }
+        this.output = output;
+        this.tolerance = tolerance;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.clockSeconds = clockSeconds;
+    }
+
+    /**
+     * Builds a cache for a Spark MAX, duty cycle frames go through set and the rest through the PID controller
+     * @param motor - the motor controller
+     * @param tolerance - how far the value may move, in the units of the mode, before a new frame is sent
+     * @param keepAliveSeconds - the longest time a repeated frame is held back
+     * @return the cache
+     */
+    public static MotorOutputCache<CANSparkMax.ControlType> forSparkMax(CANSparkMax motor, double tolerance, double keepAliveSeconds) {
+        SparkMaxPIDController pidController = motor.getPIDController();
+        return new MotorOutputCache<CANSparkMax.ControlType>(
+            (mode, value, pidSlot, arbitraryFeedForward) -> {
+                if (mode == CANSparkMax.ControlType.kDutyCycle && pidSlot == 0 && arbitraryFeedForward == 0.0) {
+                    motor.set(value);
+                }
+                else {
+                    pidController.setReference(value, mode, pidSlot, arbitraryFeedForward, SparkMaxPIDController.ArbFFUnits.kPercentOut);
+                }
+            },
+            tolerance,
+            keepAliveSeconds);
+    }
+
+    /**
+     * Builds a cache for a Talon FX, the PID slot is chosen on the Talon with selectProfileSlot
+     * @param motor - the motor controller
+     * @param tolerance - how far the value may move, in the units of the mode, before a new frame is sent
+     * @param keepAliveSeconds - the longest time a repeated frame is held back
+     * @return the cache
+     */
+    public static MotorOutputCache<TalonFXControlMode> forTalonFX(TalonFX motor, double tolerance, double keepAliveSeconds) {
+        return new MotorOutputCache<TalonFXControlMode>(
+            (mode, value, pidSlot, arbitraryFeedForward) -> {
+                if (arbitraryFeedForward == 0.0) {
+                    motor.set(mode, value);
+                }
+                else {
+                    motor.set(mode, value, DemandType.ArbitraryFeedForward, arbitraryFeedForward);
+                }
+            },
+            tolerance,
+            keepAliveSeconds);
+    }
+
+    /**
+     * Builds a cache for a Talon SRX, the PID slot is chosen on the Talon with selectProfileSlot
+     * @param motor - the motor controller
+     * @param tolerance - how far the value may move, in the units of the mode, before a new frame is sent
+     * @param keepAliveSeconds - the longest time a repeated frame is held back
+     * @return the cache
+     */
+    public static MotorOutputCache<ControlMode> forTalonSRX(TalonSRX motor, double tolerance, double keepAliveSeconds) {
+        return new MotorOutputCache<ControlMode>(
+            (mode, value, pidSlot, arbitraryFeedForward) -> {
+                if (arbitraryFeedForward == 0.0) {
+                    motor.set(mode, value);
+                }
+                else {
+                    motor.set(mode, value, DemandType.ArbitraryFeedForward, arbitraryFeedForward);
+                }
+            },
+            tolerance,
+            keepAliveSeconds);
+    }
+
+    /**
+     * Requests a reference with PID slot 0 and no arbitrary feed forward
+     * @param mode - the control mode
+     * @param value - the reference in the units of the mode
+     * @return true if a frame was sent, false if it was dropped
+     */
+    public boolean set(TMode mode, double value) {
+        return this.set(mode, value, 0, 0.0);
+    }
+
+    /**
+     * Requests a reference, the frame is only sent when it differs from the last one sent or the keep alive is due
+     * @param mode - the control mode
+     * @param value - the reference in the units of the mode
+     * @param pidSlot - the closed loop gains slot
+     * @param arbitraryFeedForward - the arbitrary feed forward in percent output
+     * @return true if a frame was sent, false if it was dropped
+     */
+    public synchronized boolean set(TMode mode, double value, int pidSlot, double arbitraryFeedForward) {
+        double nowSeconds = clockSeconds.getAsDouble();
+        boolean isRepeat =
+            haveLastFrame &&
+            mode == lastMode &&
+            pidSlot == lastPidSlot &&
+            arbitraryFeedForward == lastArbitraryFeedForward &&
+            Math.abs(value - lastValue) <= tolerance &&
+            (value != 0.0 || lastValue == 0.0) &&
+            nowSeconds - lastSentSeconds < keepAliveSeconds;
+        if (isRepeat) {
+            ++framesSaved;
+            return false;
+        }
+
+        output.write(mode, value, pidSlot, arbitraryFeedForward);
+        haveLastFrame = true;
+        lastMode = mode;
+        lastValue = value;
+        lastPidSlot = pidSlot;
+        lastArbitraryFeedForward = arbitraryFeedForward;
+        lastSentSeconds = nowSeconds;
+        ++framesSent;
+        return true;
+    }
+
+    /**
+     * Forgets the last frame so the next request is always sent, for use after writing to the controller directly
+     */
+    public synchronized void invalidate() {
+        haveLastFrame = false;
+    }
+
+    /**
+     * gets the count of frames passed on to the motor controller
+     * @return frames sent
+     */
+    public synchronized long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * gets the count of frames dropped because they repeated the last frame sent
+     * @return frames saved
+     */
+    public synchronized long getFramesSaved() {
+        return framesSaved;
+    }
+}
@@ -0,0 +1,259 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: PoseHistoryBuffer.java
+// Intent: Forms a fixed size primitive history of robot poses with constant time motion statistics.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A ring buffer of timestamped poses held in parallel primitive arrays.
+ * Alongside each pose the buffer keeps running (prefix) sums of the per step distance, velocity,
+ * angular velocity and acceleration so that any window ending at the newest pose can be
+ * summarized with two array reads - no iteration and no allocation.
+ * Poses must be added in increasing timestamp order, which also allows the pose at any
+ * time within the window to be found by binary search.
+ */
+public class PoseHistoryBuffer {
+    private final int capacity;
+    private final double nominalPeriodSeconds;
+
+    private final double[] xMeters;
+    private final double[] yMeters;
+    private final double[] thetaRadians;
+    private final double[] timestampSeconds;
+    private final double[] velocities;
+
+    // running sums, the value at an index includes the step ending at that index
+    private final double[] cumulativeDistances;
+    private final double[] cumulativeVelocities;
+    private final double[] cumulativeAngularVelocities;
+    private final double[] cumulativeAccelerations;
+
+    private int newestIndex = -1;
+    private int count = 0;
+
+    /**
+     * Constructor for the pose history buffer
+     * @param capacity - the maximum number of poses retained
+     * @param nominalPeriodSeconds - the step time assumed when two poses share a timestamp
+     */
+    public PoseHistoryBuffer(int capacity, double nominalPeriodSeconds) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        this.capacity = capacity;
+        this.nominalPeriodSeconds = nominalPeriodSeconds;
+        this.xMeters = new double[capacity];
+        this.yMeters = new double[capacity];
+        this.thetaRadians = new double[capacity];
+        this.timestampSeconds = new double[capacity];
+        this.velocities = new double[capacity];
+        this.cumulativeDistances = new double[capacity];
+        this.cumulativeVelocities = new double[capacity];
+        this.cumulativeAngularVelocities = new double[capacity];
+        this.cumulativeAccelerations = new double[capacity];
+    }
+
+    /**
+     * Adds the newest pose, evicting the oldest pose when full
+     * @param timestamp - the time of the pose in seconds
+     * @param x - the x coordinate in meters
+     * @param y - the y coordinate in meters
+     * @param theta - the rotation in radians
+     */
+    public void add(double timestamp, double x, double y, double theta) {
+        int nextIndex = (newestIndex + 1) % capacity;
+        double velocity = 0.0;
+        double runningDistance = 0.0;
+        double runningVelocity = 0.0;
+        double runningAngularVelocity = 0.0;
+        double runningAcceleration = 0.0;
+        if (count > 0) {
+            double deltaSeconds = timestamp - timestampSeconds[newestIndex];
+            if (!(deltaSeconds > 0.0)) {
+                deltaSeconds = nominalPeriodSeconds;
+            }
+            double distance = Math.hypot(x - xMeters[newestIndex], y - yMeters[newestIndex]);
+            velocity = distance / deltaSeconds;
+            // assumes the robot can not sweep more than pi radians in one step
+            double angularVelocity = MathUtil.angleModulus(theta - thetaRadians[newestIndex]) / deltaSeconds;
+            double acceleration = (count > 1) ? (velocity - velocities[newestIndex]) / deltaSeconds : 0.0;
+
+            runningDistance = cumulativeDistances[newestIndex] + distance;
+            runningVelocity = cumulativeVelocities[newestIndex] + velocity;
+            runningAngularVelocity = cumulativeAngularVelocities[newestIndex] + angularVelocity;
+            runningAcceleration = cumulativeAccelerations[newestIndex] + acceleration;
+        }
+
+        xMeters[nextIndex] = x;
+        yMeters[nextIndex] = y;
+        thetaRadians[nextIndex] = theta;
+        timestampSeconds[nextIndex] = timestamp;
+        velocities[nextIndex] = velocity;
+        cumulativeDistances[nextIndex] = runningDistance;
+        cumulativeVelocities[nextIndex] = runningVelocity;
+        cumulativeAngularVelocities[nextIndex] = runningAngularVelocity;
+        cumulativeAccelerations[nextIndex] = runningAcceleration;
+
+        newestIndex = nextIndex;
+        if (count < capacity) {
+            ++count;
+        }
+    }
+
+    /**
+     * Removes all poses from the buffer
+     */
+    public void clear() {
+        newestIndex = -1;
+        count = 0;
+    }
+
+    /**
+     * gets the number of poses currently retained
+     * @return pose count
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * gets the maximum number of poses retained
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Obtains the distance traveled over the most recent steps
+     * @param steps - the number of steps (pose to pose movements) to look back
+     * @return distance in meters
+     */
+    public double getTotalDistance(int steps) {
+        int windowSteps = this.getWindowSteps(steps);
+        return this.getWindowSum(cumulativeDistances, windowSteps);
+    }
+
+    /**
+     * Obtains the average velocity over the most recent steps
+     * @param steps - the number of steps (pose to pose movements) to look back
+     * @return velocity in meters per second, 0.0 when no steps are available
+     */
+    public double getAverageVelocity(int steps) {
+        int windowSteps = this.getWindowSteps(steps);
+        return windowSteps == 0 ? 0.0 : this.getWindowSum(cumulativeVelocities, windowSteps) / windowSteps;
+    }
+
+    /**
+     * Obtains the average angular velocity over the most recent steps
+     * @param steps - the number of steps (pose to pose movements) to look back
+     * @return angular velocity in radians per second, 0.0 when no steps are available
+     */
+    public double getAverageAngularVelocity(int steps) {
+        int windowSteps = this.getWindowSteps(steps);
+        return windowSteps == 0 ? 0.0 : this.getWindowSum(cumulativeAngularVelocities, windowSteps) / windowSteps;
+    }
+
+    /**
+     * Obtains the average acceleration over the most recent steps
+     * @param steps - the number of steps (pose to pose movements) to look back
+     * @return acceleration in meters per second squared, 0.0 when fewer than two steps are available
+     */
+    public double getAverageAcceleration(int steps) {
+        // acceleration needs two velocities, so a window of n steps holds n - 1 accelerations
+        int accelerationSteps = this.getWindowSteps(steps) - 1;
+        return accelerationSteps <= 0 ? 0.0 : this.getWindowSum(cumulativeAccelerations, accelerationSteps) / accelerationSteps;
+    }
+
+    /**
+     * Obtains the pose at a point in time by binary search and interpolation between the two bracketing poses.
+     * Times before the oldest pose or after the newest pose are clamped to those poses.
+     * @param timestamp - the time of interest in seconds
+     * @return the interpolated pose, or null when the buffer is empty
+     */
+    public Pose2d getPoseAt(double timestamp) {
+        if (count == 0) {
+            return null;
+        }
+        int oldestIndex = this.getPhysicalIndex(0);
+        if (timestamp <= timestampSeconds[oldestIndex]) {
+            return this.getPose(oldestIndex);
+        }
+        if (timestamp >= timestampSeconds[newestIndex]) {
+            return this.getPose(newestIndex);
+        }
+
+        // find the last pose at or before the timestamp, in logical (oldest first) order
+        int low = 0;
+        int high = count - 1;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (timestampSeconds[this.getPhysicalIndex(middle)] <= timestamp) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        int beforeIndex = this.getPhysicalIndex(low);
+        int afterIndex = this.getPhysicalIndex(high);
+        double span = timestampSeconds[afterIndex] - timestampSeconds[beforeIndex];
+        double fraction = span > 0.0 ? (timestamp - timestampSeconds[beforeIndex]) / span : 0.0;
+        double deltaTheta = MathUtil.angleModulus(thetaRadians[afterIndex] - thetaRadians[beforeIndex]);
+        return new Pose2d(
+            xMeters[beforeIndex] + (xMeters[afterIndex] - xMeters[beforeIndex]) * fraction,
+            yMeters[beforeIndex] + (yMeters[afterIndex] - yMeters[beforeIndex]) * fraction,
+            new Rotation2d(thetaRadians[beforeIndex] + deltaTheta * fraction));
+    }
+
+    /**
+     * Converts a logical position (0 is the oldest pose) into an array index
+     * @param logicalIndex - the logical position
+     * @return the array index
+     */
+    private int getPhysicalIndex(int logicalIndex) {
+        return (newestIndex - (count - 1) + logicalIndex + capacity) % capacity;
+    }
+
+    /**
+     * Builds the pose stored at an array index
+     * @param index - the array index
+     * @return the pose
+     */
+    private Pose2d getPose(int index) {
+        return new Pose2d(xMeters[index], yMeters[index], new Rotation2d(thetaRadians[index]));
+    }
+
+    /**
+     * Limits the requested steps to the steps actually held
+     * @param steps - the requested steps
+     * @return the usable steps
+     */
+    private int getWindowSteps(int steps) {
+        return Math.max(0, Math.min(steps, count - 1));
+    }
+
+    /**
+     * Sums the last steps of a running sum array
+     * @param runningSums - the running sum array
+     * @param steps - the number of steps, must not exceed count - 1
+     * @return the sum of the window
+     */
+    private double getWindowSum(double[] runningSums, int steps) {
+        if (steps <= 0) {
+            return 0.0;
+        }
+        int windowStartIndex = (newestIndex - steps + capacity) % capacity;
+        return runningSums[newestIndex] - runningSums[windowStartIndex];
+    }
+}
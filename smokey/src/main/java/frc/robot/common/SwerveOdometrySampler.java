@@ -0,0 +1,220 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveOdometrySampler.java
+// Intent: Forms a high rate sampler of swerve module positions and gyro yaw for odometry.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.swerveHelpers.SwerveModule;
+
+/**
+ * Samples the swerve module positions and gyro yaw at a rate that is independent of the 20ms command scheduler.
+ * Samples land in a fixed size single producer / single consumer ring so that the sampling thread and the
+ * scheduler thread never block on each other and no garbage is created per sample.
+ * The producer is the notifier thread (or the caller of sample() when no thread is used),
+ * the consumer is the drivetrain periodic() which drains samples with poll().
+ */
+public class SwerveOdometrySampler {
+    private static final double SchedulerRateHz = 50.0;
+
+    private final SwerveModule[] modules;
+    private final DoubleSupplier gyroDegreesSupplier;
+    private final int moduleCount;
+    private final int capacity;
+    private final double sampleRateHz;
+    private final Notifier notifier;
+
+    // ring storage - one slot per sample, module values are packed as [slot * moduleCount + moduleIndex]
+    private final double[] timestamps;
+    private final double[] gyroDegrees;
+    private final double[] driveDistances;
+    private final double[] steerAngles;
+    private final int[] epochs;
+
+    // writeCount is only written by the producer, readCount and epoch only by the consumer
+    private volatile long writeCount = 0;
+    private volatile long readCount = 0;
+    private volatile int epoch = 0;
+    private volatile long droppedSampleCount = 0;
+
+    // the most recently polled sample
+    private double currentTimestamp = 0.0;
+    private double currentGyroDegrees = 0.0;
+    private final double[] currentDriveDistances;
+    private final double[] currentSteerAngles;
+
+    /**
+     * Constructor for the sampler
+     * @param modules - the swerve modules to sample, in kinematics order
+     * @param gyroDegreesSupplier - supplier of the counter-clockwise positive gyro yaw in degrees
+     * @param sampleRateHz - the rate to sample at, rates at or below the scheduler rate sample on the scheduler thread
+     * @param capacity - the number of samples that can be held between drains
+     */
+    public SwerveOdometrySampler(
+        SwerveModule[] modules,
+        DoubleSupplier gyroDegreesSupplier,
+        double sampleRateHz,
+        int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.modules = modules;
+        this.gyroDegreesSupplier = gyroDegreesSupplier;
+        this.moduleCount = modules.length;
+        this.capacity = capacity;
+        this.sampleRateHz = sampleRateHz;
+
+        this.timestamps = new double[capacity];
+        this.gyroDegrees = new double[capacity];
+        this.driveDistances = new double[capacity * moduleCount];
+        this.steerAngles = new double[capacity * moduleCount];
+        this.epochs = new int[capacity];
+        this.currentDriveDistances = new double[moduleCount];
+        this.currentSteerAngles = new double[moduleCount];
+
+        if (this.isThreaded()) {
+            this.notifier = new Notifier(this::sample);
+            this.notifier.setName("SwerveOdometrySampler");
+        }
+        else {
+            this.notifier = null;
+        }
+    }
+
+    /**
+     * Determines if samples are taken on a dedicated thread
+     * @return true when a notifier thread does the sampling, false when the scheduler thread must call sample()
+     */
+    public boolean isThreaded() {
+        return sampleRateHz > SchedulerRateHz;
+    }
+
+    /**
+     * Starts the sampling thread (when threaded)
+     */
+    public void start() {
+        if (notifier != null) {
+            notifier.startPeriodic(1.0 / sampleRateHz);
+        }
+    }
+
+    /**
+     * Stops the sampling thread (when threaded)
+     */
+    public void stop() {
+        if (notifier != null) {
+            notifier.stop();
+        }
+    }
+
+    /**
+     * Takes a single sample of the modules and gyro.  Must only be called from one thread -
+     * the notifier when threaded, otherwise the scheduler thread.
+     */
+    public void sample() {
+        long nextWrite = writeCount;
+        if (nextWrite - readCount >= capacity) {
+            // consumer has fallen behind, drop the newest sample rather than overwrite one being read
+            droppedSampleCount = droppedSampleCount + 1;
+            return;
+        }
+        int sampleEpoch = epoch;
+        int slot = (int)(nextWrite % capacity);
+        int offset = slot * moduleCount;
+        timestamps[slot] = Timer.getFPGATimestamp();
+        gyroDegrees[slot] = gyroDegreesSupplier.getAsDouble();
+        for (int inx = 0; inx < moduleCount; ++inx) {
+            driveDistances[offset + inx] = modules[inx].getDriveDistance();
+            steerAngles[offset + inx] = modules[inx].readSteerAngle();
+        }
+        epochs[slot] = sampleEpoch;
+        // publish the slot to the consumer
+        writeCount = nextWrite + 1;
+    }
+
+    /**
+     * Loads the next pending sample so it can be read with the current sample getters.
+     * Samples taken before the last invalidate() are skipped.
+     * @return true when a sample was loaded, false when no samples are pending
+     */
+    public boolean poll() {
+        while (readCount < writeCount) {
+            long nextRead = readCount;
+            int slot = (int)(nextRead % capacity);
+            int offset = slot * moduleCount;
+            boolean isCurrentEpoch = (epochs[slot] == epoch);
+            currentTimestamp = timestamps[slot];
+            currentGyroDegrees = gyroDegrees[slot];
+            for (int inx = 0; inx < moduleCount; ++inx) {
+                currentDriveDistances[inx] = driveDistances[offset + inx];
+                currentSteerAngles[inx] = steerAngles[offset + inx];
+            }
+            // release the slot back to the producer
+            readCount = nextRead + 1;
+            if (isCurrentEpoch) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discards all pending samples and any sample currently being taken.
+     * Call from the consumer thread whenever the module distances or gyro are reset.
+     */
+    public void invalidate() {
+        epoch = epoch + 1;
+        readCount = writeCount;
+    }
+
+    /**
+     * gets the FPGA timestamp of the current sample
+     * @return timestamp in seconds
+     */
+    public double getTimestamp() {
+        return currentTimestamp;
+    }
+
+    /**
+     * gets the gyro yaw of the current sample
+     * @return yaw in degrees, counter-clockwise positive
+     */
+    public double getGyroDegrees() {
+        return currentGyroDegrees;
+    }
+
+    /**
+     * gets a module drive distance of the current sample
+     * @param moduleIndex - the index of the module
+     * @return distance in meters
+     */
+    public double getDriveDistance(int moduleIndex) {
+        return currentDriveDistances[moduleIndex];
+    }
+
+    /**
+     * gets a module steer angle of the current sample
+     * @param moduleIndex - the index of the module
+     * @return angle in radians
+     */
+    public double getSteerAngle(int moduleIndex) {
+        return currentSteerAngles[moduleIndex];
+    }
+
+    /**
+     * gets the count of samples dropped because the consumer did not drain quickly enough
+     * @return dropped sample count
+     */
+    public long getDroppedSampleCount() {
+        return droppedSampleCount;
+    }
+}
@@ -0,0 +1,334 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveSetpointGenerator.java
+// Intent: Forms a generator of swerve module setpoints that respect how fast each module can steer and accelerate.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Moves the swerve setpoint from the previous one toward the desired chassis speeds only as far as every module
+ * can follow in one loop.  The next chassis speeds are found along the straight line from the previous setpoint
+ * to the desired chassis speeds, and the fraction of that line taken is the largest one where no module has to
+ * steer faster than its steering limit or change wheel speed faster than its acceleration limit.
+ * A module may reverse its wheel instead of steering more than 90 degrees.  When the robot is stopped and the
+ * wheels must turn a long way before driving, the wheels are turned in place first.
+ * All working state is preallocated so generating a setpoint does not allocate.
+ */
+public class SwerveSetpointGenerator {
+    // speeds below this are treated as stopped, the module keeps its angle
+    private static final double StoppedSpeedMetersPerSecond = 1E-6;
+    private static final int SearchIterations = 10;
+
+    private final int moduleCount;
+    private final double[] moduleLocationXMeters;
+    private final double[] moduleLocationYMeters;
+    private final double maximumModuleSpeedMetersPerSecond;
+    private final double maximumDriveSpeedChangeMetersPerSecond;
+    private final double maximumSteerChangeRadians;
+
+    // module velocity vectors of the previous setpoint and the desired chassis speeds
+    private final double[] previousVx;
+    private final double[] previousVy;
+    private final double[] desiredVx;
+    private final double[] desiredVy;
+    private double lastFraction = 1.0;
+
+    /**
+     * Constructor for the setpoint generator
+     * @param moduleLocationXMeters - x of each module relative to the robot center
+     * @param moduleLocationYMeters - y of each module relative to the robot center
+     * @param maximumModuleSpeedMetersPerSecond - the fastest a wheel can be driven
+     * @param maximumDriveAccelerationMetersPerSecondSquared - the fastest a wheel speed may change
+     * @param maximumSteerVelocityRadiansPerSecond - the fastest a module may be steered
+     * @param deltaTimeSeconds - the time between setpoints
+     */
+    public SwerveSetpointGenerator(
+        double[] moduleLocationXMeters,
+        double[] moduleLocationYMeters,
+        double maximumModuleSpeedMetersPerSecond,
+        double maximumDriveAccelerationMetersPerSecondSquared,
+        double maximumSteerVelocityRadiansPerSecond,
+        double deltaTimeSeconds) {
+        if (moduleLocationXMeters.length != moduleLocationYMeters.length) {
+            throw new IllegalArgumentException("module location x and y must have the same length");
+        }
+        this.moduleCount = moduleLocationXMeters.length;
+        this.moduleLocationXMeters = moduleLocationXMeters.clone();
+        this.moduleLocationYMeters = moduleLocationYMeters.clone();
+        this.maximumModuleSpeedMetersPerSecond = maximumModuleSpeedMetersPerSecond;
+        this.maximumDriveSpeedChangeMetersPerSecond = maximumDriveAccelerationMetersPerSecondSquared * deltaTimeSeconds;
+        this.maximumSteerChangeRadians = maximumSteerVelocityRadiansPerSecond * deltaTimeSeconds;
+        this.previousVx = new double[moduleCount];
+        this.previousVy = new double[moduleCount];
+        this.desiredVx = new double[moduleCount];
+        this.desiredVy = new double[moduleCount];
+    }
+
+    /**
+     * Generates the next setpoint.  The setpoint chassis speeds and module arrays hold the previous setpoint on the
+     * way in and the next setpoint on the way out.  Module speeds are signed, a negative speed drives the wheel
+     * backwards at the module angle.
+     * @param desiredSpeeds - the chassis speeds the robot should reach
+     * @param centerOfRotationXMeters - x of the center of rotation relative to the robot center
+     * @param centerOfRotationYMeters - y of the center of rotation relative to the robot center
+     * @param setpointSpeeds - the chassis speeds of the setpoint
+     * @param moduleSpeedsMetersPerSecond - the wheel speed of each module of the setpoint
+     * @param moduleAnglesRadians - the angle of each module of the setpoint
+     */
+    public void generate(
+        ChassisSpeeds desiredSpeeds,
+        double centerOfRotationXMeters,
+        double centerOfRotationYMeters,
+        ChassisSpeeds setpointSpeeds,
+        double[] moduleSpeedsMetersPerSecond,
+        double[] moduleAnglesRadians) {
+        double desiredVxChassis = desiredSpeeds.vxMetersPerSecond;
+        double desiredVyChassis = desiredSpeeds.vyMetersPerSecond;
+        double desiredOmega = desiredSpeeds.omegaRadiansPerSecond;
+
+        // bring the desired speeds within what the fastest module can do, scaling the chassis keeps the direction
+        double fastestDesiredSpeed = this.toModuleVectors(
+            desiredVxChassis, desiredVyChassis, desiredOmega, centerOfRotationXMeters, centerOfRotationYMeters, desiredVx, desiredVy);
+        if (fastestDesiredSpeed > maximumModuleSpeedMetersPerSecond) {
+            double scale = maximumModuleSpeedMetersPerSecond / fastestDesiredSpeed;
+            desiredVxChassis *= scale;
+            desiredVyChassis *= scale;
+            desiredOmega *= scale;
+            for (int inx = 0; inx < moduleCount; ++inx) {
+                desiredVx[inx] *= scale;
+                desiredVy[inx] *= scale;
+            }
+        }
+        double fastestPreviousSpeed = this.toModuleVectors(
+            setpointSpeeds.vxMetersPerSecond,
+            setpointSpeeds.vyMetersPerSecond,
+            setpointSpeeds.omegaRadiansPerSecond,
+            centerOfRotationXMeters,
+            centerOfRotationYMeters,
+            previousVx,
+            previousVy);
+        boolean desiredIsStop = desiredVxChassis == 0.0 && desiredVyChassis == 0.0 && desiredOmega == 0.0;
+
+        // when stopped, turn the wheels in place until all of them can follow the first step of driving
+        if (!desiredIsStop && fastestPreviousSpeed < StoppedSpeedMetersPerSecond) {
+            boolean mustSteerFirst = false;
+            for (int inx = 0; inx < moduleCount; ++inx) {
+                if (Math.hypot(desiredVx[inx], desiredVy[inx]) >= StoppedSpeedMetersPerSecond &&
+                    Math.abs(this.getSteerError(desiredVx[inx], desiredVy[inx], moduleAnglesRadians[inx])) > maximumSteerChangeRadians) {
+                    mustSteerFirst = true;
+                    break;
+                }
+            }
+            if (mustSteerFirst) {
+                for (int inx = 0; inx < moduleCount; ++inx) {
+                    if (Math.hypot(desiredVx[inx], desiredVy[inx]) >= StoppedSpeedMetersPerSecond) {
+                        moduleAnglesRadians[inx] = this.steerToward(desiredVx[inx], desiredVy[inx], moduleAnglesRadians[inx]);
+                    }
+                    moduleSpeedsMetersPerSecond[inx] = 0.0;
+                }
+                setpointSpeeds.vxMetersPerSecond = 0.0;
+                setpointSpeeds.vyMetersPerSecond = 0.0;
+                setpointSpeeds.omegaRadiansPerSecond = 0.0;
+                lastFraction = 0.0;
+                return;
+            }
+        }
+
+        // the largest fraction of the way to the desired speeds that every module can follow
+        double fraction = 1.0;
+        for (int inx = 0; inx < moduleCount; ++inx) {
+            // a module that is stopping keeps its angle, and one slow enough to stop within a loop is steered
+            // as it speeds back up, so neither limits steering
+            if (!desiredIsStop &&
+                Math.hypot(previousVx[inx], previousVy[inx]) > maximumDriveSpeedChangeMetersPerSecond &&
+                Math.hypot(desiredVx[inx], desiredVy[inx]) >= StoppedSpeedMetersPerSecond) {
+                fraction = Math.min(fraction, this.findSteerLimitedFraction(inx, moduleAnglesRadians[inx]));
+            }
+            fraction = Math.min(fraction, this.findDriveLimitedFraction(inx));
+        }
+        lastFraction = fraction;
+
+        setpointSpeeds.vxMetersPerSecond += fraction * (desiredVxChassis - setpointSpeeds.vxMetersPerSecond);
+        setpointSpeeds.vyMetersPerSecond += fraction * (desiredVyChassis - setpointSpeeds.vyMetersPerSecond);
+        setpointSpeeds.omegaRadiansPerSecond += fraction * (desiredOmega - setpointSpeeds.omegaRadiansPerSecond);
+
+        for (int inx = 0; inx < moduleCount; ++inx) {
+            double moduleVx = previousVx[inx] + fraction * (desiredVx[inx] - previousVx[inx]);
+            double moduleVy = previousVy[inx] + fraction * (desiredVy[inx] - previousVy[inx]);
+            if (Math.hypot(moduleVx, moduleVy) < StoppedSpeedMetersPerSecond) {
+                moduleSpeedsMetersPerSecond[inx] = 0.0;
+                continue;
+            }
+            // steer no further than allowed, the wheel then only drives the part of the velocity along its angle
+            double angle = this.steerToward(moduleVx, moduleVy, moduleAnglesRadians[inx]);
+            moduleAnglesRadians[inx] = angle;
+            moduleSpeedsMetersPerSecond[inx] = MathUtil.clamp(
+                moduleVx * Math.cos(angle) + moduleVy * Math.sin(angle),
+                moduleSpeedsMetersPerSecond[inx] - maximumDriveSpeedChangeMetersPerSecond,
+                moduleSpeedsMetersPerSecond[inx] + maximumDriveSpeedChangeMetersPerSecond);
+        }
+    }
+
+    /**
+     * Resets the setpoint to stopped, the module angles are kept as the wheels do not move when stopping
+     * @param setpointSpeeds - the chassis speeds of the setpoint
+     * @param moduleSpeedsMetersPerSecond - the wheel speed of each module of the setpoint
+     */
+    public void reset(ChassisSpeeds setpointSpeeds, double[] moduleSpeedsMetersPerSecond) {
+        setpointSpeeds.vxMetersPerSecond = 0.0;
+        setpointSpeeds.vyMetersPerSecond = 0.0;
+        setpointSpeeds.omegaRadiansPerSecond = 0.0;
+        for (int inx = 0; inx < moduleCount; ++inx) {
+            moduleSpeedsMetersPerSecond[inx] = 0.0;
+        }
+        lastFraction = 1.0;
+    }
+
+    /**
+     * gets the fraction of the way from the previous setpoint to the desired speeds taken by the last setpoint
+     * @return fraction from 0.0 to 1.0, 1.0 when the desired speeds were reached
+     */
+    public double getLastFraction() {
+        return lastFraction;
+    }
+
+    /**
+     * Builds the velocity vector of each module for the chassis speeds
+     * @return the fastest module speed
+     */
+    private double toModuleVectors(
+        double vx,
+        double vy,
+        double omega,
+        double centerOfRotationXMeters,
+        double centerOfRotationYMeters,
+        double[] moduleVx,
+        double[] moduleVy) {
+        double fastestSpeed = 0.0;
+        for (int inx = 0; inx < moduleCount; ++inx) {
+            moduleVx[inx] = vx - omega * (moduleLocationYMeters[inx] - centerOfRotationYMeters);
+            moduleVy[inx] = vy + omega * (moduleLocationXMeters[inx] - centerOfRotationXMeters);
+            fastestSpeed = Math.max(fastestSpeed, Math.hypot(moduleVx[inx], moduleVy[inx]));
+        }
+        return fastestSpeed;
+    }
+
+    /**
+     * gets the steering needed to line a module up with a velocity, either driving forward or reversed
+     * @return the steering from -pi/2 to pi/2 radians
+     */
+    private double getSteerError(double moduleVx, double moduleVy, double moduleAngleRadians) {
+        double error = MathUtil.angleModulus(Math.atan2(moduleVy, moduleVx) - moduleAngleRadians);
+        if (error > Math.PI / 2.0) {
+            error -= Math.PI;
+        }
+        else if (error < -Math.PI / 2.0) {
+            error += Math.PI;
+        }
+        return error;
+    }
+
+    /**
+     * gets the module angle after steering toward a velocity for one loop
+     * @return the new module angle from -pi to pi radians
+     */
+    private double steerToward(double moduleVx, double moduleVy, double moduleAngleRadians) {
+        double error = MathUtil.clamp(
+            this.getSteerError(moduleVx, moduleVy, moduleAngleRadians),
+            -maximumSteerChangeRadians,
+            maximumSteerChangeRadians);
+        return MathUtil.angleModulus(moduleAngleRadians + error);
+    }
+
+    /**
+     * Searches for the largest fraction of the way to the desired velocity a module can steer to in one loop.
+     * The heading along a straight line changes in one direction, so a bisection finds the first crossing.
+     */
+    private double findSteerLimitedFraction(int moduleIndex, double moduleAngleRadians) {
+        if (this.isSteerFeasible(moduleIndex, moduleAngleRadians, 1.0)) {
+            return 1.0;
+        }
+        double feasible = 0.0;
+        double infeasible = 1.0;
+        for (int iteration = 0; iteration < SearchIterations; ++iteration) {
+            double fraction = (feasible + infeasible) / 2.0;
+            if (this.isSteerFeasible(moduleIndex, moduleAngleRadians, fraction)) {
+                feasible = fraction;
+            }
+            else {
+                infeasible = fraction;
+            }
+        }
+        return feasible;
+    }
+
+    private boolean isSteerFeasible(int moduleIndex, double moduleAngleRadians, double fraction) {
+        double moduleVx = previousVx[moduleIndex] + fraction * (desiredVx[moduleIndex] - previousVx[moduleIndex]);
+        double moduleVy = previousVy[moduleIndex] + fraction * (desiredVy[moduleIndex] - previousVy[moduleIndex]);
+        // passing through a stop is a reversal, which needs no steering
+        return Math.hypot(moduleVx, moduleVy) < StoppedSpeedMetersPerSecond ||
+            Math.abs(this.getSteerError(moduleVx, moduleVy, moduleAngleRadians)) <= maximumSteerChangeRadians;
+    }
+
+    /**
+     * Searches for the largest fraction of the way to the desired velocity a module can change wheel speed to in one loop.
+     * The speed along a straight line first falls to its slowest point and then rises, so the limit is either slowing
+     * too much before the slowest point or speeding up too much after it, and each side is searched by bisection.
+     * A wheel that must reverse goes no further than its slowest point, it speeds up the other way on later loops.
+     */
+    private double findDriveLimitedFraction(int moduleIndex) {
+        double previousSpeed = Math.hypot(previousVx[moduleIndex], previousVy[moduleIndex]);
+        double deltaVx = desiredVx[moduleIndex] - previousVx[moduleIndex];
+        double deltaVy = desiredVy[moduleIndex] - previousVy[moduleIndex];
+        double deltaSquared = deltaVx * deltaVx + deltaVy * deltaVy;
+        if (deltaSquared == 0.0) {
+            return 1.0;
+        }
+        double slowestFraction = MathUtil.clamp(
+            -(previousVx[moduleIndex] * deltaVx + previousVy[moduleIndex] * deltaVy) / deltaSquared, 0.0, 1.0);
+
+        double feasible;
+        double infeasible;
+        if (this.getSpeed(moduleIndex, slowestFraction) < previousSpeed - maximumDriveSpeedChangeMetersPerSecond) {
+            feasible = 0.0;
+            infeasible = slowestFraction;
+        }
+        else if (previousVx[moduleIndex] * desiredVx[moduleIndex] + previousVy[moduleIndex] * desiredVy[moduleIndex] < 0.0) {
+            return slowestFraction;
+        }
+        else if (this.getSpeed(moduleIndex, 1.0) > previousSpeed + maximumDriveSpeedChangeMetersPerSecond) {
+            feasible = slowestFraction;
+            infeasible = 1.0;
+        }
+        else {
+            return 1.0;
+        }
+        for (int iteration = 0; iteration < SearchIterations; ++iteration) {
+            double fraction = (feasible + infeasible) / 2.0;
+            if (Math.abs(this.getSpeed(moduleIndex, fraction) - previousSpeed) <= maximumDriveSpeedChangeMetersPerSecond) {
+                feasible = fraction;
+            }
+            else {
+                infeasible = fraction;
+            }
+        }
+        return feasible;
+    }
+
+    /**
+     * gets the speed of a module part of the way from its previous to its desired velocity
+     */
+    private double getSpeed(int moduleIndex, double fraction) {
+        return Math.hypot(
+            previousVx[moduleIndex] + fraction * (desiredVx[moduleIndex] - previousVx[moduleIndex]),
+            previousVy[moduleIndex] + fraction * (desiredVy[moduleIndex] - previousVy[moduleIndex]));
+    }
+}
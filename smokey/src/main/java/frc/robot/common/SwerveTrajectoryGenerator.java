@@ -12,6 +12,9 @@ package frc.robot.common;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
@@ -41,6 +44,35 @@ public class SwerveTrajectoryGenerator {
     private static double zeroAcceleration = 0.0;
     private static double zeroVelocity = 0.0;
     private static double zeroCurvature = 0.0;
+    // the roboRIO has two cores, generation runs at low priority so the robot loop keeps running on time
+    private static final ForkJoinPool generationPool = new ForkJoinPool(
+        Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors())),
+        pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("TrajectoryGenerator-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        },
+        null,
+        false);
+
+    /**
+     * Generates a batch of trajectories in parallel.  Each trajectory is generated exactly as generateTrajectory
+     * would generate it, so joining the futures and concatenating in a fixed order gives the same trajectories
+     * as generating them one at a time.
+     * Configs may be shared between requests; the kinematics constraint in a config only remembers module headings,
+     * which do not change the speed limits it computes.
+     * @param requests
+     * @return a future trajectory for each request, in request order
+     */
+    public static List<CompletableFuture<Trajectory>> generateAll(List<TrajectoryRequest> requests){
+        ArrayList<CompletableFuture<Trajectory>> trajectories = new ArrayList<CompletableFuture<Trajectory>>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TrajectoryRequest request = requests.get(i);
+            trajectories.add(CompletableFuture.supplyAsync(request::generate, generationPool));
+        }
+        return trajectories;
+    }
 
     /**
      * Generates trajectories for swerve drives.     
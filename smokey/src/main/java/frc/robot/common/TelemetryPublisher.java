@@ -0,0 +1,284 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TelemetryPublisher.java
+// Intent: Forms a batched, rate decimated publisher of telemetry to network tables.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Constants;
+
+/**
+ * Collects telemetry values during the loop and publishes them once per loop from flush().
+ * Each channel caches its typed network tables publisher so no string keyed lookups happen per loop,
+ * and each channel publishes only every n-th loop (its decimation) and only when its value changed.
+ * Channels sharing a decimation are staggered across loops so they do not all publish on the same loop.
+ * In competition mode debug channels are never published and never even create a publisher.
+ * Channels are published under the SmartDashboard table so existing dashboard layouts keep working.
+ */
+public class TelemetryPublisher {
+    private static TelemetryPublisher instance = null;
+
+    private final NetworkTable table;
+    private final boolean competitionMode;
+    private final ArrayList<Channel> channels = new ArrayList<Channel>();
+    private long loopCount = 0;
+
+    /**
+     * Constructor for the telemetry publisher
+     * @param table - the table to publish channels within
+     * @param competitionMode - true when debug channels should be disabled
+     */
+    private TelemetryPublisher(NetworkTable table, boolean competitionMode) {
+        this.table = table;
+        this.competitionMode = competitionMode;
+    }
+
+    /**
+     * gets the single telemetry publisher for the robot
+     * @return the telemetry publisher
+     */
+    public static synchronized TelemetryPublisher getInstance() {
+        if (instance == null) {
+            instance = new TelemetryPublisher(
+                NetworkTableInstance.getDefault().getTable("SmartDashboard"),
+                Constants.TelemetryCompetitionMode);
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a channel for a single number
+     * @param key - the network tables key within the SmartDashboard table
+     * @param level - the importance of the channel
+     * @param decimation - publish every decimation loops, 1 publishes every loop
+     * @return the channel to set values on
+     */
+    public DoubleChannel addDouble(String key, TelemetryLevel level, int decimation) {
+        DoubleChannel channel = new DoubleChannel(
+            this.isEnabled(level) ? table.getDoubleTopic(key).publish() : null,
+            decimation,
+            channels.size());
+        this.register(channel);
+        return channel;
+    }
+
+    /**
+     * Adds a channel for a single boolean
+     * @param key - the network tables key within the SmartDashboard table
+     * @param level - the importance of the channel
+     * @param decimation - publish every decimation loops, 1 publishes every loop
+     * @return the channel to set values on
+     */
+    public BooleanChannel addBoolean(String key, TelemetryLevel level, int decimation) {
+        BooleanChannel channel = new BooleanChannel(
+            this.isEnabled(level) ? table.getBooleanTopic(key).publish() : null,
+            decimation,
+            channels.size());
+        this.register(channel);
+        return channel;
+    }
+
+    /**
+     * Adds a channel for a group of related numbers that are published together as one array
+     * @param key - the network tables key within the SmartDashboard table
+     * @param level - the importance of the channel
+     * @param decimation - publish every decimation loops, 1 publishes every loop
+     * @param length - the number of values in the group
+     * @return the channel to set values on
+     */
+    public DoubleArrayChannel addDoubleArray(String key, TelemetryLevel level, int decimation, int length) {
+        DoubleArrayChannel channel = new DoubleArrayChannel(
+            this.isEnabled(level) ? table.getDoubleArrayTopic(key).publish() : null,
+            decimation,
+            channels.size(),
+            length);
+        this.register(channel);
+        return channel;
+    }
+
+    /**
+     * Publishes every enabled channel that is due this loop and has changed.  Call once per loop.
+     */
+    public void flush() {
+        for (int inx = 0; inx < channels.size(); ++inx) {
+            channels.get(inx).flush(loopCount);
+        }
+        ++loopCount;
+    }
+
+    /**
+     * Determines if channels of a level are published
+     * @param level - the importance of the channel
+     * @return true when channels of the level are published
+     */
+    public boolean isEnabled(TelemetryLevel level) {
+        return level == TelemetryLevel.Competition || !competitionMode;
+    }
+
+    /**
+     * Holds on to enabled channels for flushing, disabled channels are never visited again
+     * @param channel - the channel to register
+     */
+    private void register(Channel channel) {
+        if (channel.isEnabled()) {
+            channels.add(channel);
+        }
+    }
+
+    /**
+     * The common decimation handling for all channel types
+     */
+    private static abstract class Channel {
+        private final int decimation;
+        private final int phase;
+        protected boolean changed = true;
+
+        /**
+         * Constructor for a channel
+         * @param decimation - publish every decimation loops
+         * @param order - the registration order of the channel, used to stagger publishing
+         */
+        protected Channel(int decimation, int order) {
+            this.decimation = Math.max(1, decimation);
+            this.phase = order % this.decimation;
+        }
+
+        /**
+         * Determines if the channel is published
+         * @return true when the channel is published
+         */
+        public abstract boolean isEnabled();
+
+        /**
+         * Publishes the value held by the channel
+         */
+        protected abstract void publish();
+
+        /**
+         * Publishes the channel value when it is due and has changed
+         * @param loopCount - the number of loops flushed so far
+         */
+        private void flush(long loopCount) {
+            if (changed && loopCount % decimation == phase) {
+                this.publish();
+                changed = false;
+            }
+        }
+    }
+
+    /**
+     * A channel holding a single number
+     */
+    public static class DoubleChannel extends Channel {
+        private final DoublePublisher publisher;
+        private double value = 0.0;
+
+        private DoubleChannel(DoublePublisher publisher, int decimation, int order) {
+            super(decimation, order);
+            this.publisher = publisher;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return publisher != null;
+        }
+
+        /**
+         * Sets the value to be published on the next flush the channel is due
+         * @param value - the value
+         */
+        public void set(double value) {
+            if (publisher != null && (changed || value != this.value)) {
+                this.value = value;
+                changed = true;
+            }
+        }
+
+        @Override
+        protected void publish() {
+            publisher.set(value);
+        }
+    }
+
+    /**
+     * A channel holding a single boolean
+     */
+    public static class BooleanChannel extends Channel {
+        private final BooleanPublisher publisher;
+        private boolean value = false;
+
+        private BooleanChannel(BooleanPublisher publisher, int decimation, int order) {
+            super(decimation, order);
+            this.publisher = publisher;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return publisher != null;
+        }
+
+        /**
+         * Sets the value to be published on the next flush the channel is due
+         * @param value - the value
+         */
+        public void set(boolean value) {
+            if (publisher != null && (changed || value != this.value)) {
+                this.value = value;
+                changed = true;
+            }
+        }
+
+        @Override
+        protected void publish() {
+            publisher.set(value);
+        }
+    }
+
+    /**
+     * A channel holding a fixed length group of related numbers
+     */
+    public static class DoubleArrayChannel extends Channel {
+        private final DoubleArrayPublisher publisher;
+        private final double[] values;
+
+        private DoubleArrayChannel(DoubleArrayPublisher publisher, int decimation, int order, int length) {
+            super(decimation, order);
+            this.publisher = publisher;
+            this.values = new double[length];
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return publisher != null;
+        }
+
+        /**
+         * Sets one value of the group to be published on the next flush the channel is due
+         * @param index - the index of the value within the group
+         * @param value - the value
+         */
+        public void set(int index, double value) {
+            if (publisher != null && (changed || value != values[index])) {
+                values[index] = value;
+                changed = true;
+            }
+        }
+
+        @Override
+        protected void publish() {
+            publisher.set(values);
+        }
+    }
+}
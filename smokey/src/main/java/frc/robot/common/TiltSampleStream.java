@@ -0,0 +1,256 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TiltSampleStream.java
+// Intent: Forms a high rate stream of navx pitch and roll samples with an immediate stop when the charge station tips.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+/**
+ * Carries the pitch and roll of the robot, and their rates, at the rate the navx updates (200Hz) rather than the
+ * 20ms command scheduler rate.  Samples land in a fixed size single producer / single consumer ring, as in
+ * SwerveOdometrySampler, so the navx callback thread and the scheduler thread never block on each other and no
+ * garbage is created per sample.  The producer is the navx callback thread (or the simulation), the consumer is
+ * the scheduler thread which drains samples with poll().
+ * While the tip stop is armed the producer also watches for the charge station starting to tip: the tilt falling
+ * back toward level faster than the armed rate for TipConfirmSamples samples in a row.  The tilt rate is taken
+ * across a window of TipRateWindowSamples sample intervals (40ms at 200Hz), as a difference of single samples
+ * turns navx noise of a tenth of a degree into tens of degrees per second.  When it tips the stream
+ * latches and runs the tip action right away on the producer thread, so the drive can stop within one navx update
+ * instead of at the next scheduler cycle.
+ */
+public class TiltSampleStream {
+    private static final int TipConfirmSamples = 4;
+    private static final int TipRateWindowSamples = 8;
+
+    private final int capacity;
+    private final Runnable tipAction;
+
+    // ring storage - one slot per sample
+    private final double[] timestamps;
+    private final double[] pitches;
+    private final double[] rolls;
+    private final double[] pitchRates;
+    private final double[] rollRates;
+
+    // writeCount is only written by the producer, readCount only by the consumer
+    private volatile long writeCount = 0;
+    private volatile long readCount = 0;
+    private volatile long droppedSampleCount = 0;
+
+    // the previous sample, only used by the producer to find rates
+    private boolean hasPreviousSample = false;
+    private double previousTimestamp = 0.0;
+    private double previousPitch = 0.0;
+    private double previousRoll = 0.0;
+    private int tippingSampleCount = 0;
+
+    // recent tilts, only used by the producer to find the tilt rate across the window
+    private final double[] windowTilts = new double[TipRateWindowSamples + 1];
+    private final double[] windowTimestamps = new double[TipRateWindowSamples + 1];
+    private int windowCount = 0;
+    private int windowNext = 0;
+
+    // tip stop - armed by the consumer, latched by the producer
+    private volatile boolean tipStopArmed = false;
+    private volatile double tipRateDegreesPerSecond = 0.0;
+    private volatile boolean tipped = false;
+
+    // the most recently polled sample
+    private double currentTimestamp = 0.0;
+    private double currentPitch = 0.0;
+    private double currentRoll = 0.0;
+    private double currentPitchRate = 0.0;
+    private double currentRollRate = 0.0;
+
+    /**
+     * Constructor for the stream
+     * @param capacity - the number of samples that can be held between drains
+     * @param tipAction - run on the producer thread when the armed tip stop latches, must be safe to call from that thread
+     */
+    public TiltSampleStream(int capacity, Runnable tipAction) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.tipAction = tipAction;
+        this.timestamps = new double[capacity];
+        this.pitches = new double[capacity];
+        this.rolls = new double[capacity];
+        this.pitchRates = new double[capacity];
+        this.rollRates = new double[capacity];
+    }
+
+    /**
+     * Adds a sample.  Must only be called from one thread - the navx callback thread, or the simulation.
+     * @param timestampSeconds - the time of the sample on a steady clock, only differences between samples are used
+     * @param pitchDegrees - the debiased pitch
+     * @param rollDegrees - the debiased roll
+     */
+    public void add(double timestampSeconds, double pitchDegrees, double rollDegrees) {
+        double pitchRate = 0.0;
+        double rollRate = 0.0;
+        double tilt = Math.hypot(pitchDegrees, rollDegrees);
+        double deltaTime = timestampSeconds - previousTimestamp;
+        if (hasPreviousSample && deltaTime > 0.0) {
+            pitchRate = (pitchDegrees - previousPitch) / deltaTime;
+            rollRate = (rollDegrees - previousRoll) / deltaTime;
+        }
+        if (!hasPreviousSample || deltaTime > 0.0) {
+            this.addToTiltWindow(timestampSeconds, tilt);
+        }
+        hasPreviousSample = true;
+        previousTimestamp = timestampSeconds;
+        previousPitch = pitchDegrees;
+        previousRoll = rollDegrees;
+
+        long nextWrite = writeCount;
+        if (nextWrite - readCount >= capacity) {
+            // consumer has fallen behind, drop the newest sample rather than overwrite one being read
+            droppedSampleCount = droppedSampleCount + 1;
+            return;
+        }
+        int slot = (int)(nextWrite % capacity);
+        timestamps[slot] = timestampSeconds;
+        pitches[slot] = pitchDegrees;
+        rolls[slot] = rollDegrees;
+        pitchRates[slot] = pitchRate;
+        rollRates[slot] = rollRate;
+        // publish the slot to the consumer
+        writeCount = nextWrite + 1;
+    }
+
+    /**
+     * Loads the next pending sample so it can be read with the current sample getters
+     * @return true when a sample was loaded, false when no samples are pending
+     */
+    public boolean poll() {
+        if (readCount >= writeCount) {
+            return false;
+        }
+        long nextRead = readCount;
+        int slot = (int)(nextRead % capacity);
+        currentTimestamp = timestamps[slot];
+        currentPitch = pitches[slot];
+        currentRoll = rolls[slot];
+        currentPitchRate = pitchRates[slot];
+        currentRollRate = rollRates[slot];
+        // release the slot back to the producer
+        readCount = nextRead + 1;
+        return true;
+    }
+
+    /**
+     * Arms the tip stop and clears any earlier tip
+     * @param tipRateDegreesPerSecond - the rate the tilt must fall toward level to count as tipping
+     */
+    public void armTipStop(double tipRateDegreesPerSecond) {
+        this.tipRateDegreesPerSecond = tipRateDegreesPerSecond;
+        tipped = false;
+        tipStopArmed = true;
+    }
+
+    /**
+     * Disarms the tip stop and clears any earlier tip
+     */
+    public void disarmTipStop() {
+        tipStopArmed = false;
+        tipped = false;
+    }
+
+    /**
+     * Determines if the armed tip stop has latched
+     * @return true once the charge station has started to tip, until the tip stop is armed again or disarmed
+     */
+    public boolean hasTipped() {
+        return tipped;
+    }
+
+    /**
+     * gets the timestamp of the current sample
+     * @return timestamp in seconds
+     */
+    public double getTimestamp() {
+        return currentTimestamp;
+    }
+
+    /**
+     * gets the pitch of the current sample
+     * @return pitch in degrees
+     */
+    public double getPitch() {
+        return currentPitch;
+    }
+
+    /**
+     * gets the roll of the current sample
+     * @return roll in degrees
+     */
+    public double getRoll() {
+        return currentRoll;
+    }
+
+    /**
+     * gets the pitch rate of the current sample, found from the sample before it
+     * @return pitch rate in degrees per second
+     */
+    public double getPitchRate() {
+        return currentPitchRate;
+    }
+
+    /**
+     * gets the roll rate of the current sample, found from the sample before it
+     * @return roll rate in degrees per second
+     */
+    public double getRollRate() {
+        return currentRollRate;
+    }
+
+    /**
+     * gets the count of samples dropped because the consumer did not drain quickly enough
+     * @return dropped sample count
+     */
+    public long getDroppedSampleCount() {
+        return droppedSampleCount;
+    }
+
+    /**
+     * Adds a tilt to the window and, once the window is full, checks the tilt rate across it for a tip
+     */
+    private void addToTiltWindow(double timestampSeconds, double tilt) {
+        windowTilts[windowNext] = tilt;
+        windowTimestamps[windowNext] = timestampSeconds;
+        windowNext = (windowNext + 1) % windowTilts.length;
+        if (windowCount < windowTilts.length) {
+            ++windowCount;
+        }
+        if (windowCount == windowTilts.length) {
+            // the next slot to write holds the oldest tilt in the window
+            this.checkForTip((tilt - windowTilts[windowNext]) / (timestampSeconds - windowTimestamps[windowNext]));
+        }
+    }
+
+    private void checkForTip(double tiltRateDegreesPerSecond) {
+        if (!tipStopArmed || tipped) {
+            tippingSampleCount = 0;
+            return;
+        }
+        if (tiltRateDegreesPerSecond < -tipRateDegreesPerSecond) {
+            ++tippingSampleCount;
+        }
+        else {
+            tippingSampleCount = 0;
+        }
+        if (tippingSampleCount >= TipConfirmSamples) {
+            tipped = true;
+            tippingSampleCount = 0;
+            if (tipAction != null) {
+                tipAction.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoryFile.java
+// Intent: Forms a compact binary file of named trajectories that can be written at build time and mapped at startup.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * Reads and writes a file of named trajectories.
+ * The layout is a header (magic, version, fingerprint of the inputs, trajectory count), then for each trajectory
+ * its name and its states as seven doubles (time, velocity, acceleration, x, y, heading, curvature), and finally
+ * a CRC32 of everything before it.  Doubles are stored exactly, only the heading is rebuilt from its angle on load.
+ * The fingerprint is chosen by the caller from whatever the trajectories were generated from, a file with a
+ * different fingerprint is stale and is not loaded.
+ */
+public class TrajectoryFile {
+    private static final int Magic = 0x5452414A; // "TRAJ"
+    private static final int Version = 1;
+    private static final int HeaderBytes = Integer.BYTES * 3 + Long.BYTES;
+    private static final int ChecksumBytes = Long.BYTES;
+    private static final int DoublesPerState = 7;
+
+    /**
+     * Writes trajectories to a file, replacing any existing file
+     * @param path - the file to write
+     * @param fingerprint - the fingerprint of the inputs the trajectories were generated from
+     * @param trajectories - the trajectories by name, in the order they should be stored
+     * @throws IOException when the file cannot be written
+     */
+    public static void write(Path path, long fingerprint, Map<String, Trajectory> trajectories) throws IOException {
+        int size = HeaderBytes + ChecksumBytes;
+        ArrayList<byte[]> names = new ArrayList<byte[]>();
+        for (Map.Entry<String, Trajectory> entry : trajectories.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += Short.BYTES + name.length + Integer.BYTES +
+                entry.getValue().getStates().size() * DoublesPerState * Double.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(Magic);
+        buffer.putInt(Version);
+        buffer.putLong(fingerprint);
+        buffer.putInt(trajectories.size());
+        int nameInx = 0;
+        for (Trajectory trajectory : trajectories.values()) {
+            byte[] name = names.get(nameInx++);
+            buffer.putShort((short)name.length);
+            buffer.put(name);
+            List<Trajectory.State> states = trajectory.getStates();
+            buffer.putInt(states.size());
+            for (int inx = 0; inx < states.size(); ++inx) {
+                Trajectory.State state = states.get(inx);
+                buffer.putDouble(state.timeSeconds);
+                buffer.putDouble(state.velocityMetersPerSecond);
+                buffer.putDouble(state.accelerationMetersPerSecondSq);
+                buffer.putDouble(state.poseMeters.getX());
+                buffer.putDouble(state.poseMeters.getY());
+                buffer.putDouble(state.poseMeters.getRotation().getRadians());
+                buffer.putDouble(state.curvatureRadPerMeter);
+            }
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(checksum.getValue());
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Reads trajectories from a file by mapping it into memory.  Any problem with the file is printed and
+     * reported as null so the caller can fall back to generating the trajectories.
+     * @param path - the file to read
+     * @param fingerprint - the fingerprint of the inputs the trajectories would be generated from now
+     * @return the trajectories by name in stored order, or null when the file is missing, corrupt or stale
+     */
+    public static Map<String, Trajectory> read(Path path, long fingerprint) {
+        if (!Files.isRegularFile(path)) {
+            System.out.println(">>>> no prebuilt trajectory file at " + path);
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HeaderBytes + ChecksumBytes || size > Integer.MAX_VALUE) {
+                System.out.println("WARNING: prebuilt trajectory file " + path + " has an invalid size of " + size);
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int checksumPosition = (int)size - ChecksumBytes;
+            ByteBuffer content = buffer.duplicate();
+            content.limit(checksumPosition);
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            if (checksum.getValue() != buffer.getLong(checksumPosition)) {
+                System.out.println("WARNING: prebuilt trajectory file " + path + " failed its checksum");
+                return null;
+            }
+            if (buffer.getInt() != Magic || buffer.getInt() != Version) {
+                System.out.println("WARNING: prebuilt trajectory file " + path + " is not a version " + Version + " trajectory file");
+                return null;
+            }
+            if (buffer.getLong() != fingerprint) {
+                System.out.println(">>>> prebuilt trajectory file " + path + " is stale");
+                return null;
+            }
+
+            int count = buffer.getInt();
+            LinkedHashMap<String, Trajectory> trajectories = new LinkedHashMap<String, Trajectory>();
+            for (int trajectoryInx = 0; trajectoryInx < count; ++trajectoryInx) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                int stateCount = buffer.getInt();
+                ArrayList<Trajectory.State> states = new ArrayList<Trajectory.State>(stateCount);
+                for (int inx = 0; inx < stateCount; ++inx) {
+                    double time = buffer.getDouble();
+                    double velocity = buffer.getDouble();
+                    double acceleration = buffer.getDouble();
+                    double x = buffer.getDouble();
+                    double y = buffer.getDouble();
+                    double heading = buffer.getDouble();
+                    double curvature = buffer.getDouble();
+                    states.add(new Trajectory.State(
+                        time, velocity, acceleration, new Pose2d(x, y, new Rotation2d(heading)), curvature));
+                }
+                trajectories.put(new String(name, StandardCharsets.UTF_8), new Trajectory(states));
+            }
+            if (buffer.position() != checksumPosition) {
+                System.out.println("WARNING: prebuilt trajectory file " + path + " has unexpected trailing content");
+                return null;
+            }
+            return trajectories;
+        }
+        catch (IOException | RuntimeException exception) {
+            System.out.println("WARNING: unable to read prebuilt trajectory file " + path + ": " + exception);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoryRequest.java
+// Intent: Forms a description of one trajectory to be generated, so trajectories can be generated as a batch.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * The inputs to one of the SwerveTrajectoryGenerator.generateTrajectory methods.  The waypoints are copied when the
+ * request is made, so the caller's lists can be reused and generating the request does not change them.
+ */
+public class TrajectoryRequest {
+    private final Pose2d start;
+    private final List<Translation2d> interiorWaypoints;
+    private final Pose2d end;
+    private final List<Pose2d> waypoints;
+    private final SwerveTrajectoryConfig config;
+
+    /**
+     * Constructor for a request from a start and end pose through interior waypoints
+     * @param start
+     * @param interiorWaypoints
+     * @param end
+     * @param config
+     */
+    public TrajectoryRequest(Pose2d start, List<Translation2d> interiorWaypoints, Pose2d end, SwerveTrajectoryConfig config) {
+        this.start = start;
+        this.interiorWaypoints = new ArrayList<Translation2d>(interiorWaypoints);
+        this.end = end;
+        this.waypoints = null;
+        this.config = config;
+    }
+
+    /**
+     * Constructor for a request through a list of poses
+     * @param waypoints
+     * @param config
+     */
+    public TrajectoryRequest(List<Pose2d> waypoints, SwerveTrajectoryConfig config) {
+        this.start = null;
+        this.interiorWaypoints = null;
+        this.end = null;
+        this.waypoints = new ArrayList<Pose2d>(waypoints);
+        this.config = config;
+    }
+
+    /**
+     * Generates the requested trajectory
+     * @return trajectory
+     */
+    public Trajectory generate() {
+        if (waypoints != null) {
+            // generateTrajectory replaces the first and last waypoints, so give it a copy
+            return SwerveTrajectoryGenerator.generateTrajectory(new ArrayList<Pose2d>(waypoints), config);
+        }
+        return SwerveTrajectoryGenerator.generateTrajectory(start, interiorWaypoints, end, config);
+    }
+}
@@ -0,0 +1,124 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectorySampler.java
+// Intent: Forms a sampler that walks a trajectory forward in time without searching or allocating a state.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+
+/**
+ * Samples a trajectory the way Trajectory.sample does, for callers that sample at increasing times (e.g., once per loop
+ * while driving it).  A cursor into the states only moves forward, so each sample costs a step or two instead of a
+ * binary search, and the sample is written into one reused state.  Sampling an earlier time restarts the cursor.
+ * Where Trajectory.sample divides by the distance between two states and returns NaN (adjacent states at the same
+ * x/y, e.g., a rotation only segment) the pose is interpolated by time instead, so the epsilon translations added by
+ * SwerveTrajectoryGenerator are not needed here.
+ */
+public class TrajectorySampler {
+    private static final double MinimumTimeStepSeconds = 1E-9;
+    private static final double MinimumDistanceMeters = 1E-9;
+    private static final double MinimumVelocityMetersPerSecond = 1E-9;
+
+    private final Trajectory.State[] states;
+    private final Trajectory.State sample = new Trajectory.State();
+    private int cursor = 0;
+
+    /**
+     * Constructor for TrajectorySampler
+     * @param trajectory - the trajectory to sample
+     */
+    public TrajectorySampler(Trajectory trajectory) {
+        this.states = trajectory.getStates().toArray(new Trajectory.State[0]);
+    }
+
+    /**
+     * gets the total time of the trajectory
+     * @return time in seconds
+     */
+    public double getTotalTimeSeconds() {
+        return states[states.length - 1].timeSeconds;
+    }
+
+    /**
+     * Moves the cursor back to the start of the trajectory
+     */
+    public void reset() {
+        cursor = 0;
+    }
+
+    /**
+     * Samples the trajectory.  The returned state is reused by the next call, so copy anything that must be kept.
+     * @param timeSeconds - the time into the trajectory
+     * @return the interpolated state
+     */
+    public Trajectory.State sample(double timeSeconds) {
+        if (timeSeconds <= states[0].timeSeconds) {
+            cursor = 0;
+            return this.copy(states[0]);
+        }
+        if (timeSeconds >= states[states.length - 1].timeSeconds) {
+            cursor = Math.max(0, states.length - 2);
+            return this.copy(states[states.length - 1]);
+        }
+        if (timeSeconds < states[cursor].timeSeconds) {
+            cursor = 0;
+        }
+        // the segment from the cursor to the next state contains the time
+        while (states[cursor + 1].timeSeconds < timeSeconds) {
+            ++cursor;
+        }
+
+        Trajectory.State previous = states[cursor];
+        Trajectory.State next = states[cursor + 1];
+        double timeStep = next.timeSeconds - previous.timeSeconds;
+        if (timeStep < MinimumTimeStepSeconds) {
+            return this.copy(next);
+        }
+
+        // constant acceleration from the previous state, as Trajectory.State.interpolate does
+        double deltaT = timeSeconds - previous.timeSeconds;
+        boolean reversing = previous.velocityMetersPerSecond < 0.0 ||
+            (Math.abs(previous.velocityMetersPerSecond) < MinimumVelocityMetersPerSecond && previous.accelerationMetersPerSecondSq < 0.0);
+        double distance = Math.hypot(
+            next.poseMeters.getX() - previous.poseMeters.getX(),
+            next.poseMeters.getY() - previous.poseMeters.getY());
+        double fraction;
+        if (distance < MinimumDistanceMeters) {
+            fraction = deltaT / timeStep;
+        }
+        else {
+            double traveled = previous.velocityMetersPerSecond * deltaT + 0.5 * previous.accelerationMetersPerSecondSq * deltaT * deltaT;
+            fraction = (reversing ? -traveled : traveled) / distance;
+        }
+
+        double previousHeading = previous.poseMeters.getRotation().getRadians();
+        double headingChange = MathUtil.angleModulus(next.poseMeters.getRotation().getRadians() - previousHeading);
+        sample.timeSeconds = timeSeconds;
+        sample.velocityMetersPerSecond = previous.velocityMetersPerSecond + previous.accelerationMetersPerSecondSq * deltaT;
+        sample.accelerationMetersPerSecondSq = previous.accelerationMetersPerSecondSq;
+        sample.poseMeters = new Pose2d(
+            previous.poseMeters.getX() + (next.poseMeters.getX() - previous.poseMeters.getX()) * fraction,
+            previous.poseMeters.getY() + (next.poseMeters.getY() - previous.poseMeters.getY()) * fraction,
+            new Rotation2d(previousHeading + headingChange * fraction));
+        sample.curvatureRadPerMeter = previous.curvatureRadPerMeter + (next.curvatureRadPerMeter - previous.curvatureRadPerMeter) * fraction;
+        return sample;
+    }
+
+    private Trajectory.State copy(Trajectory.State state) {
+        sample.timeSeconds = state.timeSeconds;
+        sample.velocityMetersPerSecond = state.velocityMetersPerSecond;
+        sample.accelerationMetersPerSecondSq = state.accelerationMetersPerSecondSq;
+        sample.poseMeters = state.poseMeters;
+        sample.curvatureRadPerMeter = state.curvatureRadPerMeter;
+        return sample;
+    }
+}
@@ -18,6 +18,8 @@ import edu.wpi.first.math.geometry.Pose2d;
 public class VisionMeasurement {
     private Pose2d robotPosition;
     private double timestamp;
+    private int tagCount = 1;
+    private double averageTagDistanceMeters = Double.NaN;
    
     /**
      * constructor for a vision measurement
@@ -60,4 +62,34 @@ public class VisionMeasurement {
         timestamp = timestampSeconds;
     }
 
+    /**
+     * method that returns the number of tags used for the measurement.
+     */
+    public int getTagCount(){
+        return tagCount;
+    }
+
+    /**
+     * method that sets the number of tags used for the measurement.
+     * @param count - the tag count
+     */
+    public void setTagCount(int count){
+        tagCount = count;
+    }
+
+    /**
+     * method that returns the average distance from the camera to the tags in meters, NaN when unknown.
+     */
+    public double getAverageTagDistanceMeters(){
+        return averageTagDistanceMeters;
+    }
+
+    /**
+     * method that sets the average distance from the camera to the tags in meters.
+     * @param distanceMeters - the average tag distance, NaN when unknown
+     */
+    public void setAverageTagDistanceMeters(double distanceMeters){
+        averageTagDistanceMeters = distanceMeters;
+    }
+
 }
\ No newline at end of file
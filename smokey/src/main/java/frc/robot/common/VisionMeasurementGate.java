@@ -0,0 +1,173 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: VisionMeasurementGate.java
+// Intent: Forms a gate that scores vision measurements and decides how much the pose estimator should trust them.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * Scores each vision measurement before it reaches the pose estimator.
+ * The standard deviations of a measurement grow with the square of the tag distance and with the robot
+ * angular velocity (motion blur), and shrink with the number of tags seen.  A single tag gives a poor heading
+ * so its heading is effectively ignored in favor of the gyro.
+ * A measurement is rejected when it is too far away, taken while spinning too fast, or when its Mahalanobis
+ * distance from the estimated pose at the same time exceeds the 99% chi-squared bound for three degrees of freedom.
+ * If vision keeps disagreeing for many frames in a row the estimate is assumed to be the problem and the
+ * measurements are let through so the estimator can recover.  A forced measurement has its standard deviations
+ * inflated until it sits on the gate bound, so each one only pulls the estimate part of the way and a single bad
+ * frame cannot teleport the robot.  Measurements stay forced until one passes the gate on its own.
+ */
+public class VisionMeasurementGate {
+    private static final double BaseStandardDeviationMeters = 0.15;
+    private static final double BaseStandardDeviationRadians = 0.5;
+    private static final double UntrustedStandardDeviationRadians = 1000.0;
+    private static final double ReferenceTagDistanceMeters = 2.0;
+    private static final double NominalTagDistanceMeters = 3.0;
+    private static final double MaximumTagDistanceMeters = 6.0;
+    private static final double ReferenceAngularVelocityRadiansPerSecond = Math.PI;
+    private static final double MaximumAngularVelocityRadiansPerSecond = 2.0 * Math.PI;
+    // chi-squared value for 3 degrees of freedom at 99%
+    private static final double MaximumMahalanobisDistanceSquared = 11.345;
+    private static final int MaximumConsecutiveRejections = 10;
+
+    private final double stateStandardDeviationMeters;
+    private final double stateStandardDeviationRadians;
+    private final Matrix<N3, N1> standardDeviations = new Matrix<>(Nat.N3(), Nat.N1());
+
+    private double lastMahalanobisDistanceSquared = 0.0;
+    private int consecutiveRejections = 0;
+    private long acceptedCount = 0;
+    private long rejectedCount = 0;
+    private long forcedCount = 0;
+
+    /**
+     * Constructor for the vision measurement gate
+     * @param stateStandardDeviationMeters - the pose estimator's standard deviation for x and y
+     * @param stateStandardDeviationRadians - the pose estimator's standard deviation for heading
+     */
+    public VisionMeasurementGate(double stateStandardDeviationMeters, double stateStandardDeviationRadians) {
+        this.stateStandardDeviationMeters = stateStandardDeviationMeters;
+        this.stateStandardDeviationRadians = stateStandardDeviationRadians;
+    }
+
+    /**
+     * Scores a measurement, on acceptance the standard deviations to use are available from getStandardDeviations()
+     * @param measurement - the vision measurement
+     * @param estimatedPose - the estimated robot pose at the measurement timestamp
+     * @param angularVelocityRadiansPerSecond - the recent angular velocity of the robot
+     * @return true when the measurement should be added to the pose estimator
+     */
+    public boolean evaluate(VisionMeasurement measurement, Pose2d estimatedPose, double angularVelocityRadiansPerSecond) {
+        Pose2d measuredPose = measurement.getRobotPosition();
+        int tagCount = Math.max(1, measurement.getTagCount());
+        double tagDistance = Double.isNaN(measurement.getAverageTagDistanceMeters()) ?
+            NominalTagDistanceMeters :
+            measurement.getAverageTagDistanceMeters();
+        double angularSpeed = Math.abs(angularVelocityRadiansPerSecond);
+
+        if (measuredPose == null ||
+            tagDistance > MaximumTagDistanceMeters ||
+            angularSpeed > MaximumAngularVelocityRadiansPerSecond) {
+            lastMahalanobisDistanceSquared = Double.POSITIVE_INFINITY;
+            ++rejectedCount;
+            return false;
+        }
+
+        double distanceRatio = tagDistance / ReferenceTagDistanceMeters;
+        double scale = (1.0 + distanceRatio * distanceRatio) * (1.0 + angularSpeed / ReferenceAngularVelocityRadiansPerSecond) / tagCount;
+        double translationDeviation = BaseStandardDeviationMeters * scale;
+        double rotationDeviation = tagCount > 1 ? BaseStandardDeviationRadians * scale : UntrustedStandardDeviationRadians;
+        standardDeviations.set(0, 0, translationDeviation);
+        standardDeviations.set(1, 0, translationDeviation);
+        standardDeviations.set(2, 0, rotationDeviation);
+
+        // covariances are treated as diagonal, so the distance is a sum of normalized squared residuals
+        double translationVariance = stateStandardDeviationMeters * stateStandardDeviationMeters + translationDeviation * translationDeviation;
+        double rotationVariance = stateStandardDeviationRadians * stateStandardDeviationRadians + rotationDeviation * rotationDeviation;
+        double deltaX = measuredPose.getX() - estimatedPose.getX();
+        double deltaY = measuredPose.getY() - estimatedPose.getY();
+        double deltaTheta = MathUtil.angleModulus(measuredPose.getRotation().getRadians() - estimatedPose.getRotation().getRadians());
+        lastMahalanobisDistanceSquared =
+            (deltaX * deltaX + deltaY * deltaY) / translationVariance +
+            (deltaTheta * deltaTheta) / rotationVariance;
+
+        if (lastMahalanobisDistanceSquared > MaximumMahalanobisDistanceSquared) {
+            if (consecutiveRejections < MaximumConsecutiveRejections) {
+                ++consecutiveRejections;
+                ++rejectedCount;
+                return false;
+            }
+            // scaling the combined variance by the inflation puts the measurement's distance just inside the bound
+            double inflation = lastMahalanobisDistanceSquared / MaximumMahalanobisDistanceSquared;
+            standardDeviations.set(0, 0, Math.sqrt(inflation * translationVariance));
+            standardDeviations.set(1, 0, Math.sqrt(inflation * translationVariance));
+            standardDeviations.set(2, 0, tagCount > 1 ? Math.sqrt(inflation * rotationVariance) : UntrustedStandardDeviationRadians);
+            ++forcedCount;
+            ++acceptedCount;
+            return true;
+        }
+        consecutiveRejections = 0;
+        ++acceptedCount;
+        return true;
+    }
+
+    /**
+     * Forgets the run of rejected measurements, call whenever the estimated pose is reset
+     */
+    public void reset() {
+        consecutiveRejections = 0;
+    }
+
+    /**
+     * gets the standard deviations (x meters, y meters, heading radians) of the last accepted measurement.
+     * The matrix is reused by the next call to evaluate.
+     * @return the standard deviations
+     */
+    public Matrix<N3, N1> getStandardDeviations() {
+        return standardDeviations;
+    }
+
+    /**
+     * gets the squared Mahalanobis distance of the last measurement evaluated
+     * @return squared distance, infinity when the measurement was rejected before scoring
+     */
+    public double getLastMahalanobisDistanceSquared() {
+        return lastMahalanobisDistanceSquared;
+    }
+
+    /**
+     * gets the count of measurements accepted
+     * @return accepted count
+     */
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * gets the count of measurements accepted with inflated standard deviations after a run of rejections
+     * @return forced count, also included in the accepted count
+     */
+    public long getForcedCount() {
+        return forcedCount;
+    }
+
+    /**
+     * gets the count of measurements rejected
+     * @return rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
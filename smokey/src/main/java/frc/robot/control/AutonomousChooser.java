@@ -11,11 +11,20 @@
 package frc.robot.control;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -31,25 +40,39 @@ import frc.robot.commands.ManipulatePickerCommand;
 import frc.robot.commands.ArmToLocationCommand.ArmLocation;
 import frc.robot.common.SwerveTrajectoryConfig;
 import frc.robot.common.EveryBotPickerAction;
+import frc.robot.common.FieldMirror;
 import frc.robot.common.SwerveTrajectoryGenerator;
+import frc.robot.common.TelemetryLevel;
+import frc.robot.common.TelemetryPublisher;
+import frc.robot.common.TrajectoryRequest;
 import frc.robot.common.VectorUtils;
 
 /**
- * A class for choosing different auto mode routines from shuffleboard
+ * A class for choosing different auto mode routines from shuffleboard.
+ * Only the selected routine is built.  Its trajectories are generated on a background thread whenever the selection
+ * changes while disabled, and the commands are composed on the main thread once they are ready, because the
+ * command scheduler is not thread safe.  The dashboard shows when the selected routine is ready to run.
+ * Routines are planned (and named) for the blue alliance.  The trajectories are reflected for the red alliance once,
+ * and a routine is rebuilt from the set for the alliance reported by the driver station whenever that changes.
  */
 public class AutonomousChooser {
     private SubsystemCollection subsystems;
     private final SendableChooser<AutonomousPath> autonomousPathChooser = new SendableChooser<>();
     private final SendableChooser<AutonomousBalance> balanceChooser = new SendableChooser<>();
     private final SendableChooser<ScoringPosition> scoreHeightChooser = new SendableChooser<>();
+    // written by the routine builder thread, read on the main thread once a build has completed
+    private volatile Trajectories blueTrajectories;
+    private volatile Trajectories redTrajectories;
+    // the trajectories of the alliance whose routine is being composed
     private Trajectories trajectories;
-    private Command leftRoutine;
-    private Command rightRoutine;
-    private Command middleRoutine;
-    private Command directRoutine;
-    private Command node2Routine;
-    private Command node8Routine;
-    private Command testScoreRoutine;
+    private ExecutorService routineBuilder = null;
+    private TelemetryPublisher.BooleanChannel routineReadyTelemetry = null;
+    private AutonomousPath routinePath = null;
+    private Alliance routineAlliance = null;
+    private Command routine = null;
+    private AutonomousPath pendingPath = null;
+    private Alliance pendingAlliance = null;
+    private Future<ScoreTrajectories> pendingTrajectories = null;
     
     // true if robot starts behind the line and has to drive into node
     // false if robot starts already engaged into node
@@ -67,10 +90,6 @@ public class AutonomousChooser {
     public AutonomousChooser(SubsystemCollection subsystems) {
         this.subsystems = subsystems;
         if(this.subsystems.getDriveTrainSubsystem() != null){
-            System.out.println(">>>> creating auto trajectories");
-            this.trajectories = new Trajectories(subsystems.getDriveTrainSubsystem()); 
-            System.out.println(">>>> finished creating auto trajectories");
-            
             autonomousPathChooser.setDefaultOption("Direct Onto Ramp Routine", AutonomousPath.DIRECT_PATH);
             autonomousPathChooser.addOption("Node 1 (Left) Routine", AutonomousPath.LEFT_PATH);
             autonomousPathChooser.addOption("Node 2 (Left) Routine", AutonomousPath.NODE2_ROUTINE);
@@ -89,14 +108,15 @@ public class AutonomousChooser {
             SmartDashboard.putData(balanceChooser);
             SmartDashboard.putData(scoreHeightChooser);
 
-            // construct all the commands here so that they are ready when called. 
-            this.leftRoutine = getLeftRoutine();
-            this.rightRoutine = getRightRoutine();
-            this.middleRoutine = getMiddleRoutine();
-            this.directRoutine = getDirectRoutine();
-            this.node2Routine = getNode2Routine();
-            this.node8Routine = getNode8Routine();
-            this.testScoreRoutine = this.getScoreRoutine(trajectories.getNode5Position(), trajectories.getConfig());
+            this.routineReadyTelemetry = TelemetryPublisher.getInstance().addBoolean("AutoRoutineReady", TelemetryLevel.Competition, 1);
+            this.routineBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "AutoRoutineBuilder");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            // start building the default routine so it is ready without waiting for the first disabled loop
+            this.update();
         }
         else {
             System.out.println(">>>> NO auto trajectories because no drive train subsystem");
@@ -104,46 +124,178 @@ public class AutonomousChooser {
     }
 
     /**
-     * A method to return the chosen auto command
-     * @param subsystems - the SubsystemCollection
+     * A method to return the chosen auto command.  The routine is normally built while disabled, when it is not
+     * (e.g., the selection changed just before the match) it is built here.
      * @return command
      */
     public Command getCommand() {
-        switch (autonomousPathChooser.getSelected()) {
+        if (routineBuilder == null) {
+            return new InstantCommand();
+        }
+        AutonomousPath selected = autonomousPathChooser.getSelected();
+        Alliance alliance = this.getAlliance();
+        if (selected != routinePath || alliance != routineAlliance) {
+            System.out.println("WARNING: auto routine " + selected + " for " + alliance + " was not ready, waiting for it to build");
+            if (selected != pendingPath || alliance != pendingAlliance) {
+                this.startBuild(selected, alliance);
+            }
+            this.finishBuild();
+        }
+        return routine != null ? routine : new InstantCommand();
+    }
+
+    /**
+     * Starts building the routine for the selected path when the selection changes, and finishes the routine
+     * once its trajectories are ready.  Call every loop while disabled.
+     */
+    public void update() {
+        if (routineBuilder == null) {
+            return;
+        }
+        AutonomousPath selected = autonomousPathChooser.getSelected();
+        Alliance alliance = this.getAlliance();
+        boolean selectedIsBuilt = selected == routinePath && alliance == routineAlliance;
+        if (selectedIsBuilt) {
+            if (pendingTrajectories != null) {
+                // the selection went back to the routine that is already built
+                pendingTrajectories.cancel(false);
+                pendingTrajectories = null;
+                pendingPath = null;
+                pendingAlliance = null;
+            }
+        }
+        else if (selected != pendingPath || alliance != pendingAlliance) {
+            this.startBuild(selected, alliance);
+        }
+        if (pendingTrajectories != null && pendingTrajectories.isDone()) {
+            this.finishBuild();
+            selectedIsBuilt = selected == routinePath && alliance == routineAlliance;
+        }
+        routineReadyTelemetry.set(selectedIsBuilt && routine != null);
+    }
+
+    /**
+     * gets the alliance from the driver station, the blue alliance when it is not known yet
+     * @return alliance
+     */
+    private Alliance getAlliance() {
+        return DriverStation.getAlliance() == Alliance.Red ? Alliance.Red : Alliance.Blue;
+    }
+
+    /**
+     * Starts generating the trajectories of a routine on the routine builder thread
+     * @param path - the routine to build
+     * @param alliance - the alliance the routine will run on
+     */
+    private void startBuild(AutonomousPath path, Alliance alliance) {
+        if (pendingTrajectories != null) {
+            pendingTrajectories.cancel(false);
+        }
+        pendingPath = path;
+        pendingAlliance = alliance;
+        pendingTrajectories = routineBuilder.submit(() -> this.buildScoreTrajectories(path, alliance));
+    }
+
+    /**
+     * Composes the pending routine from its trajectories, waiting for them if they are not ready yet
+     */
+    private void finishBuild() {
+        routinePath = pendingPath;
+        routineAlliance = pendingAlliance;
+        routine = null;
+        try {
+            ScoreTrajectories scoreTrajectories = pendingTrajectories.get();
+            trajectories = routineAlliance == Alliance.Red ? redTrajectories : blueTrajectories;
+            routine = this.getRoutine(routinePath, scoreTrajectories);
+            System.out.println(">>>> auto routine " + routinePath + " for " + routineAlliance + " is ready");
+        }
+        catch (CancellationException | ExecutionException | InterruptedException exception) {
+            System.out.println("ERROR: unable to build auto routine " + routinePath + " for " + routineAlliance + ": " + exception);
+        }
+        pendingTrajectories = null;
+        pendingPath = null;
+        pendingAlliance = null;
+    }
+
+    /**
+     * Generates the trajectories a routine needs, runs on the routine builder thread
+     * @param path - the routine
+     * @param alliance - the alliance the routine will run on
+     * @return the trajectories into and out of the routine's starting node
+     */
+    private ScoreTrajectories buildScoreTrajectories(AutonomousPath path, Alliance alliance) {
+        if (blueTrajectories == null) {
+            System.out.println(">>>> creating auto trajectories");
+            Trajectories created = new Trajectories(subsystems.getDriveTrainSubsystem()); 
+            redTrajectories = created.getMirrored();
+            blueTrajectories = created;
+            System.out.println(">>>> finished creating auto trajectories");
+        }
+        ScoreTrajectories scoreTrajectories = this.buildBlueScoreTrajectories(path, blueTrajectories);
+        return alliance == Alliance.Red ? scoreTrajectories.getMirrored() : scoreTrajectories;
+    }
+
+    /**
+     * Generates the trajectories a routine needs on the blue alliance
+     * @param path - the routine
+     * @param trajectories - the blue alliance trajectories
+     * @return the trajectories into and out of the routine's starting node
+     */
+    private ScoreTrajectories buildBlueScoreTrajectories(AutonomousPath path, Trajectories trajectories) {
+        switch (path) {
             case LEFT_PATH :
-                return this.leftRoutine;
+                return this.getScoreTrajectories(trajectories.getNode1Position(), trajectories.getFirstSegmentConfig());
+            case NODE2_ROUTINE :
+                return this.getScoreTrajectories(trajectories.getNode2Position(), trajectories.getFirstSegmentConfig());
+            case NODE8_ROUTINE :
+                return this.getScoreTrajectories(trajectories.getNode8Position(), trajectories.getFirstSegmentConfig());
             case RIGHT_PATH :
-                return this.rightRoutine;
+                return this.getScoreTrajectories(trajectories.getNode9Position(), trajectories.getFirstSegmentConfig());
+            case TEST_NODE5_SCORE_ROUTINE :
+                return this.getScoreTrajectories(trajectories.getNode5Position(), trajectories.getConfig());
+            default :
+                return this.getScoreTrajectories(trajectories.getNode5Position(), trajectories.getFirstSegmentConfig());
+        }
+    }
+
+    /**
+     * Composes the commands of a routine, runs on the main thread
+     * @param path - the routine
+     * @param scoreTrajectories - the trajectories from buildScoreTrajectories
+     * @return command
+     */
+    private Command getRoutine(AutonomousPath path, ScoreTrajectories scoreTrajectories) {
+        switch (path) {
+            case LEFT_PATH :
+                return this.getLeftRoutine(scoreTrajectories);
+            case RIGHT_PATH :
+                return this.getRightRoutine(scoreTrajectories);
             case MIDDLE_PATH :
-                return this.middleRoutine;
+                return this.getMiddleRoutine(scoreTrajectories);
             case DIRECT_PATH :
-                return this.directRoutine;
+                return this.getDirectRoutine(scoreTrajectories);
             case NODE2_ROUTINE:
-                return this.node2Routine;
+                return this.getNode2Routine(scoreTrajectories);
             case NODE8_ROUTINE:
-                return this.node8Routine;
+                return this.getNode8Routine(scoreTrajectories);
             case TEST_NODE5_SCORE_ROUTINE:
-                return this.testScoreRoutine;
+                return this.getScoreRoutine(scoreTrajectories);
         }
         return new InstantCommand();
     }
-    
+
     /**
-     * Builds a command list for use in auto routines.  This is the first part of the routine that scores the game piece. 
+     * Generates the trajectories into and out of a node.  These are built for each routine because they depend on the starting position.
      * @param NodePosition
      * @param config  - when the auto will drive another trajectory after scoring, supply a config with a higher ending velocity.   
-     * @return
+     * @return the trajectories
      */
-    private Command getScoreRoutine(Pose2d NodePosition, SwerveTrajectoryConfig config){
-        // for now we will always assume that we are attempting to score the cube
-        subsystems.getManualInputInterfaces().setTargetGamePieceAsCube();
-
-        // Build into/out of node trajectories in real time because they depend on the starting position
+    private ScoreTrajectories getScoreTrajectories(Pose2d NodePosition, SwerveTrajectoryConfig config){
         ArrayList<Pose2d> IntoNodeWaypoints = new ArrayList<Pose2d>();
         IntoNodeWaypoints.add(NodePosition);
         IntoNodeWaypoints.add(VectorUtils.translatePose(NodePosition, intoNodeTranslation));
         // use the default config for IntoNodeTrajectory
-        Trajectory IntoNodeTrajectory = SwerveTrajectoryGenerator.generateTrajectory(
+        TrajectoryRequest IntoNodeRequest = new TrajectoryRequest(
             IntoNodeWaypoints, 
             subsystems.getDriveTrainSubsystem().getTrajectoryConfig());
 
@@ -151,10 +303,24 @@ public class AutonomousChooser {
         OutOfNodeWaypoints.add(VectorUtils.translatePose(NodePosition, intoNodeTranslation));
         OutOfNodeWaypoints.add(NodePosition);
         // use the supplied config for OutOfNodeTrajectory
-        Trajectory OutOfNodeTrajectory = SwerveTrajectoryGenerator.generateTrajectory(
+        TrajectoryRequest OutOfNodeRequest = new TrajectoryRequest(
             OutOfNodeWaypoints, 
             config);
 
+        List<CompletableFuture<Trajectory>> generated = SwerveTrajectoryGenerator.generateAll(List.of(IntoNodeRequest, OutOfNodeRequest));
+        return new ScoreTrajectories(NodePosition, generated.get(0).join(), generated.get(1).join());
+    }
+    
+    /**
+     * Builds a command list for use in auto routines.  This is the first part of the routine that scores the game piece. 
+     * @param scoreTrajectories - the node position and the trajectories into and out of it
+     * @return command
+     */
+    private Command getScoreRoutine(ScoreTrajectories scoreTrajectories){
+        // for now we will always assume that we are attempting to score the cube
+        subsystems.getManualInputInterfaces().setTargetGamePieceAsCube();
+        Pose2d NodePosition = scoreTrajectories.nodePosition;
+
         SequentialCommandGroup command = new SequentialCommandGroup();
         if (shouldDriveIntoNode){
             setRobotPose(command, NodePosition);
@@ -168,7 +334,7 @@ public class AutonomousChooser {
         // drive into node
         ParallelCommandGroup intoNodeAndHighScore = new ParallelCommandGroup();
         if (shouldDriveIntoNode) {
-            intoNodeAndHighScore.addCommands(new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), IntoNodeTrajectory));
+            intoNodeAndHighScore.addCommands(new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), scoreTrajectories.intoNode));
         }
 
         // move arm score into selected position
@@ -191,7 +357,7 @@ public class AutonomousChooser {
 
         // drive out of the score position
         ParallelCommandGroup outOfNodeAndStow = new ParallelCommandGroup(
-            new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), OutOfNodeTrajectory));
+            new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), scoreTrajectories.outOfNode));
 
         // stow the arm
         if(this.subsystems.getArmSubsystem() != null) {
@@ -253,58 +419,58 @@ public class AutonomousChooser {
             balanceChooser::getSelected);
     }
 
-    private Command getDirectRoutine(){
+    private Command getDirectRoutine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode5Position(), trajectories.getDirectToRampTrajectory()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getDirectToRampTrajectory()));
         command.addCommands(new AutoBalanceStepCommand(subsystems.getDriveTrainSubsystem()));
         return command;
     }
 
-    private Command getLeftRoutine(){
+    private Command getLeftRoutine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode1Position(), trajectories.getLeftTrajectory()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getLeftTrajectory()));
         command.addCommands(getBalanceRoutine(balanceChooser, trajectories.getLeftToOntoRampTrajectory()));
         return command;
     }
 
-    private Command getMiddleRoutine(){
+    private Command getMiddleRoutine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode5Position(), trajectories.getMiddleTrajectoryPart1()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getMiddleTrajectoryPart1()));
         command.addCommands(new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), trajectories.getMiddleTrajectoryPart2()));
         command.addCommands(getBalanceRoutine(balanceChooser, trajectories.getMiddlePathBehindToOntoRampTrajectory()));
         return command;
     }
 
-    private Command getNode2Routine(){
+    private Command getNode2Routine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode2Position(), trajectories.getNode2Trajectory()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getNode2Trajectory()));
         command.addCommands(getBalanceRoutine(balanceChooser, trajectories.getLeftToOntoRampTrajectory()));
         return command;
     }
 
-    private Command getNode8Routine(){
+    private Command getNode8Routine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode8Position(), trajectories.getNode8Trajectory()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getNode8Trajectory()));
         command.addCommands(getBalanceRoutine(balanceChooser, trajectories.getRightToOntoRampTrajectory()));
         return command;
     }
 
-    private Command getRightRoutine(){
+    private Command getRightRoutine(ScoreTrajectories scoreTrajectories){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreAndDriveRoutine(trajectories.getNode9Position(), trajectories.getRightTrajectory()));
+        command.addCommands(getScoreAndDriveRoutine(scoreTrajectories, trajectories.getRightTrajectory()));
         command.addCommands(getBalanceRoutine(balanceChooser, trajectories.getRightToOntoRampTrajectory()));
         return command;
     }
 
     /**
      * Builds a command list for use in auto routines
-     * @param NodePosition starting position of robot corrosponding to the node. Nodes are numbered from left to right 1- 9 from the drivers perspective
+     * @param scoreTrajectories trajectories for the starting node of the robot. Nodes are numbered from left to right 1- 9 from the drivers perspective
      * @param Trajectory trajectory to follow out of the community
      * @return command
      */
-    private Command getScoreAndDriveRoutine (Pose2d NodePosition, Trajectory Trajectory){
+    private Command getScoreAndDriveRoutine (ScoreTrajectories scoreTrajectories, Trajectory Trajectory){
         SequentialCommandGroup command = new SequentialCommandGroup();
-        command.addCommands(getScoreRoutine(NodePosition, trajectories.getFirstSegmentConfig()));
+        command.addCommands(getScoreRoutine(scoreTrajectories));
         command.addCommands(new DriveTrajectoryCommand(subsystems.getDriveTrainSubsystem(), Trajectory));
         return command;
     }
@@ -340,4 +506,26 @@ public class AutonomousChooser {
         SCORE_HIGH,
         SCORE_MIDDLE,
     }
+
+    /**
+     * The starting node of a routine and the trajectories into and out of it
+     */
+    private static class ScoreTrajectories {
+        private final Pose2d nodePosition;
+        private final Trajectory intoNode;
+        private final Trajectory outOfNode;
+
+        private ScoreTrajectories(Pose2d nodePosition, Trajectory intoNode, Trajectory outOfNode) {
+            this.nodePosition = nodePosition;
+            this.intoNode = intoNode;
+            this.outOfNode = outOfNode;
+        }
+
+        private ScoreTrajectories getMirrored() {
+            return new ScoreTrajectories(
+                FieldMirror.mirror(nodePosition),
+                FieldMirror.mirror(intoNode),
+                FieldMirror.mirror(outOfNode));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+// ***********************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: CanBusBudgetTable.java
+// Intent: Forms the listing of CAN devices and the status frames our code consumes from each of them.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.control;
+
+import frc.robot.Constants;
+import frc.robot.common.CanBusBudget;
+import frc.robot.common.CanDeviceType;
+import frc.robot.common.CanStatusFrame;
+
+/**
+ * A class devoted to the CAN bus budget of the robot.  When code starts (or stops) reading a signal from a device
+ * the frame carrying it must be listed (or removed) here, otherwise the frame will be slowed to its unused period.
+ */
+public class CanBusBudgetTable
+{
+    public static final String SwerveDriveMotors = "SwerveDriveMotors";
+    public static final String SwerveSteerMotors = "SwerveSteerMotors";
+    public static final String SwerveSteerEncoders = "SwerveSteerEncoders";
+    public static final String ArmMotors = "ArmMotors";
+    public static final String EveryBotPickerMotors = "EveryBotPickerMotors";
+
+    // odometry samples the drive and steer positions on its own thread
+    private static final int OdometryFramePeriodMilliseconds = (int)Math.round(1000.0 / Constants.DrivetrainOdometrySampleRateHz);
+
+    public static final CanBusBudget Budget = new CanBusBudget()
+        .addDeviceGroup(SwerveDriveMotors, CanDeviceType.TalonFX,
+            (InstalledHardware.leftFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.leftRearDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightRearDriveInstalled ? 1 : 0))
+        // position for odometry and velocity for the module snapshot
+        .consume(SwerveDriveMotors, CanStatusFrame.TalonFxFeedback0, OdometryFramePeriodMilliseconds)
+
+        .addDeviceGroup(SwerveSteerMotors, CanDeviceType.TalonFX,
+            (InstalledHardware.leftFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.leftRearDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightRearDriveInstalled ? 1 : 0))
+        // position for odometry and velocity for the module snapshot and encoder resync
+        .consume(SwerveSteerMotors, CanStatusFrame.TalonFxFeedback0, OdometryFramePeriodMilliseconds)
+
+        .addDeviceGroup(SwerveSteerEncoders, CanDeviceType.CanCoder,
+            (InstalledHardware.leftFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.leftRearDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightFrontDriveInstalled ? 1 : 0) +
+            (InstalledHardware.rightRearDriveInstalled ? 1 : 0))
+        // absolute position for the steer encoder resync
+        .consume(SwerveSteerEncoders, CanStatusFrame.CanCoderSensorData, 100)
+
+        .addDeviceGroup(ArmMotors, CanDeviceType.SparkMax,
+            (InstalledHardware.horizontalArmMotorInstalled ? 1 : 0) +
+            (InstalledHardware.verticalArmMotorInstalled ? 1 : 0))
+        // encoder position for the extension every loop
+        .consume(ArmMotors, CanStatusFrame.SparkMaxStatus2, 20)
+
+        .addDeviceGroup(EveryBotPickerMotors, CanDeviceType.SparkMax,
+            InstalledHardware.everyBotPickerInstalled ? 1 : 0)
+        // encoder velocity for telemetry
+        .consume(EveryBotPickerMotors, CanStatusFrame.SparkMaxStatus1, 100);
+}
@@ -0,0 +1,40 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: PrebuiltTrajectoryBuilder.java
+// Intent: Forms the build time program that writes the auto trajectories into the deploy directory.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.control;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import frc.robot.common.TrajectoryFile;
+import frc.robot.subsystems.DrivetrainSubsystem;
+
+/**
+ * Generates the auto trajectories off of the robot and writes them to the prebuilt trajectory file,
+ * run by the generateTrajectories gradle task before each build.
+ */
+public class PrebuiltTrajectoryBuilder {
+    /**
+     * Writes the prebuilt trajectory file
+     * @param args - the path of the file to write
+     * @throws IOException when the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("usage: PrebuiltTrajectoryBuilder <output file>");
+            System.exit(1);
+        }
+        Path path = Paths.get(args[0]);
+        Trajectories trajectories = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        TrajectoryFile.write(path, trajectories.getFingerprint(), trajectories.getNamedTrajectories());
+        System.out.println(">>>> wrote " + trajectories.getNamedTrajectories().size() + " trajectories to " + path);
+    }
+}
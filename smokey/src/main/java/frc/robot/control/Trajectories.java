@@ -4,10 +4,26 @@ import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants;
+import frc.robot.common.FieldMirror;
 import frc.robot.common.SwerveTrajectoryConfig;
 import frc.robot.common.SwerveTrajectoryGenerator;
+import frc.robot.common.TrajectoryFile;
+import frc.robot.common.TrajectoryRequest;
 import frc.robot.subsystems.DrivetrainSubsystem;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
 
 public class Trajectories {
     private Pose2d Node1Position;
@@ -34,30 +50,46 @@ public class Trajectories {
     public SwerveTrajectoryConfig middleSegmentConfig;
     public SwerveTrajectoryConfig lastSegmentConfig;
 
-    private DrivetrainSubsystem drivetrain;
+    // name of the file of prebuilt trajectories in the deploy directory, written by the generateTrajectories gradle task
+    public static final String PrebuiltFileName = "trajectories.bin";
+
+    private Supplier<SwerveTrajectoryConfig> configFactory;
+    private Function<List<TrajectoryRequest>, List<CompletableFuture<Trajectory>>> generator;
 
     public Trajectories(DrivetrainSubsystem drivetrain){
-        this.drivetrain = drivetrain; 
+        this(drivetrain::getTrajectoryConfig, Filesystem.getDeployDirectory().toPath().resolve(PrebuiltFileName));
+    }
 
-        config = drivetrain.getTrajectoryConfig();
-        // trajectory config with a fast starting velocity for ramp driving. 
-        // have to get a new config so that changes to this one don't affect the original
-        SwerveTrajectoryConfig fastConfig = drivetrain.getTrajectoryConfig();
-        fastConfig.setStartVelocity(fastConfig.getMaxVelocity() * 0.6); // less than max speed
-        // trajectory config that will start limit to a slow velocity for driving off ramp
-        double offOfRampSpeed = 1.25; 
-        SwerveTrajectoryConfig offOfRampConfig = new SwerveTrajectoryConfig(
-            offOfRampSpeed, 
-            config.getMaxAcceleration(),
-            config.getMaxRotationalVelocity(),
-            config.getMaxRotationalAcceleration());
+    /**
+     * Constructor for Trajectories, loads the prebuilt trajectories when they match this code and generates them otherwise
+     * @param configFactory - supplies a new copy of the drivetrain trajectory config on each call
+     * @param prebuiltPath - the prebuilt trajectory file, or null to always generate
+     */
+    public Trajectories(Supplier<SwerveTrajectoryConfig> configFactory, Path prebuiltPath){
+        this(configFactory, prebuiltPath, SwerveTrajectoryGenerator::generateAll);
+    }
+
+    /**
+     * Constructor for Trajectories with the generator used when the prebuilt trajectories cannot be loaded
+     * @param configFactory - supplies a new copy of the drivetrain trajectory config on each call
+     * @param prebuiltPath - the prebuilt trajectory file, or null to always generate
+     * @param generator - generates a batch of requests, returning a future trajectory for each in request order
+     */
+    Trajectories(
+        Supplier<SwerveTrajectoryConfig> configFactory,
+        Path prebuiltPath,
+        Function<List<TrajectoryRequest>, List<CompletableFuture<Trajectory>>> generator){
+        this.configFactory = configFactory; 
+        this.generator = generator;
+
+        config = configFactory.get();
         // trajectory configs for joining trajectory segments together without slowing down between segments
         double trajectoryJoinSpeed = config.getMaxVelocity() * 0.4;
-        firstSegmentConfig = drivetrain.getTrajectoryConfig();
+        firstSegmentConfig = configFactory.get();
         firstSegmentConfig.setEndVelocity(trajectoryJoinSpeed);
-        middleSegmentConfig = drivetrain.getTrajectoryConfig();
+        middleSegmentConfig = configFactory.get();
         middleSegmentConfig.setStartVelocity(trajectoryJoinSpeed).setEndVelocity(trajectoryJoinSpeed);
-        lastSegmentConfig = drivetrain.getTrajectoryConfig();
+        lastSegmentConfig = configFactory.get();
         lastSegmentConfig.setStartVelocity(trajectoryJoinSpeed);
 
         this.Node1Position = new Pose2d(1.678, 4.994, Rotation2d.fromDegrees(180));
@@ -71,6 +103,136 @@ public class Trajectories {
         // to ensure the robot gets far enough onto the ramp.   
         this.RampFarWaypoint = new Pose2d(4.122, 2.41, Rotation2d.fromDegrees(0)); 
 
+        long startNanoseconds = System.nanoTime();
+        Map<String, Trajectory> prebuilt = null;
+        if (prebuiltPath != null) {
+            try {
+                prebuilt = TrajectoryFile.read(prebuiltPath, this.getFingerprint());
+            }
+            catch (IOException exception) {
+                System.out.println("WARNING: unable to fingerprint trajectories, generating them: " + exception);
+            }
+        }
+        if (prebuilt != null && this.setTrajectories(prebuilt)) {
+            System.out.println(String.format(">>>> loaded prebuilt auto trajectories in %.1f ms", (System.nanoTime() - startNanoseconds) * 1.0e-6));
+        }
+        else {
+            this.generateTrajectories();
+            System.out.println(String.format(">>>> generated auto trajectories in %.1f ms", (System.nanoTime() - startNanoseconds) * 1.0e-6));
+        }
+    }
+
+    /**
+     * Constructor for the reflection of trajectories onto the other alliance's side of the field
+     * @param original - the trajectories to reflect
+     */
+    private Trajectories(Trajectories original){
+        this.configFactory = original.configFactory;
+        this.generator = original.generator;
+        this.config = original.config;
+        this.firstSegmentConfig = original.firstSegmentConfig;
+        this.middleSegmentConfig = original.middleSegmentConfig;
+        this.lastSegmentConfig = original.lastSegmentConfig;
+
+        this.Node1Position = FieldMirror.mirror(original.Node1Position);
+        this.Node2Position = FieldMirror.mirror(original.Node2Position);
+        this.Node5Position = FieldMirror.mirror(original.Node5Position);
+        this.Node8Position = FieldMirror.mirror(original.Node8Position);
+        this.Node9Position = FieldMirror.mirror(original.Node9Position);
+        this.InfrontOfRampPosition = FieldMirror.mirror(original.InfrontOfRampPosition);
+        this.RampFarWaypoint = FieldMirror.mirror(original.RampFarWaypoint);
+
+        Map<String, Trajectory> mirrored = new LinkedHashMap<String, Trajectory>();
+        for (Map.Entry<String, Trajectory> entry : original.getNamedTrajectories().entrySet()) {
+            mirrored.put(entry.getKey(), FieldMirror.mirror(entry.getValue()));
+        }
+        this.setTrajectories(mirrored);
+    }
+
+    /**
+     * Reflects all of the positions and trajectories onto the other alliance's side of the field.  The trajectories
+     * are planned for the blue alliance, call once to get the red alliance's.
+     * @return the reflected trajectories
+     */
+    public Trajectories getMirrored() {
+        return new Trajectories(this);
+    }
+
+    /**
+     * Computes the fingerprint of everything the trajectories are generated from: the code that generates them and
+     * the drivetrain limits in the config.  A prebuilt file with a different fingerprint is stale.
+     * @return fingerprint
+     * @throws IOException when the class files cannot be read
+     */
+    public long getFingerprint() throws IOException {
+        CRC32 fingerprint = new CRC32();
+        addClassToFingerprint(fingerprint, Trajectories.class);
+        addClassToFingerprint(fingerprint, SwerveTrajectoryGenerator.class);
+        addClassToFingerprint(fingerprint, SwerveTrajectoryConfig.class);
+        addClassToFingerprint(fingerprint, TrajectoryRequest.class);
+        ByteBuffer limits = ByteBuffer.allocate(Double.BYTES * 6);
+        limits.putDouble(config.getMaxVelocity());
+        limits.putDouble(config.getMaxAcceleration());
+        limits.putDouble(config.getMaxRotationalVelocity());
+        limits.putDouble(config.getMaxRotationalAcceleration());
+        limits.putDouble(Constants.DRIVETRAIN_TRACKWIDTH_METERS);
+        limits.putDouble(Constants.DRIVETRAIN_WHEELBASE_METERS);
+        fingerprint.update(limits.array());
+        return fingerprint.getValue();
+    }
+
+    /**
+     * gets every generated trajectory by name, as stored in the prebuilt file
+     * @return trajectories by name
+     */
+    public Map<String, Trajectory> getNamedTrajectories() {
+        LinkedHashMap<String, Trajectory> trajectories = new LinkedHashMap<String, Trajectory>();
+        trajectories.put("LeftTrajectory", LeftTrajectory);
+        trajectories.put("Node2Trajectory", Node2Trajectory);
+        trajectories.put("RightTrajectory", RightTrajectory);
+        trajectories.put("Node8Trajectory", Node8Trajectory);
+        trajectories.put("MiddleTrajectoryPart1", MiddleTrajectoryPart1);
+        trajectories.put("MiddleTrajectoryPart2", MiddleTrajectoryPart2);
+        trajectories.put("LeftToOntoRampTrajectory", LeftToOntoRampTrajectory);
+        trajectories.put("RightToOntoRampTrajectory", RightToOntoRampTrajectory);
+        trajectories.put("BehindToOntoRampTrajectory", BehindToOntoRampTrajectory);
+        trajectories.put("DirectToRampTrajectory", DirectToRampTrajectory);
+        trajectories.put("MiddlePathBehindToOntoRampTrajectory", MiddlePathBehindToOntoRampTrajectory);
+        return trajectories;
+    }
+
+    private boolean setTrajectories(Map<String, Trajectory> trajectories) {
+        if (!trajectories.keySet().equals(this.getNamedTrajectories().keySet())) {
+            System.out.println("WARNING: prebuilt trajectory file does not have the expected trajectories");
+            return false;
+        }
+        this.LeftTrajectory = trajectories.get("LeftTrajectory");
+        this.Node2Trajectory = trajectories.get("Node2Trajectory");
+        this.RightTrajectory = trajectories.get("RightTrajectory");
+        this.Node8Trajectory = trajectories.get("Node8Trajectory");
+        this.MiddleTrajectoryPart1 = trajectories.get("MiddleTrajectoryPart1");
+        this.MiddleTrajectoryPart2 = trajectories.get("MiddleTrajectoryPart2");
+        this.LeftToOntoRampTrajectory = trajectories.get("LeftToOntoRampTrajectory");
+        this.RightToOntoRampTrajectory = trajectories.get("RightToOntoRampTrajectory");
+        this.BehindToOntoRampTrajectory = trajectories.get("BehindToOntoRampTrajectory");
+        this.DirectToRampTrajectory = trajectories.get("DirectToRampTrajectory");
+        this.MiddlePathBehindToOntoRampTrajectory = trajectories.get("MiddlePathBehindToOntoRampTrajectory");
+        return true;
+    }
+
+    private void generateTrajectories(){
+        // trajectory config with a fast starting velocity for ramp driving. 
+        // have to get a new config so that changes to this one don't affect the original
+        SwerveTrajectoryConfig fastConfig = configFactory.get();
+        fastConfig.setStartVelocity(fastConfig.getMaxVelocity() * 0.6); // less than max speed
+        // trajectory config that will start limit to a slow velocity for driving off ramp
+        double offOfRampSpeed = 1.25; 
+        SwerveTrajectoryConfig offOfRampConfig = new SwerveTrajectoryConfig(
+            offOfRampSpeed, 
+            config.getMaxAcceleration(),
+            config.getMaxRotationalVelocity(),
+            config.getMaxRotationalAcceleration());
+
         // behind ramp position for node 5 path
         Pose2d MiddlePathOverRampPosition = new Pose2d(6.2 - Units.inchesToMeters(6), 2.41, Rotation2d.fromDegrees(180));
         Pose2d MiddlePathRampNearWaypoint = new Pose2d(4.3 - Units.inchesToMeters(6), 2.41, Rotation2d.fromDegrees(180));
@@ -79,67 +241,86 @@ public class Trajectories {
         // behind ramp position for node 1,2,8,9 paths
         Pose2d BehindTrajectoryEndPosition = new Pose2d(5.27, 2.41, Rotation2d.fromDegrees(180));
         
+        // every trajectory is requested first and generated in parallel, then joined in a fixed order below
+        ArrayList<TrajectoryRequest> requests = new ArrayList<TrajectoryRequest>();
+
         // Left waypoints drive from Node 1 or 2 to a location out of the community
         ArrayList<Translation2d> LeftWaypoints = new ArrayList<Translation2d>();
         LeftWaypoints.add(new Translation2d(2.1, 4.67));
         LeftWaypoints.add(new Translation2d(3.7, 4.67));
         Pose2d LeftTrajectoryEndPosition = new Pose2d(5.3, 4.67, Rotation2d.fromDegrees(0));
-        this.LeftTrajectory = SwerveTrajectoryGenerator.generateTrajectory(Node1Position, LeftWaypoints, LeftTrajectoryEndPosition, config);
-        this.Node2Trajectory = SwerveTrajectoryGenerator.generateTrajectory(Node2Position, LeftWaypoints, LeftTrajectoryEndPosition, config);
+        int LeftInx = addRequest(requests, new TrajectoryRequest(Node1Position, LeftWaypoints, LeftTrajectoryEndPosition, config));
+        int Node2Inx = addRequest(requests, new TrajectoryRequest(Node2Position, LeftWaypoints, LeftTrajectoryEndPosition, config));
         
         // Right waypoints drive from Node 8 or 9 to a location out of the community
         ArrayList<Translation2d> RightWaypoints = new ArrayList<Translation2d>();
         RightWaypoints.add(new Translation2d(2.1, .69));
         RightWaypoints.add(new Translation2d(3.7, .69));
         Pose2d RightTrajectoryEndPosition = new Pose2d(5.3, .69, Rotation2d.fromDegrees(0));
-        this.RightTrajectory = SwerveTrajectoryGenerator.generateTrajectory(Node9Position, RightWaypoints, RightTrajectoryEndPosition, config);
-        this.Node8Trajectory = SwerveTrajectoryGenerator.generateTrajectory(Node8Position, RightWaypoints, RightTrajectoryEndPosition, config);
+        int RightInx = addRequest(requests, new TrajectoryRequest(Node9Position, RightWaypoints, RightTrajectoryEndPosition, config));
+        int Node8Inx = addRequest(requests, new TrajectoryRequest(Node8Position, RightWaypoints, RightTrajectoryEndPosition, config));
 
         // To drive from left or right onto ramp, use a common central waypoint
         ArrayList<Translation2d> BehindToRampWaypoints = new ArrayList<Translation2d>();
         BehindToRampWaypoints.add(new Translation2d(5.81, 2.748));
-        this.LeftToOntoRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(LeftTrajectoryEndPosition, BehindToRampWaypoints, BehindTrajectoryEndPosition, config);
-        this.RightToOntoRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(RightTrajectoryEndPosition, BehindToRampWaypoints, BehindTrajectoryEndPosition, config);
+        int LeftToBehindRampInx = addRequest(requests, new TrajectoryRequest(LeftTrajectoryEndPosition, BehindToRampWaypoints, BehindTrajectoryEndPosition, config));
+        int RightToBehindRampInx = addRequest(requests, new TrajectoryRequest(RightTrajectoryEndPosition, BehindToRampWaypoints, BehindTrajectoryEndPosition, config));
         
         // Drive onto ramp from behind
         ArrayList<Pose2d> BehindToOntoRampWaypoints = new ArrayList<Pose2d>();
         BehindToOntoRampWaypoints.add(BehindTrajectoryEndPosition);
         BehindToOntoRampWaypoints.add(RampNearWaypoint);
         // use fastConfig for this trajectory 
-        this.BehindToOntoRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(BehindToOntoRampWaypoints, fastConfig); 
-
-        this.LeftToOntoRampTrajectory = this.LeftToOntoRampTrajectory.concatenate(BehindToOntoRampTrajectory);
-        this.RightToOntoRampTrajectory = this.RightToOntoRampTrajectory.concatenate(BehindToOntoRampTrajectory);
+        int BehindToOntoRampInx = addRequest(requests, new TrajectoryRequest(BehindToOntoRampWaypoints, fastConfig)); 
 
         // Drive onto ramp from in front 
         ArrayList<Pose2d> InfrontToOntoRampWaypoints = new ArrayList<Pose2d>();
         InfrontToOntoRampWaypoints.add(InfrontOfRampPosition);
         InfrontToOntoRampWaypoints.add(RampFarWaypoint);
         // use fastConfig for this trajectory 
-        Trajectory InfrontToOntoRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(InfrontToOntoRampWaypoints, fastConfig);
+        int InfrontToOntoRampInx = addRequest(requests, new TrajectoryRequest(InfrontToOntoRampWaypoints, fastConfig));
 
         ArrayList<Pose2d> Node5ToFrontOfRampWaypoints = new ArrayList<Pose2d>();
         Node5ToFrontOfRampWaypoints.add(Node5Position);
         Node5ToFrontOfRampWaypoints.add(InfrontOfRampPosition);
-        Trajectory Node5ToFrontOfRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(Node5ToFrontOfRampWaypoints, config);
-        
-        this.DirectToRampTrajectory = Node5ToFrontOfRampTrajectory.concatenate(InfrontToOntoRampTrajectory);
+        int Node5ToFrontOfRampInx = addRequest(requests, new TrajectoryRequest(Node5ToFrontOfRampWaypoints, config));
         
         // Construct the middle up and over ramp trajectory
         ArrayList<Pose2d> MiddleWaypoints = new ArrayList<Pose2d>();
         MiddleWaypoints.add(RampFarWaypoint);
         MiddleWaypoints.add(MiddlePathOverRampPosition);
-        Trajectory RampToBehindRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(MiddleWaypoints, offOfRampConfig);
+        int RampToBehindRampInx = addRequest(requests, new TrajectoryRequest(MiddleWaypoints, offOfRampConfig));
         // Drive onto ramp from behind
         ArrayList<Pose2d> MiddlePathBehindToOntoRampWaypoints = new ArrayList<Pose2d>();
         MiddlePathBehindToOntoRampWaypoints.add(MiddlePathOverRampPosition);
         MiddlePathBehindToOntoRampWaypoints.add(MiddlePathRampNearWaypoint);
         // use fastConfig for this trajectory 
-        this.MiddlePathBehindToOntoRampTrajectory = SwerveTrajectoryGenerator.generateTrajectory(MiddlePathBehindToOntoRampWaypoints, fastConfig); 
+        int MiddlePathBehindToOntoRampInx = addRequest(requests, new TrajectoryRequest(MiddlePathBehindToOntoRampWaypoints, fastConfig)); 
+
+        List<CompletableFuture<Trajectory>> generated = generator.apply(requests);
+
+        this.LeftTrajectory = generated.get(LeftInx).join();
+        this.Node2Trajectory = generated.get(Node2Inx).join();
+        this.RightTrajectory = generated.get(RightInx).join();
+        this.Node8Trajectory = generated.get(Node8Inx).join();
+
+        this.BehindToOntoRampTrajectory = generated.get(BehindToOntoRampInx).join();
+        this.LeftToOntoRampTrajectory = generated.get(LeftToBehindRampInx).join().concatenate(BehindToOntoRampTrajectory);
+        this.RightToOntoRampTrajectory = generated.get(RightToBehindRampInx).join().concatenate(BehindToOntoRampTrajectory);
 
+        Trajectory InfrontToOntoRampTrajectory = generated.get(InfrontToOntoRampInx).join();
+        Trajectory Node5ToFrontOfRampTrajectory = generated.get(Node5ToFrontOfRampInx).join();
+        this.DirectToRampTrajectory = Node5ToFrontOfRampTrajectory.concatenate(InfrontToOntoRampTrajectory);
+
+        this.MiddlePathBehindToOntoRampTrajectory = generated.get(MiddlePathBehindToOntoRampInx).join();
         this.MiddleTrajectoryPart1 = Node5ToFrontOfRampTrajectory
             .concatenate(InfrontToOntoRampTrajectory);
-        this.MiddleTrajectoryPart2 = RampToBehindRampTrajectory;
+        this.MiddleTrajectoryPart2 = generated.get(RampToBehindRampInx).join();
+    }
+
+    private static int addRequest(List<TrajectoryRequest> requests, TrajectoryRequest request) {
+        requests.add(request);
+        return requests.size() - 1;
     }
 
     public SwerveTrajectoryConfig getConfig() {
@@ -230,4 +411,13 @@ public class Trajectories {
     public Trajectory getRightTrajectory() {
         return RightTrajectory;
     }
+
+    private static void addClassToFingerprint(CRC32 fingerprint, Class<?> type) throws IOException {
+        try (InputStream stream = type.getResourceAsStream(type.getSimpleName() + ".class")) {
+            if (stream == null) {
+                throw new IOException("class file for " + type.getName() + " not found");
+            }
+            fingerprint.update(stream.readAllBytes());
+        }
+    }
 }   
@@ -0,0 +1,223 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoryValidator.java
+// Intent: Forms the build time program that checks every trajectory before it can reach the robot.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.control;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.common.SwerveTrajectoryConfig;
+import frc.robot.common.TestTrajectories;
+import frc.robot.common.TrajectorySampler;
+import frc.robot.subsystems.DrivetrainSubsystem;
+
+/**
+ * Generates every trajectory in Trajectories (for both alliances) and TestTrajectories off of the robot, samples
+ * each of them every millisecond and checks the samples.  Run by the validateTrajectories gradle task, which fails
+ * the build when any trajectory fails.
+ * A trajectory fails when:
+ *   - a sample from Trajectory.sample or TrajectorySampler has a NaN or infinite value
+ *   - a sample is faster than the max velocity or accelerates harder than the max acceleration of the config
+ *   - the pose jumps between two samples further than the sampled velocities can move it, by more than one
+ *     spline step of the wpilib trajectory parameterizer.  Trajectory.concatenate leaves out the first state of
+ *     the second trajectory, so each join skips up to one spline step; anything larger is a broken join.
+ * Steps in velocity are reported but do not fail, the ramp paths start at speed on purpose.
+ * The worst case of each check is printed for every trajectory.
+ */
+public class TrajectoryValidator {
+    private static final double SampleStepSeconds = 0.001;
+    private static final double LimitToleranceFraction = 1E-6;
+    // the wpilib trajectory parameterizer splits splines into steps of at most 5 inches (0.127 meters)
+    private static final double MaximumJumpMeters = 0.15;
+
+    /**
+     * Validates the trajectories
+     * @param args - unused
+     */
+    public static void main(String[] args) {
+        SwerveTrajectoryConfig config = DrivetrainSubsystem.createTrajectoryConfig();
+        LinkedHashMap<String, Trajectory> trajectories = new LinkedHashMap<String, Trajectory>();
+        Trajectories blueTrajectories = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        for (Map.Entry<String, Trajectory> entry : blueTrajectories.getNamedTrajectories().entrySet()) {
+            trajectories.put("Blue" + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Trajectory> entry : blueTrajectories.getMirrored().getNamedTrajectories().entrySet()) {
+            trajectories.put("Red" + entry.getKey(), entry.getValue());
+        }
+        TestTrajectories testTrajectories = new TestTrajectories(DrivetrainSubsystem.createTrajectoryConfig());
+        trajectories.put("TestTraverseSimpleForward", testTrajectories.traverseSimpleForward);
+        trajectories.put("TestTraverseSimpleLeft", testTrajectories.traverseSimpleLeft);
+        trajectories.put("TestTraverseTurn270", testTrajectories.traverseTurn270);
+        trajectories.put("TestTurn90", testTrajectories.turn90);
+        trajectories.put("TestTraverseForwardArc", testTrajectories.traverseForwardArc);
+        trajectories.put("TestTraverseBackwardArc", testTrajectories.traverseBackwardArc);
+
+        // the trajectories are independent, so each one is sampled on its own thread
+        ArrayList<CompletableFuture<ValidationResult>> results = new ArrayList<CompletableFuture<ValidationResult>>();
+        for (Map.Entry<String, Trajectory> entry : trajectories.entrySet()) {
+            results.add(CompletableFuture.supplyAsync(() -> validate(
+                entry.getKey(),
+                entry.getValue(),
+                config.getMaxVelocity(),
+                config.getMaxAcceleration())));
+        }
+
+        int failureCount = 0;
+        for (int inx = 0; inx < results.size(); ++inx) {
+            ValidationResult result = results.get(inx).join();
+            result.print();
+            if (result.hasFailed()) {
+                ++failureCount;
+            }
+        }
+        if (failureCount > 0) {
+            System.out.println("!!! " + failureCount + " of " + results.size() + " trajectories failed validation");
+            System.exit(1);
+        }
+        System.out.println(">>>> all " + results.size() + " trajectories passed validation");
+    }
+
+    private static ValidationResult validate(String name, Trajectory trajectory, double maxVelocity, double maxAcceleration) {
+        ValidationResult result = new ValidationResult(name, maxVelocity, maxAcceleration);
+        TrajectorySampler sampler = new TrajectorySampler(trajectory);
+        double totalTime = trajectory.getTotalTimeSeconds();
+        int stepCount = (int)Math.ceil(totalTime / SampleStepSeconds);
+        double previousTime = 0.0;
+        double previousX = 0.0;
+        double previousY = 0.0;
+        double previousVelocity = 0.0;
+        for (int inx = 0; inx <= stepCount; ++inx) {
+            double time = Math.min(inx * SampleStepSeconds, totalTime);
+            result.checkFinite(time, trajectory.sample(time));
+            Trajectory.State state = sampler.sample(time);
+            result.checkFinite(time, state);
+            result.checkLimits(time, state);
+            if (inx > 0) {
+                result.checkContinuity(time, time - previousTime, previousX, previousY, previousVelocity, state);
+            }
+            previousTime = time;
+            previousX = state.poseMeters.getX();
+            previousY = state.poseMeters.getY();
+            previousVelocity = state.velocityMetersPerSecond;
+        }
+        return result;
+    }
+
+    /**
+     * The worst case of each check over the samples of one trajectory
+     */
+    private static class ValidationResult {
+        private final String name;
+        private final double maxVelocity;
+        private final double maxAcceleration;
+        private int sampleCount = 0;
+        private int nonFiniteCount = 0;
+        private double firstNonFiniteTime = Double.NaN;
+        private double worstVelocity = 0.0;
+        private double worstVelocityTime = 0.0;
+        private double worstAcceleration = 0.0;
+        private double worstAccelerationTime = 0.0;
+        private double worstJump = 0.0;
+        private double worstJumpTime = 0.0;
+        private double worstVelocityStep = 0.0;
+        private double worstVelocityStepTime = 0.0;
+
+        private ValidationResult(String name, double maxVelocity, double maxAcceleration) {
+            this.name = name;
+            this.maxVelocity = maxVelocity;
+            this.maxAcceleration = maxAcceleration;
+        }
+
+        private void checkFinite(double time, Trajectory.State state) {
+            ++sampleCount;
+            boolean finite =
+                Double.isFinite(state.timeSeconds) &&
+                Double.isFinite(state.velocityMetersPerSecond) &&
+                Double.isFinite(state.accelerationMetersPerSecondSq) &&
+                Double.isFinite(state.poseMeters.getX()) &&
+                Double.isFinite(state.poseMeters.getY()) &&
+                Double.isFinite(state.poseMeters.getRotation().getRadians()) &&
+                Double.isFinite(state.curvatureRadPerMeter);
+            if (!finite) {
+                if (nonFiniteCount == 0) {
+                    firstNonFiniteTime = time;
+                }
+                ++nonFiniteCount;
+            }
+        }
+
+        private void checkLimits(double time, Trajectory.State state) {
+            double velocity = Math.abs(state.velocityMetersPerSecond);
+            if (velocity > worstVelocity) {
+                worstVelocity = velocity;
+                worstVelocityTime = time;
+            }
+            double acceleration = Math.abs(state.accelerationMetersPerSecondSq);
+            if (acceleration > worstAcceleration) {
+                worstAcceleration = acceleration;
+                worstAccelerationTime = time;
+            }
+        }
+
+        private void checkContinuity(double time, double deltaTime, double previousX, double previousY, double previousVelocity, Trajectory.State state) {
+            // the furthest the samples' velocities and the acceleration limit can move the robot in this step
+            double reachableDistance =
+                Math.max(Math.abs(previousVelocity), Math.abs(state.velocityMetersPerSecond)) * deltaTime +
+                0.5 * maxAcceleration * deltaTime * deltaTime;
+            double jump = Math.hypot(state.poseMeters.getX() - previousX, state.poseMeters.getY() - previousY) - reachableDistance;
+            if (jump > worstJump) {
+                worstJump = jump;
+                worstJumpTime = time;
+            }
+            double velocityStep = Math.abs(state.velocityMetersPerSecond - previousVelocity) - maxAcceleration * deltaTime;
+            if (velocityStep > worstVelocityStep) {
+                worstVelocityStep = velocityStep;
+                worstVelocityStepTime = time;
+            }
+        }
+
+        private boolean hasNonFinite() {
+            return nonFiniteCount > 0;
+        }
+
+        private boolean hasVelocityViolation() {
+            return worstVelocity > maxVelocity * (1.0 + LimitToleranceFraction);
+        }
+
+        private boolean hasAccelerationViolation() {
+            return worstAcceleration > maxAcceleration * (1.0 + LimitToleranceFraction);
+        }
+
+        private boolean hasJumpViolation() {
+            return worstJump > MaximumJumpMeters;
+        }
+
+        private boolean hasFailed() {
+            return this.hasNonFinite() || this.hasVelocityViolation() || this.hasAccelerationViolation() || this.hasJumpViolation();
+        }
+
+        private void print() {
+            System.out.println((this.hasFailed() ? "!!! FAILED " : ">>>> passed ") + name + " (" + sampleCount + " samples)");
+            if (this.hasNonFinite()) {
+                System.out.println("     " + nonFiniteCount + " samples are NaN or infinite, the first at " + String.format("%.3f s", firstNonFiniteTime));
+            }
+            System.out.println(String.format("     %s velocity %.3f m/s at %.3f s (limit %.3f m/s)",
+                this.hasVelocityViolation() ? "!!!" : "max", worstVelocity, worstVelocityTime, maxVelocity));
+            System.out.println(String.format("     %s acceleration %.3f m/s^2 at %.3f s (limit %.3f m/s^2)",
+                this.hasAccelerationViolation() ? "!!!" : "max", worstAcceleration, worstAccelerationTime, maxAcceleration));
+            System.out.println(String.format("     %s jump %.4f m at %.3f s (limit %.4f m)",
+                this.hasJumpViolation() ? "!!!" : "max", worstJump, worstJumpTime, MaximumJumpMeters));
+            System.out.println(String.format("     max velocity step %.3f m/s at %.3f s", worstVelocityStep, worstVelocityStepTime));
+        }
+    }
+}
@@ -19,11 +19,11 @@ import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.common.*;
+import frc.robot.control.CanBusBudgetTable;
 import frc.robot.control.InstalledHardware;
 
 import java.util.*;
@@ -78,6 +78,24 @@ public class ArmSubsystem extends SubsystemBase
     // TODO - use something less than 1.0 for testing
     private static final double neoMotorSpeedReductionFactor = 1.0;
 
+    // 1 cm between table nodes keeps the interpolation well inside the arm tolerances
+    private static final double kinematicsGridStepMeters = 0.01;
+    private static final ArmKinematics kinematics = new ArmKinematics(
+      lengthHorizontalArmPinDistanceMeters,
+      lengthBasePinDistanceBetweewnHorizontalAndVerticalArmsMeters,
+      lengthMinimumHorizontalArmMeters,
+      lengthMinimumVerticalArmMeters,
+      lengthFloorToHorizontalArmPivotMeters,
+      minimumHorizontalArmExtensionMeters,
+      maximumHorizontalArmExtensionMeters,
+      minimumVerticalArmExtensionMeters,
+      maximumVerticalArmExtensionMeters,
+      kinematicsGridStepMeters);
+
+    // repeated motor outputs are only resent this often - the tolerance is in duty cycle or encoder ticks (42 per motor rotation)
+    private static final double motorOutputTolerance = 0.001;
+    private static final double motorOutputKeepAliveSeconds = 0.1;
+
     /* *********************************************************************
     MEMBERS
     ************************************************************************/
@@ -88,6 +106,8 @@ public class ArmSubsystem extends SubsystemBase
     private CANSparkMax horizontalMotor = new CANSparkMax(Constants.HorizontalArmDriveMotorCanId, MotorType.kBrushless);
     private SparkMaxPIDController horizontalPidController;
     private RelativeEncoder horizontalEncoder;
+    private final MotorOutputCache<ControlType> verticalMotorOutput = MotorOutputCache.forSparkMax(verticalMotor, motorOutputTolerance, motorOutputKeepAliveSeconds);
+    private final MotorOutputCache<ControlType> horizontalMotorOutput = MotorOutputCache.forSparkMax(horizontalMotor, motorOutputTolerance, motorOutputKeepAliveSeconds);
     private double kPHorizontal, kIHorizontal, kDHorizontal, kIzHorizontal, kFFHorizontal, kMaxOutputHorizontal, kMinOutputHorizontal, maxRPMHorizontal, maxVelHorizontal, minVelHorizontal, maxAccHorizontal, allowedErrHorizontal;
     private double kPVertical, kIVertical, kDVertical, kIzVertical, kFFVertical, kMaxOutputVertical, kMinOutputVertical, maxRPMVertical, maxVelVertical, minVelVertical, maxAccVertical, allowedErrVertical;
     private boolean motorsInitalizedForSmartMotion = false;
@@ -106,10 +126,30 @@ public class ArmSubsystem extends SubsystemBase
     private double requestedHorizontalArmExtension = 0.0;
     private double requestedVerticalArmExtension = 0.0;
 
+    // the arms as read once at the start of each periodic - [0] is y and [1] is z for the point in space
+    private double currentHorizontalArmExtensionMeters = 0.0;
+    private double currentVerticalArmExtensionMeters = 0.0;
+    private final double[] currentArmPointInSpaceMeters = new double[2];
+
     CorrectableEncoderRevNeoPlusDigitalIoPort verticalArmBottomCorrectableEncoder = null;
     CorrectableEncoderRevNeoPlusDigitalIoPort verticalArmMiddleCorrectableEncoder = null;
     CorrectableEncoderRevNeoPlusDigitalIoPort horizontalArmCorrectableEncoder = null;
 
+    // telemetry channels - sensor reset flags rarely change so they are published less often
+    private final TelemetryPublisher telemetry = TelemetryPublisher.getInstance();
+    private final TelemetryPublisher.BooleanChannel horizontalArmSensorTelemetry = telemetry.addBoolean("HorizontalArmSensor", TelemetryLevel.Competition, 1);
+    private final TelemetryPublisher.BooleanChannel horizontalArmSensorEverResetTelemetry = telemetry.addBoolean("HorizontalArmSensorEncoderEverReset", TelemetryLevel.Competition, 10);
+    private final TelemetryPublisher.BooleanChannel verticalArmBottomSensorTelemetry = telemetry.addBoolean("VerticalArmBottomSensor", TelemetryLevel.Competition, 1);
+    private final TelemetryPublisher.BooleanChannel verticalArmBottomSensorEverResetTelemetry = telemetry.addBoolean("VerticalArmBottomSensorEncoderEverReset", TelemetryLevel.Competition, 10);
+    private final TelemetryPublisher.BooleanChannel verticalArmMiddleSensorTelemetry = telemetry.addBoolean("VerticalArmMiddleSensor", TelemetryLevel.Competition, 1);
+    private final TelemetryPublisher.BooleanChannel verticalArmMiddleSensorEverResetTelemetry = telemetry.addBoolean("VerticalArmMiddleSensorEncoderEverReset", TelemetryLevel.Competition, 10);
+    private final TelemetryPublisher.DoubleChannel horizontalArmExtensionTelemetry = telemetry.addDouble("ExtensionHorizontalArmMeters", TelemetryLevel.Competition, 1);
+    private final TelemetryPublisher.DoubleChannel verticalArmExtensionTelemetry = telemetry.addDouble("ExtensionVerticalArmMeters", TelemetryLevel.Competition, 1);
+    private final TelemetryPublisher.DoubleChannel armDistanceTelemetry = telemetry.addDouble("ArmDistanceMetersY", TelemetryLevel.Debug, 5);
+    private final TelemetryPublisher.DoubleChannel armHeightTelemetry = telemetry.addDouble("ArmHeightMetersZ", TelemetryLevel.Debug, 5);
+    private final TelemetryPublisher.DoubleChannel armMotorFramesSavedTelemetry = telemetry.addDouble("ArmMotorFramesSaved", TelemetryLevel.Debug, 50);
+    private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("ArmSubsystem.periodic");
+
     /* *********************************************************************
     CONSTRUCTORS
     ************************************************************************/
@@ -189,37 +229,41 @@ public class ArmSubsystem extends SubsystemBase
      * @return true if the position is valid and was set, otherwise false
      */
     public boolean setArmToPointInSpace(double yPointMeters, double zPointMeters) {
-      
-      double requestedAngle = Math.atan(zPointMeters/yPointMeters);
-      double requestedHorizontalArmLength = yPointMeters/Math.cos(requestedAngle);
-      double requestedVerticalArmLength = 
-        Math.sqrt(
-          lengthHorizontalArmPinDistanceMeters * lengthHorizontalArmPinDistanceMeters +
-          lengthBasePinDistanceBetweewnHorizontalAndVerticalArmsMeters * lengthBasePinDistanceBetweewnHorizontalAndVerticalArmsMeters -
-          (2 *lengthHorizontalArmPinDistanceMeters * lengthBasePinDistanceBetweewnHorizontalAndVerticalArmsMeters * Math.cos(requestedAngle)));
-
-      double requestedHorizontalArmExtensionMeters = requestedHorizontalArmLength - lengthMinimumHorizontalArmMeters;
-      double requestedVerticalArmExtensionMeters = requestedVerticalArmLength - lengthMinimumVerticalArmMeters;
-
-      boolean armPointInSpaceValid = false;
-      if( requestedHorizontalArmExtensionMeters >= minimumHorizontalArmExtensionMeters &&
-        requestedHorizontalArmExtensionMeters <= maximumHorizontalArmExtensionMeters &&
-        requestedVerticalArmExtensionMeters >= minimumVerticalArmExtensionMeters &&
-        requestedVerticalArmExtensionMeters <= maximumVerticalArmExtensionMeters) {
-          armPointInSpaceValid = true;
-          this.setArmExtensions(requestedHorizontalArmExtensionMeters, requestedVerticalArmExtensionMeters);
+      double[] requestedExtensionsMeters = new double[2];
+      boolean armPointInSpaceValid = ArmSubsystem.convertPointInSpaceToArmExtensions(yPointMeters, zPointMeters, requestedExtensionsMeters);
+      if(armPointInSpaceValid) {
+        this.setArmExtensions(requestedExtensionsMeters[0], requestedExtensionsMeters[1]);
       }
       else {
         System.out.println("!!!INVALID POSITION REQUESTED!!!");
-        System.out.println("angle radians = " + requestedAngle +
-        "\nhorizontal len = " + requestedHorizontalArmLength +
-        "\nvertical len = " + requestedVerticalArmLength +
-        "\nhorizontal extension = " + requestedHorizontalArmExtensionMeters +
-        "\nvertical extension = " + requestedVerticalArmExtensionMeters);
+        System.out.println("y meters = " + yPointMeters +
+        "\nz meters = " + zPointMeters +
+        "\nhorizontal extension = " + requestedExtensionsMeters[0] +
+        "\nvertical extension = " + requestedExtensionsMeters[1]);
       }
       return armPointInSpaceValid;
     }
 
+    /**
+     * A method to find the arm extensions that reach a point in space, without moving the arms
+     * uses the precomputed kinematics tables, see ArmKinematics
+     * @param yPointMeters the y aspect of the arm from the primary arm pivot center in meters
+     * @param zPointMeters the z aspect of the arm above the level playing floor in meters
+     * @param extensionsMeters receives the horizontal arm extension at [0] and the vertical arm extension at [1] in meters
+     * @return true if both extensions are within the limits of the arms, otherwise false
+     */
+    public static boolean convertPointInSpaceToArmExtensions(double yPointMeters, double zPointMeters, double[] extensionsMeters) {
+      return kinematics.convertPointInSpaceToArmExtensions(yPointMeters, zPointMeters, extensionsMeters);
+    }
+
+    /**
+     * A method to get the kinematics shared by all arm subsystems
+     * @return the arm kinematics
+     */
+    public static ArmKinematics getKinematics() {
+      return kinematics;
+    }
+
     /**
      * Method to help indicate when a requested movement is complete
      * @return true when the arms have arrived at their extension distances, else false
@@ -289,19 +333,21 @@ public class ArmSubsystem extends SubsystemBase
      */
     @Override
     public void periodic() {
+      periodicSpan.begin();
 
       // confirm that the smart motion is setup - no-op after it is setup first time
       this.initializeMotorsSmartMotion();
+      this.updateArmSnapshot();
       this.doTelemetry();      
 
       // determine if the movement is in the stop range
       // stop range implies any of the following:
       // magnetic sensor triggered 
       // arm deployed >= limit (e.g., maximumXXXArmExtensionMeters)
-      double currentHorizontalExtensionInMeters = this.getCurrentHorizontalArmExtensionInMeters();
+      double currentHorizontalExtensionInMeters = this.currentHorizontalArmExtensionMeters;
       boolean isHorizontalArmAtOrBelowLowStop = (currentHorizontalExtensionInMeters <= 0.0);
       boolean isHorizontalArmAtOrAboveHighStop = currentHorizontalExtensionInMeters >= maximumHorizontalArmExtensionMeters;
-      double currentVerticalExtensionInMeters = this.getCurrentVerticalArmExtensionInMeters();
+      double currentVerticalExtensionInMeters = this.currentVerticalArmExtensionMeters;
       boolean isVerticalArmAtOrBelowLowStop = (currentVerticalExtensionInMeters <= 0.0);
       boolean isVerticalArmAtOrAboveHighStop = currentVerticalExtensionInMeters >= maximumVerticalArmExtensionMeters;
 
@@ -310,36 +356,36 @@ public class ArmSubsystem extends SubsystemBase
 
         // Horizontal
         if(isHorizontalArmAtOrBelowLowStop && this.requestedHorizontalMotorSpeed < 0.0) {
-          this.horizontalMotor.set(0.0);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if(isHorizontalArmAtOrAboveHighStop && this.requestedHorizontalMotorSpeed > 0.0) {
-          this.horizontalMotor.set(0.0);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         // we are slapping the sensor too hard we need to figure out how to slow down before we smack it
         else if(
           (currentHorizontalExtensionInMeters < lengthHorizontalArmExtensionVeryCloseToStopMeters &&  this.requestedHorizontalMotorSpeed < 0.0 ) ||
           (currentHorizontalExtensionInMeters > lengthHorizontalArmExtensionVeryCloseToEndMeters &&  this.requestedHorizontalMotorSpeed > 0.0 )) {
-          this.horizontalMotor.set(this.requestedHorizontalMotorSpeed * neoMotorSpeedReductionFactorVeryCloseToStop);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, this.requestedHorizontalMotorSpeed * neoMotorSpeedReductionFactorVeryCloseToStop);
         }
         else {
-          this.horizontalMotor.set(this.requestedHorizontalMotorSpeed * neoMotorSpeedReductionFactor);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, this.requestedHorizontalMotorSpeed * neoMotorSpeedReductionFactor);
         }
         
         // Vertical
         if(isVerticalArmAtOrBelowLowStop && this.requestedVerticalMotorSpeed < 0.0) {
-          this.verticalMotor.set(0.0);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if(isVerticalArmAtOrAboveHighStop && this.requestedVerticalMotorSpeed > 0.0) {
-          this.verticalMotor.set(0.0);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         // we are nearing puck-zone or bottom sometimes too fast
         else if(
           (currentVerticalExtensionInMeters > lengthVerticalArmExtensionVeryCloseToPucksMeters &&  this.requestedVerticalMotorSpeed > 0.0 ) || 
           (currentVerticalExtensionInMeters < lengthVerticalArmExtensionVeryCloseToStopMeters &&  this.requestedVerticalMotorSpeed < 0.0 )) {
-          this.verticalMotor.set(this.requestedVerticalMotorSpeed * neoMotorSpeedReductionFactorVeryCloseToStop);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, this.requestedVerticalMotorSpeed * neoMotorSpeedReductionFactorVeryCloseToStop);
         }
         else {
-          this.verticalMotor.set(this.requestedVerticalMotorSpeed * neoMotorSpeedReductionFactor);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, this.requestedVerticalMotorSpeed * neoMotorSpeedReductionFactor);
         }
 
       }
@@ -352,61 +398,62 @@ public class ArmSubsystem extends SubsystemBase
 
         // Horizontal
         if(isHorizontalArmAtOrBelowLowStop && this.requestedHorizontalArmExtension <= 0.0) {
-          this.horizontalMotor.set(0.0);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if(isHorizontalArmAtOrAboveHighStop && this.requestedHorizontalArmExtension >= maximumHorizontalArmExtensionMeters) {
-          this.horizontalMotor.set(0.0);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if (isHorizontalWithinTolerance) {
-          this.horizontalMotor.set(0.0);
+          this.horizontalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         // we are slapping the sensor too hard we need to figure out how to slow down before we smack it
         else if(currentHorizontalExtensionInMeters < lengthHorizontalArmExtensionVeryCloseToStopMeters ) {
           double frogSpellExtensionDistance = 
             (currentHorizontalExtensionInMeters + this.requestedHorizontalArmExtension) / 2;
-          horizontalPidController.setReference(
-            ArmSubsystem.convertHorizontalArmExtensionFromMetersToTicks(frogSpellExtensionDistance),
-            ControlType.kSmartMotion);
+          this.horizontalMotorOutput.set(
+            ControlType.kSmartMotion,
+            ArmSubsystem.convertHorizontalArmExtensionFromMetersToTicks(frogSpellExtensionDistance));
         }
         else {
-          horizontalPidController.setReference(
-            ArmSubsystem.convertHorizontalArmExtensionFromMetersToTicks(this.requestedHorizontalArmExtension),
-            ControlType.kSmartMotion);
+          this.horizontalMotorOutput.set(
+            ControlType.kSmartMotion,
+            ArmSubsystem.convertHorizontalArmExtensionFromMetersToTicks(this.requestedHorizontalArmExtension));
         }
 
         // Vertical
         if(isVerticalArmAtOrBelowLowStop && this.requestedVerticalArmExtension <= 0.0) {
-          this.verticalMotor.set(0.0);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if(isVerticalArmAtOrAboveHighStop && this.requestedVerticalArmExtension >= maximumVerticalArmExtensionMeters) {
-          this.verticalMotor.set(0.0);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         else if (isVerticalWithinTolerance) {
-          this.verticalMotor.set(0.0);
+          this.verticalMotorOutput.set(ControlType.kDutyCycle, 0.0);
         }
         // we are nearing puck-zone sometimes too fast
         else if(currentVerticalExtensionInMeters > lengthVerticalArmExtensionVeryCloseToPucksMeters) {
           double frogSpellExtensionDistance = 
             (currentVerticalExtensionInMeters + this.requestedVerticalArmExtension) / 2;
-          verticalPidController.setReference(
-            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(frogSpellExtensionDistance),
-            ControlType.kSmartMotion);
+          this.verticalMotorOutput.set(
+            ControlType.kSmartMotion,
+            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(frogSpellExtensionDistance));
         }
         // we are nearing bottom stop zone sometimes too fast
         else if(currentVerticalExtensionInMeters < lengthVerticalArmExtensionVeryCloseToStopMeters) {
           double frogSpellExtensionDistance = 
             (currentVerticalExtensionInMeters + this.requestedVerticalArmExtension) / 2;
-          verticalPidController.setReference(
-            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(frogSpellExtensionDistance),
-            ControlType.kSmartMotion);
+          this.verticalMotorOutput.set(
+            ControlType.kSmartMotion,
+            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(frogSpellExtensionDistance));
         }
         else {
-          verticalPidController.setReference(
-            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(this.requestedVerticalArmExtension),
-            ControlType.kSmartMotion);
+          this.verticalMotorOutput.set(
+            ControlType.kSmartMotion,
+            ArmSubsystem.convertVerticalArmExtensionFromMetersToTicks(this.requestedVerticalArmExtension));
         }
 
       }
+      periodicSpan.end();
     }
 
     @Override
@@ -458,19 +505,24 @@ public class ArmSubsystem extends SubsystemBase
      */
     private void doTelemetry() {
       if(InstalledHardware.horizontalArmSensorInstalled){
-        SmartDashboard.putBoolean("HorizontalArmSensor",  this.horizontalArmMageneticSensor.get());
-        SmartDashboard.putBoolean("HorizontalArmSensorEncoderEverReset", this.horizontalArmCorrectableEncoder.getMotorEncoderEverReset());
+        horizontalArmSensorTelemetry.set(this.horizontalArmMageneticSensor.get());
+        horizontalArmSensorEverResetTelemetry.set(this.horizontalArmCorrectableEncoder.getMotorEncoderEverReset());
       }
       if(InstalledHardware.verticalArmBottomSensorInstalled){
-        SmartDashboard.putBoolean("VerticalArmBottomSensor", this.verticalArmBottomMageneticSensor.get());
-        SmartDashboard.putBoolean("VerticalArmBottomSensorEncoderEverReset", this.verticalArmBottomCorrectableEncoder.getMotorEncoderEverReset());
+        verticalArmBottomSensorTelemetry.set(this.verticalArmBottomMageneticSensor.get());
+        verticalArmBottomSensorEverResetTelemetry.set(this.verticalArmBottomCorrectableEncoder.getMotorEncoderEverReset());
       }
       if(InstalledHardware.verticalArmMiddleSensorInstalled) {
-        SmartDashboard.putBoolean("VerticalArmMiddleSensor",  this.verticalArmMiddleMageneticSensor.get());
-        SmartDashboard.putBoolean("VerticalArmMiddleSensorEncoderEverReset", this.verticalArmMiddleCorrectableEncoder.getMotorEncoderEverReset());
+        verticalArmMiddleSensorTelemetry.set(this.verticalArmMiddleMageneticSensor.get());
+        verticalArmMiddleSensorEverResetTelemetry.set(this.verticalArmMiddleCorrectableEncoder.getMotorEncoderEverReset());
+      }
+      horizontalArmExtensionTelemetry.set(this.currentHorizontalArmExtensionMeters);
+      verticalArmExtensionTelemetry.set(this.currentVerticalArmExtensionMeters);
+      armDistanceTelemetry.set(this.getCurrentArmsDistanceInMeters());
+      armHeightTelemetry.set(this.getCurrentArmsHeightInMeters());
+      if(armMotorFramesSavedTelemetry.isEnabled()) {
+        armMotorFramesSavedTelemetry.set(this.horizontalMotorOutput.getFramesSaved() + this.verticalMotorOutput.getFramesSaved());
       }
-      SmartDashboard.putNumber("ExtensionHorizontalArmMeters", this.getCurrentHorizontalArmExtensionInMeters());
-      SmartDashboard.putNumber("ExtensionVerticalArmMeters", this.getCurrentVerticalArmExtensionInMeters());
 
       // removing for now as currently unnecessary
       /* 
@@ -479,8 +531,6 @@ public class ArmSubsystem extends SubsystemBase
       SmartDashboard.putNumber("VerticalArmMotorTicks", this.verticalEncoder.getPosition());
       SmartDashboard.putNumber("ArmAngleRadians", this.getCurrentHorizontalArmAngleRadians());
       SmartDashboard.putNumber("ArmAngleDegrees", this.getCurrentHorizontalArmAngleDegrees());
-      SmartDashboard.putNumber("ArmHeightMetersZ", this.getCurrentArmsHeightInMeters());
-      SmartDashboard.putNumber("ArmDistanceMetersY", this.getCurrentArmsDistanceInMeters());
       */
     }
 
@@ -512,16 +562,24 @@ public class ArmSubsystem extends SubsystemBase
       return verticalArmExtension;
     }
 
+    /**
+     * A method to read both arm extensions once and find the arm point in space from them
+     */
+    private void updateArmSnapshot() {
+      this.currentHorizontalArmExtensionMeters = this.getCurrentHorizontalArmExtensionInMeters();
+      this.currentVerticalArmExtensionMeters = this.getCurrentVerticalArmExtensionInMeters();
+      kinematics.convertArmExtensionsToPointInSpace(
+        this.currentHorizontalArmExtensionMeters,
+        this.currentVerticalArmExtensionMeters,
+        this.currentArmPointInSpaceMeters);
+    }
+
     /**
      * A method to return the current horizontal arm angle measured from floor to arm centerline
      * @return the angle
      */
     private double getCurrentHorizontalArmAngleRadians() {
-      // need to use arc cos equation for angle given all three sides
-      double a = lengthMinimumVerticalArmMeters + this.getCurrentVerticalArmExtensionInMeters();
-      double b = lengthHorizontalArmPinDistanceMeters;
-      double c = lengthBasePinDistanceBetweewnHorizontalAndVerticalArmsMeters;
-      return Math.acos((Math.pow(b, 2) + Math.pow(c, 2) - Math.pow(a, 2))/(2 * b * c));
+      return kinematics.getHorizontalArmAngleRadians(this.currentVerticalArmExtensionMeters);
     }
 
     /**
@@ -537,7 +595,7 @@ public class ArmSubsystem extends SubsystemBase
      * @return the height in meters from the floor to the arm tip
      */
     private double getCurrentArmsHeightInMeters() {
-      return lengthFloorToHorizontalArmPivotMeters + (Math.sin(this.getCurrentHorizontalArmAngleRadians()) * (lengthMinimumHorizontalArmMeters + this.getCurrentHorizontalArmExtensionInMeters()));
+      return this.currentArmPointInSpaceMeters[1];
     }
 
     /**
@@ -545,7 +603,7 @@ public class ArmSubsystem extends SubsystemBase
      * @return the height in meters from the floor to the arm tip
      */
     private double getCurrentArmsDistanceInMeters() {
-      return Math.cos(this.getCurrentHorizontalArmAngleRadians()) * (lengthMinimumHorizontalArmMeters + this.getCurrentHorizontalArmExtensionInMeters());
+      return this.currentArmPointInSpaceMeters[0];
     }
 
     // a method devoted to establishing proper startup of the jaws motors
@@ -568,6 +626,7 @@ public class ArmSubsystem extends SubsystemBase
         maxAccHorizontal = maxVelHorizontal * 2; // 1/2 second to get up to full speed
       
         horizontalMotor.restoreFactoryDefaults();
+        CanBusBudgetTable.Budget.applyTo(CanBusBudgetTable.ArmMotors, horizontalMotor);
         horizontalMotor.setIdleMode(IdleMode.kBrake);
         horizontalMotor.setInverted(this.isHorizontalMotorInverted);
         horizontalPidController = horizontalMotor.getPIDController();
@@ -602,6 +661,7 @@ public class ArmSubsystem extends SubsystemBase
         maxAccVertical = maxVelVertical * 2; // 1/2 second to get up to full speed
 
         verticalMotor.restoreFactoryDefaults();
+        CanBusBudgetTable.Budget.applyTo(CanBusBudgetTable.ArmMotors, verticalMotor);
         verticalMotor.setIdleMode(IdleMode.kBrake);
         verticalMotor.setInverted(this.isVerticalMotorInverted);
         verticalPidController = verticalMotor.getPIDController();
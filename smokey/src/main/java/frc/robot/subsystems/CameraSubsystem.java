@@ -10,61 +10,155 @@
 
 package frc.robot.subsystems;
 
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.common.LoopProfiler;
 import frc.robot.common.VisionMeasurement;
 
 /**
  * A class to encapsulate the camera subsystem
+ * Odometry and the auto trajectories are measured from our own alliance wall (see FieldMirror), so poses are read
+ * from botpose_wpiblue on the blue alliance and botpose_wpired on the red alliance, which have their origin at that
+ * alliance's right corner, rather than botpose which has its origin at the field center.  Both topics are drained
+ * every loop so a change of alliance never reads stale frames.
+ * Every botpose update published by the limelight is queued by network tables, so each frame is seen
+ * exactly once no matter how the robot loop lines up with the camera frame rate.  Frames are keyed by
+ * their capture timestamp and any frame not newer than the last accepted frame is dropped.
+ * Accepted frames wait in a small bounded queue (oldest dropped first) until the drivetrain drains them.
  */
 public class CameraSubsystem extends SubsystemBase {
   private final double milisecondsInSeconds = 1000.0;
+  private final double microsecondsInSeconds = 1000000.0;
   private final int defaultDoubleArraySize = 7;
   private final int TimestampIndex = 6;
   private final int botPositionXIndex = 0;
-  private final int botPositionYIndex = 2;
+  private final int botPositionYIndex = 1;
+  // the yaw is published in degrees
   private final int botRotationIndex = 5;
-  private final int noTagInSightId = -1;
+  // newer limelight firmware appends tag count, tag span, average tag distance and average tag area
+  private final int tagCountIndex = 7;
+  private final int averageTagDistanceIndex = 9;
+  private final int frameQueueCapacity = 8;
+  // frames network tables retains between reads - more than the camera can produce in a few loops
+  private final int networkTablesQueueDepth = 16;
+
+  private final DoubleArraySubscriber blueBotposeSubscriber;
+  private final DoubleArraySubscriber redBotposeSubscriber;
+  private final VisionMeasurement[] frameQueue = new VisionMeasurement[frameQueueCapacity];
+  private int frameQueueHead = 0;
+  private int frameQueueCount = 0;
+  private double lastFrameTimestamp = Double.NEGATIVE_INFINITY;
+  private long droppedFrameCount = 0;
+  private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("CameraSubsystem.periodic");
 
   /**
    * a constructor for the camera subsystem class
-   * @param subsystems - the subsystem collection
    */
   public CameraSubsystem() {
+    blueBotposeSubscriber = this.subscribeBotpose("botpose_wpiblue");
+    redBotposeSubscriber = this.subscribeBotpose("botpose_wpired");
+    for(int inx = 0; inx < frameQueueCapacity; ++inx) {
+      frameQueue[inx] = new VisionMeasurement(null, 0.0);
+    }
   }
 
   /**
-   * a method that returns a vision measurement. 
-   * pose portion of the vision measurement is null if there is no valid measurement. 
+   * a method that removes the oldest queued vision measurement.
+   * the returned measurement is reused by the camera subsystem, so it must be consumed before the next periodic.
+   * @return the oldest vision measurement not yet consumed, or null when no new frames have arrived
    */
-  public VisionMeasurement getVisionPosition(){
-    NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
-    double tagId = table.getEntry("tid").getDouble(0);
-    double[] botpose = table.getEntry("botpose").getDoubleArray(new double[defaultDoubleArraySize]);
-    Double timestamp = Timer.getFPGATimestamp() - (botpose[TimestampIndex]/milisecondsInSeconds);
-    Translation2d botTranslation = new Translation2d(botpose[botPositionXIndex], botpose[botPositionYIndex]);
-    Rotation2d botYaw = new Rotation2d(botpose[botRotationIndex]);
-    Pose2d realRobotPosition = new Pose2d(botTranslation, botYaw);
-
-    if (tagId == noTagInSightId){
-      return new VisionMeasurement(null, 0.0);
-    }
-    else{
-      return new VisionMeasurement(realRobotPosition, timestamp);
+  public VisionMeasurement pollVisionMeasurement(){
+    if (frameQueueCount == 0){
+      return null;
     }
+    VisionMeasurement measurement = frameQueue[frameQueueHead];
+    frameQueueHead = (frameQueueHead + 1) % frameQueueCapacity;
+    --frameQueueCount;
+    return measurement;
+  }
+
+  /**
+   * a method that returns the count of frames dropped because the queue was full
+   * @return the dropped frame count
+   */
+  public long getDroppedFrameCount(){
+    return droppedFrameCount;
   }
 
   /**
    * A method to run during periodic for the camera subsystem
-   * it reads tags and updates the estimated position in the drivetrain subsystem
+   * it moves the frames published since the last loop into the vision measurement queue
    */
   @Override
   public void periodic() {
+    periodicSpan.begin();
+    TimestampedDoubleArray[] blueFrames = blueBotposeSubscriber.readQueue();
+    TimestampedDoubleArray[] redFrames = redBotposeSubscriber.readQueue();
+    TimestampedDoubleArray[] frames = DriverStation.getAlliance() == Alliance.Red ? redFrames : blueFrames;
+    for(int inx = 0; inx < frames.length; ++inx) {
+      this.enqueueFrame(frames[inx]);
+    }
+    periodicSpan.end();
   }
-}
 
+  /**
+   * a method that subscribes to one of the limelight botpose topics, queueing every update
+   * @param topicName - the botpose topic
+   * @return the subscriber
+   */
+  private DoubleArraySubscriber subscribeBotpose(String topicName){
+    return NetworkTableInstance.getDefault().getTable("limelight")
+      .getDoubleArrayTopic(topicName)
+      .subscribe(
+        new double[defaultDoubleArraySize],
+        PubSubOption.keepDuplicates(true),
+        PubSubOption.pollStorage(networkTablesQueueDepth));
+  }
+
+  /**
+   * a method that converts a botpose frame into a queued vision measurement
+   * @param frame - the botpose update and the local time it arrived
+   */
+  private void enqueueFrame(TimestampedDoubleArray frame){
+    double[] botpose = frame.value;
+    // the limelight publishes an all zero botpose when no tag is in sight
+    if (botpose.length <= TimestampIndex ||
+      (botpose[botPositionXIndex] == 0.0 && botpose[botPositionYIndex] == 0.0 && botpose[botRotationIndex] == 0.0)){
+      return;
+    }
+
+    // network tables time is the FPGA time on the robot, back off the pipeline latency to get the capture time
+    double timestamp = frame.timestamp / microsecondsInSeconds - (botpose[TimestampIndex]/milisecondsInSeconds);
+    if (timestamp <= lastFrameTimestamp){
+      return;
+    }
+    lastFrameTimestamp = timestamp;
+
+    if (frameQueueCount == frameQueueCapacity){
+      // drop the oldest frame in favor of the newest
+      frameQueueHead = (frameQueueHead + 1) % frameQueueCapacity;
+      --frameQueueCount;
+      ++droppedFrameCount;
+    }
+    VisionMeasurement measurement = frameQueue[(frameQueueHead + frameQueueCount) % frameQueueCapacity];
+    measurement.setRobotPosition(
+      new Pose2d(botpose[botPositionXIndex], botpose[botPositionYIndex], Rotation2d.fromDegrees(botpose[botRotationIndex])));
+    measurement.setTimestamp(timestamp);
+    if (botpose.length > averageTagDistanceIndex){
+      measurement.setTagCount((int)botpose[tagCountIndex]);
+      measurement.setAverageTagDistanceMeters(botpose[averageTagDistanceIndex]);
+    }
+    else {
+      measurement.setTagCount(1);
+      measurement.setAverageTagDistanceMeters(Double.NaN);
+    }
+    ++frameQueueCount;
+  }
+}
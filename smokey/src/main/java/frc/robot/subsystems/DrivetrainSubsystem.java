@@ -10,44 +10,55 @@
 
 package frc.robot.subsystems;
 
-import java.util.*;
 import java.lang.Math;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static frc.robot.Constants.*;
 
 import com.kauailabs.navx.frc.AHRS;
 
 import frc.robot.Constants;
+import frc.robot.common.AngleWindow;
+import frc.robot.common.ChargeStationSimulation;
 import frc.robot.common.EulerAngle;
+import frc.robot.common.IAngleWindow;
+import frc.robot.common.LoopProfiler;
 import frc.robot.common.VectorUtils;
 import frc.robot.control.SwerveDriveMode;
 import frc.robot.control.SubsystemCollection;
 import frc.robot.common.MotorUtils;
+import frc.robot.common.PoseHistoryBuffer;
 import frc.robot.common.SwerveDriveCenterOfRotation;
+import frc.robot.common.SwerveOdometrySampler;
+import frc.robot.common.SwerveSetpointGenerator;
 import frc.robot.common.SwerveTrajectoryConfig;
+import frc.robot.common.TelemetryLevel;
+import frc.robot.common.TelemetryPublisher;
+import frc.robot.common.TiltSampleStream;
 import frc.robot.common.VisionMeasurement;
+import frc.robot.common.VisionMeasurementGate;
 import frc.robot.swerveHelpers.SwerveModuleHelper;
 import frc.robot.swerveHelpers.SwerveModule;
 import frc.robot.swerveHelpers.WcpModuleConfigurations;
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.geometry.Quaternion;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
-import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.TrajectoryConfig;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.SPI;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.hal.SimDouble;
+import edu.wpi.first.hal.simulation.SimDeviceDataJNI.SimDeviceInfo;
+import edu.wpi.first.wpilibj.simulation.SimDeviceSim;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 public class DrivetrainSubsystem extends SubsystemBase {
@@ -83,52 +94,117 @@ public class DrivetrainSubsystem extends SubsystemBase {
   //         Math.hypot(DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0);
   public static final double MIN_ANGULAR_VELOCITY_BOUNDARY_RADIANS_PER_SECOND = MAX_ANGULAR_VELOCITY_RADIANS_PER_SECOND * 0.06; // 0.06 a magic number based on testing
   private double MAX_ANGULAR_ACCELERATION_RADIANS_PER_SECOND_SQUARED = 15.0;
+  /**
+   * The maximum rate the swerve modules are steered in radians per second.
+   * <p>
+   * The steer motor free speed through the 15.43:1 reduction is about 43 rad/s, the position loop settles far slower.
+   */
+  public static final double MAX_STEER_VELOCITY_RADIANS_PER_SECOND = 4.0 * Math.PI;
 
   private static final int PositionHistoryWindowTimeMilliseconds = 5000;
   private static final int CommandSchedulerPeriodMilliseconds = 20;
   private final double deltaTimeSeconds = 0.02; // 20ms scheduler time tick
   private static final int CommandSchedulerCyclesPerSecond = 1000/CommandSchedulerPeriodMilliseconds;
   private static final int PositionHistoryStorageSize = PositionHistoryWindowTimeMilliseconds/CommandSchedulerPeriodMilliseconds;
-
-  private static final Lock theLock = new ReentrantLock();
-
-  private final SwerveDriveKinematics swerveKinematics = new SwerveDriveKinematics(
-          // Front left
-          new Translation2d(DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0),
-          // Front right
-          new Translation2d(DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0),
-          // Back left
-          new Translation2d(-DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0),
-          // Back right
-          new Translation2d(-DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0)
-  );
+  private static final int ModuleCount = 4;
+  // trust in odometry and the default trust in vision, vision trust is replaced per measurement by the gate
+  private static final double EstimatorStateStandardDeviationMeters = 0.1;
+  private static final double EstimatorStateStandardDeviationRadians = 0.1;
+  private static final double EstimatorVisionStandardDeviation = 0.9;
+  private static final int VisionAngularVelocityWindowMilliseconds = 100;
+  private static final int OdometrySampleBufferCapacity = 
+    (int)Math.ceil(Math.max(Constants.DrivetrainOdometrySampleRateHz, CommandSchedulerCyclesPerSecond) * Constants.DrivetrainOdometrySampleBufferSeconds);
+  private static final int NavxUpdateRateHz = 200;
+  private static final int TiltSampleBufferCapacity = (int)Math.ceil(NavxUpdateRateHz * Constants.DrivetrainOdometrySampleBufferSeconds);
+  // the simulated charge station is stepped at the navx update rate
+  private static final int SimulatedTiltStepsPerCycle = (int)(NavxUpdateRateHz / CommandSchedulerCyclesPerSecond);
+
+  private final SwerveDriveKinematics swerveKinematics = createSwerveKinematics();
+  // the same module locations as swerveKinematics held as primitives for the periodic hot path
+  private static final double[] ModuleLocationXMeters = new double[] {
+    DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_TRACKWIDTH_METERS / 2.0
+  };
+  private static final double[] ModuleLocationYMeters = new double[] {
+    DRIVETRAIN_WHEELBASE_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0
+  };
+  // wheels in an "X" pattern - frontLeft, frontRight, backLeft, backRight
+  private static final double[] ImmovableStanceAnglesRadians = new double[] {
+    Math.toRadians(45), Math.toRadians(-45), Math.toRadians(-45), Math.toRadians(45)
+  };
 
   // The important thing about how you configure your gyroscope is that rotating the robot counter-clockwise should
   // cause the angle reading to increase until it wraps back over to zero.
-  private final AHRS swerveNavx = new AHRS(SPI.Port.kMXP, (byte) 200); // NavX connected over MXP
-  private double yawOffsetDegrees = 0.0;
-  private double pitchOffsetDegrees = 0.0;
-  private double rollOffsetDegrees = 0.0;
+  private final AHRS swerveNavx = new AHRS(SPI.Port.kMXP, (byte) NavxUpdateRateHz); // NavX connected over MXP
+  // read by the odometry sampler thread
+  private volatile double yawOffsetDegrees = 0.0;
+  // read by the navx callback thread
+  private volatile double pitchOffsetDegrees = 0.0;
+  private volatile double rollOffsetDegrees = 0.0;
+  // pitch and roll at the navx update rate for auto balance, the tip stop halts the drive from the navx callback thread
+  private final TiltSampleStream tiltSampleStream = new TiltSampleStream(TiltSampleBufferCapacity, this::stopDriveFromSensorThread);
 
   // store yaw/pitch history
   private static final int LevelListMaxSize = 9; // 12 * 20ms = 0.24s total history time
-  private ArrayList<Double> RecentRolls = new ArrayList<Double>();
-  private ArrayList<Double> RecentPitches = new ArrayList<Double>();
+  private final AngleWindow RecentRolls = new AngleWindow(LevelListMaxSize);
+  private final AngleWindow RecentPitches = new AngleWindow(LevelListMaxSize);
 
   // These are our modules. We initialize them in the constructor.
   private final SwerveModule frontLeftModule;
   private final SwerveModule frontRightModule;
   private final SwerveModule backLeftModule;
   private final SwerveModule backRightModule;
+  private final SwerveModule[] swerveModules;
 
   private SwerveDrivePoseEstimator swervePoseEstimator = null;
+  private final SwerveOdometrySampler odometrySampler;
+  // the pose estimator copies the positions it is given, so these are updated in place for every sample
+  private final SwerveModulePosition[] sampledModulePositions = new SwerveModulePosition[] {
+    new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+  };
+  private Rotation2d sampledGyroRotation = new Rotation2d();
+  private long appliedOdometrySampleCount = 0;
   private Pose2d currentPosition = new Pose2d();
-  private ArrayDeque<Pose2d> historicPositions = new ArrayDeque<Pose2d>(PositionHistoryStorageSize + 1);
+  private final VisionMeasurementGate visionGate = new VisionMeasurementGate(
+    EstimatorStateStandardDeviationMeters,
+    EstimatorStateStandardDeviationRadians);
+  private final PoseHistoryBuffer historicPositions = new PoseHistoryBuffer(PositionHistoryStorageSize, deltaTimeSeconds);
 
   private ChassisSpeeds chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
-  private ChassisSpeeds previousChassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+  private final ChassisSpeeds previousChassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+  // preallocated working state for periodic so that steady state driving does not allocate
+  private final ChassisSpeeds reducedChassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+  private final ChassisSpeeds limitedChassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+  private final double[] moduleSpeedsMetersPerSecond = new double[ModuleCount];
+  private final double[] moduleAnglesRadians = new double[ModuleCount];
+  private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(
+    ModuleLocationXMeters,
+    ModuleLocationYMeters,
+    MAX_VELOCITY_METERS_PER_SECOND,
+    MAX_ACCELERATION_METERS_PER_SECOND_SQUARED,
+    MAX_STEER_VELOCITY_RADIANS_PER_SECOND,
+    deltaTimeSeconds);
   private double speedReductionFactor = 1.0;
 
+  // telemetry channels - module positions are grouped as [angle degrees, distance meters] per module
+  private final TelemetryPublisher telemetry = TelemetryPublisher.getInstance();
+  private final TelemetryPublisher.DoubleChannel headingTelemetry = telemetry.addDouble("RobotFieldHeadingDegrees", TelemetryLevel.Competition, 1);
+  private final TelemetryPublisher.DoubleChannel xCoordinateTelemetry = telemetry.addDouble("RobotFieldXCoordinateMeters", TelemetryLevel.Competition, 1);
+  private final TelemetryPublisher.DoubleChannel yCoordinateTelemetry = telemetry.addDouble("RobotFieldYCoordinateMeters", TelemetryLevel.Competition, 1);
+  private final TelemetryPublisher.DoubleChannel pitchTelemetry = telemetry.addDouble("RobotPitchDegrees", TelemetryLevel.Debug, 1);
+  private final TelemetryPublisher.DoubleChannel rollTelemetry = telemetry.addDouble("RobotRollDegrees", TelemetryLevel.Debug, 1);
+  private final TelemetryPublisher.DoubleArrayChannel modulePositionsTelemetry = telemetry.addDoubleArray("SwerveModulePositions", TelemetryLevel.Debug, 5, ModuleCount * 2);
+  private final TelemetryPublisher.DoubleChannel droppedSamplesTelemetry = telemetry.addDouble("OdometryDroppedSamples", TelemetryLevel.Debug, 50);
+  private final TelemetryPublisher.DoubleChannel rejectedVisionTelemetry = telemetry.addDouble("VisionRejectedMeasurements", TelemetryLevel.Debug, 25);
+  private final TelemetryPublisher.BooleanChannel navxCalibratingTelemetry = telemetry.addBoolean("NavX is calibrating", TelemetryLevel.Competition, 25);
+  private final TelemetryPublisher.BooleanChannel navxCalibratedTelemetry = telemetry.addBoolean("NavX is calibrated", TelemetryLevel.Competition, 25);
+  private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("DrivetrainSubsystem.periodic");
+
+  // the yaw, pitch and roll of the simulated navx, found on the first simulation step
+  private SimDouble simulatedNavxYaw = null;
+  private SimDouble simulatedNavxPitch = null;
+  private SimDouble simulatedNavxRoll = null;
+  private final ChargeStationSimulation chargeStationSimulation = new ChargeStationSimulation();
+
   private SwerveDriveMode swerveDriveMode = SwerveDriveMode.NORMAL_DRIVING;
   private SwerveDriveCenterOfRotation swerveDriveCenterOfRotation = SwerveDriveCenterOfRotation.RobotCenter;
 
@@ -193,6 +269,27 @@ public class DrivetrainSubsystem extends SubsystemBase {
 
     // We assume the robot is level at startup.  Take out any bias the NavX is reading on Pitch/Roll.  
     removePitchRollBias(); 
+
+    swerveModules = new SwerveModule[] {frontLeftModule, frontRightModule, backLeftModule, backRightModule};
+
+    // sample the modules and navx faster than the scheduler so fast turns integrate accurately
+    odometrySampler = new SwerveOdometrySampler(
+      swerveModules,
+      this::getGyroscopeDegrees,
+      Constants.DrivetrainOdometrySampleRateHz,
+      OdometrySampleBufferCapacity);
+    odometrySampler.start();
+
+    // stream pitch and roll at the navx update rate rather than reading them once per scheduler cycle,
+    // in simulation the stream is fed by simulationPeriodic, which must be its only producer
+    if (RobotBase.isReal()) {
+      swerveNavx.registerCallback(
+        (systemTimestamp, sensorTimestamp, sensorData, context) -> tiltSampleStream.add(
+          sensorTimestamp / 1000.0,
+          sensorData.pitch + this.pitchOffsetDegrees,
+          sensorData.roll + this.rollOffsetDegrees),
+        null);
+    }
   }
 
   /**
@@ -277,7 +374,7 @@ public class DrivetrainSubsystem extends SubsystemBase {
     //return Rotation2d.fromRadians(
     //  MathUtil.angleModulus(
     //    (360.0 - swerveNavx.getYaw() + yawOffsetDegrees)*(2*Math.PI)/360));
-    return Rotation2d.fromDegrees(360.0 - swerveNavx.getYaw() + yawOffsetDegrees);
+    return Rotation2d.fromDegrees(this.getGyroscopeDegrees());
   }
   
   /**
@@ -302,6 +399,17 @@ public class DrivetrainSubsystem extends SubsystemBase {
     return currentPosition;
   }
 
+  /**
+   * A method to get the position of the robot at a recent time so that measurements can be latency compensated
+   * @param fpgaTimestamp - the FPGA timestamp in seconds, times outside of the position history window are clamped to it
+   * @return the Pose2d position of the robot interpolated to that time
+   */
+  public Pose2d getPoseAt(double fpgaTimestamp)
+  {
+    Pose2d historicPosition = this.historicPositions.getPoseAt(fpgaTimestamp);
+    return historicPosition != null ? historicPosition : currentPosition;
+  }
+
   /**
    * A method to obtain the distance along the segments recently traveled
    * @param historicDurationMilliseconds - the total milliseconds to look back in time
@@ -309,13 +417,7 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   public double getRecentTotalDistanceInMeters(int historicDurationMilliseconds)
   {
-    ArrayList<Double> distances = this.getRecentDistanceTraveled(historicDurationMilliseconds);
-    double resultDistance = 0.0;
-    for(int inx = 0; inx < distances.size(); ++inx)
-    {
-      resultDistance += distances.get(inx);
-    }
-    return resultDistance;
+    return this.historicPositions.getTotalDistance(this.getHistoricSteps(historicDurationMilliseconds));
   }
 
   /**
@@ -325,14 +427,7 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   public double getRecentAverageVelocityInMetersPerSecond(int historicDurationMilliseconds)
   {
-    ArrayList<Double> recentVelocities = this.getRecentVelocities(historicDurationMilliseconds);
-    double sumOfVelocities = 0.0;
-    int countOfDeltas = 0;
-    for(; countOfDeltas < recentVelocities.size(); ++countOfDeltas)
-    {
-      sumOfVelocities += recentVelocities.get(countOfDeltas);
-    }
-    return sumOfVelocities/countOfDeltas;
+    return this.historicPositions.getAverageVelocity(this.getHistoricSteps(historicDurationMilliseconds));
   }
 
   /**
@@ -342,15 +437,7 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   public double getRecentAverageAngularVelocityInRadiansPerSecond(int historicDurationMilliseconds)
   {
-    ArrayList<Double> recentAngularVelocities = this.getRecentAngularVelocities(historicDurationMilliseconds);
-
-    double sumOfAngularVelocities = 0.0;
-    int countOfDeltas = 0;
-    for(; countOfDeltas < recentAngularVelocities.size(); ++countOfDeltas)
-    {
-      sumOfAngularVelocities += recentAngularVelocities.get(countOfDeltas);
-    }
-    return sumOfAngularVelocities/countOfDeltas;
+    return this.historicPositions.getAverageAngularVelocity(this.getHistoricSteps(historicDurationMilliseconds));
   }
 
   /**
@@ -360,29 +447,30 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   public double getRecentAverageAccelerationInMetersPerSecondSquared(int historicDurationMilliseconds)
   {
-    ArrayList<Double> recentAccelerations = this.getRecentAccelerations(historicDurationMilliseconds);
-    double sumOfAccelerations = 0.0;
-    int countOfDeltas = 0;
-    for(; countOfDeltas < recentAccelerations.size(); ++countOfDeltas)
-    {
-      sumOfAccelerations += recentAccelerations.get(countOfDeltas);
-    }
-    return sumOfAccelerations/countOfDeltas;
+    return this.historicPositions.getAverageAcceleration(this.getHistoricSteps(historicDurationMilliseconds));
+  }
+
+  /**
+   * A method to obtain the high rate pitch and roll samples used by auto balance
+   * @return the tilt sample stream, to be drained by one command at a time
+   */
+  public TiltSampleStream getTiltSampleStream() {
+    return tiltSampleStream;
   }
 
    /**
     * A method to obtain the recent pitches 
-    * @return a listing of recent pitches
+    * @return a read-only view of recent pitches
     */
-   public ArrayList<Double> getRecentPitches(){
+   public IAngleWindow getRecentPitches(){
      return RecentPitches;
    }
  
    /**
     * A method to obtain the recent rolls 
-    * @return a listing of recent rolls
+    * @return a read-only view of recent rolls
     */
-    public ArrayList<Double> getRecentRolls(){
+    public IAngleWindow getRecentRolls(){
      return RecentRolls;
    }
  
@@ -402,17 +490,27 @@ public class DrivetrainSubsystem extends SubsystemBase {
   * @return a SwerveTrajectoryConfig in use within the drive train subsystem
   */
   public SwerveTrajectoryConfig getTrajectoryConfig() {
+    return createTrajectoryConfig();
+  }
+
+  /**
+  * Function to create the TrajectoryConfig without constructing the drive train, 
+  * so that trajectories can be generated off of the robot (e.g., at build time).
+  * Each config gets its own kinematics because SwerveDriveKinematics remembers module headings.
+  * @return a new SwerveTrajectoryConfig matching getTrajectoryConfig
+  */
+  public static SwerveTrajectoryConfig createTrajectoryConfig() {
     SwerveTrajectoryConfig config = new SwerveTrajectoryConfig(
       MAX_VELOCITY_METERS_PER_SECOND, 
       1.25, // 6.0 max
       MAX_ANGULAR_VELOCITY_RADIANS_PER_SECOND, 
       8.0); // 12.0 max
-    config.setReversed(false).setKinematics(swerveKinematics);
+    config.setReversed(false).setKinematics(createSwerveKinematics());
     return config;
   }
 
   /**
-   * Determines if the navx is level.  
+   * Determines if the navx is level.  Constant time and does not allocate, so it is safe to poll every cycle.
    * @return true if level, false otherwise
    */
   public boolean isLevel() {
@@ -424,11 +522,16 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   @Override
   public void periodic() {
+    periodicSpan.begin();
 
+    // read the module signals used by this cycle once, up front
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      swerveModules[inx].refreshSignals();
+    }
     // refresh the position of the robot
     this.refreshRobotPosition();
-    // update robot position with vision 
-    this.addVisionMeasurement(cameraSubsystem.getVisionPosition());
+    // update robot position with each new vision frame
+    this.addVisionMeasurements();
     // store the recalculated position
     this.storeUpdatedPosition();
     // store navx info
@@ -437,49 +540,125 @@ public class DrivetrainSubsystem extends SubsystemBase {
 
     this.displayDiagnostics();
 
-    SwerveModuleState[] states; 
+    this.commandModules();
+    periodicSpan.end();
+  }
+
+  /**
+   * Turns the requested chassis speeds into module commands and sends them to the modules.  Called once per
+   * periodic and does not allocate.
+   */
+  void commandModules() {
     if (swerveDriveMode == SwerveDriveMode.IMMOVABLE_STANCE && chassisSpeedsAreZero()) {
       // only change to ImmovableStance if chassis is not moving.
       // otherwise, we could tip the robot moving to this stance when bot is at high velocity
-      states = getImmovableStanceStates();
+      for (int inx = 0; inx < ModuleCount; ++inx) {
+        moduleSpeedsMetersPerSecond[inx] = 0.0;
+        moduleAnglesRadians[inx] = ImmovableStanceAnglesRadians[inx];
+      }
+      // leaving the stance starts from a stop with the wheels where the stance put them
+      setpointGenerator.reset(previousChassisSpeeds, moduleSpeedsMetersPerSecond);
+    }
+    else if (Constants.DrivetrainUseSetpointGenerator) { // SwerveDriveMode.NORMAL_DRIVING
+      this.reduceChassisSpeeds();
+      // the setpoint generator limits each module's steering and wheel acceleration, which also limits the chassis
+      discretize(reducedChassisSpeeds, limitedChassisSpeeds);
+      if (swerveDriveCenterOfRotation == SwerveDriveCenterOfRotation.RobotFront) {
+        setpointGenerator.generate(
+          limitedChassisSpeeds,
+          Constants.RobotFrontRotationalCenter.getX(),
+          Constants.RobotFrontRotationalCenter.getY(),
+          previousChassisSpeeds,
+          moduleSpeedsMetersPerSecond,
+          moduleAnglesRadians);
+      }
+      else { // normal rotation mode 
+        setpointGenerator.generate(limitedChassisSpeeds, 0.0, 0.0, previousChassisSpeeds, moduleSpeedsMetersPerSecond, moduleAnglesRadians);
+      }
     }
-    else { // SwerveDriveMode.NORMAL_DRIVING
-      // apply the speed reduction factor to the chassis speeds
-      ChassisSpeeds reducedChassisSpeeds = new ChassisSpeeds(
-        chassisSpeeds.vxMetersPerSecond * this.speedReductionFactor, 
-        chassisSpeeds.vyMetersPerSecond * this.speedReductionFactor, 
-        // different speed reduction factor for rotation
-        chassisSpeeds.omegaRadiansPerSecond * Math.min(1.0, this.speedReductionFactor * 1.25));
+    else { // SwerveDriveMode.NORMAL_DRIVING without the setpoint generator
+      this.reduceChassisSpeeds();
 
       // apply acceleration control and discretization correction
-      reducedChassisSpeeds = discretize(limitChassisSpeedsAccel(reducedChassisSpeeds));
-      previousChassisSpeeds = reducedChassisSpeeds; 
+      discretize(limitChassisSpeedsAccel(reducedChassisSpeeds, limitedChassisSpeeds), previousChassisSpeeds);
 
       // take the current 'requested' chassis speeds and ask the ask the swerve modules to attempt this
       // first we build a theoretical set of individual module states that the chassisSpeeds would corespond to
       if (swerveDriveCenterOfRotation == SwerveDriveCenterOfRotation.RobotFront) {
-        states = swerveKinematics.toSwerveModuleStates(reducedChassisSpeeds, Constants.RobotFrontRotationalCenter);
+        this.toModuleStates(previousChassisSpeeds, Constants.RobotFrontRotationalCenter.getX(), Constants.RobotFrontRotationalCenter.getY());
       } 
       else { // normal rotation mode 
-        states = swerveKinematics.toSwerveModuleStates(reducedChassisSpeeds);
+        this.toModuleStates(previousChassisSpeeds, 0.0, 0.0);
       }
       // next we take the theoretical values and bring them down (if neecessary) to incorporate physical constraints (like motor maximum speeds)
-      SwerveDriveKinematics.desaturateWheelSpeeds(states, MAX_VELOCITY_METERS_PER_SECOND);
+      this.desaturateModuleSpeeds(MAX_VELOCITY_METERS_PER_SECOND);
     } 
 
+    // the charge station has started to tip and the drive was stopped from the navx thread, keep it stopped
+    if (tiltSampleStream.hasTipped()) {
+      for (int inx = 0; inx < ModuleCount; ++inx) {
+        moduleSpeedsMetersPerSecond[inx] = 0.0;
+      }
+      previousChassisSpeeds.vxMetersPerSecond = 0.0;
+      previousChassisSpeeds.vyMetersPerSecond = 0.0;
+      previousChassisSpeeds.omegaRadiansPerSecond = 0.0;
+      setpointGenerator.reset(previousChassisSpeeds, moduleSpeedsMetersPerSecond);
+    }
+
     // now we take the four states and ask that the modules attempt to perform the wheel speed and direction built above
-    frontLeftModule.set(
-      states[0].speedMetersPerSecond / MAX_VELOCITY_METERS_PER_SECOND * MAX_VOLTAGE,
-      states[0].angle.getRadians());
-    frontRightModule.set(
-      states[1].speedMetersPerSecond / MAX_VELOCITY_METERS_PER_SECOND * MAX_VOLTAGE,
-      states[1].angle.getRadians());
-    backLeftModule.set(
-      states[2].speedMetersPerSecond / MAX_VELOCITY_METERS_PER_SECOND * MAX_VOLTAGE,
-      states[2].angle.getRadians());
-    backRightModule.set(
-      states[3].speedMetersPerSecond / MAX_VELOCITY_METERS_PER_SECOND * MAX_VOLTAGE,
-      states[3].angle.getRadians());
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      swerveModules[inx].set(
+        moduleSpeedsMetersPerSecond[inx] / MAX_VELOCITY_METERS_PER_SECOND * MAX_VOLTAGE,
+        moduleAnglesRadians[inx]);
+    }
+  }
+
+  /**
+   * Simulation periodic for this subsystem - steps each simulated module and turns the simulated navx with the chassis
+   */
+  @Override
+  public void simulationPeriodic() {
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      swerveModules[inx].simulationPeriodic(deltaTimeSeconds);
+    }
+
+    // the chassis rotation that best fits the module velocities about the robot center
+    double angularMomentum = 0.0;
+    double radiusSquaredSum = 0.0;
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      double moduleSpeed = swerveModules[inx].getDriveVelocity();
+      double moduleAngle = swerveModules[inx].getSteerAngle();
+      angularMomentum += 
+        ModuleLocationXMeters[inx] * moduleSpeed * Math.sin(moduleAngle) - 
+        ModuleLocationYMeters[inx] * moduleSpeed * Math.cos(moduleAngle);
+      radiusSquaredSum += ModuleLocationXMeters[inx] * ModuleLocationXMeters[inx] + ModuleLocationYMeters[inx] * ModuleLocationYMeters[inx];
+    }
+    double angularVelocityRadiansPerSecond = angularMomentum / radiusSquaredSum;
+
+    // tilt the simulated charge station under the robot, stepped at the navx update rate to feed the tilt stream
+    double stepSeconds = deltaTimeSeconds / SimulatedTiltStepsPerCycle;
+    double stepTimestamp = Timer.getFPGATimestamp() - deltaTimeSeconds;
+    for (int step = 0; step < SimulatedTiltStepsPerCycle; ++step) {
+      stepTimestamp += stepSeconds;
+      chargeStationSimulation.step(currentPosition, stepSeconds);
+      tiltSampleStream.add(stepTimestamp, chargeStationSimulation.getPitchDegrees(), chargeStationSimulation.getRollDegrees());
+    }
+
+    if (simulatedNavxYaw == null) {
+      SimDeviceInfo[] navxDevices = SimDeviceSim.enumerateDevices("navX-Sensor");
+      if (navxDevices.length == 0) {
+        return;
+      }
+      SimDeviceSim navxSim = new SimDeviceSim(navxDevices[0].name);
+      simulatedNavxYaw = navxSim.getDouble("Yaw");
+      simulatedNavxPitch = navxSim.getDouble("Pitch");
+      simulatedNavxRoll = navxSim.getDouble("Roll");
+    }
+    simulatedNavxPitch.set(chargeStationSimulation.getPitchDegrees() - this.pitchOffsetDegrees);
+    simulatedNavxRoll.set(chargeStationSimulation.getRollDegrees() - this.rollOffsetDegrees);
+    // navx yaw is clockwise positive
+    simulatedNavxYaw.set(MathUtil.inputModulus(
+      simulatedNavxYaw.get() - Math.toDegrees(angularVelocityRadiansPerSecond * deltaTimeSeconds), -180.0, 180.0));
   }
 
   /**
@@ -499,17 +678,11 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   public void setRobotPosition(Pose2d updatedPosition)
   {
-    //TOD this didn't work to fix the problem of the robot not getting correct initial position.  
-    // try to debug why not.  
-    try{
-      theLock.lock();
-      // initialize the odometry goo
-      currentPosition = updatedPosition;
-      this.initializeSwerveOdometry(currentPosition);
-    }
-    finally {
-      theLock.unlock();
-    }
+    // initialize the odometry goo
+    currentPosition = updatedPosition;
+    this.initializeSwerveOdometry(currentPosition);
+    // movement across the reset is not real movement
+    this.historicPositions.clear();
   }
 
   /**
@@ -562,14 +735,25 @@ public class DrivetrainSubsystem extends SubsystemBase {
   }
 
   /**
-   * A method that updates the robot position with a vision measurement
-   * @param visionMeasurement the most recent vision measurement provided by vision subsystem
+   * A method that updates the robot position with every vision measurement queued since the last cycle
+   * each camera frame is provided by the vision subsystem exactly once, and is only used when the gate accepts it
    */
-  private void addVisionMeasurement(VisionMeasurement visionMeasurement){
-    // for now ignore all vision measurements that are null or contained robot position is null
-    if (visionMeasurement != null && visionMeasurement.getRobotPosition() != null){
-      swervePoseEstimator.addVisionMeasurement(visionMeasurement.getRobotPosition(), visionMeasurement.getTimestamp());
+  private void addVisionMeasurements(){
+    if (cameraSubsystem == null){
+      return;
+    }
+    double angularVelocity = this.getRecentAverageAngularVelocityInRadiansPerSecond(VisionAngularVelocityWindowMilliseconds);
+    VisionMeasurement visionMeasurement = cameraSubsystem.pollVisionMeasurement();
+    while (visionMeasurement != null){
+      if (visionGate.evaluate(visionMeasurement, this.getPoseAt(visionMeasurement.getTimestamp()), angularVelocity)){
+        swervePoseEstimator.addVisionMeasurement(
+          visionMeasurement.getRobotPosition(),
+          visionMeasurement.getTimestamp(),
+          visionGate.getStandardDeviations());
+      }
+      visionMeasurement = cameraSubsystem.pollVisionMeasurement();
     }
+    rejectedVisionTelemetry.set(visionGate.getRejectedCount());
   } 
 
   /**
@@ -577,15 +761,9 @@ public class DrivetrainSubsystem extends SubsystemBase {
    * @param recentAngles the recent set of angles recorded by navx 
    * @return true if the robot has been recently level
    */
-  private boolean areAllLevel(ArrayList<Double> recentAngles){
-    boolean levelChecker = true;
-    for(int i = 0; i < LevelListMaxSize; i++){
-      if (Math.abs(recentAngles.get(i))>=Constants.navxTolDegrees){
-        levelChecker = false;
-      }
-    }
-    System.out.println("Is Level? " + levelChecker);
-    return levelChecker;
+  private boolean areAllLevel(AngleWindow recentAngles){
+    // a full window is needed before the robot can be considered level
+    return recentAngles.isFull() && recentAngles.getMaximumMagnitude() < Constants.navxTolDegrees;
   }
 
   private boolean chassisSpeedsAreZero(){
@@ -636,38 +814,114 @@ public class DrivetrainSubsystem extends SubsystemBase {
     MAX_ANGULAR_VELOCITY_RADIANS_PER_SECOND);
   }
 
-  private ChassisSpeeds discretize(ChassisSpeeds speeds) {
+  /**
+   * Applies the speed reduction factor to the requested chassis speeds, storing them in reducedChassisSpeeds
+   */
+  private void reduceChassisSpeeds() {
+    reducedChassisSpeeds.vxMetersPerSecond = chassisSpeeds.vxMetersPerSecond * this.speedReductionFactor;
+    reducedChassisSpeeds.vyMetersPerSecond = chassisSpeeds.vyMetersPerSecond * this.speedReductionFactor;
+    // different speed reduction factor for rotation
+    reducedChassisSpeeds.omegaRadiansPerSecond = chassisSpeeds.omegaRadiansPerSecond * Math.min(1.0, this.speedReductionFactor * 1.25);
+  }
+
+  /**
+   * Applies the discretization correction to the chassis speeds.
+   * This is new Pose2d().log(desiredDeltaPose) done with primitives so that it does not allocate.
+   * @param speeds - the speeds to correct
+   * @param result - the chassis speeds to write the corrected speeds into, may be the same as speeds
+   * @return result
+   */
+  private ChassisSpeeds discretize(ChassisSpeeds speeds, ChassisSpeeds result) {
     // a fudge factor to increase the size of the discretization correction. 
     // other teams use [1..4]
     double timeScaleFactor = 1.9; 
-    var desiredDeltaPose = new Pose2d(
-      speeds.vxMetersPerSecond * deltaTimeSeconds, 
-      speeds.vyMetersPerSecond * deltaTimeSeconds, 
-      new Rotation2d(speeds.omegaRadiansPerSecond * deltaTimeSeconds * timeScaleFactor)
-    );
-    var twist = new Pose2d().log(desiredDeltaPose);
-
-    return new ChassisSpeeds(
-      (twist.dx / deltaTimeSeconds), 
-      (twist.dy / deltaTimeSeconds), 
-      (speeds.omegaRadiansPerSecond));
-    // return(speeds);
-  }
-
-
-  private SwerveModuleState[] getImmovableStanceStates(){
-    // set wheels in "X" pattern
-    return new SwerveModuleState[] {
-      // frontLeftModule
-      new SwerveModuleState(0.0, Rotation2d.fromDegrees(45)),
-      // frontRightModule
-      new SwerveModuleState(0.0, Rotation2d.fromDegrees(-45)),
-      // backLeftModule
-      new SwerveModuleState(0.0, Rotation2d.fromDegrees(-45)),
-      // backRightModule
-      new SwerveModuleState(0.0, Rotation2d.fromDegrees(45))
-    }; 
-  };
+    double deltaX = speeds.vxMetersPerSecond * deltaTimeSeconds;
+    double deltaY = speeds.vyMetersPerSecond * deltaTimeSeconds;
+    double deltaTheta = speeds.omegaRadiansPerSecond * deltaTimeSeconds * timeScaleFactor;
+
+    double halfDeltaTheta = deltaTheta / 2.0;
+    double cosMinusOne = Math.cos(deltaTheta) - 1.0;
+    double halfThetaByTanOfHalfDeltaTheta;
+    if (Math.abs(cosMinusOne) < 1E-9) {
+      halfThetaByTanOfHalfDeltaTheta = 1.0 - 1.0 / 12.0 * deltaTheta * deltaTheta;
+    }
+    else {
+      halfThetaByTanOfHalfDeltaTheta = -(halfDeltaTheta * Math.sin(deltaTheta)) / cosMinusOne;
+    }
+    // rotating by the unnormalized (halfThetaByTanOfHalfDeltaTheta, -halfDeltaTheta) vector is the same as
+    // rotating by its angle and then scaling by its magnitude
+    double twistDx = deltaX * halfThetaByTanOfHalfDeltaTheta + deltaY * halfDeltaTheta;
+    double twistDy = deltaY * halfThetaByTanOfHalfDeltaTheta - deltaX * halfDeltaTheta;
+
+    double omega = speeds.omegaRadiansPerSecond;
+    result.vxMetersPerSecond = twistDx / deltaTimeSeconds;
+    result.vyMetersPerSecond = twistDy / deltaTimeSeconds;
+    result.omegaRadiansPerSecond = omega;
+    return result;
+  }
+
+  /**
+   * Builds the module speeds and angles for the chassis speeds - the same math as SwerveDriveKinematics.toSwerveModuleStates
+   * written into the preallocated module arrays.  When the chassis is not moving the previous module angles are retained.
+   * @param speeds - the chassis speeds
+   * @param centerOfRotationXMeters - x of the center of rotation relative to the robot center
+   * @param centerOfRotationYMeters - y of the center of rotation relative to the robot center
+   */
+  private void toModuleStates(ChassisSpeeds speeds, double centerOfRotationXMeters, double centerOfRotationYMeters) {
+    if (speeds.vxMetersPerSecond == 0.0 && speeds.vyMetersPerSecond == 0.0 && speeds.omegaRadiansPerSecond == 0.0) {
+      for (int inx = 0; inx < ModuleCount; ++inx) {
+        moduleSpeedsMetersPerSecond[inx] = 0.0;
+      }
+      return;
+    }
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      double moduleVx = speeds.vxMetersPerSecond - speeds.omegaRadiansPerSecond * (ModuleLocationYMeters[inx] - centerOfRotationYMeters);
+      double moduleVy = speeds.vyMetersPerSecond + speeds.omegaRadiansPerSecond * (ModuleLocationXMeters[inx] - centerOfRotationXMeters);
+      double moduleSpeed = Math.hypot(moduleVx, moduleVy);
+      moduleSpeedsMetersPerSecond[inx] = moduleSpeed;
+      // matches Rotation2d(x, y) which is zero degrees for a zero length vector
+      moduleAnglesRadians[inx] = (moduleSpeed > 1E-6) ? Math.atan2(moduleVy, moduleVx) : 0.0;
+    }
+  }
+
+  /**
+   * Scales the module speeds down proportionally so none exceed the maximum - the same math as
+   * SwerveDriveKinematics.desaturateWheelSpeeds applied to the preallocated module arrays.
+   * @param maxSpeedMetersPerSecond - the maximum attainable module speed
+   */
+  private void desaturateModuleSpeeds(double maxSpeedMetersPerSecond) {
+    double realMaxSpeed = 0.0;
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      realMaxSpeed = Math.max(realMaxSpeed, Math.abs(moduleSpeedsMetersPerSecond[inx]));
+    }
+    if (realMaxSpeed > maxSpeedMetersPerSecond) {
+      for (int inx = 0; inx < ModuleCount; ++inx) {
+        moduleSpeedsMetersPerSecond[inx] = moduleSpeedsMetersPerSecond[inx] / realMaxSpeed * maxSpeedMetersPerSecond;
+      }
+    }
+  }
+
+  /**
+   * A method to get the counter-clockwise positive gyroscope yaw - see getGyroscopeRotation()
+   * Safe to call from the odometry sampler thread.
+   * @return yaw in degrees
+   */
+  private double getGyroscopeDegrees(){
+    return 360.0 - swerveNavx.getYaw() + this.yawOffsetDegrees;
+  }
+
+  /**
+   * Stops the drive motors as soon as the charge station starts to tip.  Runs on the navx callback thread,
+   * periodic() keeps the drive stopped while the tip stop stays latched.
+   */
+  private void stopDriveFromSensorThread() {
+    if (swerveModules == null) {
+      return;
+    }
+    for (int inx = 0; inx < ModuleCount; ++inx) {
+      swerveModules[inx].stopDrive();
+    }
+  }
 
   /**
    * A method to get the debiased navx pitch
@@ -688,13 +942,17 @@ public class DrivetrainSubsystem extends SubsystemBase {
   /**
    * Limits chassis speeds based on max allowable acceleration
    * @param speeds
-   * @return
+   * @param result - the chassis speeds to write the limited speeds into
+   * @return result
    */
-  private ChassisSpeeds limitChassisSpeedsAccel(ChassisSpeeds speeds) {
+  private ChassisSpeeds limitChassisSpeedsAccel(ChassisSpeeds speeds, ChassisSpeeds result) {
     double xVelocityLimited = limitAxisSpeed(speeds.vxMetersPerSecond, previousChassisSpeeds.vxMetersPerSecond, MAX_ACCELERATION_METERS_PER_SECOND_SQUARED);
     double yVelocityLimited = limitAxisSpeed(speeds.vyMetersPerSecond, previousChassisSpeeds.vyMetersPerSecond, MAX_ACCELERATION_METERS_PER_SECOND_SQUARED);
     double omegaVelocityLimited = limitAxisSpeed(speeds.omegaRadiansPerSecond, previousChassisSpeeds.omegaRadiansPerSecond, MAX_ANGULAR_ACCELERATION_RADIANS_PER_SECOND_SQUARED);
-    return new ChassisSpeeds(xVelocityLimited, yVelocityLimited, omegaVelocityLimited);
+    result.vxMetersPerSecond = xVelocityLimited;
+    result.vyMetersPerSecond = yVelocityLimited;
+    result.omegaRadiansPerSecond = omegaVelocityLimited;
+    return result;
   }
 
   /**
@@ -728,10 +986,6 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   private void storeRoll(){
     this.RecentRolls.add(getNavxRoll());
-    while(this.RecentRolls.size() > LevelListMaxSize)
-    {
-      RecentRolls.remove(0);
-    }
   }
    
   /**
@@ -739,15 +993,11 @@ public class DrivetrainSubsystem extends SubsystemBase {
    */
   private void storePitch(){
     RecentPitches.add(getNavxPitch());
-    while(RecentPitches.size() > LevelListMaxSize)
-    {
-      RecentPitches.remove(0);
-    }
   }
 
   private void displayDiagnostics(){
-    SmartDashboard.putBoolean("NavX is calibrating", swerveNavx.isCalibrating());
-    SmartDashboard.putBoolean("NavX is calibrated", swerveNavx.isMagnetometerCalibrated());
+    navxCalibratingTelemetry.set(swerveNavx.isCalibrating());
+    navxCalibratedTelemetry.set(swerveNavx.isMagnetometerCalibrated());
   }
  
   /**
@@ -760,11 +1010,16 @@ public class DrivetrainSubsystem extends SubsystemBase {
     frontRightModule.setDriveDistance(0.0);
     backLeftModule.setDriveDistance(0.0);
     backRightModule.setDriveDistance(0.0);
+    // samples taken before the reset carry the old drive distances
+    odometrySampler.invalidate();
     swervePoseEstimator = new SwerveDrivePoseEstimator(
         swerveKinematics,
         this.getGyroscopeRotation(),
         this.getSwerveModulePositions(),
-        currentRobotPosition); 
+        currentRobotPosition,
+        VecBuilder.fill(EstimatorStateStandardDeviationMeters, EstimatorStateStandardDeviationMeters, EstimatorStateStandardDeviationRadians),
+        VecBuilder.fill(EstimatorVisionStandardDeviation, EstimatorVisionStandardDeviation, EstimatorVisionStandardDeviation)); 
+    visionGate.reset();
   }
 
   /**
@@ -788,181 +1043,105 @@ public class DrivetrainSubsystem extends SubsystemBase {
   private SwerveModulePosition getSwerveModulePositionFromModule(SwerveModule module) {
     return new SwerveModulePosition(
       module.getDriveDistance(),
-      new Rotation2d(module.getSteerAngle()));
+      new Rotation2d(module.readSteerAngle()));
   }
 
   /**
    * A function intended to be called from perodic to update the robots centroid position on the field.
    */
   private void refreshRobotPosition() {
-    // Update the position of the robot
-    Rotation2d angle = this.getGyroscopeRotation();
-    SwerveModulePosition[] positions = null;
-    try{
-      theLock.lock();
-      positions = this.getSwerveModulePositions();
-      currentPosition = swervePoseEstimator.update(
-        angle,
-        positions);
-    }
-    finally {
-      theLock.unlock();
+    // when sampling at the scheduler rate take this cycle's sample here
+    if(!odometrySampler.isThreaded()) {
+      odometrySampler.sample();
     }
 
-    SmartDashboard.putNumber("RobotFieldHeadingDegrees", this.getGyroscopeRotation().getDegrees() );
-    // getGyroscopeRotation() should be the same as currentPosition.getRotation after one call to swerveOdometry.update in periodic
-    SmartDashboard.putNumber("RobotFieldXCoordinateMeters", currentPosition.getX());
-    SmartDashboard.putNumber("RobotFieldYCoordinateMeters", currentPosition.getY());
-    SmartDashboard.putNumber("RobotPitchDegrees", this.getEulerAngle().getPitch());
-    SmartDashboard.putNumber("RobotRollDegrees", this.getEulerAngle().getRoll());
-    if(positions != null){
-      SmartDashboard.putNumber("FrontLeftAngleDegrees", positions[0].angle.getDegrees());
-      SmartDashboard.putNumber("FrontLeftDistanceMeters", positions[0].distanceMeters);
-      SmartDashboard.putNumber("FrontRightAngleDegrees", positions[1].angle.getDegrees());
-      SmartDashboard.putNumber("FrontRightDistanceMeters", positions[1].distanceMeters);
-      SmartDashboard.putNumber("BackLeftAngleDegrees", positions[2].angle.getDegrees());
-      SmartDashboard.putNumber("BackLeftDistanceMeters", positions[2].distanceMeters);
-      SmartDashboard.putNumber("BackRightAngleDegrees", positions[3].angle.getDegrees());
-      SmartDashboard.putNumber("BackRightDistanceMeters", positions[3].distanceMeters);
+    // Update the position of the robot with every sample taken since the last cycle
+    SwerveModulePosition[] positions = sampledModulePositions;
+    while(odometrySampler.poll()) {
+      for(int inx = 0; inx < positions.length; ++inx) {
+        positions[inx].distanceMeters = odometrySampler.getDriveDistance(inx);
+        // rotations are immutable, only make a new one when the module has steered
+        double steerAngleRadians = odometrySampler.getSteerAngle(inx);
+        if(positions[inx].angle.getRadians() != steerAngleRadians) {
+          positions[inx].angle = new Rotation2d(steerAngleRadians);
+        }
+      }
+      double gyroRadians = Math.toRadians(odometrySampler.getGyroDegrees());
+      if(sampledGyroRotation.getRadians() != gyroRadians) {
+        sampledGyroRotation = new Rotation2d(gyroRadians);
+      }
+      currentPosition = swervePoseEstimator.updateWithTime(
+        odometrySampler.getTimestamp(),
+        sampledGyroRotation,
+        positions);
+      ++appliedOdometrySampleCount;
     }
-  }
 
-  /**
-   * A method devoted to making sure the current position is added to the historic position listing
-   * as well as maintaining the size of the list at a predefined maximum
-   */
-  private void storeUpdatedPosition()
-  {
-    this.historicPositions.add(currentPosition);
-    while(this.historicPositions.size() > PositionHistoryStorageSize)
-    {
-      this.historicPositions.remove();
+    headingTelemetry.set(this.getGyroscopeDegrees());
+    // getGyroscopeRotation() should be the same as currentPosition.getRotation after one call to swerveOdometry.update in periodic
+    xCoordinateTelemetry.set(currentPosition.getX());
+    yCoordinateTelemetry.set(currentPosition.getY());
+    // debug channels are skipped entirely in competition mode, including the sensor reads
+    if(pitchTelemetry.isEnabled()) {
+      pitchTelemetry.set(this.getNavxPitch());
+      rollTelemetry.set(this.getNavxRoll());
     }
-  }
-
-  /**
-   * Method to get the recent translations
-   * @param historicDurationMilliseconds - the historic time window in milliseconds of points to establish translations
-   * @return the array of translations associated with the points at hand
-   */
-  private ArrayList<Transform2d> getRecentTransforms(int historicDurationMilliseconds)
-  {
-    // first get the list of translations between the Pos2d's stored
-    int intendedCount = historicDurationMilliseconds/CommandSchedulerPeriodMilliseconds;
-    int maxCount = (intendedCount>PositionHistoryStorageSize ? PositionHistoryStorageSize : intendedCount);
-    int currentCount = 0;
-    ArrayList<Transform2d> transforms = new ArrayList<Transform2d>();
-    Pose2d lastPosition = null;
-    Pose2d currentPosition = null;
-    for (Iterator<Pose2d> iter = this.historicPositions.iterator(); iter.hasNext() && currentCount < maxCount; ++currentCount ) {
-      currentPosition = iter.next();
-      // assume the first position has no translation (even though it likely actually have had one)
-      if(lastPosition != null)
-      {
-        Transform2d nextTransform = new Transform2d(lastPosition, currentPosition);
-        transforms.add(nextTransform);
+    if(modulePositionsTelemetry.isEnabled()) {
+      for(int inx = 0; inx < positions.length; ++inx) {
+        modulePositionsTelemetry.set(inx * 2, positions[inx].angle.getDegrees());
+        modulePositionsTelemetry.set(inx * 2 + 1, positions[inx].distanceMeters);
       }
-      lastPosition = currentPosition;
     }
-    return transforms;
+    droppedSamplesTelemetry.set(odometrySampler.getDroppedSampleCount());
   }
 
   /**
-   * Method to obtain the array of distances recently traveled
-   * @param historicDurationMilliseconds - the historic time window in milliseconds of points to establish distances
-   * @return array of distances traveled recently
+   * Gets the number of odometry samples applied to the pose estimator, used by tests measuring periodic
+   * @return the count of samples applied since the subsystem was built
    */
-  private ArrayList<Double> getRecentDistanceTraveled(int historicDurationMilliseconds)
-  {
-    ArrayList<Transform2d> transforms = this.getRecentTransforms(historicDurationMilliseconds);
-    ArrayList<Double> resultDistances = new ArrayList<Double>();
-    Translation2d previousTranslation = null;
-    Translation2d currentTranslation = null;
-    for(int inx = 0; inx < transforms.size(); ++inx)
-    {
-      currentTranslation = transforms.get(inx).getTranslation();
-      if(previousTranslation != null)
-      {
-        resultDistances.add(previousTranslation.getDistance(currentTranslation));
-      }
-      previousTranslation = currentTranslation;
-    }
-    return resultDistances;
+  long getAppliedOdometrySampleCount() {
+    return appliedOdometrySampleCount;
   }
 
   /**
-   * Method to obtain the array of angular velocities recently traveled
-   * @param historicDurationMilliseconds - the historic time window in milliseconds to obtain velocities from
-   * @return array of rotation velocities traveled recently - in radians/s
+   * A method devoted to making sure the current position is added to the historic position listing
+   * the buffer itself maintains the size of the history at a predefined maximum
    */
-  private ArrayList<Double> getRecentAngularVelocities(int historicDurationMilliseconds)
+  private void storeUpdatedPosition()
   {
-    ArrayList<Transform2d> transforms = this.getRecentTransforms(historicDurationMilliseconds);
-    ArrayList<Double> resultRotationVelocities = new ArrayList<Double>();
-    Transform2d previousTransform = null;
-    Transform2d currentTransform = null;
-    for(int inx = 0; inx < transforms.size(); ++inx)
-    {
-      currentTransform = transforms.get(inx);
-      if(previousTransform != null)
-      {
-        // with this conversion below we will be making an assumption:
-        // that angular velocities will never exceed pi radians per 20 ms clock cycle
-        // (e.g., that the robot is unable to sweep > 180 degrees in 20 ms,
-        // or said another way the robot can't physically spin > 25 spins per second - 1500 RPM)
-        // to produce a result, we need to rely on MathUtil.angleModulus() static method - this keeps the math tidy
-        double currentRadians = MathUtil.angleModulus(currentTransform.getRotation().getRadians());
-        double previousRadians = MathUtil.angleModulus(previousTransform.getRotation().getRadians());
-        double deltaRadians = MathUtil.angleModulus(currentRadians - previousRadians);
-
-        // assumed cycle time and that the current distance is for a 20 ms movement
-        resultRotationVelocities.add(deltaRadians * CommandSchedulerCyclesPerSecond); 
-      }
-      previousTransform = currentTransform;
-    }
-    return resultRotationVelocities;
+    this.historicPositions.add(
+      Timer.getFPGATimestamp(),
+      currentPosition.getX(),
+      currentPosition.getY(),
+      currentPosition.getRotation().getRadians());
   }
 
   /**
-   * Method to obtain the array of velocities recently traveled
-   * @param historicDurationMilliseconds - the historic time window in milliseconds to obtain velocities from
-   * @return array of velocities traveled recently
+   * Method to convert a historic time window into a count of scheduler steps
+   * @param historicDurationMilliseconds - the historic time window in milliseconds
+   * @return the number of pose to pose steps in the window
    */
-  private ArrayList<Double> getRecentVelocities(int historicDurationMilliseconds)
+  private int getHistoricSteps(int historicDurationMilliseconds)
   {
-    ArrayList<Double> recentDistances = this.getRecentDistanceTraveled(historicDurationMilliseconds);
-    ArrayList<Double> resultVelocities = new ArrayList<Double>();
-    for(int inx = 0; inx < recentDistances.size(); ++inx)
-    {
-      double currentDistance = recentDistances.get(inx);
-      double currentVelocity = currentDistance * CommandSchedulerCyclesPerSecond; // assumed cycle time and that the current distance is for a 20 ms movement
-      resultVelocities.add(currentVelocity);
-    }
-    return resultVelocities;
+    return historicDurationMilliseconds/CommandSchedulerPeriodMilliseconds;
   }
 
   /**
-   * Method to obtain the array of accelerations recently having occured
-   * @param historicDurationMilliseconds - the historic time window in milliseconds to obtain accelerations from
-   * @return array of accelerations traveled recently
+   * Method to build the kinematics for the module locations of the drive train
+   * @return new kinematics
    */
-  private ArrayList<Double> getRecentAccelerations(int historicDurationMilliseconds)
+  private static SwerveDriveKinematics createSwerveKinematics()
   {
-    ArrayList<Double> recentVelocities = this.getRecentVelocities(historicDurationMilliseconds);
-    ArrayList<Double> resultAccelerations = new ArrayList<Double>();
-    Double currentVelocity = null;
-    Double previousVelocity = null;
-    for(int inx = 0; inx < recentVelocities.size(); ++inx)
-    {
-      currentVelocity = recentVelocities.get(inx);
-      if(previousVelocity != null)
-      {
-        double currentAcceleration = (currentVelocity - previousVelocity) * CommandSchedulerCyclesPerSecond; // assumed cycle time and that the current distance is for a 20 ms movement
-        resultAccelerations.add(currentAcceleration);
-      }
-      previousVelocity = currentVelocity;
-    }
-    return resultAccelerations;
+    return new SwerveDriveKinematics(
+          // Front left
+          new Translation2d(DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0),
+          // Front right
+          new Translation2d(DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0),
+          // Back left
+          new Translation2d(-DRIVETRAIN_TRACKWIDTH_METERS / 2.0, DRIVETRAIN_WHEELBASE_METERS / 2.0),
+          // Back right
+          new Translation2d(-DRIVETRAIN_TRACKWIDTH_METERS / 2.0, -DRIVETRAIN_WHEELBASE_METERS / 2.0)
+    );
   }
 
-}
\ No newline at end of file
+}
@@ -12,7 +12,7 @@ package frc.robot.subsystems;
 
 import frc.robot.common.*;
 import frc.robot.Constants;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.control.CanBusBudgetTable;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
@@ -38,10 +38,15 @@ public class EveryBotPickerSubsystem extends SubsystemBase {
     // TODO - get proper values from Simeon/Grayson
     private static final double everyBotGearReduction = 10.0/1.0;
 
+    // the picker speed is held for long stretches, so repeats are only resent this often
+    private static final double motorOutputTolerance = 0.001;
+    private static final double motorOutputKeepAliveSeconds = 0.1;
+
     /* *********************************************************************
     MEMBERS
     ************************************************************************/
     private CANSparkMax everyBotMotor = new CANSparkMax(Constants.EveryBotPickerMotorCanId, MotorType.kBrushless);
+    private final MotorOutputCache<ControlType> everyBotMotorOutput = MotorOutputCache.forSparkMax(everyBotMotor, motorOutputTolerance, motorOutputKeepAliveSeconds);
     private SparkMaxPIDController everyBotPidController;
     private RelativeEncoder everyBotEncoder;
     private double kP, kI, kD, kIz, kFF, kMaxOutput, kMinOutput, maxRPM, maxVel, minVel, maxAcc, allowedErr;
@@ -50,6 +55,11 @@ public class EveryBotPickerSubsystem extends SubsystemBase {
     private boolean isEveryBotMotorInverted = true;
     private double requestedEveryBotMotorSpeed = 0.0;
 
+    private final TelemetryPublisher telemetry = TelemetryPublisher.getInstance();
+    private final TelemetryPublisher.DoubleChannel motorSpeedTelemetry = telemetry.addDouble("EveryBotPickerMotorSpeedRpm", TelemetryLevel.Debug, 5);
+    private final TelemetryPublisher.DoubleChannel intakeSpeedTelemetry = telemetry.addDouble("EveryBotPickerIntakeSpeedRpm", TelemetryLevel.Debug, 5);
+    private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("EveryBotPickerSubsystem.periodic");
+
     /* *********************************************************************
     CONSTRUCTORS
     ************************************************************************/
@@ -77,10 +87,12 @@ public class EveryBotPickerSubsystem extends SubsystemBase {
      */
     @Override
     public void periodic() {
+      periodicSpan.begin();
       // confirm that the smart motion is setup - no-op after it is setup first time
       this.initializeMotorsSmartMotion();
       this.refreshPickerPosition();
-      everyBotMotor.set(this.requestedEveryBotMotorSpeed * this.neoMotorSpeedReductionFactor);
+      everyBotMotorOutput.set(ControlType.kDutyCycle, this.requestedEveryBotMotorSpeed * this.neoMotorSpeedReductionFactor);
+      periodicSpan.end();
     }
 
     @Override
@@ -95,8 +107,11 @@ public class EveryBotPickerSubsystem extends SubsystemBase {
      * A function intended to be called from perodic to update encoder value of the motor.
      */
     private void refreshPickerPosition() {
-      SmartDashboard.putNumber("EveryBotPickerMotorSpeedRpm", this.everyBotEncoder.getVelocity());
-      SmartDashboard.putNumber("EveryBotPickerIntakeSpeedRpm", this.everyBotEncoder.getVelocity()/EveryBotPickerSubsystem.everyBotGearReduction);
+      if(motorSpeedTelemetry.isEnabled()) {
+        double motorSpeedRpm = this.everyBotEncoder.getVelocity();
+        motorSpeedTelemetry.set(motorSpeedRpm);
+        intakeSpeedTelemetry.set(motorSpeedRpm/EveryBotPickerSubsystem.everyBotGearReduction);
+      }
     }
 
     // a method devoted to establishing proper startup of the jaws motors
@@ -119,6 +134,7 @@ public class EveryBotPickerSubsystem extends SubsystemBase {
         maxAcc = maxVel * 2; // 1/2 second to get up to full speed
 
         everyBotMotor.restoreFactoryDefaults();
+        CanBusBudgetTable.Budget.applyTo(CanBusBudgetTable.EveryBotPickerMotors, everyBotMotor);
         everyBotMotor.setIdleMode(IdleMode.kBrake);
         everyBotMotor.setInverted(this.isEveryBotMotorInverted);
         everyBotPidController = everyBotMotor.getPIDController();
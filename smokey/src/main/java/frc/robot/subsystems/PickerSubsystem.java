@@ -12,6 +12,7 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.Compressor;
 import frc.robot.Constants;
+import frc.robot.common.LoopProfiler;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
@@ -24,6 +25,7 @@ public class PickerSubsystem extends SubsystemBase{
 
     private boolean currentHorizontalPickerDeployed = false;
     private boolean currentVerticalPickerDeployed = false;
+    private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("PickerSubsystem.periodic");
     Compressor compressor = new Compressor(1, Constants.PneumaticsControlModuleType);
     DoubleSolenoid horizontalSolenoid = new DoubleSolenoid(
         Constants.PneumaticsControlModuleNumber,
@@ -144,8 +146,10 @@ public class PickerSubsystem extends SubsystemBase{
      */
     @Override
     public void periodic() {
+        periodicSpan.begin();
         SmartDashboard.putBoolean("HorizontalPickerDeployed", this.isHorizontalDeployed());
         SmartDashboard.putBoolean("VerticalPickerDeployed", this.isVerticalDeployed());
+        periodicSpan.end();
     }
  
     private void intitalizePickerState()
@@ -12,10 +12,12 @@ package frc.robot.subsystems;
 
 import java.util.ArrayList;
 import edu.wpi.first.wpilibj.PowerDistribution;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.common.LoopProfiler;
 import frc.robot.common.PortSpy;
+import frc.robot.common.TelemetryLevel;
+import frc.robot.common.TelemetryPublisher;
 import frc.robot.Constants;
 
 public class PowerDistributionPanelWatcherSubsystem extends SubsystemBase {
@@ -23,6 +25,8 @@ public class PowerDistributionPanelWatcherSubsystem extends SubsystemBase {
         Constants.currentPowerDistributionPanelCanId,
         Constants.currentPowerDistributionPanelType);
     private ArrayList<PortSpy> myList = new ArrayList<PortSpy>();
+    private ArrayList<TelemetryPublisher.DoubleChannel> currentTelemetry = new ArrayList<TelemetryPublisher.DoubleChannel>();
+    private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("PowerDistributionPanelWatcherSubsystem.periodic");
 
     public PowerDistributionPanelWatcherSubsystem() {
         CommandScheduler.getInstance().registerSubsystem(this);
@@ -31,9 +35,41 @@ public class PowerDistributionPanelWatcherSubsystem extends SubsystemBase {
     /*
      * Method to add new ports to watch for overcurrent protection on
      * @param spy
+     * @throws IllegalArgumentException when the port of the spy is already watched
      */
     public void add(PortSpy spy) {
+        // a port is only watched once, and spies with the same description share one channel,
+        // so the same topic never gets a second publisher
+        TelemetryPublisher.DoubleChannel channel = null;
+        for (int counter = 0; counter < myList.size(); counter++) {
+            PortSpy nextSpy = myList.get(counter);
+            if(nextSpy.getPort() == spy.getPort()) {
+                throw new IllegalArgumentException(
+                    "port " + spy.getPort() + " is already watched by " + nextSpy.getActionDescription());
+            }
+            if(nextSpy.getActionDescription().equals(spy.getActionDescription())) {
+                channel = currentTelemetry.get(counter);
+            }
+        }
+        if(channel == null) {
+            channel = TelemetryPublisher.getInstance().addDouble(spy.getActionDescription(), TelemetryLevel.Competition, 5);
+        }
         myList.add(spy);
+        currentTelemetry.add(channel);
+    }
+
+    /**
+     * Determines if a port is already watched
+     * @param targetPort - the port to check
+     * @return true when a spy has been added for the port
+     */
+    public boolean isPortWatched(int targetPort) {
+        for (int counter = 0; counter < myList.size(); counter++) {
+            if(myList.get(counter).getPort() == targetPort) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -59,6 +95,7 @@ public class PowerDistributionPanelWatcherSubsystem extends SubsystemBase {
 
     @Override
     public void periodic() {
+        periodicSpan.begin();
         for (int counter = 0; counter < myList.size(); counter++) {
             PortSpy nextSpy = myList.get(counter);
             double current = distroPannel.getCurrent(nextSpy.getPort());
@@ -73,7 +110,8 @@ public class PowerDistributionPanelWatcherSubsystem extends SubsystemBase {
                 // lanunch the command
                 CommandScheduler.getInstance().schedule(nextSpy.getAction());
             }
-            SmartDashboard.putNumber(nextSpy.getActionDescription(), current);
+            currentTelemetry.get(counter).set(current);
         }
+        periodicSpan.end();
     }
 }
@@ -12,6 +12,7 @@ package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.Compressor;
 import frc.robot.Constants;
+import frc.robot.common.LoopProfiler;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
@@ -23,6 +24,7 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 public class StabilizerSubsystem extends SubsystemBase{
 
     private boolean currentStabilizerDeployed = false;
+    private final LoopProfiler.Span periodicSpan = LoopProfiler.getInstance().addSpan("StabilizerSubsystem.periodic");
     Compressor compressor = new Compressor(1, Constants.PneumaticsControlModuleType);
     DoubleSolenoid solenoid = new DoubleSolenoid(
         Constants.PneumaticsControlModuleNumber,
@@ -91,7 +93,9 @@ public class StabilizerSubsystem extends SubsystemBase{
      */
     @Override
     public void periodic() {
+        periodicSpan.begin();
         SmartDashboard.putBoolean("StabilizerArmDeployed", this.isDeployed());
+        periodicSpan.end();
     }
  
     private void intitalizeStabilizerState()
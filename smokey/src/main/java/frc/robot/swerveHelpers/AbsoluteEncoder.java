@@ -15,4 +15,10 @@ public interface AbsoluteEncoder {
      * @return ErrorCode
      */
     ErrorCode getLastError();
+
+    /**
+     * Sets the angle the simulated encoder reads, only called in simulation
+     * @param angleRadians - the true angle of the module in radians
+     */
+    void setSimulatedAngle(double angleRadians);
 }
\ No newline at end of file
@@ -19,9 +19,13 @@ import com.ctre.phoenix.sensors.SensorInitializationStrategy;
 import com.swervedrivespecialties.swervelib.ctre.CanCoderAbsoluteConfiguration;
 import com.swervedrivespecialties.swervelib.ctre.CtreUtils;
 
+import frc.robot.common.CanBusBudget;
+
 public class CanCoderFactoryBuilder {
     private Direction direction = Direction.COUNTER_CLOCKWISE;
     private int periodMilliseconds = 10;
+    private CanBusBudget canBusBudget = null;
+    private String canBusBudgetGroup = null;
 
     public CanCoderFactoryBuilder withReadingUpdatePeriod(int periodMilliseconds) {
         this.periodMilliseconds = periodMilliseconds;
@@ -33,6 +37,12 @@ public class CanCoderFactoryBuilder {
         return this;
     }
 
+    public CanCoderFactoryBuilder withCanBusBudget(CanBusBudget budget, String groupName) {
+        this.canBusBudget = budget;
+        this.canBusBudgetGroup = groupName;
+        return this;
+    }
+
     public AbsoluteEncoderFactory<CanCoderAbsoluteConfiguration> build() {
         return configuration -> {
             CANCoderConfiguration config = new CANCoderConfiguration();
@@ -46,19 +56,27 @@ public class CanCoderFactoryBuilder {
             CANCoder encoder = new CANCoder(configuration.getId());
             CtreUtils.checkCtreError(encoder.configAllSettings(config, 250), "Failed to configure CANCoder");
 
-            CtreUtils.checkCtreError(encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, periodMilliseconds, 250), "Failed to configure CANCoder update rate");
+            if (canBusBudget != null) {
+                canBusBudget.applyTo(canBusBudgetGroup, encoder);
+            } else {
+                CtreUtils.checkCtreError(encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, periodMilliseconds, 250), "Failed to configure CANCoder update rate");
+            }
 
-            return new EncoderImplementation(encoder);
+            return new EncoderImplementation(encoder, configuration.getOffset());
         };
     }
 
     private static class EncoderImplementation implements AbsoluteEncoder {
+        private static final double SIMULATION_TICKS_PER_ROTATION = 4096.0;
+
         private final CANCoder encoder;
+        private final double offsetRadians;
         // start out with a general error that is cleared upon first successful reading
         private ErrorCode encoderStatus = ErrorCode.GENERAL_ERROR; 
 
-        private EncoderImplementation(CANCoder encoder) {
+        private EncoderImplementation(CANCoder encoder, double offsetRadians) {
             this.encoder = encoder;
+            this.offsetRadians = offsetRadians;
         }
 
         @Override
@@ -67,10 +85,8 @@ public class CanCoderFactoryBuilder {
             // check error condition in case getAbsolutePosition failed
             // This will be non-zero (zero is ErrorCode.OK) if the frame was not received.
             // https://www.chiefdelphi.com/t/official-sds-mk3-mk4-code/397109/99
+            // failures are counted by the steer controller resync rather than printed from the drive loop
             encoderStatus = encoder.getLastError();
-            if(encoderStatus != ErrorCode.OK){
-                System.out.println("ERROR: Reading absolute encoder position failed.");
-            }
             angle %= 2.0 * Math.PI;
             if (angle < 0.0) {
                 angle += 2.0 * Math.PI;
@@ -83,6 +99,13 @@ public class CanCoderFactoryBuilder {
         public ErrorCode getLastError(){
             return encoderStatus;
         }
+
+        @Override
+        public void setSimulatedAngle(double angleRadians) {
+            // the raw position is before the magnet offset is added
+            encoder.getSimCollection().setRawPosition(
+                (int)Math.round((angleRadians - offsetRadians) / (2.0 * Math.PI) * SIMULATION_TICKS_PER_ROTATION));
+        }
     }
 
     public enum Direction {
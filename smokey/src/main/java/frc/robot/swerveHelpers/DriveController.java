@@ -13,8 +13,13 @@ package frc.robot.swerveHelpers;
 public interface DriveController {
     void setReferenceVoltage(double voltage);
 
+    // reads the velocity once per cycle, getStateVelocity() returns the value from the last refresh
+    void refreshSignals();
     double getStateVelocity();
 
     void setDistance(double value);
     double getDistance();
+
+    // steps the simulated motor and feeds its sensor, only called in simulation
+    void simulationPeriodic(double deltaTimeSeconds);
 }
\ No newline at end of file
@@ -14,19 +14,34 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
 import com.ctre.phoenix.motorcontrol.TalonFXInvertType;
+import com.ctre.phoenix.motorcontrol.TalonFXSimCollection;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
 import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.swervedrivespecialties.swervelib.ModuleConfiguration;
 import com.swervedrivespecialties.swervelib.ctre.CtreUtils;
 
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.common.CanBusBudget;
+import frc.robot.common.MotorOutputCache;
+
 public final class Falcon500DriveControllerFactoryBuilder {
     private static final double TICKS_PER_ROTATION = 2048.0;
 
     private static final int CAN_TIMEOUT_MS = 250;
     private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
+    // a quarter of the robot mass at the wheel radius, as seen by the wheel
+    private static final double SIMULATION_WHEEL_MOI_KG_METERS_SQUARED = 0.035;
+    // a resting wheel gets the same output every cycle, so repeats are only resent this often
+    private static final double MOTOR_OUTPUT_TOLERANCE = 0.001;
+    private static final double MOTOR_OUTPUT_KEEP_ALIVE_SECONDS = 0.1;
 
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
+    private CanBusBudget canBusBudget = null;
+    private String canBusBudgetGroup = null;
 
     public Falcon500DriveControllerFactoryBuilder withVoltageCompensation(double nominalVoltage) {
         this.nominalVoltage = nominalVoltage;
@@ -50,6 +65,16 @@ public final class Falcon500DriveControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
+    public Falcon500DriveControllerFactoryBuilder withCanBusBudget(CanBusBudget budget, String groupName) {
+        this.canBusBudget = budget;
+        this.canBusBudgetGroup = groupName;
+        return this;
+    }
+
+    public boolean hasCanBusBudget() {
+        return canBusBudget != null;
+    }
+
     private class FactoryImplementation implements DriveControllerFactory<ControllerImplementation, Integer> {
         @Override
         public ControllerImplementation create(Integer driveConfiguration, ModuleConfiguration moduleConfiguration) {
@@ -81,39 +106,67 @@ public final class Falcon500DriveControllerFactoryBuilder {
             motor.setSensorPhase(true);
 
             // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS
-                    ),
-                    "Failed to configure Falcon status frame period"
-            );
-
-            return new ControllerImplementation(motor, sensorVelocityCoefficient, sensorPositionCoefficient);
+            if (hasCanBusBudget()) {
+                canBusBudget.applyTo(canBusBudgetGroup, motor);
+            } else {
+                CtreUtils.checkCtreError(
+                        motor.setStatusFramePeriod(
+                                StatusFrameEnhanced.Status_1_General,
+                                STATUS_FRAME_GENERAL_PERIOD_MS,
+                                CAN_TIMEOUT_MS
+                        ),
+                        "Failed to configure Falcon status frame period"
+                );
+            }
+
+            // the simulated wheel is only built when running in simulation
+            DCMotorSim simulatedWheel = RobotBase.isSimulation() ?
+                    new DCMotorSim(DCMotor.getFalcon500(1), 1.0 / moduleConfiguration.getDriveReduction(), SIMULATION_WHEEL_MOI_KG_METERS_SQUARED) :
+                    null;
+            double ticksPerWheelRadian = TICKS_PER_ROTATION / (2.0 * Math.PI * moduleConfiguration.getDriveReduction());
+
+            return new ControllerImplementation(motor, sensorVelocityCoefficient, sensorPositionCoefficient, simulatedWheel, ticksPerWheelRadian);
         }
     }
 
     private class ControllerImplementation implements DriveController {
         private final TalonFX motor;
+        private final MotorOutputCache<TalonFXControlMode> motorOutput;
         private final double sensorVelocityCoefficient;
         private final double sensorPositionCoefficient;
         private final double nominalVoltage = hasVoltageCompensation() ? Falcon500DriveControllerFactoryBuilder.this.nominalVoltage : 12.0;
+        private double stateVelocity = 0.0;
+
+        private final DCMotorSim simulatedWheel;
+        private final double ticksPerWheelRadian;
+        private double simulatedTicks = 0.0;
 
-        private ControllerImplementation(TalonFX motor, double sensorVelocityCoefficient, double sensorPositionCoefficient) {
+        private ControllerImplementation(TalonFX motor,
+                                         double sensorVelocityCoefficient,
+                                         double sensorPositionCoefficient,
+                                         DCMotorSim simulatedWheel,
+                                         double ticksPerWheelRadian) {
             this.motor = motor;
+            this.motorOutput = MotorOutputCache.forTalonFX(motor, MOTOR_OUTPUT_TOLERANCE, MOTOR_OUTPUT_KEEP_ALIVE_SECONDS);
             this.sensorVelocityCoefficient = sensorVelocityCoefficient;
             this.sensorPositionCoefficient = sensorPositionCoefficient;
+            this.simulatedWheel = simulatedWheel;
+            this.ticksPerWheelRadian = ticksPerWheelRadian;
         }
 
         @Override
         public void setReferenceVoltage(double voltage) {
-            motor.set(TalonFXControlMode.PercentOutput, voltage / nominalVoltage);
+            motorOutput.set(TalonFXControlMode.PercentOutput, voltage / nominalVoltage);
+        }
+
+        @Override
+        public void refreshSignals() {
+            stateVelocity = motor.getSelectedSensorVelocity() * sensorVelocityCoefficient;
         }
 
         @Override
         public double getStateVelocity() {
-            return motor.getSelectedSensorVelocity() * sensorVelocityCoefficient;
+            return stateVelocity;
         }
 
         @Override
@@ -125,5 +178,22 @@ public final class Falcon500DriveControllerFactoryBuilder {
         public double getDistance() {
             return motor.getSelectedSensorPosition() * sensorPositionCoefficient;
         }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+            // the sim collection works in the motor's own direction, ahead of any inversion
+            TalonFXSimCollection motorSimulation = motor.getSimCollection();
+            motorSimulation.setBusVoltage(RobotController.getBatteryVoltage());
+            simulatedWheel.setInputVoltage(motorSimulation.getMotorOutputLeadVoltage());
+            simulatedWheel.update(deltaTimeSeconds);
+
+            // add whole ticks so positions set by the robot code are kept
+            double ticks = simulatedWheel.getAngularPositionRad() * ticksPerWheelRadian;
+            int deltaTicks = (int)(ticks - simulatedTicks);
+            simulatedTicks += deltaTicks;
+            motorSimulation.addIntegratedSensorPosition(deltaTicks);
+            // velocity is in ticks per 100ms
+            motorSimulation.setIntegratedSensorVelocity((int)(simulatedWheel.getAngularVelocityRadPerSec() * ticksPerWheelRadian / 10.0));
+        }
     }
 }
\ No newline at end of file
@@ -19,8 +19,13 @@ import com.swervedrivespecialties.swervelib.ctre.CtreUtils;
 import com.swervedrivespecialties.swervelib.ctre.Falcon500SteerConfiguration;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.math.util.Units;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.common.CanBusBudget;
 
 import static com.swervedrivespecialties.swervelib.ctre.CtreUtils.checkCtreError;
 
@@ -29,6 +34,8 @@ public final class Falcon500SteerControllerFactoryBuilder {
     private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
 
     private static final double TICKS_PER_ROTATION = 2048.0;
+    // the wheel, fork and gearing turning about the steering axis
+    private static final double SIMULATION_MODULE_MOI_KG_METERS_SQUARED = 0.004;
 
     // PID configuration
     private double proportionalConstant = Double.NaN;
@@ -42,8 +49,8 @@ public final class Falcon500SteerControllerFactoryBuilder {
 
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
-
-    private static double absAngleTolRadians = Units.degreesToRadians(5);
+    private CanBusBudget canBusBudget = null;
+    private String canBusBudgetGroup = null;
 
     public Falcon500SteerControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
         this.proportionalConstant = proportional;
@@ -85,6 +92,16 @@ public final class Falcon500SteerControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
+    public Falcon500SteerControllerFactoryBuilder withCanBusBudget(CanBusBudget budget, String groupName) {
+        this.canBusBudget = budget;
+        this.canBusBudgetGroup = groupName;
+        return this;
+    }
+
+    public boolean hasCanBusBudget() {
+        return canBusBudget != null;
+    }
+
     public <T> SteerControllerFactory<ControllerImplementation, Falcon500SteerConfiguration<T>> build(AbsoluteEncoderFactory<T> absoluteEncoderFactory) {
         return new FactoryImplementation<>(absoluteEncoderFactory);
     }
@@ -99,8 +116,12 @@ public final class Falcon500SteerControllerFactoryBuilder {
         @Override
         public void addDashboardEntries(ShuffleboardContainer container, ControllerImplementation controller) {
             SteerControllerFactory.super.addDashboardEntries(container, controller);
-            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.absoluteEncoder.getAbsoluteAngle())); 
-            container.addBoolean("Absolute Encoder Sync Status OK", () -> controller.absoluteEncoder.getLastError() == ErrorCode.OK);
+            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.lastAbsoluteAngleRadians)); 
+            container.addBoolean("Absolute Encoder Sync Status OK", () -> controller.lastAbsoluteReadOk);
+            container.addNumber("Absolute Encoder Drift", () -> Math.toDegrees(controller.lastDriftRadians));
+            container.addNumber("Absolute Encoder Max Drift", () -> Math.toDegrees(controller.maximumDriftRadians));
+            container.addNumber("Absolute Encoder Resyncs", () -> controller.resyncCount);
+            container.addNumber("Absolute Encoder Read Errors", () -> controller.readErrorCount);
         }
 
         @Override
@@ -156,26 +177,42 @@ public final class Falcon500SteerControllerFactoryBuilder {
             } 
 
             // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS
-                    ),
-                    "Failed to configure Falcon status frame period"
-            );
+            if (hasCanBusBudget()) {
+                canBusBudget.applyTo(canBusBudgetGroup, motor);
+            } else {
+                CtreUtils.checkCtreError(
+                        motor.setStatusFramePeriod(
+                                StatusFrameEnhanced.Status_1_General,
+                                STATUS_FRAME_GENERAL_PERIOD_MS,
+                                CAN_TIMEOUT_MS
+                        ),
+                        "Failed to configure Falcon status frame period"
+                );
+            }
+
+            // the simulated module is only built when running in simulation
+            DCMotorSim simulatedModule = RobotBase.isSimulation() ?
+                    new DCMotorSim(DCMotor.getFalcon500(1), 1.0 / moduleConfiguration.getSteerReduction(), SIMULATION_MODULE_MOI_KG_METERS_SQUARED) :
+                    null;
 
             return new ControllerImplementation(motor,
                     sensorPositionCoefficient,
                     sensorVelocityCoefficient,
                     hasMotionMagic() ? TalonFXControlMode.MotionMagic : TalonFXControlMode.Position,
-                    absoluteEncoder);
+                    absoluteEncoder,
+                    simulatedModule);
         }
     }
 
-    private static class ControllerImplementation implements SteerController {
-        private static final int ENCODER_RESET_ITERATIONS = 500;
-        private static final double ENCODER_RESET_MAX_ANGULAR_VELOCITY = Math.toRadians(0.5);
+    private static class ControllerImplementation implements SnapshotSteerController {
+        // the absolute encoder is compared to the motor encoder in the background at this period
+        private static final double ENCODER_RESYNC_PERIOD_SECONDS = 0.1;
+        private static final double ENCODER_RESYNC_MAX_ANGULAR_VELOCITY = Math.toRadians(0.5);
+        // drift must stay above the upper threshold for several checks to resync, and falls back under the lower
+        // threshold to start counting again - noise around a single threshold never triggers a resync
+        private static final double ENCODER_RESYNC_DRIFT_RADIANS = Math.toRadians(1.0);
+        private static final double ENCODER_RESYNC_CLEAR_DRIFT_RADIANS = Math.toRadians(0.5);
+        private static final int ENCODER_RESYNC_CONSECUTIVE_CHECKS = 5;
 
         private final TalonFX motor;
         private final double motorEncoderPositionCoefficient;
@@ -185,18 +222,44 @@ public final class Falcon500SteerControllerFactoryBuilder {
 
         private double referenceAngleRadians = 0.0;
 
-        private double resetIteration = 0;
+        // sensor signals from the last refresh
+        private double sensorPosition = 0.0;
+        private double sensorVelocity = 0.0;
+
+        // written by the resync task and cleared by the control loop once applied, NaN when there is none
+        private volatile double pendingCorrectionTicks = Double.NaN;
+        private final Notifier resyncNotifier;
+        private int driftingChecks = 0;
+
+        // resync statistics for the dashboard
+        private volatile double lastAbsoluteAngleRadians = 0.0;
+        private volatile boolean lastAbsoluteReadOk = false;
+        private volatile double lastDriftRadians = 0.0;
+        private volatile double maximumDriftRadians = 0.0;
+        private volatile long resyncCount = 0;
+        private volatile long readErrorCount = 0;
+
+        // simulation of the module turning, the module starts at the angle its absolute encoder first reads
+        private final DCMotorSim simulatedModule;
+        private double simulatedStartAngleRadians = Double.NaN;
+        private double simulatedTicks = 0.0;
 
         private ControllerImplementation(TalonFX motor,
                                          double motorEncoderPositionCoefficient,
                                          double motorEncoderVelocityCoefficient,
                                          TalonFXControlMode motorControlMode,
-                                         AbsoluteEncoder absoluteEncoder) {
+                                         AbsoluteEncoder absoluteEncoder,
+                                         DCMotorSim simulatedModule) {
             this.motor = motor;
             this.motorEncoderPositionCoefficient = motorEncoderPositionCoefficient;
             this.motorEncoderVelocityCoefficient = motorEncoderVelocityCoefficient;
             this.motorControlMode = motorControlMode;
             this.absoluteEncoder = absoluteEncoder;
+            this.simulatedModule = simulatedModule;
+
+            this.resyncNotifier = new Notifier(this::checkAbsoluteEncoder);
+            this.resyncNotifier.setName("SteerEncoderResync" + motor.getDeviceID());
+            this.resyncNotifier.startPeriodic(ENCODER_RESYNC_PERIOD_SECONDS);
         }
 
         @Override
@@ -205,31 +268,22 @@ public final class Falcon500SteerControllerFactoryBuilder {
         }
 
         @Override
-        public void setReferenceAngle(double referenceAngleRadians) {
-            double currentAngleRadians = motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
-
-            // Reset the NEO's encoder periodically when the module is not rotating.
-            // Sometimes (~5% of the time) when we initialize, the absolute encoder isn't fully set up, and we don't
-            // end up getting a good reading. If we reset periodically this won't matter anymore.
-            if (motor.getSelectedSensorVelocity() * motorEncoderVelocityCoefficient < ENCODER_RESET_MAX_ANGULAR_VELOCITY) {
-                if (++resetIteration >= ENCODER_RESET_ITERATIONS) {
-                    resetIteration = 0;
-                    double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
-                    if (absoluteEncoder.getLastError() == ErrorCode.OK){
-                        if (Math.abs(MathUtil.angleModulus(absoluteAngle - currentAngleRadians)) 
-                        > absAngleTolRadians){
-                            System.out.println("WARNING: Large error encountered when syncing absolute encoder from " + 
-                            currentAngleRadians + " to " + absoluteAngle + ".");
-                        }
-                        motor.setSelectedSensorPosition(absoluteAngle / motorEncoderPositionCoefficient);
-                        currentAngleRadians = absoluteAngle;    
-                    } else {
-                        System.out.println("WARNING: Syncing absolute encoder position failed.");
-                    }
-                }
-            } else {
-                resetIteration = 0;
+        public void refreshSignals() {
+            sensorPosition = motor.getSelectedSensorPosition();
+            sensorVelocity = motor.getSelectedSensorVelocity();
+
+            // apply any correction found by the resync task, between control cycles and without waiting on CAN
+            double correctionTicks = pendingCorrectionTicks;
+            if (!Double.isNaN(correctionTicks)) {
+                pendingCorrectionTicks = Double.NaN;
+                sensorPosition += correctionTicks;
+                motor.setSelectedSensorPosition(sensorPosition, 0, 0);
             }
+        }
+
+        @Override
+        public void setReferenceAngle(double referenceAngleRadians) {
+            double currentAngleRadians = sensorPosition * motorEncoderPositionCoefficient;
 
             double currentAngleRadiansMod = currentAngleRadians % (2.0 * Math.PI);
             if (currentAngleRadiansMod < 0.0) {
@@ -252,7 +306,80 @@ public final class Falcon500SteerControllerFactoryBuilder {
 
         @Override
         public double getStateAngle() {
-            double motorAngleRadians = motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
+            return this.toStateAngle(sensorPosition);
+        }
+
+        @Override
+        public double readStateAngle() {
+            return this.toStateAngle(motor.getSelectedSensorPosition());
+        }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+            if (Double.isNaN(simulatedStartAngleRadians)) {
+                simulatedStartAngleRadians = absoluteEncoder.getAbsoluteAngle();
+            }
+
+            // the sim collection works in the motor's own direction, ahead of any inversion
+            TalonFXSimCollection motorSimulation = motor.getSimCollection();
+            motorSimulation.setBusVoltage(RobotController.getBatteryVoltage());
+            simulatedModule.setInputVoltage(motorSimulation.getMotorOutputLeadVoltage());
+            simulatedModule.update(deltaTimeSeconds);
+
+            // add whole ticks so the positions set by the encoder resync are kept
+            double ticks = simulatedModule.getAngularPositionRad() / motorEncoderPositionCoefficient;
+            int deltaTicks = (int)(ticks - simulatedTicks);
+            simulatedTicks += deltaTicks;
+            motorSimulation.addIntegratedSensorPosition(deltaTicks);
+            // velocity is in ticks per 100ms
+            motorSimulation.setIntegratedSensorVelocity((int)(simulatedModule.getAngularVelocityRadPerSec() / motorEncoderVelocityCoefficient));
+
+            // the selected sensor reverses the motor direction when inverted, the module turns as the selected sensor reads
+            double moduleTurnRadians = motor.getInverted() ? -simulatedModule.getAngularPositionRad() : simulatedModule.getAngularPositionRad();
+            absoluteEncoder.setSimulatedAngle(simulatedStartAngleRadians + moduleTurnRadians);
+        }
+
+        /**
+         * Compares the absolute encoder to the motor encoder, runs on the resync notifier thread.
+         * Sometimes (~5% of the time) when we initialize, the absolute encoder isn't fully set up, and we don't
+         * end up getting a good reading. Checking continuously while the module is not rotating corrects this.
+         */
+        private void checkAbsoluteEncoder() {
+            if (!Double.isNaN(pendingCorrectionTicks)) {
+                // the last correction has not been applied by the control loop yet
+                return;
+            }
+
+            double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
+            lastAbsoluteReadOk = absoluteEncoder.getLastError() == ErrorCode.OK;
+            if (!lastAbsoluteReadOk) {
+                readErrorCount = readErrorCount + 1;
+                driftingChecks = 0;
+                return;
+            }
+            lastAbsoluteAngleRadians = absoluteAngle;
+
+            double motorAngle = motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
+            double drift = MathUtil.angleModulus(absoluteAngle - motorAngle);
+            lastDriftRadians = drift;
+            maximumDriftRadians = Math.max(maximumDriftRadians, Math.abs(drift));
+
+            if (Math.abs(motor.getSelectedSensorVelocity() * motorEncoderVelocityCoefficient) >= ENCODER_RESYNC_MAX_ANGULAR_VELOCITY) {
+                driftingChecks = 0;
+            } else if (Math.abs(drift) > ENCODER_RESYNC_DRIFT_RADIANS) {
+                if (++driftingChecks >= ENCODER_RESYNC_CONSECUTIVE_CHECKS) {
+                    driftingChecks = 0;
+                    resyncCount = resyncCount + 1;
+                    // keep the motor encoder continuous, only remove the drift
+                    pendingCorrectionTicks = drift / motorEncoderPositionCoefficient;
+                }
+            } else if (Math.abs(drift) < ENCODER_RESYNC_CLEAR_DRIFT_RADIANS) {
+                driftingChecks = 0;
+            }
+        }
+
+        private double toStateAngle(double position) {
+            double motorAngleRadians = position * motorEncoderPositionCoefficient;
             motorAngleRadians %= 2.0 * Math.PI;
             if (motorAngleRadians < 0.0) {
                 motorAngleRadians += 2.0 * Math.PI;
@@ -0,0 +1,33 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SnapshotSteerController.java
+// Intent: SnapshotSteerController interface ... a steer controller whose sensor signals are read once per cycle.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ 
+
+package frc.robot.swerveHelpers;
+
+import com.swervedrivespecialties.swervelib.SteerController;
+
+/**
+ * A steer controller that reads its sensor signals once per cycle in refreshSignals().
+ * getStateAngle() and setReferenceAngle() use the values from the last refresh rather than reading the device again.
+ */
+public interface SnapshotSteerController extends SteerController {
+    void refreshSignals();
+
+    /**
+     * Reads the steer angle directly from the device, for use outside of the control cycle
+     * @return angle in radians within [0, 2pi)
+     */
+    double readStateAngle();
+
+    /**
+     * Steps the simulated motor and feeds its sensors, only called in simulation
+     * @param deltaTimeSeconds - the time since the last step
+     */
+    void simulationPeriodic(double deltaTimeSeconds);
+}
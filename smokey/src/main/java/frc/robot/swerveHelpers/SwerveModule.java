@@ -11,12 +11,24 @@
 package frc.robot.swerveHelpers;
 
 public interface SwerveModule {
+    // reads the control signals of the module once per cycle,
+    // getDriveVelocity() and getSteerAngle() return the values from the last refresh
+    void refreshSignals();
+
     double getDriveVelocity();
 
+    // distance is read directly from the device each call, odometry samples it on its own thread
     double getDriveDistance();
     void setDriveDistance(double value);
 
     double getSteerAngle();
+    double readSteerAngle();
 
     void set(double driveVoltage, double steerAngle);
+
+    // stops the drive motor without changing the steer reference, safe to call from any thread
+    void stopDrive();
+
+    // steps the simulated motors and sensors of the module, only called in simulation
+    void simulationPeriodic(double deltaTimeSeconds);
 }
\ No newline at end of file
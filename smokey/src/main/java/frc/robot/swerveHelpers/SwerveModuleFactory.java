@@ -11,7 +11,6 @@
 package frc.robot.swerveHelpers;
 
 import com.swervedrivespecialties.swervelib.ModuleConfiguration;
-import com.swervedrivespecialties.swervelib.SteerController;
 import com.swervedrivespecialties.swervelib.SteerControllerFactory;
 
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
@@ -20,11 +19,11 @@ import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 public class SwerveModuleFactory<DriveConfiguration, SteerConfiguration> {
     private final ModuleConfiguration moduleConfiguration;
     private final DriveControllerFactory<?, DriveConfiguration> driveControllerFactory;
-    private final SteerControllerFactory<?, SteerConfiguration> steerControllerFactory;
+    private final SteerControllerFactory<? extends SnapshotSteerController, SteerConfiguration> steerControllerFactory;
 
     public SwerveModuleFactory(ModuleConfiguration moduleConfiguration,
                                DriveControllerFactory<?, DriveConfiguration> driveControllerFactory,
-                               SteerControllerFactory<?, SteerConfiguration> steerControllerFactory) {
+                               SteerControllerFactory<? extends SnapshotSteerController, SteerConfiguration> steerControllerFactory) {
         this.moduleConfiguration = moduleConfiguration;
         this.driveControllerFactory = driveControllerFactory;
         this.steerControllerFactory = steerControllerFactory;
@@ -54,13 +53,19 @@ public class SwerveModuleFactory<DriveConfiguration, SteerConfiguration> {
 
     private static class ModuleImplementation implements SwerveModule {
         private final DriveController driveController;
-        private final SteerController steerController;
+        private final SnapshotSteerController steerController;
 
-        private ModuleImplementation(DriveController driveController, SteerController steerController) {
+        private ModuleImplementation(DriveController driveController, SnapshotSteerController steerController) {
             this.driveController = driveController;
             this.steerController = steerController;
         }
 
+        @Override
+        public void refreshSignals() {
+            driveController.refreshSignals();
+            steerController.refreshSignals();
+        }
+
         @Override
         public double getDriveVelocity() {
             return driveController.getStateVelocity();
@@ -81,6 +86,11 @@ public class SwerveModuleFactory<DriveConfiguration, SteerConfiguration> {
             return steerController.getStateAngle();
         }
 
+        @Override
+        public double readSteerAngle() {
+            return steerController.readStateAngle();
+        }
+
         @Override
         public void set(double driveVoltage, double steerAngle) {
             steerAngle %= (2.0 * Math.PI);
@@ -88,14 +98,15 @@ public class SwerveModuleFactory<DriveConfiguration, SteerConfiguration> {
                 steerAngle += 2.0 * Math.PI;
             }
 
-            double difference = steerAngle - getSteerAngle();
+            double currentSteerAngle = getSteerAngle();
+            double difference = steerAngle - currentSteerAngle;
             // Change the target angle so the difference is in the range [-pi, pi) instead of [0, 2pi)
             if (difference >= Math.PI) {
                 steerAngle -= 2.0 * Math.PI;
             } else if (difference < -Math.PI) {
                 steerAngle += 2.0 * Math.PI;
             }
-            difference = steerAngle - getSteerAngle(); // Recalculate difference
+            difference = steerAngle - currentSteerAngle; // Recalculate difference
 
             // If the difference is greater than 90 deg or less than -90 deg the drive can be inverted so the total
             // movement of the module is less than 90 deg
@@ -114,5 +125,16 @@ public class SwerveModuleFactory<DriveConfiguration, SteerConfiguration> {
             driveController.setReferenceVoltage(driveVoltage);
             steerController.setReferenceAngle(steerAngle);
         }
+
+        @Override
+        public void stopDrive() {
+            driveController.setReferenceVoltage(0.0);
+        }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+            driveController.simulationPeriodic(deltaTimeSeconds);
+            steerController.simulationPeriodic(deltaTimeSeconds);
+        }
     }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ import com.swervedrivespecialties.swervelib.ctre.CanCoderAbsoluteConfiguration;
 import com.swervedrivespecialties.swervelib.ctre.Falcon500SteerConfiguration;
 
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
+import frc.robot.control.CanBusBudgetTable;
 
 public final class SwerveModuleHelper {
     private SwerveModuleHelper() {
@@ -25,16 +26,18 @@ public final class SwerveModuleHelper {
         return new Falcon500DriveControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
                 .withCurrentLimit(configuration.getDriveCurrentLimit())
+                .withCanBusBudget(CanBusBudgetTable.Budget, CanBusBudgetTable.SwerveDriveMotors)
                 .build();
     }
 
-    private static SteerControllerFactory<?, Falcon500SteerConfiguration<CanCoderAbsoluteConfiguration>> getFalcon500SteerFactory(SwerveModuleConfiguration configuration) {
+    private static SteerControllerFactory<? extends SnapshotSteerController, Falcon500SteerConfiguration<CanCoderAbsoluteConfiguration>> getFalcon500SteerFactory(SwerveModuleConfiguration configuration) {
         return new Falcon500SteerControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
                 .withPidConstants(0.2, 0.0, 0.1)
                 .withCurrentLimit(configuration.getSteerCurrentLimit())
+                .withCanBusBudget(CanBusBudgetTable.Budget, CanBusBudgetTable.SwerveSteerMotors)
                 .build(new CanCoderFactoryBuilder()
-                        .withReadingUpdatePeriod(100)
+                        .withCanBusBudget(CanBusBudgetTable.Budget, CanBusBudgetTable.SwerveSteerEncoders)
                         .build());
     }
 
@@ -0,0 +1,92 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: ArmKinematicsTest.java
+// Intent: Forms tests of the arm kinematics tables against the closed form math.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.subsystems.ArmSubsystem;
+
+/**
+ * Compares the arm's ArmKinematics table lookups with the closed form math at seeded random points, the same
+ * spread of points ArmKinematicsBenchmark times.
+ *   - inverse: points around the arm's reach, where the table and the closed form must agree on whether each point
+ *     is reachable and the extensions must be within a tenth of a millimeter
+ *   - forward: extensions across the arms' travel, where the point in space must be within half a millimeter
+ * The tables interpolate over a 1cm grid; today the worst errors are about 0.012mm inverse and 0.14mm forward.
+ */
+public class ArmKinematicsTest {
+    private static final int PointCount = 100000;
+    private static final double ExtensionToleranceMeters = 0.0001;
+    private static final double PointToleranceMeters = 0.0005;
+
+    private final ArmKinematics kinematics = ArmSubsystem.getKinematics();
+
+    @Test
+    public void inverseTableMatchesClosedForm() {
+        Random random = new Random(4682);
+        double[] tableValues = new double[2];
+        double[] closedFormValues = new double[2];
+
+        int reachableCount = 0;
+        int reachabilityMismatchCount = 0;
+        double worstExtensionError = 0.0;
+        for (int inx = 0; inx < PointCount; ++inx) {
+            double angle = 0.6 + 0.6 * random.nextDouble();
+            double length = 0.95 + 0.9 * random.nextDouble();
+            double y = length * Math.cos(angle);
+            double z = length * Math.sin(angle);
+            boolean tableReachable = kinematics.convertPointInSpaceToArmExtensions(y, z, tableValues);
+            boolean closedFormReachable = kinematics.convertPointInSpaceToArmExtensionsClosedForm(y, z, closedFormValues);
+            if (tableReachable != closedFormReachable) {
+                ++reachabilityMismatchCount;
+            }
+            else if (tableReachable) {
+                ++reachableCount;
+                worstExtensionError = Math.max(worstExtensionError, Math.abs(tableValues[0] - closedFormValues[0]));
+                worstExtensionError = Math.max(worstExtensionError, Math.abs(tableValues[1] - closedFormValues[1]));
+            }
+        }
+
+        assertEquals(0, reachabilityMismatchCount, "points where the table and closed form disagree on reachability");
+        // the spread covers both the reachable and unreachable sides of the arm's reach
+        assertTrue(reachableCount > PointCount / 4 && reachableCount < PointCount, reachableCount + " reachable points");
+        assertTrue(
+            worstExtensionError <= ExtensionToleranceMeters,
+            "max extension error " + worstExtensionError * 1000.0 + " mm");
+    }
+
+    @Test
+    public void forwardTableMatchesClosedForm() {
+        Random random = new Random(4682);
+        double[] tableValues = new double[2];
+        double[] closedFormValues = new double[2];
+
+        double worstPointError = 0.0;
+        for (int inx = 0; inx < PointCount; ++inx) {
+            double horizontalExtension = kinematics.getMinimumHorizontalArmExtensionMeters() +
+                (kinematics.getMaximumHorizontalArmExtensionMeters() - kinematics.getMinimumHorizontalArmExtensionMeters()) * random.nextDouble();
+            double verticalExtension = kinematics.getMinimumVerticalArmExtensionMeters() +
+                (kinematics.getMaximumVerticalArmExtensionMeters() - kinematics.getMinimumVerticalArmExtensionMeters()) * random.nextDouble();
+            kinematics.convertArmExtensionsToPointInSpace(horizontalExtension, verticalExtension, tableValues);
+            kinematics.convertArmExtensionsToPointInSpaceClosedForm(horizontalExtension, verticalExtension, closedFormValues);
+            worstPointError = Math.max(worstPointError, Math.hypot(tableValues[0] - closedFormValues[0], tableValues[1] - closedFormValues[1]));
+        }
+
+        assertTrue(
+            worstPointError <= PointToleranceMeters,
+            "max point in space error " + worstPointError * 1000.0 + " mm");
+    }
+}
@@ -0,0 +1,122 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: CanBusBudgetTest.java
+// Intent: Forms tests of the CAN bus frame budget and the robot's budget table.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants;
+import frc.robot.control.CanBusBudgetTable;
+
+/**
+ * Checks the frame arithmetic of the budget against hand counted frame rates, and that the robot's budget table
+ * stays inside the utilization threshold and well below the same devices left at their factory frame periods.
+ */
+public class CanBusBudgetTest {
+    // extended identifier, 8 byte payload and worst case bit stuffing on a 1 Mbit/s bus
+    private static final double BitsPerFrame = 131.0;
+    private static final double BusBitsPerSecond = 1000000.0;
+
+    @Test
+    public void consumedFramesUseTheirPeriodAndOthersAreSlowed() {
+        CanBusBudget budget = new CanBusBudget()
+            .addDeviceGroup("Drive", CanDeviceType.TalonFX, 1)
+            .consume("Drive", CanStatusFrame.TalonFxFeedback0, 10);
+
+        assertEquals(10, budget.getPeriodMilliseconds("Drive", CanStatusFrame.TalonFxFeedback0));
+        assertEquals(
+            CanStatusFrame.TalonFxGeneral.getUnusedPeriodMilliseconds(),
+            budget.getPeriodMilliseconds("Drive", CanStatusFrame.TalonFxGeneral));
+
+        // 100 command frames, 100 feedback frames and ten other status frames at 255ms
+        double expectedFramesPerSecond = 100.0 + 100.0 + 10.0 * 1000.0 / 255.0;
+        assertEquals(expectedFramesPerSecond, budget.getEstimatedFramesPerSecond(), 1e-9);
+        assertEquals(expectedFramesPerSecond * BitsPerFrame / BusBitsPerSecond, budget.getEstimatedUtilization(), 1e-12);
+    }
+
+    @Test
+    public void framesScaleWithDeviceCount() {
+        CanBusBudget one = new CanBusBudget()
+            .addDeviceGroup("Arm", CanDeviceType.SparkMax, 1)
+            .consume("Arm", CanStatusFrame.SparkMaxStatus2, 20);
+        CanBusBudget three = new CanBusBudget()
+            .addDeviceGroup("Arm", CanDeviceType.SparkMax, 3)
+            .consume("Arm", CanStatusFrame.SparkMaxStatus2, 20);
+        CanBusBudget none = new CanBusBudget()
+            .addDeviceGroup("Arm", CanDeviceType.SparkMax, 0)
+            .consume("Arm", CanStatusFrame.SparkMaxStatus2, 20);
+
+        assertEquals(3.0 * one.getEstimatedFramesPerSecond(), three.getEstimatedFramesPerSecond(), 1e-9);
+        assertEquals(0.0, none.getEstimatedFramesPerSecond());
+    }
+
+    @Test
+    public void robotBudgetIsWithinTheThreshold() {
+        double utilization = CanBusBudgetTable.Budget.getEstimatedUtilization();
+        assertTrue(
+            utilization <= Constants.CanBusUtilizationWarningThreshold,
+            "estimated utilization " + utilization);
+        assertTrue(CanBusBudgetTable.Budget.checkBudget(Constants.CanBusUtilizationWarningThreshold));
+    }
+
+    @Test
+    public void budgetCarriesFewerFramesThanFactoryPeriods() {
+        // the full swerve and arm, as budgeted by the table and as they would be left at factory periods
+        CanBusBudget budgeted = new CanBusBudget()
+            .addDeviceGroup("Drive", CanDeviceType.TalonFX, 4)
+            .consume("Drive", CanStatusFrame.TalonFxFeedback0, 5)
+            .addDeviceGroup("Steer", CanDeviceType.TalonFX, 4)
+            .consume("Steer", CanStatusFrame.TalonFxFeedback0, 5)
+            .addDeviceGroup("Encoders", CanDeviceType.CanCoder, 4)
+            .consume("Encoders", CanStatusFrame.CanCoderSensorData, 100)
+            .addDeviceGroup("Arm", CanDeviceType.SparkMax, 2)
+            .consume("Arm", CanStatusFrame.SparkMaxStatus2, 20);
+        CanBusBudget factory = new CanBusBudget()
+            .addDeviceGroup("Drive", CanDeviceType.TalonFX, 4)
+            .addDeviceGroup("Steer", CanDeviceType.TalonFX, 4)
+            .addDeviceGroup("Encoders", CanDeviceType.CanCoder, 4)
+            .addDeviceGroup("Arm", CanDeviceType.SparkMax, 2);
+        for (CanStatusFrame frame : CanStatusFrame.values()) {
+            for (String group : new String[] {"Drive", "Steer", "Encoders", "Arm"}) {
+                if (frame.getDeviceType() == deviceTypeOf(group)) {
+                    factory.consume(group, frame, frame.getDefaultPeriodMilliseconds());
+                }
+            }
+        }
+
+        // sampling odometry at 200Hz still leaves the bus less loaded than the factory periods
+        assertTrue(
+            budgeted.getEstimatedFramesPerSecond() < factory.getEstimatedFramesPerSecond(),
+            budgeted.getEstimatedFramesPerSecond() + " budgeted against " + factory.getEstimatedFramesPerSecond() + " factory");
+        assertTrue(budgeted.getEstimatedUtilization() <= Constants.CanBusUtilizationWarningThreshold);
+    }
+
+    @Test
+    public void badDeclarationsAreRejected() {
+        CanBusBudget budget = new CanBusBudget().addDeviceGroup("Arm", CanDeviceType.SparkMax, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> budget.addDeviceGroup("Arm", CanDeviceType.SparkMax, 1));
+        assertThrows(IllegalArgumentException.class, () -> budget.consume("Arm", CanStatusFrame.TalonFxGeneral, 10));
+        assertThrows(IllegalArgumentException.class, () -> budget.consume("Arm", CanStatusFrame.SparkMaxStatus2, 0));
+        assertThrows(IllegalArgumentException.class, () -> budget.consume("Picker", CanStatusFrame.SparkMaxStatus1, 100));
+        assertThrows(IllegalArgumentException.class, () -> budget.getPeriodMilliseconds("Picker", CanStatusFrame.SparkMaxStatus1));
+    }
+
+    private static CanDeviceType deviceTypeOf(String group) {
+        if (group.equals("Encoders")) {
+            return CanDeviceType.CanCoder;
+        }
+        return group.equals("Arm") ? CanDeviceType.SparkMax : CanDeviceType.TalonFX;
+    }
+}
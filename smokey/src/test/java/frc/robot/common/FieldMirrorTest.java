@@ -0,0 +1,192 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: FieldMirrorTest.java
+// Intent: Forms tests of reflecting poses and trajectories onto the other alliance's side of the field.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFieldLayout.OriginPosition;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.Constants;
+
+/**
+ * Checks the reflection across the long center line of the field: y becomes the field width less y, headings and
+ * curvatures change sign, and reflecting twice gives back the original pose or trajectory.  Against the 2023
+ * AprilTag layout, a blue pose measured from the blue corner reflects onto the matching red pose measured from the
+ * red corner, the frames of botpose_wpiblue and botpose_wpired.
+ */
+public class FieldMirrorTest {
+    // the 2023 field is 315.5 inches wide
+    private static final double FieldWidthMeters = 315.5 * 0.0254;
+    private static final double Tolerance = 1e-9;
+    // the published tag positions are to the hundredth of an inch and the field length is not quite symmetric
+    private static final double TagToleranceMeters = 0.01;
+
+    @Test
+    public void fieldWidthIsTheChargedUpField() {
+        assertEquals(FieldWidthMeters, Constants.FieldWidthMeters, Tolerance);
+    }
+
+    @Test
+    public void poseIsReflectedAcrossTheFieldWidth() {
+        Pose2d mirrored = FieldMirror.mirror(new Pose2d(2.0, 1.0, Rotation2d.fromDegrees(30.0)));
+
+        assertEquals(2.0, mirrored.getX(), Tolerance);
+        assertEquals(Constants.FieldWidthMeters - 1.0, mirrored.getY(), Tolerance);
+        assertEquals(-30.0, mirrored.getRotation().getDegrees(), Tolerance);
+    }
+
+    @Test
+    public void centerLineAndWallHeadingsAreUnchanged() {
+        Pose2d onCenterLine = new Pose2d(5.0, Constants.FieldWidthMeters / 2.0, Rotation2d.fromDegrees(0.0));
+        assertPoseEquals(onCenterLine, FieldMirror.mirror(onCenterLine));
+
+        Pose2d facingAway = new Pose2d(5.0, 2.0, Rotation2d.fromDegrees(180.0));
+        assertEquals(180.0, Math.abs(FieldMirror.mirror(facingAway).getRotation().getDegrees()), Tolerance);
+
+        Pose2d facingLeft = new Pose2d(5.0, 2.0, Rotation2d.fromDegrees(90.0));
+        assertEquals(-90.0, FieldMirror.mirror(facingLeft).getRotation().getDegrees(), Tolerance);
+    }
+
+    @Test
+    public void blueTagsMirrorOntoTheRedTags() {
+        AprilTagFieldLayout blueLayout = AprilTagFields.k2023ChargedUp.loadAprilTagLayoutField();
+        AprilTagFieldLayout redLayout = AprilTagFields.k2023ChargedUp.loadAprilTagLayoutField();
+        redLayout.setOrigin(OriginPosition.kRedAllianceWallRightSide);
+
+        // the blue grid tags 6, 7 and 8 and substation tag 4 face the red grid tags 3, 2 and 1 and substation tag 5
+        int[] blueTagIds = {6, 7, 8, 4};
+        int[] redTagIds = {3, 2, 1, 5};
+        for (int inx = 0; inx < blueTagIds.length; ++inx) {
+            Pose2d blueTag = blueLayout.getTagPose(blueTagIds[inx]).get().toPose2d();
+            Pose2d redTag = redLayout.getTagPose(redTagIds[inx]).get().toPose2d();
+            assertPoseEquals(redTag, FieldMirror.mirror(blueTag), TagToleranceMeters);
+        }
+    }
+
+    @Test
+    public void blueStartMirrorsOntoTheRedGrid() {
+        AprilTagFieldLayout blueLayout = AprilTagFields.k2023ChargedUp.loadAprilTagLayoutField();
+        AprilTagFieldLayout redLayout = AprilTagFields.k2023ChargedUp.loadAprilTagLayoutField();
+        redLayout.setOrigin(OriginPosition.kRedAllianceWallRightSide);
+        Pose2d blueTag = blueLayout.getTagPose(7).get().toPose2d();
+        Pose2d redTag = redLayout.getTagPose(2).get().toPose2d();
+
+        // the node 5 auto start, backed up to the blue grid in front of tag 7
+        Pose2d blueStart = new Pose2d(1.678, 2.750, Rotation2d.fromDegrees(180));
+        Pose2d redStart = FieldMirror.mirror(blueStart);
+
+        // the red start is the same distance in front of tag 2, backed up to the red grid, as vision would see it
+        Pose2d blueFromTag = blueStart.relativeTo(blueTag);
+        Pose2d redFromTag = redStart.relativeTo(redTag);
+        assertEquals(blueFromTag.getX(), redFromTag.getX(), TagToleranceMeters);
+        assertEquals(-blueFromTag.getY(), redFromTag.getY(), TagToleranceMeters);
+        assertEquals(0.0, blueFromTag.getRotation().plus(redFromTag.getRotation()).getRadians(), Tolerance);
+        assertEquals(180.0, Math.abs(redStart.getRotation().getDegrees()), Tolerance);
+    }
+
+    @Test
+    public void poseRoundTripGivesBackThePose() {
+        Random random = new Random(315);
+        for (int inx = 0; inx < 1000; ++inx) {
+            Pose2d pose = new Pose2d(
+                random.nextDouble() * 16.5,
+                random.nextDouble() * Constants.FieldWidthMeters,
+                new Rotation2d((random.nextDouble() * 2.0 - 1.0) * Math.PI));
+            assertPoseEquals(pose, FieldMirror.mirror(FieldMirror.mirror(pose)));
+        }
+    }
+
+    @Test
+    public void trajectoryStatesAreReflected() {
+        Trajectory trajectory = this.buildArc();
+        Trajectory mirrored = FieldMirror.mirror(trajectory);
+
+        List<Trajectory.State> states = trajectory.getStates();
+        List<Trajectory.State> mirroredStates = mirrored.getStates();
+        assertEquals(states.size(), mirroredStates.size());
+        assertEquals(trajectory.getTotalTimeSeconds(), mirrored.getTotalTimeSeconds(), Tolerance);
+        for (int inx = 0; inx < states.size(); ++inx) {
+            Trajectory.State state = states.get(inx);
+            Trajectory.State mirroredState = mirroredStates.get(inx);
+            assertEquals(state.timeSeconds, mirroredState.timeSeconds, Tolerance);
+            assertEquals(state.velocityMetersPerSecond, mirroredState.velocityMetersPerSecond, Tolerance);
+            assertEquals(state.accelerationMetersPerSecondSq, mirroredState.accelerationMetersPerSecondSq, Tolerance);
+            assertEquals(-state.curvatureRadPerMeter, mirroredState.curvatureRadPerMeter, Tolerance);
+            assertPoseEquals(FieldMirror.mirror(state.poseMeters), mirroredState.poseMeters);
+        }
+
+        // sampling between states is symmetric too
+        for (double time = 0.0; time <= trajectory.getTotalTimeSeconds(); time += 0.013) {
+            assertPoseEquals(FieldMirror.mirror(trajectory.sample(time).poseMeters), mirrored.sample(time).poseMeters);
+        }
+    }
+
+    @Test
+    public void trajectoryRoundTripGivesBackTheTrajectory() {
+        Trajectory trajectory = this.buildArc();
+        Trajectory roundTrip = FieldMirror.mirror(FieldMirror.mirror(trajectory));
+
+        List<Trajectory.State> states = trajectory.getStates();
+        List<Trajectory.State> roundTripStates = roundTrip.getStates();
+        assertEquals(states.size(), roundTripStates.size());
+        for (int inx = 0; inx < states.size(); ++inx) {
+            Trajectory.State state = states.get(inx);
+            Trajectory.State roundTripState = roundTripStates.get(inx);
+            assertEquals(state.timeSeconds, roundTripState.timeSeconds, Tolerance);
+            assertEquals(state.velocityMetersPerSecond, roundTripState.velocityMetersPerSecond, Tolerance);
+            assertEquals(state.accelerationMetersPerSecondSq, roundTripState.accelerationMetersPerSecondSq, Tolerance);
+            assertEquals(state.curvatureRadPerMeter, roundTripState.curvatureRadPerMeter, Tolerance);
+            assertPoseEquals(state.poseMeters, roundTripState.poseMeters);
+        }
+    }
+
+    /**
+     * Builds a quarter circle of 2 meters radius from near the blue wall, driven at 1.5 meters per second
+     */
+    private Trajectory buildArc() {
+        double radiusMeters = 2.0;
+        double velocityMetersPerSecond = 1.5;
+        int stateCount = 50;
+        double arcLengthMeters = radiusMeters * Math.PI / 2.0;
+        ArrayList<Trajectory.State> states = new ArrayList<Trajectory.State>();
+        for (int inx = 0; inx <= stateCount; ++inx) {
+            double distance = arcLengthMeters * inx / stateCount;
+            double angle = distance / radiusMeters;
+            states.add(new Trajectory.State(
+                distance / velocityMetersPerSecond,
+                velocityMetersPerSecond,
+                0.0,
+                new Pose2d(2.0 + radiusMeters * Math.sin(angle), 1.0 + radiusMeters * (1.0 - Math.cos(angle)), new Rotation2d(angle)),
+                1.0 / radiusMeters));
+        }
+        return new Trajectory(states);
+    }
+
+    private static void assertPoseEquals(Pose2d expected, Pose2d actual) {
+        assertPoseEquals(expected, actual, Tolerance);
+    }
+
+    private static void assertPoseEquals(Pose2d expected, Pose2d actual, double toleranceMeters) {
+        assertEquals(expected.getX(), actual.getX(), toleranceMeters);
+        assertEquals(expected.getY(), actual.getY(), toleranceMeters);
+        assertEquals(0.0, expected.getRotation().minus(actual.getRotation()).getRadians(), 1e-6);
+    }
+}
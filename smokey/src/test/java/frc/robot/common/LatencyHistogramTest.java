@@ -0,0 +1,68 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: LatencyHistogramTest.java
+// Intent: Forms tests of the bucketing and percentiles of the latency histogram.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Records durations across the whole range of the histogram, from under a microsecond to past the longest
+ * duration with its own bucket, and checks each percentile lands in a bucket within 25% above the duration.
+ */
+public class LatencyHistogramTest {
+    private static final long NanosecondsPerMicrosecond = 1000;
+    // the longest duration with its own bucket, 2^25 - 1 microseconds
+    private static final long LongestBucketedMicroseconds = (1L << 25) - 1;
+
+    @Test
+    public void eachDurationIsReportedWithinItsBucket() {
+        for (long microseconds = 1; microseconds <= LongestBucketedMicroseconds; microseconds = microseconds * 5 / 4 + 1) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(microseconds * NanosecondsPerMicrosecond);
+            histogram.record(2 * LongestBucketedMicroseconds * NanosecondsPerMicrosecond);
+
+            long reported = histogram.getPercentileMicroseconds(0.5);
+            assertTrue(reported >= microseconds, microseconds + " reported as " + reported);
+            assertTrue(reported <= microseconds * 5 / 4, microseconds + " reported as " + reported);
+        }
+    }
+
+    @Test
+    public void longestBucketedDurationIsNotTheOverflow() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(LongestBucketedMicroseconds * NanosecondsPerMicrosecond);
+        histogram.record(4 * LongestBucketedMicroseconds * NanosecondsPerMicrosecond);
+
+        assertEquals(LongestBucketedMicroseconds, histogram.getPercentileMicroseconds(0.5));
+        assertEquals(4 * LongestBucketedMicroseconds, histogram.getPercentileMicroseconds(1.0));
+        assertEquals(4 * LongestBucketedMicroseconds, histogram.getMaximumMicroseconds());
+    }
+
+    @Test
+    public void percentilesFollowTheRecordedDurations() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long microseconds = 1; microseconds <= 100; ++microseconds) {
+            histogram.record(microseconds * NanosecondsPerMicrosecond);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMeanMicroseconds(), 1e-9);
+        long median = histogram.getPercentileMicroseconds(0.5);
+        assertTrue(median >= 50 && median <= 50 * 5 / 4, "median reported as " + median);
+        assertEquals(100, histogram.getPercentileMicroseconds(1.0));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicroseconds(0.99));
+    }
+}
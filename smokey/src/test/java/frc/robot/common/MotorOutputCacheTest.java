@@ -0,0 +1,170 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: MotorOutputCacheTest.java
+// Intent: Forms tests of the motor output cache against a fake motor controller and clock.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sends references through the cache to a fake motor controller that records every frame written to it, with a
+ * fake clock stepped by the test, and checks which frames reach the controller and how they are counted.
+ */
+public class MotorOutputCacheTest {
+    private static final double Tolerance = 0.001;
+    // binary fractions so the fake clock steps exactly - four cycles to a keep alive interval
+    private static final double KeepAliveSeconds = 0.125;
+    private static final double CycleSeconds = 0.03125;
+
+    private enum Mode {
+        DutyCycle,
+        Position
+    }
+
+    // one frame as written to the fake controller
+    private static class Frame {
+        final Mode mode;
+        final double value;
+        final int pidSlot;
+        final double arbitraryFeedForward;
+
+        Frame(Mode mode, double value, int pidSlot, double arbitraryFeedForward) {
+            this.mode = mode;
+            this.value = value;
+            this.pidSlot = pidSlot;
+            this.arbitraryFeedForward = arbitraryFeedForward;
+        }
+    }
+
+    private final ArrayList<Frame> frames = new ArrayList<Frame>();
+    private double nowSeconds = 0.0;
+    private MotorOutputCache<Mode> cache;
+
+    @BeforeEach
+    public void setUp() {
+        frames.clear();
+        nowSeconds = 0.0;
+        cache = new MotorOutputCache<Mode>(
+            (mode, value, pidSlot, arbitraryFeedForward) -> frames.add(new Frame(mode, value, pidSlot, arbitraryFeedForward)),
+            Tolerance,
+            KeepAliveSeconds,
+            () -> nowSeconds);
+    }
+
+    @Test
+    public void firstFrameIsAlwaysSent() {
+        assertTrue(cache.set(Mode.DutyCycle, 0.0));
+        assertEquals(1, frames.size());
+        assertEquals(Mode.DutyCycle, frames.get(0).mode);
+        assertEquals(0.0, frames.get(0).value);
+        assertEquals(0, frames.get(0).pidSlot);
+        assertEquals(0.0, frames.get(0).arbitraryFeedForward);
+    }
+
+    @Test
+    public void changesWithinToleranceAreDropped() {
+        assertTrue(cache.set(Mode.DutyCycle, 0.5));
+        assertFalse(cache.set(Mode.DutyCycle, 0.5));
+        assertFalse(cache.set(Mode.DutyCycle, 0.5 + Tolerance * 0.9));
+        assertFalse(cache.set(Mode.DutyCycle, 0.5 - Tolerance * 0.9));
+        assertEquals(1, frames.size());
+
+        // measured from the value last sent, so a slow drift is still sent once it passes the tolerance
+        assertFalse(cache.set(Mode.DutyCycle, 0.5 + Tolerance * 0.6));
+        assertTrue(cache.set(Mode.DutyCycle, 0.5 + Tolerance * 1.2));
+        assertEquals(2, frames.size());
+        assertEquals(0.5 + Tolerance * 1.2, frames.get(1).value);
+    }
+
+    @Test
+    public void modeSlotAndFeedForwardChangesAreSent() {
+        assertTrue(cache.set(Mode.Position, 100.0, 1, 0.2));
+        assertTrue(cache.set(Mode.DutyCycle, 100.0, 1, 0.2));
+        assertTrue(cache.set(Mode.DutyCycle, 100.0, 0, 0.2));
+        assertTrue(cache.set(Mode.DutyCycle, 100.0, 0, 0.0));
+        assertFalse(cache.set(Mode.DutyCycle, 100.0, 0, 0.0));
+        assertEquals(4, frames.size());
+        assertEquals(Mode.DutyCycle, frames.get(3).mode);
+        assertEquals(0, frames.get(3).pidSlot);
+        assertEquals(0.0, frames.get(3).arbitraryFeedForward);
+    }
+
+    @Test
+    public void repeatedFramesAreResentAtTheKeepAlive() {
+        assertTrue(cache.set(Mode.Position, 42.0));
+        // the frame is resent every fourth cycle
+        for (int cycle = 1; cycle <= 20; ++cycle) {
+            nowSeconds = cycle * CycleSeconds;
+            assertEquals(cycle % 4 == 0, cache.set(Mode.Position, 42.0), "cycle " + cycle);
+        }
+        assertEquals(6, frames.size());
+        for (Frame frame : frames) {
+            assertEquals(42.0, frame.value);
+        }
+
+        // a sent change restarts the keep alive interval
+        nowSeconds = 1.0;
+        assertTrue(cache.set(Mode.Position, 43.0));
+        nowSeconds = 1.0 + KeepAliveSeconds * 0.9;
+        assertFalse(cache.set(Mode.Position, 43.0));
+        nowSeconds = 1.0 + KeepAliveSeconds;
+        assertTrue(cache.set(Mode.Position, 43.0));
+    }
+
+    @Test
+    public void zeroIsAlwaysSentExactly() {
+        assertTrue(cache.set(Mode.DutyCycle, Tolerance * 0.5));
+        // within the tolerance of the last value, but a stop must reach the controller
+        assertTrue(cache.set(Mode.DutyCycle, 0.0));
+        assertEquals(0.0, frames.get(1).value);
+        // once stopped, repeated stops are dropped
+        assertFalse(cache.set(Mode.DutyCycle, 0.0));
+        assertFalse(cache.set(Mode.DutyCycle, -0.0));
+        assertEquals(2, frames.size());
+    }
+
+    @Test
+    public void invalidateSendsTheNextFrame() {
+        assertTrue(cache.set(Mode.DutyCycle, 0.0));
+        assertFalse(cache.set(Mode.DutyCycle, 0.0));
+
+        // other code wrote to the controller directly
+        cache.invalidate();
+        assertTrue(cache.set(Mode.DutyCycle, 0.0));
+        assertFalse(cache.set(Mode.DutyCycle, 0.0));
+        assertEquals(2, frames.size());
+    }
+
+    @Test
+    public void framesAreCounted() {
+        for (int cycle = 0; cycle < 50; ++cycle) {
+            nowSeconds = cycle * CycleSeconds;
+            // a reference that changes every tenth cycle
+            cache.set(Mode.Position, (double)(cycle / 10));
+        }
+        // five changes, each resent twice at the keep alive within its ten cycles
+        assertEquals(15, cache.getFramesSent());
+        assertEquals(35, cache.getFramesSaved());
+        assertEquals(cache.getFramesSent(), frames.size());
+    }
+
+    @Test
+    public void badLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MotorOutputCache<Mode>((mode, value, pidSlot, arbitraryFeedForward) -> {}, -0.1, KeepAliveSeconds, () -> 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new MotorOutputCache<Mode>((mode, value, pidSlot, arbitraryFeedForward) -> {}, Tolerance, 0.0, () -> 0.0));
+    }
+}
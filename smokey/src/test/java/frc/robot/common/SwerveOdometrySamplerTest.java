@@ -0,0 +1,203 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveOdometrySamplerTest.java
+// Intent: Forms tests of the high rate odometry sampler against a simulated spinning drive.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.swerveHelpers.SwerveModule;
+
+/**
+ * Drives a simulated swerve that translates across the field while spinning quickly, and integrates the sampled
+ * module positions the way DrivetrainSubsystem.refreshRobotPosition does.  Sampling at 200 Hz must end up much
+ * closer to the true pose than sampling once per 20ms scheduler cycle.
+ */
+public class SwerveOdometrySamplerTest {
+    private static final double ModuleOffsetMeters = 0.3;
+    private static final Translation2d[] ModuleLocations = {
+        new Translation2d(ModuleOffsetMeters, ModuleOffsetMeters),
+        new Translation2d(ModuleOffsetMeters, -ModuleOffsetMeters),
+        new Translation2d(-ModuleOffsetMeters, ModuleOffsetMeters),
+        new Translation2d(-ModuleOffsetMeters, -ModuleOffsetMeters)
+    };
+    // a rate at or below the scheduler rate keeps the sampler off its notifier thread, the test calls sample()
+    private static final double UnthreadedSampleRateHz = 50.0;
+    private static final int SampleCapacity = 64;
+
+    private static final double PhysicsStepSeconds = 0.001;
+    private static final double FieldVelocityMetersPerSecond = 2.0;
+    private static final double AngularVelocityRadiansPerSecond = 8.0;
+    private static final double DurationSeconds = 2.0;
+
+    @BeforeEach
+    public void setUp() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SimHooks.resumeTiming();
+    }
+
+    @Test
+    public void highRateSamplingReducesPoseErrorInFastTurns() {
+        double schedulerRateError = this.runSpinningDrive(20);
+        double highRateError = this.runSpinningDrive(5);
+        assertTrue(
+            highRateError < schedulerRateError / 3.0,
+            "200 Hz error " + highRateError + " m should be well below the 50 Hz error " + schedulerRateError + " m");
+    }
+
+    @Test
+    public void invalidateDropsPendingSamples() {
+        FakeModule[] modules = createModules();
+        SwerveOdometrySampler sampler = new SwerveOdometrySampler(modules, () -> 0.0, UnthreadedSampleRateHz, SampleCapacity);
+        sampler.sample();
+        sampler.sample();
+        sampler.invalidate();
+        assertFalse(sampler.poll());
+
+        modules[2].driveDistanceMeters = 1.5;
+        sampler.sample();
+        assertTrue(sampler.poll());
+        assertEquals(1.5, sampler.getDriveDistance(2), 0.0);
+        assertFalse(sampler.poll());
+    }
+
+    @Test
+    public void fullRingDropsNewestSamples() {
+        SwerveOdometrySampler sampler = new SwerveOdometrySampler(createModules(), () -> 0.0, UnthreadedSampleRateHz, 2);
+        sampler.sample();
+        sampler.sample();
+        sampler.sample();
+        assertEquals(1, sampler.getDroppedSampleCount());
+        assertTrue(sampler.poll());
+        assertTrue(sampler.poll());
+        assertFalse(sampler.poll());
+    }
+
+    // runs the drive and returns how far the odometry pose ends from the true pose
+    private double runSpinningDrive(int physicsStepsPerSample) {
+        FakeModule[] modules = createModules();
+        double[] gyroDegrees = new double[1];
+        SwerveOdometrySampler sampler = new SwerveOdometrySampler(modules, () -> gyroDegrees[0], UnthreadedSampleRateHz, SampleCapacity);
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(ModuleLocations);
+        SwerveModulePosition[] positions = new SwerveModulePosition[modules.length];
+        for (int inx = 0; inx < modules.length; ++inx) {
+            positions[inx] = new SwerveModulePosition();
+        }
+        SwerveDriveOdometry odometry = new SwerveDriveOdometry(kinematics, new Rotation2d(), positions);
+
+        int stepCount = (int)Math.round(DurationSeconds / PhysicsStepSeconds);
+        double headingRadians = 0.0;
+        for (int step = 1; step <= stepCount; ++step) {
+            // field relative motion along x while spinning, each module moves along its own velocity at mid step
+            double midHeadingRadians = headingRadians + 0.5 * AngularVelocityRadiansPerSecond * PhysicsStepSeconds;
+            double robotVelocityX = FieldVelocityMetersPerSecond * Math.cos(-midHeadingRadians);
+            double robotVelocityY = FieldVelocityMetersPerSecond * Math.sin(-midHeadingRadians);
+            for (int inx = 0; inx < modules.length; ++inx) {
+                double moduleVelocityX = robotVelocityX - AngularVelocityRadiansPerSecond * ModuleLocations[inx].getY();
+                double moduleVelocityY = robotVelocityY + AngularVelocityRadiansPerSecond * ModuleLocations[inx].getX();
+                modules[inx].driveDistanceMeters += Math.hypot(moduleVelocityX, moduleVelocityY) * PhysicsStepSeconds;
+                modules[inx].steerAngleRadians = Math.atan2(moduleVelocityY, moduleVelocityX);
+            }
+            headingRadians += AngularVelocityRadiansPerSecond * PhysicsStepSeconds;
+            gyroDegrees[0] = Math.toDegrees(headingRadians);
+            SimHooks.stepTiming(PhysicsStepSeconds);
+
+            if (step % physicsStepsPerSample == 0) {
+                sampler.sample();
+            }
+            // drain once per scheduler cycle
+            if (step % 20 == 0) {
+                while (sampler.poll()) {
+                    for (int inx = 0; inx < positions.length; ++inx) {
+                        positions[inx] = new SwerveModulePosition(sampler.getDriveDistance(inx), new Rotation2d(sampler.getSteerAngle(inx)));
+                    }
+                    odometry.update(Rotation2d.fromDegrees(sampler.getGyroDegrees()), positions);
+                }
+            }
+        }
+        assertEquals(0, sampler.getDroppedSampleCount());
+
+        Pose2d pose = odometry.getPoseMeters();
+        return Math.hypot(pose.getX() - FieldVelocityMetersPerSecond * DurationSeconds, pose.getY());
+    }
+
+    private static FakeModule[] createModules() {
+        FakeModule[] modules = new FakeModule[ModuleLocations.length];
+        for (int inx = 0; inx < modules.length; ++inx) {
+            modules[inx] = new FakeModule();
+        }
+        return modules;
+    }
+
+    // a module whose sensors are set directly by the test
+    private static class FakeModule implements SwerveModule {
+        private double driveDistanceMeters = 0.0;
+        private double steerAngleRadians = 0.0;
+
+        @Override
+        public void refreshSignals() {
+        }
+
+        @Override
+        public double getDriveVelocity() {
+            return 0.0;
+        }
+
+        @Override
+        public double getDriveDistance() {
+            return driveDistanceMeters;
+        }
+
+        @Override
+        public void setDriveDistance(double value) {
+            driveDistanceMeters = value;
+        }
+
+        @Override
+        public double getSteerAngle() {
+            return steerAngleRadians;
+        }
+
+        @Override
+        public double readSteerAngle() {
+            return steerAngleRadians;
+        }
+
+        @Override
+        public void set(double driveVoltage, double steerAngle) {
+        }
+
+        @Override
+        public void stopDrive() {
+        }
+
+        @Override
+        public void simulationPeriodic(double deltaTimeSeconds) {
+        }
+    }
+}
@@ -0,0 +1,163 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: SwerveSetpointGeneratorTest.java
+// Intent: Forms randomized tests of the swerve setpoint generator's module limits.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Drives the setpoint generator with seeded random requests, the way a driver or a trajectory might, and checks
+ * every setpoint against the module limits it promises: no wheel faster than its top speed, no wheel speed change
+ * beyond the acceleration limit and no steering beyond the steering limit in one loop.  Held requests must be
+ * reached.  The geometry and limits are the drivetrain's.
+ */
+public class SwerveSetpointGeneratorTest {
+    private static final double HalfTrackMeters = 0.4363 / 2.0;
+    private static final double[] ModuleLocationXMeters = {HalfTrackMeters, HalfTrackMeters, -HalfTrackMeters, -HalfTrackMeters};
+    private static final double[] ModuleLocationYMeters = {HalfTrackMeters, -HalfTrackMeters, HalfTrackMeters, -HalfTrackMeters};
+    private static final int ModuleCount = 4;
+    private static final double MaximumModuleSpeedMetersPerSecond = 4.3251;
+    private static final double MaximumAccelerationMetersPerSecondSquared = 6.0;
+    private static final double MaximumSteerVelocityRadiansPerSecond = 4.0 * Math.PI;
+    private static final double DeltaTimeSeconds = 0.02;
+    private static final double MaximumDriveChangeMetersPerSecond = MaximumAccelerationMetersPerSecondSquared * DeltaTimeSeconds;
+    private static final double MaximumSteerChangeRadians = MaximumSteerVelocityRadiansPerSecond * DeltaTimeSeconds;
+    private static final double Tolerance = 1e-9;
+    // enough loops to reverse from full speed one way to full speed the other, plus turning the wheels
+    private static final int SettleLoops = 200;
+
+    private SwerveSetpointGenerator generator;
+    private final ChassisSpeeds setpoint = new ChassisSpeeds();
+    private final double[] moduleSpeeds = new double[ModuleCount];
+    private final double[] moduleAngles = new double[ModuleCount];
+    private final double[] previousModuleSpeeds = new double[ModuleCount];
+    private final double[] previousModuleAngles = new double[ModuleCount];
+
+    @BeforeEach
+    public void setUp() {
+        generator = new SwerveSetpointGenerator(
+            ModuleLocationXMeters,
+            ModuleLocationYMeters,
+            MaximumModuleSpeedMetersPerSecond,
+            MaximumAccelerationMetersPerSecondSquared,
+            MaximumSteerVelocityRadiansPerSecond,
+            DeltaTimeSeconds);
+    }
+
+    @Test
+    public void randomRequestsStayWithinModuleLimits() {
+        Random random = new Random(2023);
+        ChassisSpeeds desired = new ChassisSpeeds();
+        for (int loop = 0; loop < 20000; ++loop) {
+            // a new request every few loops, sometimes a stop, sometimes beyond what the modules can do
+            if (loop % 7 == 0) {
+                this.randomize(random, desired);
+            }
+            this.step(desired, 0.0, 0.0, "loop " + loop);
+        }
+    }
+
+    @Test
+    public void randomRequestsAboutTheRobotFrontStayWithinModuleLimits() {
+        Random random = new Random(4682);
+        ChassisSpeeds desired = new ChassisSpeeds();
+        for (int loop = 0; loop < 20000; ++loop) {
+            if (loop % 11 == 0) {
+                this.randomize(random, desired);
+            }
+            this.step(desired, HalfTrackMeters * 2.0, 0.0, "loop " + loop);
+        }
+    }
+
+    @Test
+    public void heldRequestsAreReached() {
+        Random random = new Random(1234);
+        ChassisSpeeds desired = new ChassisSpeeds();
+        for (int request = 0; request < 200; ++request) {
+            // requests the modules can reach, so the setpoint must end up on them exactly
+            desired.vxMetersPerSecond = (random.nextDouble() * 2.0 - 1.0) * 2.0;
+            desired.vyMetersPerSecond = (random.nextDouble() * 2.0 - 1.0) * 2.0;
+            desired.omegaRadiansPerSecond = (random.nextDouble() * 2.0 - 1.0) * 3.0;
+            for (int loop = 0; loop < SettleLoops; ++loop) {
+                this.step(desired, 0.0, 0.0, "request " + request + " loop " + loop);
+            }
+            String message = "request " + request;
+            assertEquals(1.0, generator.getLastFraction(), message);
+            assertEquals(desired.vxMetersPerSecond, setpoint.vxMetersPerSecond, 1e-6, message);
+            assertEquals(desired.vyMetersPerSecond, setpoint.vyMetersPerSecond, 1e-6, message);
+            assertEquals(desired.omegaRadiansPerSecond, setpoint.omegaRadiansPerSecond, 1e-6, message);
+        }
+    }
+
+    @Test
+    public void stopIsReachedWithoutTurningTheWheels() {
+        ChassisSpeeds desired = new ChassisSpeeds(3.0, 1.0, 2.0);
+        for (int loop = 0; loop < SettleLoops; ++loop) {
+            this.step(desired, 0.0, 0.0, "loop " + loop);
+        }
+        double[] anglesBeforeStopping = moduleAngles.clone();
+
+        ChassisSpeeds stop = new ChassisSpeeds();
+        for (int loop = 0; loop < SettleLoops; ++loop) {
+            this.step(stop, 0.0, 0.0, "loop " + loop);
+        }
+        for (int inx = 0; inx < ModuleCount; ++inx) {
+            assertEquals(0.0, moduleSpeeds[inx], 1e-9);
+            assertEquals(anglesBeforeStopping[inx], moduleAngles[inx], 1e-9);
+        }
+        assertEquals(0.0, setpoint.vxMetersPerSecond, 1e-9);
+        assertEquals(0.0, setpoint.vyMetersPerSecond, 1e-9);
+        assertEquals(0.0, setpoint.omegaRadiansPerSecond, 1e-9);
+    }
+
+    private void randomize(Random random, ChassisSpeeds desired) {
+        if (random.nextInt(5) == 0) {
+            desired.vxMetersPerSecond = 0.0;
+            desired.vyMetersPerSecond = 0.0;
+            desired.omegaRadiansPerSecond = 0.0;
+            return;
+        }
+        desired.vxMetersPerSecond = (random.nextDouble() * 2.0 - 1.0) * 6.0;
+        desired.vyMetersPerSecond = (random.nextDouble() * 2.0 - 1.0) * 6.0;
+        desired.omegaRadiansPerSecond = (random.nextDouble() * 2.0 - 1.0) * 12.0;
+    }
+
+    private void step(ChassisSpeeds desired, double centerOfRotationXMeters, double centerOfRotationYMeters, String message) {
+        System.arraycopy(moduleSpeeds, 0, previousModuleSpeeds, 0, ModuleCount);
+        System.arraycopy(moduleAngles, 0, previousModuleAngles, 0, ModuleCount);
+        generator.generate(desired, centerOfRotationXMeters, centerOfRotationYMeters, setpoint, moduleSpeeds, moduleAngles);
+
+        double fraction = generator.getLastFraction();
+        assertTrue(fraction >= 0.0 && fraction <= 1.0, message + " fraction " + fraction);
+        for (int inx = 0; inx < ModuleCount; ++inx) {
+            String moduleMessage = message + " module " + inx;
+            assertTrue(Double.isFinite(moduleSpeeds[inx]) && Double.isFinite(moduleAngles[inx]), moduleMessage);
+            assertTrue(
+                Math.abs(moduleSpeeds[inx]) <= MaximumModuleSpeedMetersPerSecond + Tolerance,
+                moduleMessage + " speed " + moduleSpeeds[inx]);
+            assertTrue(
+                Math.abs(moduleSpeeds[inx] - previousModuleSpeeds[inx]) <= MaximumDriveChangeMetersPerSecond + Tolerance,
+                moduleMessage + " speed change " + (moduleSpeeds[inx] - previousModuleSpeeds[inx]));
+            double steer = MathUtil.angleModulus(moduleAngles[inx] - previousModuleAngles[inx]);
+            assertTrue(
+                Math.abs(steer) <= MaximumSteerChangeRadians + Tolerance,
+                moduleMessage + " steer " + steer);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TiltSampleStreamTest.java
+// Intent: Forms tests of the tilt sample stream's tip stop against the simulated charge station.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Feeds the stream navx rate samples (200Hz) from ChargeStationSimulation with gaussian sensor noise added, as the
+ * navx callback does on the robot.  Noise and vibration must never trip the stop, while the station tipping under a
+ * robot driving across its pivot must stop the drive well inside one 20ms scheduler cycle of confirmation.
+ */
+public class TiltSampleStreamTest {
+    private static final double SampleSeconds = 0.005;
+    private static final int Capacity = 50;
+    private static final double TipRateDegreesPerSecond = 15.0;
+    // navx noise quoted per sample, and twice that for a robot shaking on the carpet
+    private static final double SensorNoiseDegrees = 0.075;
+    private static final double VibrationNoiseDegrees = 0.15;
+    private static final double StationCenterXMeters = 3.91;
+    private static final double StationCenterYMeters = 2.75;
+
+    private int tipActionCount = 0;
+
+    @Test
+    public void sensorNoiseOnLevelGroundNeverTips() {
+        this.assertNoiseNeverTips(SensorNoiseDegrees, new Random(200));
+    }
+
+    @Test
+    public void vibrationOnLevelGroundNeverTips() {
+        this.assertNoiseNeverTips(VibrationNoiseDegrees, new Random(201));
+    }
+
+    @Test
+    public void noisyTiltedStationHeldStillNeverTips() {
+        // the robot parked on the ramp side of the station, so the station rests at full tilt
+        TiltSampleStream stream = new TiltSampleStream(Capacity, () -> ++tipActionCount);
+        ChargeStationSimulation station = new ChargeStationSimulation();
+        Random random = new Random(202);
+        Pose2d pose = new Pose2d(StationCenterXMeters - 0.5, StationCenterYMeters, Rotation2d.fromDegrees(0.0));
+        stream.armTipStop(TipRateDegreesPerSecond);
+        for (int sample = 0; sample < 200 * 30; ++sample) {
+            station.step(pose, SampleSeconds);
+            stream.add(
+                sample * SampleSeconds,
+                station.getPitchDegrees() + random.nextGaussian() * VibrationNoiseDegrees,
+                station.getRollDegrees() + random.nextGaussian() * VibrationNoiseDegrees);
+            this.drain(stream);
+        }
+        assertFalse(stream.hasTipped());
+        assertEquals(0, tipActionCount);
+    }
+
+    @Test
+    public void stationTippingUnderTheRobotStopsTheDrive() {
+        for (double headingDegrees : new double[] {0.0, 90.0, 180.0}) {
+            this.assertTipStopsDrive(headingDegrees, new Random(203));
+        }
+    }
+
+    @Test
+    public void disarmedStreamNeverTips() {
+        TiltSampleStream stream = new TiltSampleStream(Capacity, () -> ++tipActionCount);
+        // a tilt falling at 100 degrees per second
+        for (int sample = 0; sample < 100; ++sample) {
+            stream.add(sample * SampleSeconds, Math.max(0.0, 15.0 - sample * 0.5), 0.0);
+            this.drain(stream);
+        }
+        assertFalse(stream.hasTipped());
+        assertEquals(0, tipActionCount);
+    }
+
+    @Test
+    public void samplesAndRatesArePolledInOrder() {
+        TiltSampleStream stream = new TiltSampleStream(Capacity, null);
+        for (int sample = 0; sample < 10; ++sample) {
+            stream.add(sample * SampleSeconds, sample * 0.1, -sample * 0.2);
+        }
+        for (int sample = 0; sample < 10; ++sample) {
+            assertTrue(stream.poll());
+            assertEquals(sample * SampleSeconds, stream.getTimestamp(), 1e-12);
+            assertEquals(sample * 0.1, stream.getPitch(), 1e-12);
+            assertEquals(-sample * 0.2, stream.getRoll(), 1e-12);
+            if (sample > 0) {
+                assertEquals(20.0, stream.getPitchRate(), 1e-9);
+                assertEquals(-40.0, stream.getRollRate(), 1e-9);
+            }
+        }
+        assertFalse(stream.poll());
+    }
+
+    private void assertNoiseNeverTips(double noiseDegrees, Random random) {
+        TiltSampleStream stream = new TiltSampleStream(Capacity, () -> ++tipActionCount);
+        ChargeStationSimulation station = new ChargeStationSimulation();
+        // driving around on the carpet, clear of the station
+        Pose2d pose = new Pose2d(1.5, 1.0, Rotation2d.fromDegrees(0.0));
+        stream.armTipStop(TipRateDegreesPerSecond);
+        // ten minutes of samples
+        for (int sample = 0; sample < 200 * 600; ++sample) {
+            station.step(pose, SampleSeconds);
+            stream.add(
+                sample * SampleSeconds,
+                station.getPitchDegrees() + random.nextGaussian() * noiseDegrees,
+                station.getRollDegrees() + random.nextGaussian() * noiseDegrees);
+            this.drain(stream);
+        }
+        assertFalse(stream.hasTipped(), "noise of " + noiseDegrees + " degrees tipped the stream");
+        assertEquals(0, tipActionCount);
+    }
+
+    private void assertTipStopsDrive(double headingDegrees, Random random) {
+        tipActionCount = 0;
+        ChargeStationSimulation station = new ChargeStationSimulation();
+        double[] velocityMetersPerSecond = {0.3};
+        TiltSampleStream stream = new TiltSampleStream(Capacity, () -> {
+            ++tipActionCount;
+            velocityMetersPerSecond[0] = 0.0;
+        });
+        stream.armTipStop(TipRateDegreesPerSecond);
+
+        // drive up the near ramp and across the pivot
+        double xMeters = StationCenterXMeters - 0.6;
+        double peakTiltDegrees = 0.0;
+        double tipStartSeconds = -1.0;
+        double tipLatchedSeconds = -1.0;
+        for (int sample = 0; sample < 200 * 10 && tipLatchedSeconds < 0.0; ++sample) {
+            double now = sample * SampleSeconds;
+            station.step(new Pose2d(xMeters, StationCenterYMeters, Rotation2d.fromDegrees(headingDegrees)), SampleSeconds);
+            double tilt = Math.abs(station.getTiltDegrees());
+            if (tipStartSeconds < 0.0 && peakTiltDegrees > 14.0 && tilt < peakTiltDegrees - 1e-9) {
+                tipStartSeconds = now;
+            }
+            peakTiltDegrees = Math.max(peakTiltDegrees, tilt);
+            stream.add(
+                now,
+                station.getPitchDegrees() + random.nextGaussian() * SensorNoiseDegrees,
+                station.getRollDegrees() + random.nextGaussian() * SensorNoiseDegrees);
+            this.drain(stream);
+            if (stream.hasTipped()) {
+                tipLatchedSeconds = now;
+            }
+            xMeters += velocityMetersPerSecond[0] * SampleSeconds;
+        }
+
+        String message = "heading " + headingDegrees;
+        assertTrue(tipStartSeconds >= 0.0, message + " the station never tipped");
+        assertTrue(tipLatchedSeconds >= tipStartSeconds, message + " the stop latched before the station tipped");
+        // the 40ms rate window and the confirmation still stop the drive within a few navx updates
+        assertTrue(tipLatchedSeconds - tipStartSeconds <= 0.06, message + " latched " + (tipLatchedSeconds - tipStartSeconds) + "s after the tip");
+        assertEquals(1, tipActionCount, message);
+        assertEquals(0.0, velocityMetersPerSecond[0], message);
+    }
+
+    private void drain(TiltSampleStream stream) {
+        while (stream.poll()) {
+        }
+    }
+}
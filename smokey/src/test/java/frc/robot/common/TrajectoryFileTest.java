@@ -0,0 +1,117 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoryFileTest.java
+// Intent: Forms tests of writing and reading the prebuilt trajectory file.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+
+/**
+ * Writes trajectories to a file and reads them back.  A good file gives back every trajectory state for state in
+ * the stored order; a file with a damaged byte or a different fingerprint reads as null so the caller generates.
+ */
+public class TrajectoryFileTest {
+    private static final long Fingerprint = 0x0123456789ABCDEFL;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writeThenReadGivesBackTheTrajectories() throws IOException {
+        Path path = directory.resolve("trajectories.bin");
+        Map<String, Trajectory> written = createTrajectories();
+        TrajectoryFile.write(path, Fingerprint, written);
+
+        Map<String, Trajectory> read = TrajectoryFile.read(path, Fingerprint);
+
+        assertNotNull(read);
+        assertEquals(new ArrayList<String>(written.keySet()), new ArrayList<String>(read.keySet()));
+        for (String name : written.keySet()) {
+            List<Trajectory.State> expected = written.get(name).getStates();
+            List<Trajectory.State> actual = read.get(name).getStates();
+            assertEquals(expected.size(), actual.size(), name);
+            for (int inx = 0; inx < expected.size(); ++inx) {
+                assertEquals(expected.get(inx), actual.get(inx), name + " state " + inx);
+            }
+        }
+    }
+
+    @Test
+    public void damagedChecksumReadsAsNull() throws IOException {
+        Path path = directory.resolve("trajectories.bin");
+        TrajectoryFile.write(path, Fingerprint, createTrajectories());
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertNull(TrajectoryFile.read(path, Fingerprint));
+    }
+
+    @Test
+    public void damagedStateReadsAsNull() throws IOException {
+        Path path = directory.resolve("trajectories.bin");
+        TrajectoryFile.write(path, Fingerprint, createTrajectories());
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x10;
+        Files.write(path, bytes);
+
+        assertNull(TrajectoryFile.read(path, Fingerprint));
+    }
+
+    @Test
+    public void differentFingerprintReadsAsNull() throws IOException {
+        Path path = directory.resolve("trajectories.bin");
+        TrajectoryFile.write(path, Fingerprint, createTrajectories());
+
+        assertNull(TrajectoryFile.read(path, Fingerprint + 1));
+    }
+
+    @Test
+    public void missingFileReadsAsNull() {
+        assertNull(TrajectoryFile.read(directory.resolve("missing.bin"), Fingerprint));
+    }
+
+    private static Map<String, Trajectory> createTrajectories() {
+        LinkedHashMap<String, Trajectory> trajectories = new LinkedHashMap<String, Trajectory>();
+        TrajectoryConfig config = new TrajectoryConfig(3.0, 2.0);
+        trajectories.put("Curve", TrajectoryGenerator.generateTrajectory(
+            new Pose2d(1.0, 1.0, Rotation2d.fromDegrees(0.0)),
+            List.of(new Translation2d(2.5, 1.5), new Translation2d(4.0, 0.5)),
+            new Pose2d(5.5, 2.0, Rotation2d.fromDegrees(90.0)),
+            config));
+        trajectories.put("Straight", TrajectoryGenerator.generateTrajectory(
+            new Pose2d(5.0, 2.0, Rotation2d.fromDegrees(180.0)),
+            List.of(new Translation2d(4.0, 2.0)),
+            new Pose2d(2.0, 2.0, Rotation2d.fromDegrees(180.0)),
+            config));
+        return trajectories;
+    }
+}
@@ -0,0 +1,147 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectorySamplerTest.java
+// Intent: Forms tests that the trajectory sampler gives the same states as Trajectory.sample.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import frc.robot.control.Trajectories;
+import frc.robot.subsystems.DrivetrainSubsystem;
+
+/**
+ * Samples generated trajectories with a TrajectorySampler and with Trajectory.sample and checks that they agree on
+ * pose, velocity, acceleration and curvature.  The times cover before the start, after the end, exactly on every
+ * state, halfway between states, and random times both in increasing order (the cursor only moves forward) and in
+ * random order (the cursor restarts).  The trajectories are the auto trajectories plus a forward and a reversed
+ * trajectory straight from the WPILib generator.
+ */
+public class TrajectorySamplerTest {
+    private static final double Tolerance = 1e-9;
+    private static final int RandomSampleCount = 2000;
+    private static final double OutsideSeconds = 0.5;
+
+    @Test
+    public void boundaryTimesMatchTrajectorySample() {
+        for (Trajectory trajectory : createTrajectories()) {
+            TrajectorySampler sampler = new TrajectorySampler(trajectory);
+            List<Trajectory.State> states = trajectory.getStates();
+            double totalTimeSeconds = trajectory.getTotalTimeSeconds();
+            assertEquals(totalTimeSeconds, sampler.getTotalTimeSeconds(), Tolerance);
+
+            assertSampleEquals(trajectory, sampler, -OutsideSeconds);
+            assertSampleEquals(trajectory, sampler, totalTimeSeconds + OutsideSeconds);
+            assertSampleEquals(trajectory, sampler, Double.NEGATIVE_INFINITY);
+            assertSampleEquals(trajectory, sampler, Double.POSITIVE_INFINITY);
+
+            sampler.reset();
+            for (int inx = 0; inx < states.size(); ++inx) {
+                double stateTimeSeconds = states.get(inx).timeSeconds;
+                assertSampleEquals(trajectory, sampler, stateTimeSeconds);
+                if (inx + 1 < states.size()) {
+                    assertSampleEquals(trajectory, sampler, (stateTimeSeconds + states.get(inx + 1).timeSeconds) / 2.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void increasingRandomTimesMatchTrajectorySample() {
+        Random random = new Random(1717);
+        for (Trajectory trajectory : createTrajectories()) {
+            TrajectorySampler sampler = new TrajectorySampler(trajectory);
+            double[] times = createRandomTimes(random, trajectory.getTotalTimeSeconds());
+            Arrays.sort(times);
+            for (double timeSeconds : times) {
+                assertSampleEquals(trajectory, sampler, timeSeconds);
+            }
+        }
+    }
+
+    @Test
+    public void unorderedRandomTimesMatchTrajectorySample() {
+        Random random = new Random(2023);
+        for (Trajectory trajectory : createTrajectories()) {
+            TrajectorySampler sampler = new TrajectorySampler(trajectory);
+            for (double timeSeconds : createRandomTimes(random, trajectory.getTotalTimeSeconds())) {
+                assertSampleEquals(trajectory, sampler, timeSeconds);
+            }
+        }
+    }
+
+    private static double[] createRandomTimes(Random random, double totalTimeSeconds) {
+        double[] times = new double[RandomSampleCount];
+        for (int inx = 0; inx < times.length; ++inx) {
+            times[inx] = -OutsideSeconds + random.nextDouble() * (totalTimeSeconds + 2.0 * OutsideSeconds);
+        }
+        return times;
+    }
+
+    private static List<Trajectory> createTrajectories() {
+        ArrayList<Trajectory> trajectories = new ArrayList<Trajectory>();
+        Trajectories autos = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        trajectories.addAll(autos.getNamedTrajectories().values());
+
+        List<Translation2d> interiorWaypoints = List.of(new Translation2d(2.5, 1.5), new Translation2d(4.0, 0.5));
+        TrajectoryConfig config = new TrajectoryConfig(3.0, 2.0);
+        trajectories.add(TrajectoryGenerator.generateTrajectory(
+            new Pose2d(1.0, 1.0, Rotation2d.fromDegrees(0.0)),
+            interiorWaypoints,
+            new Pose2d(5.5, 2.0, Rotation2d.fromDegrees(90.0)),
+            config));
+
+        // reversed trajectories run with negative velocities
+        TrajectoryConfig reversedConfig = new TrajectoryConfig(3.0, 2.0);
+        reversedConfig.setReversed(true);
+        trajectories.add(TrajectoryGenerator.generateTrajectory(
+            new Pose2d(5.5, 2.0, Rotation2d.fromDegrees(90.0)),
+            List.of(new Translation2d(4.0, 0.5), new Translation2d(2.5, 1.5)),
+            new Pose2d(1.0, 1.0, Rotation2d.fromDegrees(0.0)),
+            reversedConfig));
+        return trajectories;
+    }
+
+    private static void assertSampleEquals(Trajectory trajectory, TrajectorySampler sampler, double timeSeconds) {
+        Trajectory.State expected = trajectory.sample(timeSeconds);
+        Trajectory.State actual = sampler.sample(timeSeconds);
+        String message = "at " + timeSeconds + " seconds";
+
+        assertFalse(Double.isNaN(actual.poseMeters.getX()) || Double.isNaN(actual.poseMeters.getY()), message);
+        // Trajectory.sample is NaN between states at the same x/y, where the sampler interpolates by time instead
+        if (Double.isNaN(expected.poseMeters.getX()) || Double.isNaN(expected.poseMeters.getY())) {
+            return;
+        }
+
+        assertEquals(expected.poseMeters.getX(), actual.poseMeters.getX(), Tolerance, message);
+        assertEquals(expected.poseMeters.getY(), actual.poseMeters.getY(), Tolerance, message);
+        assertEquals(
+            0.0,
+            MathUtil.angleModulus(expected.poseMeters.getRotation().getRadians() - actual.poseMeters.getRotation().getRadians()),
+            Tolerance,
+            message);
+        assertEquals(expected.velocityMetersPerSecond, actual.velocityMetersPerSecond, Tolerance, message);
+        assertEquals(expected.accelerationMetersPerSecondSq, actual.accelerationMetersPerSecondSq, Tolerance, message);
+        assertEquals(expected.curvatureRadPerMeter, actual.curvatureRadPerMeter, Tolerance, message);
+    }
+}
@@ -0,0 +1,155 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: VisionMeasurementGateTest.java
+// Intent: Forms tests of the vision measurement gate against synthetic camera frame streams.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * Feeds the gate synthetic frame streams - noisy frames around the true pose, outliers, and a stream that
+ * disagrees with the estimate because the estimate is wrong - and fuses accepted frames the way the pose
+ * estimator does, with a per axis gain of q / (q + sqrt(q * r)).
+ */
+public class VisionMeasurementGateTest {
+    private static final double StateStandardDeviationMeters = 0.1;
+    private static final double StateStandardDeviationRadians = 0.1;
+    // chi-squared value for 3 degrees of freedom at 99%, the gate bound
+    private static final double MaximumMahalanobisDistanceSquared = 11.345;
+    private static final int MaximumConsecutiveRejections = 10;
+    private static final double TagDistanceMeters = 2.0;
+
+    private VisionMeasurementGate gate;
+    private VisionMeasurement measurement;
+
+    @BeforeEach
+    public void setUp() {
+        gate = new VisionMeasurementGate(StateStandardDeviationMeters, StateStandardDeviationRadians);
+        measurement = new VisionMeasurement(null, 0.0);
+        measurement.setTagCount(2);
+        measurement.setAverageTagDistanceMeters(TagDistanceMeters);
+    }
+
+    @Test
+    public void noisyFramesAroundTheEstimateAreAccepted() {
+        Pose2d estimate = new Pose2d(5.0, 3.0, Rotation2d.fromDegrees(30.0));
+        Random random = new Random(1729);
+        int frameCount = 500;
+        int acceptedCount = 0;
+        for (int frame = 0; frame < frameCount; ++frame) {
+            measurement.setRobotPosition(new Pose2d(
+                estimate.getX() + random.nextGaussian() * 0.05,
+                estimate.getY() + random.nextGaussian() * 0.05,
+                Rotation2d.fromDegrees(30.0 + random.nextGaussian() * 2.0)));
+            if (gate.evaluate(measurement, estimate, 0.0)) {
+                ++acceptedCount;
+            }
+        }
+        assertTrue(acceptedCount >= frameCount * 0.98, "accepted " + acceptedCount + " of " + frameCount);
+        assertEquals(0, gate.getForcedCount());
+    }
+
+    @Test
+    public void isolatedOutliersAreRejected() {
+        Pose2d estimate = new Pose2d(5.0, 3.0, Rotation2d.fromDegrees(0.0));
+        for (int frame = 0; frame < 100; ++frame) {
+            // every fifth frame is a bad tag solve a meter and a half away
+            double offset = frame % 5 == 0 ? 1.5 : 0.0;
+            measurement.setRobotPosition(new Pose2d(estimate.getX() + offset, estimate.getY(), estimate.getRotation()));
+            assertEquals(offset == 0.0, gate.evaluate(measurement, estimate, 0.0), "frame " + frame);
+        }
+        assertEquals(20, gate.getRejectedCount());
+        assertEquals(0, gate.getForcedCount());
+    }
+
+    @Test
+    public void framesTooFarOrTooBlurryAreRejected() {
+        Pose2d estimate = new Pose2d(5.0, 3.0, Rotation2d.fromDegrees(0.0));
+        measurement.setRobotPosition(estimate);
+        measurement.setAverageTagDistanceMeters(7.0);
+        assertFalse(gate.evaluate(measurement, estimate, 0.0));
+        measurement.setAverageTagDistanceMeters(TagDistanceMeters);
+        assertFalse(gate.evaluate(measurement, estimate, 3.0 * Math.PI));
+        assertTrue(gate.evaluate(measurement, estimate, 0.0));
+    }
+
+    @Test
+    public void forcedFramesCarryInflatedStandardDeviations() {
+        Pose2d estimate = new Pose2d(5.0, 3.0, Rotation2d.fromDegrees(0.0));
+        measurement.setRobotPosition(estimate);
+        assertTrue(gate.evaluate(measurement, estimate, 0.0));
+        double confidentDeviation = gate.getStandardDeviations().get(0, 0);
+
+        measurement.setRobotPosition(new Pose2d(7.0, 3.0, Rotation2d.fromDegrees(0.0)));
+        for (int frame = 0; frame < MaximumConsecutiveRejections; ++frame) {
+            assertFalse(gate.evaluate(measurement, estimate, 0.0));
+        }
+        assertTrue(gate.evaluate(measurement, estimate, 0.0));
+        assertEquals(1, gate.getForcedCount());
+
+        double forcedDeviation = gate.getStandardDeviations().get(0, 0);
+        assertTrue(forcedDeviation > 2.0 * confidentDeviation, "forced deviation " + forcedDeviation);
+        // with the inflated deviations the frame sits inside the gate bound
+        double residual = 2.0;
+        double distanceSquared = residual * residual /
+            (StateStandardDeviationMeters * StateStandardDeviationMeters + forcedDeviation * forcedDeviation);
+        assertTrue(distanceSquared <= MaximumMahalanobisDistanceSquared);
+
+        // frames stay forced until one passes on its own
+        assertTrue(gate.evaluate(measurement, estimate, 0.0));
+        assertEquals(2, gate.getForcedCount());
+        measurement.setRobotPosition(estimate);
+        assertTrue(gate.evaluate(measurement, estimate, 0.0));
+        assertEquals(confidentDeviation, gate.getStandardDeviations().get(0, 0), 1e-9);
+        measurement.setRobotPosition(new Pose2d(7.0, 3.0, Rotation2d.fromDegrees(0.0)));
+        assertFalse(gate.evaluate(measurement, estimate, 0.0));
+    }
+
+    @Test
+    public void wrongEstimateConvergesWithoutJumping() {
+        // the robot was bumped: vision sees the true pose, the estimate is a meter and a half off
+        Pose2d truth = new Pose2d(6.5, 3.0, Rotation2d.fromDegrees(0.0));
+        double estimateX = 5.0;
+        Random random = new Random(31337);
+        double largestStepMeters = 0.0;
+        int frame = 0;
+        for (; frame < 200 && Math.abs(truth.getX() - estimateX) > 0.05; ++frame) {
+            measurement.setRobotPosition(new Pose2d(
+                truth.getX() + random.nextGaussian() * 0.03,
+                truth.getY() + random.nextGaussian() * 0.03,
+                truth.getRotation()));
+            Pose2d estimate = new Pose2d(estimateX, truth.getY(), truth.getRotation());
+            if (gate.evaluate(measurement, estimate, 0.0)) {
+                double step = gain(gate.getStandardDeviations().get(0, 0)) * (measurement.getRobotPosition().getX() - estimateX);
+                largestStepMeters = Math.max(largestStepMeters, Math.abs(step));
+                estimateX += step;
+            }
+        }
+        assertTrue(Math.abs(truth.getX() - estimateX) <= 0.05, "estimate " + estimateX + " after " + frame + " frames");
+        assertTrue(gate.getForcedCount() > 0);
+        // a forced frame with the confident deviations would have moved the estimate 0.6m in one step
+        assertTrue(largestStepMeters < 0.4, "largest step " + largestStepMeters);
+    }
+
+    private static double gain(double measurementStandardDeviation) {
+        double q = StateStandardDeviationMeters * StateStandardDeviationMeters;
+        double r = measurementStandardDeviation * measurementStandardDeviation;
+        return q / (q + Math.sqrt(q * r));
+    }
+}
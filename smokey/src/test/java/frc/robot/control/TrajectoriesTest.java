@@ -0,0 +1,189 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: TrajectoriesTest.java
+// Intent: Forms tests of generating the auto trajectories in parallel and loading them prebuilt.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.control;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.common.SwerveTrajectoryGenerator;
+import frc.robot.common.TrajectoryFile;
+import frc.robot.common.TrajectoryRequest;
+import frc.robot.subsystems.DrivetrainSubsystem;
+
+/**
+ * Generates the auto trajectories with SwerveTrajectoryGenerator.generateAll and again one request at a time on the
+ * test thread, the way they were generated before generation was made parallel, and checks that the same
+ * trajectories come out in the same order.  A request that throws must fail its future and the Trajectories
+ * constructor, never leave a null trajectory behind.  A prebuilt file written from the same code is loaded without
+ * generating; one with a damaged checksum or a different fingerprint is ignored and the trajectories are generated.
+ */
+public class TrajectoriesTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void parallelGenerationMatchesSerialGeneration() {
+        ArrayList<TrajectoryRequest> requests = new ArrayList<TrajectoryRequest>();
+        Trajectories parallel = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null, batch -> {
+            requests.addAll(batch);
+            return SwerveTrajectoryGenerator.generateAll(batch);
+        });
+        Trajectories serial = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null, TrajectoriesTest::generateSerially);
+
+        assertTrue(requests.size() > 1);
+        List<CompletableFuture<Trajectory>> generated = SwerveTrajectoryGenerator.generateAll(requests);
+        assertEquals(requests.size(), generated.size());
+        for (int inx = 0; inx < requests.size(); ++inx) {
+            assertTrajectoryEquals(requests.get(inx).generate(), generated.get(inx).join(), "request " + inx);
+        }
+
+        assertNamedTrajectoriesEqual(serial, parallel);
+    }
+
+    @Test
+    public void failedRequestFailsItsFuture() {
+        Trajectories serial = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null, TrajectoriesTest::generateSerially);
+        ArrayList<Pose2d> waypoints = new ArrayList<Pose2d>();
+        waypoints.add(serial.getNode5Position());
+        waypoints.add(serial.getInfrontOfRampPosition());
+
+        List<TrajectoryRequest> requests = List.of(
+            new TrajectoryRequest(waypoints, serial.getConfig()),
+            createFailingRequest(serial),
+            new TrajectoryRequest(waypoints, serial.getConfig()));
+        List<CompletableFuture<Trajectory>> generated = SwerveTrajectoryGenerator.generateAll(requests);
+
+        assertNotNull(generated.get(0).join());
+        CompletionException failure = assertThrows(CompletionException.class, () -> generated.get(1).join());
+        assertTrue(failure.getCause() instanceof IndexOutOfBoundsException, failure.toString());
+        assertNotNull(generated.get(2).join());
+    }
+
+    @Test
+    public void failedRequestFailsTheTrajectories() {
+        Trajectories serial = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null, TrajectoriesTest::generateSerially);
+
+        CompletionException failure = assertThrows(
+            CompletionException.class,
+            () -> new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null, batch -> {
+                ArrayList<TrajectoryRequest> broken = new ArrayList<TrajectoryRequest>(batch);
+                broken.set(broken.size() / 2, createFailingRequest(serial));
+                return SwerveTrajectoryGenerator.generateAll(broken);
+            }));
+        assertTrue(failure.getCause() instanceof IndexOutOfBoundsException, failure.toString());
+    }
+
+    @Test
+    public void matchingPrebuiltFileIsLoaded() throws IOException {
+        Trajectories generated = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        Path path = directory.resolve(Trajectories.PrebuiltFileName);
+        TrajectoryFile.write(path, generated.getFingerprint(), generated.getNamedTrajectories());
+
+        AtomicInteger generations = new AtomicInteger();
+        Trajectories loaded = createCountingTrajectories(path, generations);
+
+        assertEquals(0, generations.get());
+        assertNamedTrajectoriesEqual(generated, loaded);
+    }
+
+    @Test
+    public void prebuiltFileWithDamagedChecksumIsGenerated() throws IOException {
+        Trajectories generated = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        Path path = directory.resolve(Trajectories.PrebuiltFileName);
+        TrajectoryFile.write(path, generated.getFingerprint(), generated.getNamedTrajectories());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(path, bytes);
+
+        AtomicInteger generations = new AtomicInteger();
+        Trajectories loaded = createCountingTrajectories(path, generations);
+
+        assertEquals(1, generations.get());
+        assertNamedTrajectoriesEqual(generated, loaded);
+    }
+
+    @Test
+    public void prebuiltFileWithDifferentFingerprintIsGenerated() throws IOException {
+        Trajectories generated = new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, null);
+        Path path = directory.resolve(Trajectories.PrebuiltFileName);
+        TrajectoryFile.write(path, generated.getFingerprint() + 1, generated.getNamedTrajectories());
+
+        AtomicInteger generations = new AtomicInteger();
+        Trajectories loaded = createCountingTrajectories(path, generations);
+
+        assertEquals(1, generations.get());
+        assertNamedTrajectoriesEqual(generated, loaded);
+    }
+
+    private static Trajectories createCountingTrajectories(Path path, AtomicInteger generations) {
+        return new Trajectories(DrivetrainSubsystem::createTrajectoryConfig, path, batch -> {
+            generations.incrementAndGet();
+            return SwerveTrajectoryGenerator.generateAll(batch);
+        });
+    }
+
+    private static void assertNamedTrajectoriesEqual(Trajectories expectedTrajectories, Trajectories actualTrajectories) {
+        Map<String, Trajectory> expected = expectedTrajectories.getNamedTrajectories();
+        Map<String, Trajectory> actual = actualTrajectories.getNamedTrajectories();
+        assertEquals(new ArrayList<String>(expected.keySet()), new ArrayList<String>(actual.keySet()));
+        for (String name : expected.keySet()) {
+            assertNotNull(actual.get(name), name);
+            assertTrajectoryEquals(expected.get(name), actual.get(name), name);
+        }
+    }
+
+    /**
+     * Generates each request in turn on the calling thread
+     * @param requests - the requests to generate
+     * @return a completed future for each request, in request order
+     */
+    static List<CompletableFuture<Trajectory>> generateSerially(List<TrajectoryRequest> requests) {
+        ArrayList<CompletableFuture<Trajectory>> trajectories = new ArrayList<CompletableFuture<Trajectory>>();
+        for (TrajectoryRequest request : requests) {
+            trajectories.add(CompletableFuture.completedFuture(request.generate()));
+        }
+        return trajectories;
+    }
+
+    static void assertTrajectoryEquals(Trajectory expected, Trajectory actual, String name) {
+        List<Trajectory.State> expectedStates = expected.getStates();
+        List<Trajectory.State> actualStates = actual.getStates();
+        assertEquals(expectedStates.size(), actualStates.size(), name);
+        for (int inx = 0; inx < expectedStates.size(); ++inx) {
+            assertEquals(expectedStates.get(inx), actualStates.get(inx), name + " state " + inx);
+        }
+    }
+
+    // a single waypoint has no second waypoint to head toward
+    private static TrajectoryRequest createFailingRequest(Trajectories trajectories) {
+        ArrayList<Pose2d> waypoints = new ArrayList<Pose2d>();
+        waypoints.add(new Pose2d(2.0, 2.0, Rotation2d.fromDegrees(0.0)));
+        return new TrajectoryRequest(waypoints, trajectories.getConfig());
+    }
+}
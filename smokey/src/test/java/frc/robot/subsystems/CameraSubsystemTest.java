@@ -0,0 +1,165 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: CameraSubsystemTest.java
+// Intent: Forms tests of the camera subsystem reading limelight botpose frames from network tables.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.common.VisionMeasurement;
+
+/**
+ * Publishes frames in the layout the limelight uses for botpose_wpiblue and botpose_wpired - x, y, z meters, roll,
+ * pitch, yaw degrees, latency milliseconds, then tag count, tag span, average tag distance and average tag area - and
+ * checks what the camera subsystem queues for the drivetrain.  The robot is on the blue alliance unless a test
+ * says otherwise.
+ */
+public class CameraSubsystemTest {
+    private static final double MicrosecondsPerSecond = 1000000.0;
+    private static final int FrameQueueCapacity = 8;
+    // each test publishes later than the last, so a value left over from an earlier test is always stale
+    private static double nextTestStartSeconds = 100.0;
+
+    private DoubleArrayPublisher botposePublisher;
+    private DoubleArrayPublisher redBotposePublisher;
+    private CameraSubsystem camera;
+    private double startSeconds;
+
+    @BeforeEach
+    public void setUp() {
+        assertTrue(HAL.initialize(500, 0));
+        startSeconds = nextTestStartSeconds;
+        nextTestStartSeconds += 100.0;
+        setAlliance(AllianceStationID.Blue1);
+        botposePublisher = NetworkTableInstance.getDefault().getTable("limelight")
+            .getDoubleArrayTopic("botpose_wpiblue")
+            .publish();
+        redBotposePublisher = NetworkTableInstance.getDefault().getTable("limelight")
+            .getDoubleArrayTopic("botpose_wpired")
+            .publish();
+        camera = new CameraSubsystem();
+        // a new subscriber may be handed the last value published by an earlier test, it is older than this test's frames
+        camera.periodic();
+        while (camera.pollVisionMeasurement() != null) {
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        CommandScheduler.getInstance().unregisterSubsystem(camera);
+        botposePublisher.close();
+        redBotposePublisher.close();
+    }
+
+    @Test
+    public void frameIsReadInBlueOriginMetersAndDegrees() {
+        publish(0.0, 1.84, 4.12, 178.5, 24.0, 2, 2.7);
+        camera.periodic();
+
+        VisionMeasurement measurement = camera.pollVisionMeasurement();
+        assertNotNull(measurement);
+        assertEquals(1.84, measurement.getRobotPosition().getX(), 1e-9);
+        assertEquals(4.12, measurement.getRobotPosition().getY(), 1e-9);
+        assertEquals(178.5, measurement.getRobotPosition().getRotation().getDegrees(), 1e-9);
+        assertEquals(startSeconds - 0.024, measurement.getTimestamp(), 1e-6);
+        assertEquals(2, measurement.getTagCount());
+        assertEquals(2.7, measurement.getAverageTagDistanceMeters(), 1e-9);
+        assertNull(camera.pollVisionMeasurement());
+    }
+
+    @Test
+    public void frameStreamIsQueuedInOrderWithoutEmptyOrStaleFrames() {
+        // a 30 fps stream of the robot driving along the blue wall, with a frame seeing no tags
+        // and a frame that arrives after a newer one
+        publish(0.000, 2.00, 1.00, 0.0, 20.0, 2, 3.1);
+        publish(0.033, 2.03, 1.00, 0.0, 21.0, 2, 3.1);
+        botposePublisher.set(new double[11], (long)((startSeconds + 0.066) * MicrosecondsPerSecond));
+        publish(0.100, 2.10, 1.01, 0.5, 22.0, 1, 3.0);
+        publish(0.133, 2.13, 1.01, 0.5, 80.0, 1, 3.0);
+        publish(0.166, 2.16, 1.02, 1.0, 20.0, 2, 2.9);
+        camera.periodic();
+
+        double[] expectedX = {2.00, 2.03, 2.10, 2.16};
+        double previousTimestamp = Double.NEGATIVE_INFINITY;
+        for (int inx = 0; inx < expectedX.length; ++inx) {
+            VisionMeasurement measurement = camera.pollVisionMeasurement();
+            assertNotNull(measurement, "frame " + inx);
+            assertEquals(expectedX[inx], measurement.getRobotPosition().getX(), 1e-9);
+            assertTrue(measurement.getTimestamp() > previousTimestamp);
+            previousTimestamp = measurement.getTimestamp();
+        }
+        assertNull(camera.pollVisionMeasurement());
+    }
+
+    @Test
+    public void fullQueueDropsTheOldestFrames() {
+        int frameCount = FrameQueueCapacity + 3;
+        for (int frame = 0; frame < frameCount; ++frame) {
+            publish(frame * 0.02, 1.0 + frame, 2.0, 0.0, 20.0, 2, 2.0);
+        }
+        camera.periodic();
+
+        assertEquals(3, camera.getDroppedFrameCount());
+        for (int frame = 3; frame < frameCount; ++frame) {
+            VisionMeasurement measurement = camera.pollVisionMeasurement();
+            assertNotNull(measurement);
+            assertEquals(1.0 + frame, measurement.getRobotPosition().getX(), 1e-9);
+        }
+        assertNull(camera.pollVisionMeasurement());
+    }
+
+    @Test
+    public void redAllianceReadsRedOriginFrames() {
+        setAlliance(AllianceStationID.Red2);
+        // the same frame as seen from each alliance's corner
+        publish(0.0, 14.70, 3.89, 1.5, 24.0, 2, 2.7);
+        publishRed(0.0, 1.84, 4.12, 178.5, 24.0, 2, 2.7);
+        camera.periodic();
+
+        VisionMeasurement measurement = camera.pollVisionMeasurement();
+        assertNotNull(measurement);
+        assertEquals(1.84, measurement.getRobotPosition().getX(), 1e-9);
+        assertEquals(4.12, measurement.getRobotPosition().getY(), 1e-9);
+        assertEquals(178.5, measurement.getRobotPosition().getRotation().getDegrees(), 1e-9);
+        assertNull(camera.pollVisionMeasurement());
+
+        // frames published to the other topic while on red are never queued, even after switching back to blue
+        setAlliance(AllianceStationID.Blue1);
+        camera.periodic();
+        assertNull(camera.pollVisionMeasurement());
+    }
+
+    private static void setAlliance(AllianceStationID station) {
+        DriverStationSim.setAllianceStationId(station);
+        DriverStationSim.notifyNewData();
+    }
+
+    private void publishRed(double arrivalOffsetSeconds, double x, double y, double yawDegrees, double latencyMilliseconds, int tagCount, double tagDistanceMeters) {
+        double[] botpose = {x, y, 0.0, 0.0, 0.0, yawDegrees, latencyMilliseconds, tagCount, 0.5, tagDistanceMeters, 0.4};
+        redBotposePublisher.set(botpose, (long)((startSeconds + arrivalOffsetSeconds) * MicrosecondsPerSecond));
+    }
+
+    private void publish(double arrivalOffsetSeconds, double x, double y, double yawDegrees, double latencyMilliseconds, int tagCount, double tagDistanceMeters) {
+        double[] botpose = {x, y, 0.0, 0.0, 0.0, yawDegrees, latencyMilliseconds, tagCount, 0.5, tagDistanceMeters, 0.4};
+        botposePublisher.set(botpose, (long)((startSeconds + arrivalOffsetSeconds) * MicrosecondsPerSecond));
+    }
+}
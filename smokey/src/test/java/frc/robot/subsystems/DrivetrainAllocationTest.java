@@ -0,0 +1,178 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: DrivetrainAllocationTest.java
+// Intent: Forms a test that the drivetrain periodic path does not allocate each cycle.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants;
+
+/**
+ * Measures the bytes allocated by the current thread while the drivetrain turns changing chassis speed requests
+ * into module commands, and across the whole of periodic.  The JIT is warmed up first so only steady state
+ * allocations are counted.  The WPILib pose estimator allocates on every update, so periodic is held to what a
+ * bare estimator allocates for the same number of odometry samples.
+ */
+public class DrivetrainAllocationTest {
+    private static final int WarmUpCycles = 20000;
+    private static final int MeasuredCycles = 1000;
+    // a little slack for anything the measurement itself allocates, well under one object per cycle
+    private static final long AllowedBytes = MeasuredCycles;
+    // on average less than the smallest object each cycle beyond the estimator
+    private static final long AllowedPeriodicBytesPerCycle = 16;
+    private static final double SampleSeconds = 1.0 / Constants.DrivetrainOdometrySampleRateHz;
+    private static final int SamplesPerCycle = (int)Math.round(DrivetrainSimulation.CycleSeconds / SampleSeconds);
+
+    private DrivetrainSimulation simulation;
+    private DrivetrainSubsystem drivetrain;
+    private ThreadMXBean threads;
+    private final ChassisSpeeds request = new ChassisSpeeds();
+
+    @BeforeEach
+    public void setUp() {
+        simulation = DrivetrainSimulation.getInstance();
+        drivetrain = simulation.getDrivetrain();
+        simulation.enable();
+        drivetrain.setRobotPosition(new Pose2d(2.0, 1.0, Rotation2d.fromDegrees(0.0)));
+        threads = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        simulation.disable();
+    }
+
+    @Test
+    public void commandPathDoesNotAllocate() {
+        runCycles(WarmUpCycles);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        runCycles(MeasuredCycles);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(
+            allocated < AllowedBytes,
+            "command path allocated " + allocated + " bytes over " + MeasuredCycles + " cycles");
+    }
+
+    @Test
+    public void periodicAllocatesNoMoreThanThePoseEstimator() {
+        // drive straight so the modules and the heading settle and the odometry rotations can be reused
+        request.vxMetersPerSecond = 1.0;
+        request.vyMetersPerSecond = 0.0;
+        request.omegaRadiansPerSecond = 0.0;
+        drivetrain.drive(request);
+        runPeriodicCycles(WarmUpCycles);
+
+        long samplesBefore = drivetrain.getAppliedOdometrySampleCount();
+        long allocated = runPeriodicCycles(MeasuredCycles);
+        long samples = drivetrain.getAppliedOdometrySampleCount() - samplesBefore;
+        assertTrue(samples >= MeasuredCycles, "only " + samples + " odometry samples over " + MeasuredCycles + " cycles");
+
+        double estimatorBytesPerUpdate = measureEstimatorBytesPerUpdate();
+        long allowed = (long)(samples * estimatorBytesPerUpdate) + MeasuredCycles * AllowedPeriodicBytesPerCycle;
+        assertTrue(
+            allocated < allowed,
+            "periodic allocated " + allocated + " bytes over " + MeasuredCycles + " cycles and " + samples +
+            " samples, the estimator alone allocates " + estimatorBytesPerUpdate + " bytes per sample");
+    }
+
+    private void runCycles(int cycles) {
+        for (int cycle = 0; cycle < cycles; ++cycle) {
+            // keep the request moving so the limiter and the module optimization do real work every cycle
+            double phase = cycle * DrivetrainSimulation.CycleSeconds;
+            request.vxMetersPerSecond = 2.0 * Math.cos(phase);
+            request.vyMetersPerSecond = 2.0 * Math.sin(phase);
+            request.omegaRadiansPerSecond = Math.sin(0.5 * phase);
+            drivetrain.drive(request);
+            drivetrain.commandModules();
+        }
+    }
+
+    /**
+     * Runs scheduler cycles by hand so that only periodic is measured, not the scheduler or the simulation
+     * @param cycles the number of cycles to run
+     * @return the bytes allocated by periodic
+     */
+    private long runPeriodicCycles(int cycles) {
+        long threadId = Thread.currentThread().getId();
+        long allocated = 0;
+        for (int cycle = 0; cycle < cycles; ++cycle) {
+            Unmanaged.feedEnable(DrivetrainSimulation.EnableFeedMilliseconds);
+            long before = threads.getThreadAllocatedBytes(threadId);
+            drivetrain.periodic();
+            allocated += threads.getThreadAllocatedBytes(threadId) - before;
+            drivetrain.simulationPeriodic();
+            SimHooks.stepTiming(DrivetrainSimulation.CycleSeconds);
+        }
+        return allocated;
+    }
+
+    /**
+     * Measures a bare pose estimator over the drivetrain kinematics, updated the way periodic updates it
+     * @return the steady state bytes allocated per update
+     */
+    private double measureEstimatorBytesPerUpdate() {
+        Rotation2d heading = new Rotation2d();
+        SwerveModulePosition[] positions = new SwerveModulePosition[] {
+            new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+        };
+        SwerveDrivePoseEstimator estimator = new SwerveDrivePoseEstimator(
+            drivetrain.getSwerveKinematics(),
+            heading,
+            positions,
+            new Pose2d());
+
+        int warmUpUpdates = WarmUpCycles * SamplesPerCycle;
+        int measuredUpdates = MeasuredCycles * SamplesPerCycle;
+        double timestamp = 0.0;
+        for (int update = 0; update < warmUpUpdates; ++update) {
+            timestamp += SampleSeconds;
+            updateEstimator(estimator, timestamp, heading, positions);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int update = 0; update < measuredUpdates; ++update) {
+            timestamp += SampleSeconds;
+            updateEstimator(estimator, timestamp, heading, positions);
+        }
+        return (double)(threads.getThreadAllocatedBytes(threadId) - before) / measuredUpdates;
+    }
+
+    private static void updateEstimator(
+        SwerveDrivePoseEstimator estimator,
+        double timestamp,
+        Rotation2d heading,
+        SwerveModulePosition[] positions) {
+        for (SwerveModulePosition position : positions) {
+            position.distanceMeters += SampleSeconds;
+        }
+        estimator.updateWithTime(timestamp, heading, positions);
+    }
+}
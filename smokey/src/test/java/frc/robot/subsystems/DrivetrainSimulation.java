@@ -0,0 +1,114 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: DrivetrainSimulation.java
+// Intent: Forms a test harness that steps the simulated drivetrain through the command scheduler.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.unmanaged.Unmanaged;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.control.SubsystemCollection;
+
+/**
+ * Owns one simulated drivetrain for the tests in this package.  The navx and the CAN devices register sim devices
+ * by name, so the subsystems are built once per test run and shared.  Time is paused and only moves when step is
+ * called, which runs one scheduler cycle - periodic and simulationPeriodic - and then advances 20ms.
+ */
+final class DrivetrainSimulation {
+    static final double CycleSeconds = 0.02;
+    // phoenix disables simulated motor output unless it is fed for longer than one cycle
+    static final int EnableFeedMilliseconds = 100;
+
+    private static DrivetrainSimulation instance;
+
+    private final SubsystemCollection subsystems = new SubsystemCollection();
+    private final DrivetrainSubsystem drivetrain;
+
+    private DrivetrainSimulation() {
+        subsystems.setCameraSubsystem(new CameraSubsystem());
+        drivetrain = new DrivetrainSubsystem(subsystems);
+        subsystems.setDriveTrainSubsystem(drivetrain);
+    }
+
+    /**
+     * Gets the shared simulation, starting the HAL and pausing time the first time it is used
+     * @return the shared simulation
+     */
+    static DrivetrainSimulation getInstance() {
+        if (instance == null) {
+            if (!HAL.initialize(500, 0)) {
+                throw new IllegalStateException("could not initialize the HAL");
+            }
+            SimHooks.pauseTiming();
+            instance = new DrivetrainSimulation();
+        }
+        return instance;
+    }
+
+    DrivetrainSubsystem getDrivetrain() {
+        return drivetrain;
+    }
+
+    /**
+     * Enables the simulated driver station and clears anything left scheduled by an earlier test
+     */
+    void enable() {
+        CommandScheduler.getInstance().cancelAll();
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.notifyNewData();
+    }
+
+    /**
+     * Cancels scheduled commands, stops the drive and disables the simulated driver station
+     */
+    void disable() {
+        CommandScheduler.getInstance().cancelAll();
+        drivetrain.drive(new ChassisSpeeds());
+        step(1);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+    }
+
+    /**
+     * Runs scheduler cycles, advancing simulated time by one cycle after each
+     * @param cycles the number of cycles to run
+     */
+    void step(int cycles) {
+        for (int cycle = 0; cycle < cycles; ++cycle) {
+            Unmanaged.feedEnable(EnableFeedMilliseconds);
+            CommandScheduler.getInstance().run();
+            SimHooks.stepTiming(CycleSeconds);
+        }
+    }
+
+    /**
+     * Schedules a command and runs cycles until it finishes or the timeout passes
+     * @param command the command to run
+     * @param timeoutSeconds the most simulated time to run for
+     * @return true if the command finished on its own before the timeout
+     */
+    boolean runUntilFinished(Command command, double timeoutSeconds) {
+        CommandScheduler.getInstance().schedule(command);
+        int maximumCycles = (int)Math.ceil(timeoutSeconds / CycleSeconds);
+        for (int cycle = 0; cycle < maximumCycles; ++cycle) {
+            step(1);
+            if (!CommandScheduler.getInstance().isScheduled(command)) {
+                return true;
+            }
+        }
+        CommandScheduler.getInstance().cancel(command);
+        return false;
+    }
+}
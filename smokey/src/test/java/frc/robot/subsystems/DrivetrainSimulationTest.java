@@ -0,0 +1,106 @@
+// ************************************************************
+// Bishop Blanchet Robotics
+// Home of the Cybears
+// FRC - Charged Up - 2023
+// File: DrivetrainSimulationTest.java
+// Intent: Forms tests that drive the simulated drivetrain through the command scheduler.
+// ************************************************************
+
+// ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ ʕ •ᴥ•ʔ ʕ•ᴥ•  ʔ ʕ  •ᴥ•ʔ ʕ •`ᴥ´•ʔ ʕ° •° ʔ
+
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.trajectory.Trajectory;
+import frc.robot.Constants;
+import frc.robot.commands.DriveTrajectoryCommand;
+import frc.robot.common.SwerveTrajectoryGenerator;
+
+/**
+ * Drives the simulated robot with SimHooks controlling time, so the same periodic, odometry and module code that
+ * runs on the robot is exercised at a repeatable 50Hz.
+ */
+public class DrivetrainSimulationTest {
+    // well clear of the charge station so the simulated floor stays level
+    private static final Pose2d StartPosition = new Pose2d(2.0, 1.0, Rotation2d.fromDegrees(0.0));
+    private static final double DriveVelocityMetersPerSecond = 1.0;
+    private static final double DriveSeconds = 2.0;
+    // the drive ramps up and down under the acceleration limit, so allow for the distance lost doing so
+    private static final double StraightDriveToleranceMeters = 0.25;
+    private static final double HeadingToleranceDegrees = 3.0;
+
+    private DrivetrainSimulation simulation;
+    private DrivetrainSubsystem drivetrain;
+
+    @BeforeEach
+    public void setUp() {
+        simulation = DrivetrainSimulation.getInstance();
+        drivetrain = simulation.getDrivetrain();
+        simulation.enable();
+        drivetrain.drive(new ChassisSpeeds());
+        drivetrain.setRobotPosition(StartPosition);
+        // let the modules settle on the new position
+        simulation.step(5);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        simulation.disable();
+    }
+
+    @Test
+    public void stoppedRobotHoldsItsPosition() {
+        simulation.step(50);
+
+        Pose2d position = drivetrain.getRobotPosition();
+        assertEquals(StartPosition.getX(), position.getX(), 0.01);
+        assertEquals(StartPosition.getY(), position.getY(), 0.01);
+        assertEquals(0.0, position.getRotation().getDegrees(), 0.5);
+    }
+
+    @Test
+    public void drivesForwardAtCommandedVelocity() {
+        drivetrain.drive(new ChassisSpeeds(DriveVelocityMetersPerSecond, 0.0, 0.0));
+        simulation.step((int)Math.round(DriveSeconds / DrivetrainSimulation.CycleSeconds));
+        drivetrain.drive(new ChassisSpeeds());
+        simulation.step(25);
+
+        Pose2d position = drivetrain.getRobotPosition();
+        double expectedX = StartPosition.getX() + DriveVelocityMetersPerSecond * DriveSeconds;
+        assertEquals(expectedX, position.getX(), StraightDriveToleranceMeters);
+        assertEquals(StartPosition.getY(), position.getY(), 0.1);
+        assertEquals(0.0, position.getRotation().getDegrees(), HeadingToleranceDegrees);
+    }
+
+    @Test
+    public void trajectoryCommandFinishesAtTheEndPose() {
+        ArrayList<Pose2d> waypoints = new ArrayList<Pose2d>();
+        waypoints.add(StartPosition);
+        waypoints.add(new Pose2d(3.5, 1.5, Rotation2d.fromDegrees(45.0)));
+        Trajectory trajectory = SwerveTrajectoryGenerator.generateTrajectory(waypoints, DrivetrainSubsystem.createTrajectoryConfig());
+
+        DriveTrajectoryCommand command = new DriveTrajectoryCommand(drivetrain, trajectory);
+        boolean finished = simulation.runUntilFinished(command, trajectory.getTotalTimeSeconds() + 2.0);
+        assertTrue(finished, "the trajectory command did not finish");
+
+        Pose2d end = trajectory.sample(trajectory.getTotalTimeSeconds()).poseMeters;
+        Pose2d position = drivetrain.getRobotPosition();
+        assertEquals(end.getX(), position.getX(), Constants.TrajectoryPoseTol.getX());
+        assertEquals(end.getY(), position.getY(), Constants.TrajectoryPoseTol.getY());
+        assertEquals(
+            end.getRotation().getDegrees(),
+            position.getRotation().getDegrees(),
+            Constants.TrajectoryPoseTol.getRotation().getDegrees());
+    }
+}
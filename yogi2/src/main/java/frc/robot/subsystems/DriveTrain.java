@@ -427,16 +427,16 @@ public class DriveTrain extends SubsystemBase implements Sendable
     leftFrontEncoder = leftFront.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
 
     leftRear.setIdleMode(IdleMode.kBrake);
-    leftRearPidController = leftFront.getPIDController();
-    leftRearEncoder = leftFront.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
+    leftRearPidController = leftRear.getPIDController();
+    leftRearEncoder = leftRear.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
 
     rightFront.setIdleMode(IdleMode.kBrake);
-    rightFrontPidController = leftFront.getPIDController();
-    rightFrontEncoder = leftFront.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
+    rightFrontPidController = rightFront.getPIDController();
+    rightFrontEncoder = rightFront.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
 
     rightRear.setIdleMode(IdleMode.kBrake);
-    rightRearPidController = leftFront.getPIDController();
-    rightRearEncoder = leftFront.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
+    rightRearPidController = rightRear.getPIDController();
+    rightRearEncoder = rightRear.getEncoder(SparkMaxRelativeEncoder.Type.kHallSensor, Constants.countPerRevHallSensor);
 
     if(doSmartMotionSetup)
     {